@@ -16,6 +16,8 @@ import com.sap.iot.azure.ref.device.management.model.cloudevents.SAPIoTCloudEven
 import com.sap.iot.azure.ref.device.management.output.DeviceManagementStatusWriter;
 import com.sap.iot.azure.ref.device.management.util.Constants;
 import com.sap.iot.azure.ref.integration.commons.context.InvocationContext;
+import com.sap.iot.azure.ref.integration.commons.executor.StageExecutors;
+import com.sap.iot.azure.ref.integration.commons.logging.StructuredLog;
 import io.cloudevents.Attributes;
 import io.cloudevents.CloudEvent;
 import io.cloudevents.json.Json;
@@ -26,6 +28,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.stream.Collectors;
 
@@ -81,9 +84,8 @@ public class DeviceManagementFunction {
 
         try {
 
-            InvocationContext.getLogger().finer(() ->
-                    "Incoming device management messages: [" +
-                            deviceManagementMessages.stream().map(msg -> new String(msg, StandardCharsets.UTF_8)).collect(Collectors.joining(",")) + "]");
+            StructuredLog.log(Level.FINER, "Incoming device management messages", "messages", (Supplier<String>) () ->
+                    deviceManagementMessages.stream().map(msg -> new String(msg, StandardCharsets.UTF_8)).collect(Collectors.joining(",")));
 
             List<CompletableFuture<Void>> deviceStatusSendFutures = new ArrayList<>();
 
@@ -117,8 +119,8 @@ public class DeviceManagementFunction {
                                     .sourceEventSequenceNumber(sapIoTAbstractionExtension.getSequenceNumber())
                                     .sourceEventType(SAPIoTCloudEventType.ofValue(deviceManagementEvent.getAttributes().getType()))
                                     .build();
-                        })
-                        .thenComposeAsync(deviceManagementStatusWriter)
+                        }, StageExecutors.cpu().contextual())
+                        .thenComposeAsync(deviceManagementStatusWriter, StageExecutors.cpu().contextual())
                         .exceptionally(ex -> {
                             // error in processing single device management request message and will continue to processing other messages in the batch
                             logNonTransientError(String.format("Error in handling device management request with Message Body - %s", Json.encode(deviceManagementEvent)),
@@ -14,6 +14,8 @@ import com.sap.iot.azure.ref.integration.commons.api.Processor;
 import com.sap.iot.azure.ref.integration.commons.context.InvocationContext;
 import com.sap.iot.azure.ref.integration.commons.exception.IdentifierUtil;
 import com.sap.iot.azure.ref.integration.commons.exception.base.IoTRuntimeException;
+import com.sap.iot.azure.ref.integration.commons.executor.StageExecutors;
+import com.sap.iot.azure.ref.integration.commons.logging.StructuredLog;
 import io.cloudevents.Attributes;
 import io.cloudevents.CloudEvent;
 import org.apache.commons.lang3.exception.ExceptionUtils;
@@ -64,7 +66,7 @@ public class DeviceManagementEventHandler implements Processor<CloudEvent<Attrib
 
         return deviceManagementFuture.handleAsync((deviceAlias, ex) -> {
 
-            InvocationContext.getLogger().log(Level.INFO, "Completed processing for device " + deviceInfo.getDeviceId());
+            StructuredLog.log(Level.INFO, "Completed processing for device", "deviceId", deviceInfo.getDeviceId());
             if (ex == null) {
                 // device management is successful
                 return DeviceManagementStatus.builder()
@@ -94,6 +96,6 @@ public class DeviceManagementEventHandler implements Processor<CloudEvent<Attrib
                         .error(error)
                         .build();
             }
-        });
+        }, StageExecutors.cpu().contextual());
     }
 }
\ No newline at end of file
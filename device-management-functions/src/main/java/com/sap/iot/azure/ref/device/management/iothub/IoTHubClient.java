@@ -11,6 +11,7 @@ import com.sap.iot.azure.ref.device.management.exception.DeviceManagementExcepti
 import com.sap.iot.azure.ref.device.management.model.DeviceInfo;
 import com.sap.iot.azure.ref.integration.commons.context.InvocationContext;
 import com.sap.iot.azure.ref.integration.commons.exception.IdentifierUtil;
+import com.sap.iot.azure.ref.integration.commons.executor.StageExecutors;
 import com.sap.iot.azure.ref.integration.commons.retry.RetryTaskExecutor;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 
@@ -46,7 +47,7 @@ public class IoTHubClient {
 			// can throw illegalArgException in case device id is empty
 			try {
 				Device device = Device.createFromId(deviceInfo.getDeviceId(), null, null);
-				return registryManager.addDeviceAsync(device).handleAsync(this.applyExceptionFilter(deviceInfo));
+				return registryManager.addDeviceAsync(device).handleAsync(this.applyExceptionFilter(deviceInfo), StageExecutors.cpu().contextual());
 			} catch (IllegalArgumentException ex) {
 				throw new DeviceManagementException("Invalid device id",  DeviceManagementErrorType.IOTHUB_ERROR, IdentifierUtil.getIdentifier("deviceId",
 						deviceInfo.getDeviceId()), false);
@@ -64,12 +65,12 @@ public class IoTHubClient {
 	public CompletableFuture<Device> updateDevice(DeviceInfo deviceInfo) {
 
 		return retryTaskExecutor.executeWithRetry(() -> registryManager.getDeviceAsync(deviceInfo.getDeviceId())
-				.handleAsync(this.applyExceptionFilter(deviceInfo)), MAX_RETRIES);
+				.handleAsync(this.applyExceptionFilter(deviceInfo), StageExecutors.cpu().contextual()), MAX_RETRIES);
 	}
 
 	public CompletableFuture<Device> deleteDevice(DeviceInfo deviceInfo) {
 		return retryTaskExecutor.executeWithRetry(() -> registryManager.removeDeviceAsync(deviceInfo.getDeviceId())
-				.handleAsync(this.applyExceptionFilterForDelete(deviceInfo)), MAX_RETRIES);
+				.handleAsync(this.applyExceptionFilterForDelete(deviceInfo), StageExecutors.cpu().contextual()), MAX_RETRIES);
 	}
 
 	/**
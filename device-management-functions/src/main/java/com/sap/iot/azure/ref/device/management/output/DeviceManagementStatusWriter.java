@@ -8,7 +8,10 @@ import com.sap.iot.azure.ref.device.management.model.cloudevents.SAPIoTCloudEven
 import com.sap.iot.azure.ref.device.management.util.Constants;
 import com.sap.iot.azure.ref.integration.commons.api.Processor;
 import com.sap.iot.azure.ref.integration.commons.connection.EventHubClientFactory;
+import com.sap.iot.azure.ref.integration.commons.connection.EventHubClientPool;
 import com.sap.iot.azure.ref.integration.commons.eventhub.BaseEventHubProcessor;
+import com.sap.iot.azure.ref.integration.commons.eventhub.sink.EventSink;
+import com.sap.iot.azure.ref.integration.commons.eventhub.sink.EventSinkFactory;
 import com.sap.iot.azure.ref.integration.commons.exception.IdentifierUtil;
 import com.sap.iot.azure.ref.integration.commons.exception.base.IoTRuntimeException;
 import com.google.common.annotations.VisibleForTesting;
@@ -31,9 +34,14 @@ import java.util.concurrent.CompletableFuture;
 public class DeviceManagementStatusWriter extends BaseEventHubProcessor<DeviceManagementStatusInfo> implements Processor<DeviceManagementStatusInfo, CompletableFuture<Void>> {
 
     private static final String CONNECTION_STRING = System.getenv(Constants.DEVICE_MANAGEMENT_STATUS_CONNECTION_STRING_PROP);
+    private static final String SINK_NAME = "device-management-status";
 
     public DeviceManagementStatusWriter() {
-        this(new EventHubClientFactory().getEhClient(CONNECTION_STRING));
+        this(new EventSinkFactory().getSink(SINK_NAME, () -> EventHubClientPool.of(new EventHubClientFactory().getEhClient(CONNECTION_STRING))));
+    }
+
+    private DeviceManagementStatusWriter(EventSink eventSink) {
+        super(eventSink);
     }
 
     @VisibleForTesting
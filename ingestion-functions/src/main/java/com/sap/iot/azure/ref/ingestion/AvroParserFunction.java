@@ -16,6 +16,7 @@ import com.sap.iot.azure.ref.ingestion.util.Constants;
 import com.sap.iot.azure.ref.integration.commons.constants.CommonConstants;
 import com.sap.iot.azure.ref.integration.commons.context.InvocationContext;
 import com.sap.iot.azure.ref.integration.commons.exception.base.IoTRuntimeException;
+import com.sap.iot.azure.ref.integration.commons.executor.StageExecutors;
 import com.sap.iot.azure.ref.integration.commons.metrics.MetricsClient;
 import com.sap.iot.azure.ref.integration.commons.retry.RetryTaskExecutor;
 
@@ -23,7 +24,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
-import java.util.function.Supplier;
 import java.util.logging.Level;
 
 import static com.sap.iot.azure.ref.ingestion.util.Constants.*;
@@ -58,6 +58,7 @@ public class AvroParserFunction {
      * and deserialized into a map of sourceId & list of processedMessages and sent to the downstream ADXEventHub using the {@link ADXEventHubProcessor}.
      *
      * @param avroMessages,     incoming message payload in AVRO binary format
+     * @param properties,       application properties, including the partition key of messages sent to a partition
      * @param systemProperties, system properties including message header information, such as the PartitionKey
      * @param context,          invocation context of the current Azure Function invocation
      */
@@ -70,13 +71,14 @@ public class AvroParserFunction {
                     cardinality = Cardinality.MANY,
                     dataType = CommonConstants.TRIGGER_EVENT_HUB_DATA_TYPE_BINARY)
                     List<byte[]> avroMessages,
+            @BindingName(value = CommonConstants.TRIGGER_PROPERTIES_ARRAY_NAME) Map<String, Object>[] properties,
             @BindingName(value = CommonConstants.TRIGGER_SYSTEM_PROPERTIES_ARRAY_NAME) Map<String, Object>[] systemProperties,
             @BindingName(value = CommonConstants.PARTITION_CONTEXT) Map<String, Object> partitionContext,
             final ExecutionContext context) {
         JsonNode batchDetails = InvocationContext.getInvocationBatchInfo(partitionContext, systemProperties);
         try {
             InvocationContext.setupInvocationContext(context);
-            retryTaskExecutor.executeWithRetry(() -> processMessages(avroMessages, systemProperties), Constants.MAX_RETRIES).join();
+            retryTaskExecutor.executeWithRetry(() -> processMessages(avroMessages, properties, systemProperties), Constants.MAX_RETRIES).join();
         } catch (IoTRuntimeException e) {
             e.addIdentifiers((ObjectNode) batchDetails);
             throw e;
@@ -92,13 +94,15 @@ public class AvroParserFunction {
      * all processes in this method happens in a async thread so that any exception can be caught by the catchExceptionally block
      *
      * @param messages,         list of Avro messages
+     * @param properties,       application properties
      * @param systemProperties, system properties
      * @return completable future for processing the incoming message asynchronously
      */
-    private CompletableFuture<Void> processMessages(List<byte[]> messages, Map<String, Object>[] systemProperties) {
+    private CompletableFuture<Void> processMessages(List<byte[]> messages, Map<String, Object>[] properties, Map<String, Object>[] systemProperties) {
 
-        return CompletableFuture.supplyAsync(InvocationContext.withContext((Supplier<Void>) () ->
-                CompletableFuture.allOf(avroMessageService.createProcessedMessage(messages, systemProperties)
+        // parsing the Avro messages is CPU-bound; the sends are awaited without blocking a thread of the stage
+        return StageExecutors.cpu().supplyAsync(() -> avroMessageService.createProcessedMessage(messages, properties, systemProperties))
+                .thenCompose(processedMessages -> CompletableFuture.allOf(processedMessages
                         .entrySet().stream()
                         .filter(Objects::nonNull)
                         .peek(entry -> {
@@ -106,8 +110,6 @@ public class AvroParserFunction {
                             // message can have multiple measurements
                             MetricsClient.trackMetric(MetricsClient.getMetricName("MessagesProcessed"), entry.getValue().getProcessedMessages().size());
                         })
-                        .map(messageGroup -> CompletableFuture.allOf(adxEventHubProcessor.apply(messageGroup))).toArray(CompletableFuture[]::new))
-                        .join()
-        ));
+                        .map(messageGroup -> CompletableFuture.allOf(adxEventHubProcessor.apply(messageGroup))).toArray(CompletableFuture[]::new)));
     }
 }
\ No newline at end of file
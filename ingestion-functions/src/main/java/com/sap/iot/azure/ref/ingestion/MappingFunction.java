@@ -14,14 +14,19 @@ import com.sap.iot.azure.ref.ingestion.exception.IngestionErrorType;
 import com.sap.iot.azure.ref.ingestion.exception.IngestionRuntimeException;
 import com.sap.iot.azure.ref.ingestion.model.device.mapping.DeviceMessage;
 import com.sap.iot.azure.ref.ingestion.model.timeseries.raw.DeviceMeasure;
+import com.sap.iot.azure.ref.ingestion.model.timeseries.raw.DeviceMeasureKey;
 import com.sap.iot.azure.ref.ingestion.output.ADXEventHubProcessor;
 import com.sap.iot.azure.ref.ingestion.output.ProcessedTimeSeriesEventHubProcessor;
 import com.sap.iot.azure.ref.ingestion.processing.DeviceToProcessedMessageProcessor;
 import com.sap.iot.azure.ref.ingestion.util.Constants;
 import com.sap.iot.azure.ref.integration.commons.context.InvocationContext;
+import com.sap.iot.azure.ref.integration.commons.eventhub.CoalescingEventHubSender;
 import com.sap.iot.azure.ref.integration.commons.exception.base.IoTRuntimeException;
+import com.sap.iot.azure.ref.integration.commons.executor.StageExecutors;
+import com.sap.iot.azure.ref.integration.commons.logging.StructuredLog;
 import com.sap.iot.azure.ref.integration.commons.metrics.MetricsClient;
 import com.sap.iot.azure.ref.integration.commons.model.base.eventhub.SystemProperties;
+import com.sap.iot.azure.ref.integration.commons.model.timeseries.processed.ProcessedMessageContainer;
 import com.sap.iot.azure.ref.integration.commons.retry.RetryTaskExecutor;
 
 import java.time.Instant;
@@ -141,44 +146,39 @@ public class MappingFunction {
      */
     private CompletableFuture<Void> processMessages(List<String> messages, Map<String, Object>[] systemProperties) {
 
-        return CompletableFuture.supplyAsync(InvocationContext.withContext((Supplier<Void>) () -> {
-            getDeviceMessages(messages, systemProperties)
+        return StageExecutors.io().supplyAsync(() -> {
+            // event data of all message groups is coalesced per partition key and sent once all groups are processed
+            CoalescingEventHubSender processedTimeSeriesSender = processedTimeSeriesEventHubProcessor.createSender();
+            CoalescingEventHubSender adxSender = adxEventHubProcessor.createSender();
+
+            Map<DeviceMeasureKey, List<DeviceMeasure>> deviceMeasureGroups = getDeviceMessages(messages, systemProperties)
                     .stream()
                     .map(devicePayloadMapper).filter(Objects::nonNull)
                     .flatMap(List::stream)
-                    .collect(Collectors.groupingBy(DeviceMeasure::getGroupingKey))
-                    .entrySet().parallelStream() // processing messages grouped by sourceId in parallel
-                    .map(deviceToProcessedMessageProcessor).filter(Objects::nonNull)
-                    .forEach(messageGroup -> {
-                        /*
-                         processed time series event hub processor converts the message to avro format, and send to Eventhub asynchronously
-                         if conversion to avro fails, then a null value is returned instead of future corresponding to EventHub send Async
-                         if null is returned, the data sent is not complying to SAP-defined AVRO schema, and the message will not be sent for ADX persistence
-                         */
-
-                        CompletableFuture<Void> avroConversionAndEventHubSendFuture = processedTimeSeriesEventHubProcessor.apply(messageGroup);
-
-                        // assumes to be completed, and is only triggered after successful avro conversion
-                        CompletableFuture<Void> adxEventHubSendFuture = CompletableFuture.completedFuture(null);
-
-                        if (avroConversionAndEventHubSendFuture == null) {
-                            // failed avro conversion is treated as permanent failure, and is logged to error (AppInsights)
-                            avroConversionAndEventHubSendFuture = CompletableFuture.completedFuture(null);
-                        } else {
-                            // trigger sending message to EventHub topic for ADX consumption
-                            adxEventHubSendFuture = adxEventHubProcessor.apply(messageGroup);
-                        }
-
-                        final CompletableFuture<Void> avroConversionAndEventHubSendFutureFinal = avroConversionAndEventHubSendFuture;
-                        final CompletableFuture<Void> adxEventHubSendFutureFinal = adxEventHubSendFuture;
-
-                        // wait for sending to EventHub to complete
-                        MetricsClient.timed(() -> CompletableFuture.allOf(avroConversionAndEventHubSendFutureFinal, adxEventHubSendFutureFinal).join(),
-                                "EventHubSendSync");
-                    });
+                    .collect(Collectors.groupingBy(DeviceMeasure::getGroupingKey));
+
+            // the cached mapping information of all message groups is looked up at once, pipelined if configured
+            DeviceToProcessedMessageProcessor processor = deviceToProcessedMessageProcessor.withCachedMappings(deviceMeasureGroups.keySet());
+
+            // processing messages grouped by sourceId in parallel on the io stage, since the mapping lookup may block on the cache or mapping APIs
+            StageExecutors.io().forEach(deviceMeasureGroups.entrySet(), deviceMeasureGroup -> {
+                Map.Entry<String, ProcessedMessageContainer> messageGroup = processor.apply(deviceMeasureGroup);
+                /*
+                 processed time series event hub processor converts the message to avro format
+                 if conversion to avro fails, the message group is skipped
+                 if the message group is skipped, the data sent is not complying to SAP-defined AVRO schema, and the message will not be sent for ADX persistence
+                 */
+                if (messageGroup != null && processedTimeSeriesEventHubProcessor.collect(processedTimeSeriesSender, messageGroup)) {
+                    // add message to EventHub topic for ADX consumption
+                    adxEventHubProcessor.collect(adxSender, messageGroup);
+                }
+            });
+
+            // wait for sending to EventHub to complete
+            MetricsClient.timed(() -> CompletableFuture.allOf(processedTimeSeriesSender.send(), adxSender.send()).join(), "EventHubSendSync");
 
             return null;
-        }));
+        });
     }
 
     private List<DeviceMessage> getDeviceMessages(List<String> messages, Map<String, Object>[] systemProperties) {
@@ -198,10 +198,20 @@ public class MappingFunction {
 
     private void trackProcessingLatency(Map<String, Object>[] messageProps) {
         long now = System.currentTimeMillis();
+        String metricName = MetricsClient.getMetricName("Latency");
+
+        // messages of a batch are often enqueued within the same millisecond, so the last parsed enqueued time is reused
+        String lastEnqueuedTime = null;
+        long lastEnqueuedAt = 0;
         for (Map<String, Object> messageProp : messageProps) {
-            if (!Objects.isNull(messageProp.get(IOT_HUB_ENQUEUED_TIME))) {
-                MetricsClient.trackMetric(MetricsClient.getMetricName("Latency"),
-                        now - Instant.parse(messageProp.get(IOT_HUB_ENQUEUED_TIME).toString()).toEpochMilli());
+            Object enqueuedTime = messageProp.get(IOT_HUB_ENQUEUED_TIME);
+            if (!Objects.isNull(enqueuedTime)) {
+                String enqueuedTimeString = enqueuedTime.toString();
+                if (!enqueuedTimeString.equals(lastEnqueuedTime)) {
+                    lastEnqueuedAt = Instant.parse(enqueuedTimeString).toEpochMilli();
+                    lastEnqueuedTime = enqueuedTimeString;
+                }
+                MetricsClient.trackHistogram(metricName, now - lastEnqueuedAt);
             }
         }
     }
@@ -223,9 +233,9 @@ public class MappingFunction {
     }
 
     private void trackProcessingOffset(Map<String, Object> partitionContext, Map<String, Object>[] systemProperties) {
-        if (InvocationContext.getLogger().isLoggable(Level.FINE) && MetricsClient.PERF_METRICS_ENABLED) {
-            JsonNode batchDetails = InvocationContext.getInvocationBatchInfo(partitionContext, systemProperties);
-            InvocationContext.getLogger().log(Level.FINE, "OFFSET_MONITOR: " + batchDetails.toString());
+        if (MetricsClient.PERF_METRICS_ENABLED) {
+            StructuredLog.log(Level.FINE, "OFFSET_MONITOR", "batch",
+                    (Supplier<JsonNode>) () -> InvocationContext.getInvocationBatchInfo(partitionContext, systemProperties));
         }
     }
 }
@@ -13,8 +13,12 @@ import com.sap.iot.azure.ref.integration.commons.connection.EventHubClientFactor
 import com.sap.iot.azure.ref.integration.commons.constants.CommonConstants;
 import com.sap.iot.azure.ref.integration.commons.context.InvocationContext;
 import com.sap.iot.azure.ref.integration.commons.eventhub.BaseEventHubProcessor;
+import com.sap.iot.azure.ref.integration.commons.eventhub.sink.EventSink;
+import com.sap.iot.azure.ref.integration.commons.eventhub.sink.EventSinkFactory;
+import com.sap.iot.azure.ref.integration.commons.eventhub.CoalescingEventHubSender;
 import com.sap.iot.azure.ref.integration.commons.model.timeseries.processed.ProcessedMessage;
 import com.sap.iot.azure.ref.integration.commons.model.timeseries.processed.ProcessedMessageContainer;
+import com.sap.iot.azure.ref.integration.commons.util.EnvUtils;
 
 import java.time.Instant;
 import java.util.ArrayList;
@@ -27,15 +31,32 @@ public class ADXEventHubProcessor extends BaseEventHubProcessor<ProcessedMessage
         CompletableFuture<Void>> {
 
     private static final String CONNECTION_STRING = System.getenv(Constants.ADX_SOURCE_CONNECTION_STRING_PROP);
+    private static final String SINK_NAME = "adx-timeseries";
     private static final ObjectMapper objectMapper = new ObjectMapper();
+    // max size of a compressed body; the message properties are covered by the AMQP header allowance
+    private static final int MAX_BODY_BYTES = CommonConstants.EVENTHUB_MAX_MESSAGE_SIZE_BYTES - CommonConstants.EVENTHUB_AMQP_HEADER_ALLOWANCE_BYTES;
+
+    // null if the bodies are sent uncompressed
+    private final ADXPayloadCompressor payloadCompressor;
 
     public ADXEventHubProcessor() {
-        this(new EventHubClientFactory().getEhClient(CONNECTION_STRING));
+        this(new EventSinkFactory().getSink(SINK_NAME, () -> new EventHubClientFactory().getEhClientPool(CONNECTION_STRING)));
+    }
+
+    private ADXEventHubProcessor(EventSink eventSink) {
+        super(eventSink);
+        this.payloadCompressor = createPayloadCompressor();
     }
 
     @VisibleForTesting
     ADXEventHubProcessor(CompletableFuture<EventHubClient> eventHubClientFuture) {
+        this(eventHubClientFuture, null);
+    }
+
+    @VisibleForTesting
+    ADXEventHubProcessor(CompletableFuture<EventHubClient> eventHubClientFuture, ADXPayloadCompressor payloadCompressor) {
         super(eventHubClientFuture);
+        this.payloadCompressor = payloadCompressor;
     }
 
     /**
@@ -51,29 +72,54 @@ public class ADXEventHubProcessor extends BaseEventHubProcessor<ProcessedMessage
         return super.process(processedMessageGroup.getValue(), processedMessageGroup.getKey());
     }
 
+    /**
+     * Adds a single group of processed messages to the given sender for the ADX source Event Hub with the key as partition key. Groups with the
+     * same key are coalesced into the same batches when the sender is sent.
+     *
+     * @param sender         sender created with {@link #createSender()}
+     * @param messageGroup   processed messages in application model
+     * @return true if the group was added, false if the group was skipped due to a permanent failure
+     */
+    public boolean collect(CoalescingEventHubSender sender, Map.Entry<String, ProcessedMessageContainer> messageGroup) {
+        return super.collect(sender, messageGroup.getValue(), messageGroup.getKey());
+    }
+
+    /**
+     * Creates one event data per measure. If the payload compression is enabled, the measures of the container, which all belong to the same
+     * ADX table, are packed into GZip compressed event data instead.
+     *
+     * @param processedMessageContainer processed messages of a single structure
+     * @return list of event data
+     */
     @Override
     protected List<EventData> createEventData(ProcessedMessageContainer processedMessageContainer) {
-        List<EventData> eventDataList = new ArrayList<>();
+        List<byte[]> records = new ArrayList<>();
+        String structureId = processedMessageContainer.getStructureId();
 
         for (ProcessedMessage processedMessage : processedMessageContainer.getProcessedMessages()) {
             String sourceId = processedMessage.getSourceId();
-            String structureId = processedMessageContainer.getStructureId();
             Map<String, String> tags = processedMessage.getTags();
 
             // ProcessedMessage measures always has one measure
             processedMessage.getMeasures().forEach(measure -> {
                 try {
-                    eventDataList.add(convertToEventData(measure, sourceId, structureId, tags));
+                    records.add(convertToRecord(measure, sourceId, tags));
                 } catch (JsonProcessingException e) {
                     InvocationContext.getLogger().log(Level.SEVERE, "Unable to create Event Data from message", e);
                 }
             });
         }
 
+        List<byte[]> bodies = payloadCompressor == null ? records : payloadCompressor.pack(records);
+        List<EventData> eventDataList = new ArrayList<>(bodies.size());
+        for (byte[] body : bodies) {
+            eventDataList.add(convertToEventData(body, structureId));
+        }
+
         return eventDataList;
     }
 
-    private EventData convertToEventData(Map<String, Object> measure, String sourceId, String structureId, Map<String, String> tags) throws JsonProcessingException {
+    private byte[] convertToRecord(Map<String, Object> measure, String sourceId, Map<String, String> tags) throws JsonProcessingException {
         ObjectNode adxMessage = objectMapper.createObjectNode();
 
         String timestamp = Instant.ofEpochMilli(Long.parseLong(measure.get(CommonConstants.TIMESTAMP_PROPERTY_KEY).toString())).toString();
@@ -90,7 +136,11 @@ public class ADXEventHubProcessor extends BaseEventHubProcessor<ProcessedMessage
         //Add Measurements to measure
         adxMessage.set(ADXConstants.MEASUREMENTS_PROPERTY_KEY, adxMeasurements);
 
-        EventData eventData = EventData.create(objectMapper.writeValueAsBytes(adxMessage));
+        return objectMapper.writeValueAsBytes(adxMessage);
+    }
+
+    private EventData convertToEventData(byte[] body, String structureId) {
+        EventData eventData = EventData.create(body);
 
         //Add ADX Mapping Info
         String tableName = ADXConstants.TABLE_PREFIX + structureId;
@@ -100,4 +150,14 @@ public class ADXEventHubProcessor extends BaseEventHubProcessor<ProcessedMessage
 
         return eventData;
     }
+
+    private static ADXPayloadCompressor createPayloadCompressor() {
+        if (!Constants.ADX_PAYLOAD_COMPRESSION_GZIP.equalsIgnoreCase(EnvUtils.getEnv(Constants.ADX_PAYLOAD_COMPRESSION_PROP,
+                Constants.ADX_PAYLOAD_COMPRESSION_NONE))) {
+            return null;
+        }
+
+        return new ADXPayloadCompressor(EnvUtils.getEnv(Constants.ADX_PAYLOAD_COMPRESSION_LEVEL_PROP, Constants.ADX_PAYLOAD_COMPRESSION_LEVEL_DEFAULT),
+                MAX_BODY_BYTES);
+    }
 }
@@ -0,0 +1,101 @@
+package com.sap.iot.azure.ref.ingestion.output;
+
+import com.sap.iot.azure.ref.integration.commons.exception.CommonErrorType;
+import com.sap.iot.azure.ref.integration.commons.exception.IdentifierUtil;
+import com.sap.iot.azure.ref.integration.commons.exception.base.IoTRuntimeException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Packs ADX records (single line JSON objects) into GZip compressed bodies, which are ingested by an ADX Event Hub data connection with
+ * GZip compression.
+ * <p>
+ * Consecutive records are packed into the same body, separated by a line break, so that the column names repeated in every record are
+ * compressed away. A body is packed from records up to an assumed compression ratio of the max body size; bodies exceeding the max body
+ * size after compression are split until they fit. A single record exceeding the max body size after compression is returned as its own
+ * body, which the Event Hub batching rejects as too large.
+ */
+class ADXPayloadCompressor {
+
+    // raw size of a body relative to the max body size; JSON records typically compress by a factor of 8 to 15
+    private static final int ASSUMED_COMPRESSION_RATIO = 8;
+    private static final byte RECORD_SEPARATOR = '\n';
+
+    private final int compressionLevel;
+    private final int maxBodyBytes;
+
+    ADXPayloadCompressor(int compressionLevel, int maxBodyBytes) {
+        this.compressionLevel = Math.max(Deflater.BEST_SPEED, Math.min(compressionLevel, Deflater.BEST_COMPRESSION));
+        this.maxBodyBytes = maxBodyBytes;
+    }
+
+    /**
+     * Packs the given records into compressed bodies, keeping their order.
+     *
+     * @param records serialized records
+     * @return compressed bodies
+     */
+    List<byte[]> pack(List<byte[]> records) {
+        List<byte[]> bodies = new ArrayList<>();
+        long rawBudget = (long) maxBodyBytes * ASSUMED_COMPRESSION_RATIO;
+
+        int from = 0;
+        long rawBytes = 0;
+        for (int i = 0; i < records.size(); i++) {
+            if (i > from && rawBytes + records.get(i).length + 1 > rawBudget) {
+                packRange(records, from, i, bodies);
+                from = i;
+                rawBytes = 0;
+            }
+            rawBytes += records.get(i).length + 1;
+        }
+
+        if (from < records.size()) {
+            packRange(records, from, records.size(), bodies);
+        }
+
+        return bodies;
+    }
+
+    private void packRange(List<byte[]> records, int from, int to, List<byte[]> bodies) {
+        byte[] body = compress(records, from, to);
+        if (body.length <= maxBodyBytes || to - from == 1) {
+            bodies.add(body);
+            return;
+        }
+
+        int middle = (from + to) >>> 1;
+        packRange(records, from, middle, bodies);
+        packRange(records, middle, to, bodies);
+    }
+
+    private byte[] compress(List<byte[]> records, int from, int to) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (OutputStream gzipOutputStream = new LeveledGZIPOutputStream(body, compressionLevel)) {
+            for (int i = from; i < to; i++) {
+                if (i > from) {
+                    gzipOutputStream.write(RECORD_SEPARATOR);
+                }
+                gzipOutputStream.write(records.get(i));
+            }
+        } catch (IOException e) {
+            // not expected for in-memory streams
+            throw IoTRuntimeException.wrapNonTransient(IdentifierUtil.empty(), CommonErrorType.EVENT_HUB_ERROR, "Unable to compress ADX payload", e);
+        }
+
+        return body.toByteArray();
+    }
+
+    private static final class LeveledGZIPOutputStream extends GZIPOutputStream {
+        private LeveledGZIPOutputStream(OutputStream out, int compressionLevel) throws IOException {
+            super(out);
+            def.setLevel(compressionLevel);
+        }
+    }
+}
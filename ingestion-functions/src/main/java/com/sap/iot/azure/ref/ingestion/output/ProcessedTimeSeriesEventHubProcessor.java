@@ -11,6 +11,9 @@ import com.sap.iot.azure.ref.integration.commons.avro.AvroHelper;
 import com.sap.iot.azure.ref.integration.commons.connection.EventHubClientFactory;
 import com.sap.iot.azure.ref.integration.commons.constants.CommonConstants;
 import com.sap.iot.azure.ref.integration.commons.eventhub.BaseEventHubProcessor;
+import com.sap.iot.azure.ref.integration.commons.eventhub.sink.EventSink;
+import com.sap.iot.azure.ref.integration.commons.eventhub.sink.EventSinkFactory;
+import com.sap.iot.azure.ref.integration.commons.eventhub.CoalescingEventHubSender;
 import com.sap.iot.azure.ref.integration.commons.exception.CommonErrorType;
 import com.sap.iot.azure.ref.integration.commons.exception.IdentifierUtil;
 import com.sap.iot.azure.ref.integration.commons.exception.base.IoTRuntimeException;
@@ -31,9 +34,15 @@ public class ProcessedTimeSeriesEventHubProcessor extends BaseEventHubProcessor<
         CompletableFuture<Void>> {
 
     private static final String CONNECTION_STRING = System.getenv(Constants.PROCESSED_TIME_SERIES_CONNECTION_STRING_PROP);
+    private static final String SINK_NAME = "processed-timeseries";
 
     public ProcessedTimeSeriesEventHubProcessor() {
-        this(new EventHubClientFactory().getEhClient(CONNECTION_STRING));
+        this(new EventSinkFactory().getSink(SINK_NAME, () -> new EventHubClientFactory().getEhClientPool(CONNECTION_STRING)));
+    }
+
+    @VisibleForTesting
+    ProcessedTimeSeriesEventHubProcessor(EventSink eventSink) {
+        super(eventSink);
     }
 
     @VisibleForTesting
@@ -54,6 +63,18 @@ public class ProcessedTimeSeriesEventHubProcessor extends BaseEventHubProcessor<
         return super.process(processedMessage.getValue(), processedMessage.getKey());
     }
 
+    /**
+     * Adds a single group of processed messages to the given sender for the Processed Time Series Event Hub with the key as partition key. Groups with the
+     * same key are coalesced into the same batches when the sender is sent.
+     *
+     * @param sender         sender created with {@link #createSender()}
+     * @param messageGroup   processed messages in application model
+     * @return true if the group was added, false if the group was skipped due to a permanent failure
+     */
+    public boolean collect(CoalescingEventHubSender sender, Map.Entry<String, ProcessedMessageContainer> messageGroup) {
+        return super.collect(sender, messageGroup.getValue(), messageGroup.getKey());
+    }
+
     @Override
     protected List<EventData> createEventData(ProcessedMessageContainer processedMessageContainer) {
         List<EventData> eventDataList = new LinkedList<>();
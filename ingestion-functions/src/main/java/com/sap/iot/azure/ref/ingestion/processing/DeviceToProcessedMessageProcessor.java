@@ -2,28 +2,34 @@ package com.sap.iot.azure.ref.ingestion.processing;
 
 import com.google.common.collect.Maps;
 import com.sap.iot.azure.ref.ingestion.exception.IngestionRuntimeException;
+import com.sap.iot.azure.ref.integration.commons.logging.StructuredLog;
 import com.sap.iot.azure.ref.integration.commons.mapping.MappingHelper;
+import com.sap.iot.azure.ref.integration.commons.model.mapping.PropertyProjection;
 import com.sap.iot.azure.ref.integration.commons.model.mapping.SensorMappingInfo;
-import com.sap.iot.azure.ref.integration.commons.model.mapping.cache.PropertyMapping;
 import com.sap.iot.azure.ref.ingestion.model.timeseries.raw.DeviceMeasure;
 import com.sap.iot.azure.ref.ingestion.model.timeseries.raw.DeviceMeasureKey;
 import com.sap.iot.azure.ref.ingestion.util.Constants;
 import com.sap.iot.azure.ref.integration.commons.api.ProcessorWithPerfMetrics;
-import com.sap.iot.azure.ref.integration.commons.context.InvocationContext;
 import com.sap.iot.azure.ref.integration.commons.exception.base.IoTRuntimeException;
+import com.sap.iot.azure.ref.integration.commons.executor.StageExecutors;
 import com.sap.iot.azure.ref.integration.commons.model.mapping.cache.Tag;
 import com.sap.iot.azure.ref.integration.commons.model.timeseries.processed.ProcessedMessage;
 import com.sap.iot.azure.ref.integration.commons.model.timeseries.processed.ProcessedMessageContainer;
 
+import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.stream.Collectors;
 
 public class DeviceToProcessedMessageProcessor implements ProcessorWithPerfMetrics<Map.Entry<DeviceMeasureKey, List<DeviceMeasure>>, Map.Entry<String, ProcessedMessageContainer>> {
     private final MappingHelper mappingHelper;
+    // lookups of the cached mapping information started ahead of processing, by group
+    private final Map<DeviceMeasureKey, CompletableFuture<Optional<SensorMappingInfo>>> cachedMappings;
 
     public DeviceToProcessedMessageProcessor() {
         this(new MappingHelper());
@@ -31,7 +37,30 @@ public class DeviceToProcessedMessageProcessor implements ProcessorWithPerfMetri
 
     // visible for testing
     DeviceToProcessedMessageProcessor(MappingHelper mappingHelper) {
+        this(mappingHelper, Collections.emptyMap());
+    }
+
+    private DeviceToProcessedMessageProcessor(MappingHelper mappingHelper,
+                                              Map<DeviceMeasureKey, CompletableFuture<Optional<SensorMappingInfo>>> cachedMappings) {
         this.mappingHelper = mappingHelper;
+        this.cachedMappings = cachedMappings;
+    }
+
+    /**
+     * Returns a processor for the given groups of device measures, which has started the lookup of the cached mapping information of all
+     * groups ({@link MappingHelper#getCachedSensorMappingAsync(String, String)}). With the pipelined cache access, the lookups of all groups
+     * are in flight at the same time without holding a thread each. Otherwise, the lookups are performed in parallel on the io stage before
+     * this method returns. The mapping information of groups without cached mapping information is resolved while processing them.
+     *
+     * @param deviceMeasureKeys, keys of the groups to be processed
+     * @return {@link DeviceToProcessedMessageProcessor} for the given groups
+     */
+    public DeviceToProcessedMessageProcessor withCachedMappings(Collection<DeviceMeasureKey> deviceMeasureKeys) {
+        Map<DeviceMeasureKey, CompletableFuture<Optional<SensorMappingInfo>>> lookups = new ConcurrentHashMap<>();
+        StageExecutors.io().forEach(deviceMeasureKeys, deviceMeasureKey -> lookups.put(deviceMeasureKey,
+                mappingHelper.getCachedSensorMappingAsync(deviceMeasureKey.getSensorId(), deviceMeasureKey.getVirtualCapabilityId())));
+
+        return new DeviceToProcessedMessageProcessor(mappingHelper, lookups);
     }
 
     /**
@@ -52,7 +81,7 @@ public class DeviceToProcessedMessageProcessor implements ProcessorWithPerfMetri
     private Map.Entry<String, ProcessedMessageContainer> processRawMessagesGroup(DeviceMeasureKey deviceMeasureKey, List<DeviceMeasure> rawMessages) throws IoTRuntimeException {
 
         //takes a raw messages grouped by raw message grouping key (sensorId & virtualCapabilityId) and transfers it to processedMessages grouped by sourceId
-        SensorMappingInfo mapping = mappingHelper.getSensorMapping(deviceMeasureKey.getSensorId(), deviceMeasureKey.getVirtualCapabilityId());
+        SensorMappingInfo mapping = getSensorMapping(deviceMeasureKey);
 
 
         // form the common parts for all processed messages for this sourceId
@@ -60,10 +89,13 @@ public class DeviceToProcessedMessageProcessor implements ProcessorWithPerfMetri
                 .sourceId(mapping.getSourceId())
                 .tags(mapping.getTags().stream().collect(Collectors.toMap(Tag::getTagSemantic, Tag::getTagValue)));
 
+        // the property mappings are compiled once per mapping and applied to every measure of the group
+        PropertyProjection propertyProjection = mapping.getPropertyProjection();
+
         // complete building processed message adding the measure with event timestamp
         List<ProcessedMessage> processedMessages = rawMessages.stream().map(rawMessage -> {
             return processedMessageBuilder
-                    .measures(Collections.singletonList(mapDeviceMessageToApplicationModel(rawMessage, mapping)))
+                    .measures(Collections.singletonList(mapDeviceMessageToApplicationModel(rawMessage, propertyProjection)))
                     .build();
         }).collect(Collectors.toList());
 
@@ -74,22 +106,25 @@ public class DeviceToProcessedMessageProcessor implements ProcessorWithPerfMetri
                 .structureId(mapping.getStructureId())
                 .build();
 
-        InvocationContext.getLogger().log(Level.FINE, String.format("Successfully processed %s messages for Sensor ID: '%s' and Virtual Capability ID: '%s'.",
-                rawMessages.size(), deviceMeasureKey.getSensorId(), deviceMeasureKey.getVirtualCapabilityId()));
+        StructuredLog.log(Level.FINE, "Successfully processed messages", "count", rawMessages.size(), "sensorId", deviceMeasureKey.getSensorId(),
+                "virtualCapabilityId", deviceMeasureKey.getVirtualCapabilityId());
         return Maps.immutableEntry(mapping.getSourceId() + Constants.SEPARATOR + mapping.getStructureId(), processedMessageContainer);
     }
 
-    private Map<String, Object> mapDeviceMessageToApplicationModel(DeviceMeasure rawMessage, SensorMappingInfo mapping) {
-        Map<String, Object> measureValues = new HashMap<>();
-
-        measureValues.put(Constants.TIMESTAMP_PROPERTY_KEY, rawMessage.getTimestamp().toEpochMilli());
-
-        for (PropertyMapping pm : mapping.getPropertyMappings()) {
-            if (rawMessage.getProperties().containsKey(pm.getCapabilityPropertyId())) {
-                measureValues.put(pm.getStructurePropertyId(), rawMessage.getProperties().get(pm.getCapabilityPropertyId()));
+    private SensorMappingInfo getSensorMapping(DeviceMeasureKey deviceMeasureKey) throws IoTRuntimeException {
+        CompletableFuture<Optional<SensorMappingInfo>> cachedMapping = cachedMappings.get(deviceMeasureKey);
+        if (cachedMapping != null) {
+            // the cached lookup never fails, it is empty if the mapping information has to be resolved
+            Optional<SensorMappingInfo> mapping = cachedMapping.join();
+            if (mapping.isPresent()) {
+                return mapping.get();
             }
         }
 
-        return measureValues;
+        return mappingHelper.getSensorMapping(deviceMeasureKey.getSensorId(), deviceMeasureKey.getVirtualCapabilityId());
+    }
+
+    private Map<String, Object> mapDeviceMessageToApplicationModel(DeviceMeasure rawMessage, PropertyProjection propertyProjection) {
+        return propertyProjection.project(rawMessage.getTimestamp().toEpochMilli(), rawMessage.getProperties());
     }
 }
\ No newline at end of file
@@ -4,6 +4,7 @@ import com.google.common.annotations.VisibleForTesting;
 import com.sap.iot.azure.ref.integration.commons.model.timeseries.processed.ProcessedMessage;
 import com.sap.iot.azure.ref.integration.commons.model.timeseries.processed.ProcessedMessageContainer;
 import org.apache.commons.lang3.tuple.Pair;
+import org.apache.commons.lang3.tuple.Triple;
 
 import java.util.HashMap;
 import java.util.List;
@@ -23,21 +24,24 @@ public class AvroMessageService {
     }
 
     /**
-     * Creates a map of processed messages, given a list of avroMessages and systemProperties.
-     * The apply method of processMessages is invoked for each pair of avroMessage and systemProperty for further deserialization of messages.
+     * Creates a map of processed messages, given a list of avroMessages, their application properties and systemProperties.
+     * The apply method of processMessages is invoked for each avroMessage with its properties for further deserialization of messages.
      *
      * @param avroMessages, required for converting byte to string for deserialization
+     * @param properties, application properties, required for fetching sourceId and structureId of messages sent to a partition; may be null
      * @param systemProperties, required for fetching sourceId and structureId
      * @return map {@link Map<String, ProcessedMessageContainer>} containing a list of {@link ProcessedMessage ProcessedMessages} grouped by source ID
      */
-    public Map<String, ProcessedMessageContainer> createProcessedMessage(List<byte[]> avroMessages, Map<String, Object>[] systemProperties) {
+    public Map<String, ProcessedMessageContainer> createProcessedMessage(List<byte[]> avroMessages, Map<String, Object>[] properties,
+                                                                        Map<String, Object>[] systemProperties) {
 
         String sourceId;
         Map<String, ProcessedMessageContainer> processedMessagesMap = new HashMap<>();
 
         for (int i = 0; i < avroMessages.size(); i++) {
 
-            Pair<String, ProcessedMessageContainer> p = processedMessages.apply(Pair.of(avroMessages.get(i), systemProperties[i]));
+            Pair<String, ProcessedMessageContainer> p = processedMessages.apply(Triple.of(avroMessages.get(i),
+                    properties == null ? null : properties[i], systemProperties[i]));
             if (p != null) {
                 sourceId = p.getKey();
 
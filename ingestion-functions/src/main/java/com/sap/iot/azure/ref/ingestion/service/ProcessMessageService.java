@@ -8,18 +8,20 @@ import com.sap.iot.azure.ref.ingestion.util.AvroMessageConverter;
 import com.sap.iot.azure.ref.ingestion.util.Constants;
 import com.sap.iot.azure.ref.integration.commons.api.Processor;
 import com.sap.iot.azure.ref.integration.commons.avro.AvroConstants;
+import com.sap.iot.azure.ref.integration.commons.constants.CommonConstants;
 import com.sap.iot.azure.ref.integration.commons.exception.CommonErrorType;
 import com.sap.iot.azure.ref.integration.commons.exception.IdentifierUtil;
 import com.sap.iot.azure.ref.integration.commons.exception.base.IoTRuntimeException;
 import com.sap.iot.azure.ref.integration.commons.model.timeseries.processed.ProcessedMessage;
 import com.sap.iot.azure.ref.integration.commons.model.timeseries.processed.ProcessedMessageContainer;
 import org.apache.commons.lang3.tuple.Pair;
+import org.apache.commons.lang3.tuple.Triple;
 
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
-public class ProcessMessageService implements Processor<Pair<byte[], Map<String, Object>>, Pair<String, ProcessedMessageContainer>> {
+public class ProcessMessageService implements Processor<Triple<byte[], Map<String, Object>, Map<String, Object>>, Pair<String, ProcessedMessageContainer>> {
 
     private static final ObjectMapper objectMapper = new ObjectMapper();
     private final AvroMessageConverter avroMessageConverter;
@@ -29,27 +31,30 @@ public class ProcessMessageService implements Processor<Pair<byte[], Map<String,
     }
 
     @VisibleForTesting
-    ProcessMessageService(AvroMessageConverter avroMessageConverter) {
+    public ProcessMessageService(AvroMessageConverter avroMessageConverter) {
         this.avroMessageConverter = avroMessageConverter;
     }
 
     /**
-     * Creates a pair of list of processed messages grouped by the sourceId, given a pair of avroMessage and systemProperty.
+     * Creates a pair of list of processed messages grouped by the sourceId, given a triple of avroMessage, application properties and
+     * system properties.
      * The createProcessedMessage method returns the required response by deserializing the message for a
-     * particular structureId, extracted from {@link Constants#SYSTEM_PROPERTIES_PARTITION_KEY}.
+     * particular structureId, extracted from the partition key. The partition key is read from the application property
+     * {@link CommonConstants#PARTITION_KEY_PROPERTY_KEY}, as messages sent to a partition do not carry their partition key, and
+     * otherwise from {@link Constants#SYSTEM_PROPERTIES_PARTITION_KEY}.
      * Using the response returned after deserialization of avroMessage, {@link ProcessedMessage ProcessedMessages}
      * map is built using information like sourceId, structureId, tags, measuresList, & tenantId.
      *
-     * @param t, a pair of avroMessage and systemProperty.
+     * @param t, a triple of avroMessage, application properties (may be null) and system properties.
      * @return pair {@link Pair<String, List>} containing sourceId and list of {@link ProcessedMessage ProcessedMessages}.
      */
     @Override
-    public Pair<String, ProcessedMessageContainer> process(Pair<byte[], Map<String, Object>> t) throws IngestionRuntimeException {
-        return createProcessedMessage(t.getKey(), t.getValue());
+    public Pair<String, ProcessedMessageContainer> process(Triple<byte[], Map<String, Object>, Map<String, Object>> t) throws IngestionRuntimeException {
+        return createProcessedMessage(t.getLeft(), t.getMiddle(), t.getRight());
     }
 
     @SuppressWarnings("unchecked")
-    private Pair<String, ProcessedMessageContainer> createProcessedMessage(byte[] message,
+    private Pair<String, ProcessedMessageContainer> createProcessedMessage(byte[] message, Map<String, Object> properties,
                                                                         Map<String, Object> systemProperties) {
 
         String partitionKey;
@@ -58,8 +63,8 @@ public class ProcessMessageService implements Processor<Pair<byte[], Map<String,
         List<JsonNode> genericJSONMessages;
         List<ProcessedMessage> processedMessages = new LinkedList<>();
 
-        partitionKey = ((String) systemProperties.get(Constants.SYSTEM_PROPERTIES_PARTITION_KEY));
-        int d = partitionKey.lastIndexOf(Constants.SEPARATOR);
+        partitionKey = getPartitionKey(properties, systemProperties);
+        int d = partitionKey == null ? -1 : partitionKey.lastIndexOf(Constants.SEPARATOR);
         if (d == -1) {
             throw IoTRuntimeException.wrapNonTransient(IdentifierUtil.getIdentifier("PartitionKey", partitionKey), CommonErrorType.AVRO_EXCEPTION,
                     "sourceId and structureId cannot be identified from Partition Key");
@@ -104,4 +109,13 @@ public class ProcessMessageService implements Processor<Pair<byte[], Map<String,
 
         return Pair.of(sourceId, new ProcessedMessageContainer(structureId, processedMessages));
     }
+
+    private static String getPartitionKey(Map<String, Object> properties, Map<String, Object> systemProperties) {
+        Object partitionKey = properties == null ? null : properties.get(CommonConstants.PARTITION_KEY_PROPERTY_KEY);
+        if (partitionKey == null) {
+            partitionKey = systemProperties.get(Constants.SYSTEM_PROPERTIES_PARTITION_KEY);
+        }
+
+        return partitionKey == null ? null : String.valueOf(partitionKey);
+    }
 }
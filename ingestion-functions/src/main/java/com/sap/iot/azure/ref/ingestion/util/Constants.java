@@ -25,6 +25,11 @@ public class Constants {
     //EventHub Constants
     public static final String PROCESSED_TIME_SERIES_CONNECTION_STRING_PROP = "processed-timeseries-connection-string";
     public static final String ADX_SOURCE_CONNECTION_STRING_PROP = "adx-source-connection-string";
+    public static final String ADX_PAYLOAD_COMPRESSION_PROP = "adx-payload-compression";
+    public static final String ADX_PAYLOAD_COMPRESSION_NONE = "none";
+    public static final String ADX_PAYLOAD_COMPRESSION_GZIP = "gzip";
+    public static final String ADX_PAYLOAD_COMPRESSION_LEVEL_PROP = "adx-payload-compression-level";
+    public static final int ADX_PAYLOAD_COMPRESSION_LEVEL_DEFAULT = 6;
 
     //Device Payload Mapper Constants
     public static final String TRANSFORM_DEFAULT_TYPE_PROP = "transform-default-message-type";
@@ -18,6 +18,7 @@ import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
 import static com.sap.iot.azure.ref.integration.commons.context.InvocationContextTestUtil.createPartitionContext;
+import static com.sap.iot.azure.ref.integration.commons.context.InvocationContextTestUtil.createPropertiesMap;
 import static com.sap.iot.azure.ref.integration.commons.context.InvocationContextTestUtil.createSystemPropertiesMap;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
@@ -37,7 +38,7 @@ public class AvroParserFunctionTest {
     public void prepare() {
         Map<String, ProcessedMessageContainer> processedMessageMap = ImmutableMap.of("S1", new ProcessedMessageContainer("IG1",
                 TestUtil.getProcessedMessageList()));
-        doReturn(processedMessageMap).when(avroMessageService).createProcessedMessage(Mockito.any(), Mockito.any());
+        doReturn(processedMessageMap).when(avroMessageService).createProcessedMessage(Mockito.any(), Mockito.any(), Mockito.any());
         avroParserFunction = new AvroParserFunction(avroMessageService, adxEventHubProcessor);
         InvocationContextTestUtil.initInvocationContext();
     }
@@ -45,9 +46,9 @@ public class AvroParserFunctionTest {
     @Test
     public void testRun() {
         doReturn(CompletableFuture.completedFuture(null)).when(adxEventHubProcessor).apply(any());
-        avroParserFunction.run(TestUtil.avroMessage(1), createSystemPropertiesMap(),
+        avroParserFunction.run(TestUtil.avroMessage(1), createPropertiesMap("S1/IG1"), createSystemPropertiesMap(),
                 createPartitionContext(), InvocationContextTestUtil.getMockContext());
-        verify(avroMessageService, times(1)).createProcessedMessage(any(), any());
+        verify(avroMessageService, times(1)).createProcessedMessage(any(), any(), any());
         verify(adxEventHubProcessor, times(1)).apply(any());
     }
 
@@ -8,6 +8,7 @@ import com.sap.iot.azure.ref.ingestion.output.ADXEventHubProcessor;
 import com.sap.iot.azure.ref.ingestion.output.ProcessedTimeSeriesEventHubProcessor;
 import com.sap.iot.azure.ref.ingestion.processing.DeviceToProcessedMessageProcessor;
 import com.sap.iot.azure.ref.integration.commons.context.InvocationContextTestUtil;
+import com.sap.iot.azure.ref.integration.commons.eventhub.CoalescingEventHubSender;
 import com.sap.iot.azure.ref.integration.commons.model.timeseries.processed.ProcessedMessage;
 import org.junit.Before;
 import org.junit.Test;
@@ -22,6 +23,7 @@ import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -36,15 +38,22 @@ public class MappingFunctionTest {
     private DeviceToProcessedMessageProcessor deviceToProcessedMessageProcessor;
     @Mock
     private DevicePayloadMapper devicePayloadMapper;
+    @Mock
+    private CoalescingEventHubSender processedTimeSeriesSender;
+    @Mock
+    private CoalescingEventHubSender adxSender;
 
     private MappingFunction mappingFunction;
 
     @Before
     public void prepare() {
         doReturn(Collections.singletonList(new DeviceMeasure())).when(devicePayloadMapper).apply(any(DeviceMessage.class));
+        doReturn(deviceToProcessedMessageProcessor).when(deviceToProcessedMessageProcessor).withCachedMappings(any());
         doReturn(getSampleProcessedMessages()).when(deviceToProcessedMessageProcessor).apply(any());
-        doReturn(CompletableFuture.completedFuture(null)).when(processedTimeSeriesEventHubProcessor).apply(any());
-        doReturn(CompletableFuture.completedFuture(null)).when(adxEventHubProcessor).apply(any());
+        doReturn(processedTimeSeriesSender).when(processedTimeSeriesEventHubProcessor).createSender();
+        doReturn(adxSender).when(adxEventHubProcessor).createSender();
+        doReturn(CompletableFuture.completedFuture(null)).when(processedTimeSeriesSender).send();
+        doReturn(CompletableFuture.completedFuture(null)).when(adxSender).send();
 
         mappingFunction = Mockito.spy(new MappingFunction(
                 processedTimeSeriesEventHubProcessor,
@@ -59,11 +68,26 @@ public class MappingFunctionTest {
 
     @Test
     public void testMappingFunction() {
+        doReturn(true).when(processedTimeSeriesEventHubProcessor).collect(eq(processedTimeSeriesSender), any());
+
+        mappingFunction.run(getSampleMessages(), InvocationContextTestUtil.createSystemPropertiesMap(), InvocationContextTestUtil.createPartitionContext(),
+                InvocationContextTestUtil.getMockContext());
+
+        verify(processedTimeSeriesEventHubProcessor, times(1)).collect(eq(processedTimeSeriesSender), any());
+        verify(adxEventHubProcessor, times(1)).collect(eq(adxSender), any());
+        verify(processedTimeSeriesSender, times(1)).send();
+        verify(adxSender, times(1)).send();
+    }
+
+    @Test
+    public void testMappingFunctionSkipsAdxForFailedAvroConversion() {
+        doReturn(false).when(processedTimeSeriesEventHubProcessor).collect(eq(processedTimeSeriesSender), any());
+
         mappingFunction.run(getSampleMessages(), InvocationContextTestUtil.createSystemPropertiesMap(), InvocationContextTestUtil.createPartitionContext(),
                 InvocationContextTestUtil.getMockContext());
 
-        verify(processedTimeSeriesEventHubProcessor, times(1)).apply(any());
-        verify(adxEventHubProcessor, times(1)).apply(any());
+        verify(adxEventHubProcessor, never()).collect(any(), any());
+        verify(adxSender, times(1)).send();
     }
 
     private List<String> getSampleMessages() {
@@ -28,6 +28,7 @@ import java.io.IOException;
 import java.time.Instant;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.Assert.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
@@ -86,4 +87,19 @@ public class ADXEventHubProcessorTest {
         assertEquals(ADXConstants.MULTIJSON_FORMAT, properties.get(ADXConstants.FORMAT_PROPERTY_KEY).toString());
         assertEquals(ADXConstants.TABLE_PREFIX + OutputTestUtil.STRUCTURE_ID, properties.get(ADXConstants.MAPPING_PROPERTY_KEY).toString());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testProcessCompressed() throws IOException {
+        adxEventHubProcessor = new ADXEventHubProcessor(CompletableFuture.completedFuture(ehClientMock), new ADXPayloadCompressor(6, 1024));
+        adxEventHubProcessor.apply(Maps.immutableEntry("sourceId", OutputTestUtil.createProcessedMessages()));
+
+        verify(ehClientMock, times(1)).send(eventDataCaptor.capture());
+        BaseEventHubProcessorTest.SimpleEventBatch capturedEventBatch = (BaseEventHubProcessorTest.SimpleEventBatch) eventDataCaptor.getValue();
+
+        // the body is the compressed record; the ADX mapping info is kept in the properties
+        JsonNode processedMessage = reader.readTree(new GZIPInputStream(new ByteArrayInputStream(capturedEventBatch.getBytes(0))));
+        assertEquals(OutputTestUtil.SOURCE_ID, processedMessage.get(CommonConstants.SOURCE_ID_PROPERTY_KEY).textValue());
+        assertEquals(ADXConstants.TABLE_PREFIX + OutputTestUtil.STRUCTURE_ID,
+                capturedEventBatch.getProperties(0).get(ADXConstants.TABLE_PROPERTY_KEY).toString());
+    }
+}
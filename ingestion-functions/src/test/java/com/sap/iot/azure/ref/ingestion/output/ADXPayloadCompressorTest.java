@@ -0,0 +1,78 @@
+package com.sap.iot.azure.ref.ingestion.output;
+
+import com.google.common.io.ByteStreams;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ADXPayloadCompressorTest {
+
+    @Test
+    public void testPack() throws IOException {
+        List<byte[]> records = records(100, 0);
+
+        List<byte[]> bodies = new ADXPayloadCompressor(6, 256 * 1024).pack(records);
+
+        assertEquals(1, bodies.size());
+        assertEquals(String.join("\n", strings(records)), gunzip(bodies.get(0)));
+    }
+
+    @Test
+    public void testPackSplitsLargeBodies() throws IOException {
+        // random values barely compress, so that the bodies packed with the assumed compression ratio have to be split
+        List<byte[]> records = records(200, 64);
+        int maxBodyBytes = 2048;
+
+        List<byte[]> bodies = new ADXPayloadCompressor(9, maxBodyBytes).pack(records);
+
+        assertTrue(bodies.size() > 1);
+        List<String> unpacked = new ArrayList<>();
+        for (byte[] body : bodies) {
+            assertTrue(body.length <= maxBodyBytes);
+            for (String record : gunzip(body).split("\n")) {
+                unpacked.add(record);
+            }
+        }
+        assertEquals(strings(records), unpacked);
+    }
+
+    @Test
+    public void testPackEmpty() {
+        assertEquals(0, new ADXPayloadCompressor(6, 1024).pack(new ArrayList<>()).size());
+    }
+
+    private static List<byte[]> records(int count, int randomBytes) {
+        Random random = new Random(42);
+        List<byte[]> records = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            StringBuilder value = new StringBuilder();
+            for (int j = 0; j < randomBytes; j++) {
+                value.append((char) ('a' + random.nextInt(26)));
+            }
+            records.add(String.format("{\"sourceId\":\"source%d\",\"_time\":\"2020-01-01T00:00:00Z\",\"measurements\":{\"value\":\"%s\"}}", i, value)
+                    .getBytes(StandardCharsets.UTF_8));
+        }
+        return records;
+    }
+
+    private static List<String> strings(List<byte[]> records) {
+        List<String> strings = new ArrayList<>();
+        records.forEach(record -> strings.add(new String(record, StandardCharsets.UTF_8)));
+        return strings;
+    }
+
+    private static String gunzip(byte[] body) throws IOException {
+        try (GZIPInputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return new String(ByteStreams.toByteArray(inputStream), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -7,11 +7,19 @@ import com.microsoft.azure.eventhubs.BatchOptions;
 import com.microsoft.azure.eventhubs.EventDataBatch;
 import com.microsoft.azure.eventhubs.EventHubClient;
 import com.microsoft.azure.eventhubs.EventHubException;
+import com.microsoft.azure.eventhubs.EventHubRuntimeInformation;
+import com.microsoft.azure.eventhubs.PartitionSender;
+import com.sap.iot.azure.ref.ingestion.service.ProcessMessageService;
+import com.sap.iot.azure.ref.ingestion.util.AvroMessageConverter;
 import com.sap.iot.azure.ref.ingestion.util.Constants;
 import com.sap.iot.azure.ref.integration.commons.avro.AvroConstants;
 import com.sap.iot.azure.ref.integration.commons.avro.logicaltypes.RegisterService;
+import com.sap.iot.azure.ref.integration.commons.connection.EventHubClientPool;
 import com.sap.iot.azure.ref.integration.commons.context.InvocationContextTestUtil;
 import com.sap.iot.azure.ref.integration.commons.eventhub.BaseEventHubProcessorTest;
+import com.sap.iot.azure.ref.integration.commons.eventhub.CoalescingEventHubSender;
+import com.sap.iot.azure.ref.integration.commons.eventhub.sink.EventHubSink;
+import com.sap.iot.azure.ref.integration.commons.model.timeseries.processed.ProcessedMessageContainer;
 import com.sap.iot.azure.ref.integration.commons.util.CompletableFutures;
 import org.apache.avro.Schema;
 import org.apache.avro.file.DataFileReader;
@@ -21,6 +29,8 @@ import org.apache.avro.generic.GenericData;
 import org.apache.avro.generic.GenericDatumReader;
 import org.apache.avro.generic.GenericRecord;
 import org.apache.avro.io.DatumReader;
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.commons.lang3.tuple.Triple;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.ClassRule;
@@ -34,6 +44,9 @@ import org.mockito.junit.MockitoJUnitRunner;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
 import static org.junit.Assert.assertEquals;
@@ -59,8 +72,8 @@ public class ProcessedTimeSeriesEventHubProcessorTest {
     public void setup() throws EventHubException {
         processedTimeSeriesEventHubProcessor = new ProcessedTimeSeriesEventHubProcessor(CompletableFuture.completedFuture(ehclientMock));
 
-        when(ehclientMock.createBatch(any(BatchOptions.class))).thenReturn(new BaseEventHubProcessorTest.SimpleEventBatch());
-        when(ehclientMock.send(any(EventDataBatch.class))).thenReturn(CompletableFutures.voidCompletedFuture());
+        lenient().when(ehclientMock.createBatch(any(BatchOptions.class))).thenReturn(new BaseEventHubProcessorTest.SimpleEventBatch());
+        lenient().when(ehclientMock.send(any(EventDataBatch.class))).thenReturn(CompletableFutures.voidCompletedFuture());
     }
 
     @BeforeClass
@@ -80,6 +93,40 @@ public class ProcessedTimeSeriesEventHubProcessorTest {
         assertEquals(OutputTestUtil.SAMPLE_PROPERTY_VAL, processedMessage.get(AvroConstants.AVRO_DATUM_KEY_MEASUREMENTS).get(0).get(OutputTestUtil.SAMPLE_PROPERTY_KEY).asText());
     }
 
+    @Test
+    public void testPartitionSenderToParser() throws Exception {
+        // partition-sender mode: the events are sent to the resolved partition without their partition key
+        EventHubRuntimeInformation runtimeInformation = new EventHubRuntimeInformation("hub", Instant.now(), 2, new String[]{"0", "1"});
+        PartitionSender partitionSender = mock(PartitionSender.class);
+        when(ehclientMock.getRuntimeInformation()).thenReturn(CompletableFuture.completedFuture(runtimeInformation));
+        when(ehclientMock.createPartitionSender(anyString())).thenReturn(CompletableFuture.completedFuture(partitionSender));
+        when(partitionSender.createBatch(any(BatchOptions.class))).thenReturn(new BaseEventHubProcessorTest.SimpleEventBatch());
+        when(partitionSender.send(any(EventDataBatch.class))).thenReturn(CompletableFutures.voidCompletedFuture());
+        ProcessedTimeSeriesEventHubProcessor partitionSenderProcessor = new ProcessedTimeSeriesEventHubProcessor(new EventHubSink(
+                new EventHubClientPool(Collections.singletonList(CompletableFuture.completedFuture(ehclientMock)), false, true)));
+
+        CoalescingEventHubSender sender = partitionSenderProcessor.createSender();
+        partitionSenderProcessor.collect(sender, Maps.immutableEntry(OutputTestUtil.SOURCE_ID + Constants.SEPARATOR + OutputTestUtil.STRUCTURE_ID,
+                OutputTestUtil.createProcessedMessages()));
+        sender.send().join();
+
+        verify(partitionSender, times(1)).send(eventDataCaptor.capture());
+        BaseEventHubProcessorTest.SimpleEventBatch batch = (BaseEventHubProcessorTest.SimpleEventBatch) eventDataCaptor.getValue();
+
+        // the parser identifies source and structure from the application properties
+        AvroMessageConverter avroMessageConverter = mock(AvroMessageConverter.class);
+        when(avroMessageConverter.deserializeAvroMessage(eq(OutputTestUtil.STRUCTURE_ID), any()))
+                .thenAnswer(invocation -> Collections.singletonList(decode(invocation.getArgument(1))));
+        Map<String, Object> systemProperties = InvocationContextTestUtil.createSystemPropertiesMap(null)[0];
+        Pair<String, ProcessedMessageContainer> parsed = new ProcessMessageService(avroMessageConverter)
+                .process(Triple.of(batch.getBytes(0), batch.getProperties(0), systemProperties));
+
+        assertEquals(OutputTestUtil.SOURCE_ID, parsed.getKey());
+        assertEquals(OutputTestUtil.STRUCTURE_ID, parsed.getValue().getStructureId());
+        assertEquals(OutputTestUtil.SAMPLE_PROPERTY_VAL, parsed.getValue().getProcessedMessages().get(0).getMeasures().get(0)
+                .get(OutputTestUtil.SAMPLE_PROPERTY_KEY));
+    }
+
     private JsonNode decode ( byte[] avro ) throws Exception {
         GenericData genericData = RegisterService.initializeCustomTypes();
         DatumReader<GenericRecord> readerWithoutSchema = new GenericDatumReader<>();
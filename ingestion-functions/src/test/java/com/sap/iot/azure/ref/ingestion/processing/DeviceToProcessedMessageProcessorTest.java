@@ -23,6 +23,8 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -87,6 +89,26 @@ public class DeviceToProcessedMessageProcessorTest {
                 });
     }
 
+    @Test
+    public void testWithCachedMappings() {
+        Map<DeviceMeasureKey, List<DeviceMeasure>> sampleMessages = getSampleMessages();
+        // the mapping of the first group is cached, the mapping of the second group has to be resolved
+        doReturn(CompletableFuture.completedFuture(Optional.of(getSampleMappingInfo(0)))).when(mappingHelperMock)
+                .getCachedSensorMappingAsync(SAMPLE_SENSOR_ID + 0, SAMPLE_CAPABILITY_ID + 0);
+        doReturn(CompletableFuture.completedFuture(Optional.empty())).when(mappingHelperMock)
+                .getCachedSensorMappingAsync(SAMPLE_SENSOR_ID + 1, SAMPLE_CAPABILITY_ID + 1);
+        doReturn(getSampleMappingInfo(1)).when(mappingHelperMock).getSensorMapping(SAMPLE_SENSOR_ID + 1, SAMPLE_CAPABILITY_ID + 1);
+
+        DeviceToProcessedMessageProcessor processor = deviceToProcessedMessageProcessorSpy.withCachedMappings(sampleMessages.keySet());
+        Map<String, String> sourceIdsBySensorId = new HashMap<>();
+        sampleMessages.entrySet().forEach(rawMessageGrouping -> sourceIdsBySensorId.put(rawMessageGrouping.getKey().getSensorId(),
+                processor.apply(rawMessageGrouping).getValue().getProcessedMessages().get(0).getSourceId()));
+
+        assertEquals(SAMPLE_SOURCE_ID + 0, sourceIdsBySensorId.get(SAMPLE_SENSOR_ID + 0));
+        assertEquals(SAMPLE_SOURCE_ID + 1, sourceIdsBySensorId.get(SAMPLE_SENSOR_ID + 1));
+        verify(mappingHelperMock, never()).getSensorMapping(SAMPLE_SENSOR_ID + 0, SAMPLE_CAPABILITY_ID + 0);
+    }
+
     private Map<DeviceMeasureKey, List<DeviceMeasure>> getSampleMessages() {
         List<DeviceMeasure> messages = new ArrayList<>();
         Map<String, Object> properties = new HashMap<>();
@@ -45,7 +45,7 @@ public class AvroMessageServiceTest {
         systemPropertiesMap[0] = InvocationContextTestUtil.createSystemPropertiesMap()[0];
         systemPropertiesMap[0] = InvocationContextTestUtil.createSystemPropertiesMap()[0];
 
-        Map<String, ProcessedMessageContainer> processedMessagesMap = avroMessageService.createProcessedMessage(TestUtil.avroMessage(2), systemPropertiesMap);
+        Map<String, ProcessedMessageContainer> processedMessagesMap = avroMessageService.createProcessedMessage(TestUtil.avroMessage(2), null, systemPropertiesMap);
 
         assertTrue(processedMessagesMap.containsKey("S1"));
         assertEquals(2, processedMessagesMap.get("S1").getProcessedMessages().size());
@@ -63,7 +63,7 @@ public class AvroMessageServiceTest {
         // Branching condition case to handle if the pair is null
         Mockito.doReturn(null).when(processedMessageService).apply(Mockito.any());
         Map<String, ProcessedMessageContainer> processedMessagesMap = avroMessageService.createProcessedMessage(TestUtil.avroMessage(1),
-                InvocationContextTestUtil.createSystemPropertiesMap());
+                null, InvocationContextTestUtil.createSystemPropertiesMap());
         Assert.assertTrue(processedMessagesMap.isEmpty());
     }
 }
\ No newline at end of file
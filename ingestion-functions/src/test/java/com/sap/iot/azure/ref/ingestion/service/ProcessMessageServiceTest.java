@@ -7,6 +7,7 @@ import com.sap.iot.azure.ref.integration.commons.context.InvocationContextTestUt
 import com.sap.iot.azure.ref.integration.commons.exception.base.IoTRuntimeException;
 import com.sap.iot.azure.ref.integration.commons.model.timeseries.processed.ProcessedMessageContainer;
 import org.apache.commons.lang3.tuple.Pair;
+import org.apache.commons.lang3.tuple.Triple;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Rule;
@@ -50,8 +51,8 @@ public class ProcessMessageServiceTest {
         List<JsonNode> listMessages = new LinkedList<>();
         listMessages.add(genericMessageJSON);
         Mockito.doReturn(listMessages).when(avroMessageConverter).deserializeAvroMessage(any(), any());
-        Pair<byte[], Map<String, Object>> pair = Pair.of(TestUtil.avroMessageByte(), InvocationContextTestUtil.createSystemPropertiesMap("S1/IG1")[0]);
-        Pair<String, ProcessedMessageContainer> processedMessagesPair = processMessageService.process(pair);
+        Triple<byte[], Map<String, Object>, Map<String, Object>> triple = Triple.of(TestUtil.avroMessageByte(), null, InvocationContextTestUtil.createSystemPropertiesMap("S1/IG1")[0]);
+        Pair<String, ProcessedMessageContainer> processedMessagesPair = processMessageService.process(triple);
         Assert.assertEquals("S1", processedMessagesPair.getKey());
         Assert.assertEquals("S1", processedMessagesPair.getValue().getProcessedMessages().get(0).getSourceId());
         Assert.assertEquals("IG1", processedMessagesPair.getValue().getStructureId());
@@ -65,8 +66,8 @@ public class ProcessMessageServiceTest {
         Mockito.doReturn(listMessages).when(avroMessageConverter).deserializeAvroMessage(any(), any());
         expectedException.expect(IoTRuntimeException.class);
         expectedException.expectMessage("Multiple tags are provided for the same Source Id");
-        Pair<byte[], Map<String, Object>> pair = Pair.of(TestUtil.avroMessageByte(), InvocationContextTestUtil.createSystemPropertiesMap("S1/IG1")[0]);
-        processMessageService.process(pair);
+        Triple<byte[], Map<String, Object>, Map<String, Object>> triple = Triple.of(TestUtil.avroMessageByte(), null, InvocationContextTestUtil.createSystemPropertiesMap("S1/IG1")[0]);
+        processMessageService.process(triple);
     }
 
     @Test
@@ -75,13 +76,36 @@ public class ProcessMessageServiceTest {
         List<JsonNode> listMessages = new LinkedList<>();
         listMessages.add(genericMessageJSON);
         Mockito.doReturn(listMessages).when(avroMessageConverter).deserializeAvroMessage(any(), any());
-        Pair<byte[], Map<String, Object>> pair = Pair.of(TestUtil.avroMessageByte(), InvocationContextTestUtil.createSystemPropertiesMap("S1/IG1")[0]);
-        Pair<String, ProcessedMessageContainer> processedMessagesPair = processMessageService.process(pair);
+        Triple<byte[], Map<String, Object>, Map<String, Object>> triple = Triple.of(TestUtil.avroMessageByte(), null, InvocationContextTestUtil.createSystemPropertiesMap("S1/IG1")[0]);
+        Pair<String, ProcessedMessageContainer> processedMessagesPair = processMessageService.process(triple);
         Assert.assertEquals(null, processedMessagesPair.getValue().getProcessedMessages().get(0).getTags());
         Assert.assertEquals("S1", processedMessagesPair.getValue().getProcessedMessages().get(0).getSourceId());
         Assert.assertEquals("IG1", processedMessagesPair.getValue().getStructureId());
     }
 
+    @Test
+    public void createProcessedMessageWithPartitionKeyProperty() throws IOException {
+        JsonNode genericMessageJSON = mapper.readTree(TestUtil.GENERIC_JSON);
+        List<JsonNode> listMessages = new LinkedList<>();
+        listMessages.add(genericMessageJSON);
+        Mockito.doReturn(listMessages).when(avroMessageConverter).deserializeAvroMessage(Mockito.eq("IG1"), any());
+        // messages sent to a partition do not carry a partition key
+        Triple<byte[], Map<String, Object>, Map<String, Object>> triple = Triple.of(TestUtil.avroMessageByte(),
+                InvocationContextTestUtil.createPropertiesMap("S1/IG1")[0], InvocationContextTestUtil.createSystemPropertiesMap(null)[0]);
+        Pair<String, ProcessedMessageContainer> processedMessagesPair = processMessageService.process(triple);
+        Assert.assertEquals("S1", processedMessagesPair.getKey());
+        Assert.assertEquals("IG1", processedMessagesPair.getValue().getStructureId());
+    }
+
+    @Test
+    public void createProcessedMessageWithoutPartitionKey() throws IOException {
+        expectedException.expect(IoTRuntimeException.class);
+        expectedException.expectMessage("sourceId and structureId cannot be identified from Partition Key");
+        Triple<byte[], Map<String, Object>, Map<String, Object>> triple = Triple.of(TestUtil.avroMessageByte(), null,
+                InvocationContextTestUtil.createSystemPropertiesMap(null)[0]);
+        processMessageService.process(triple);
+    }
+
     @Test
     public void createProcessedMessageWithIncorrectPartitionKey() throws IOException {
         JsonNode genericMessageJSON = mapper.readTree(TestUtil.GENERIC_JSON);
@@ -89,7 +113,7 @@ public class ProcessMessageServiceTest {
         listMessages.add(genericMessageJSON);
         expectedException.expect(IoTRuntimeException.class);
         expectedException.expectMessage("sourceId and structureId cannot be identified from Partition Key");
-        Pair<byte[], Map<String, Object>> pair = Pair.of(TestUtil.avroMessageByte(), InvocationContextTestUtil.createSystemPropertiesMap("S1")[0]);
-        processMessageService.process(pair);
+        Triple<byte[], Map<String, Object>, Map<String, Object>> triple = Triple.of(TestUtil.avroMessageByte(), null, InvocationContextTestUtil.createSystemPropertiesMap("S1")[0]);
+        processMessageService.process(triple);
     }
 }
\ No newline at end of file
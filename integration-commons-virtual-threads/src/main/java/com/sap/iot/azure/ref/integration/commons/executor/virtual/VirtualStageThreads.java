@@ -0,0 +1,71 @@
+package com.sap.iot.azure.ref.integration.commons.executor.virtual;
+
+import com.sap.iot.azure.ref.integration.commons.executor.StageExecutorConfig;
+import com.sap.iot.azure.ref.integration.commons.executor.StageThreads;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs every task on a new virtual thread, so that tasks blocking on the cache, the mapping APIs, ADX or the IoT Hub only hold a carrier
+ * thread while they are running, not while they are blocked.
+ * <p>
+ * The configured thread count bounds the number of tasks running concurrently, e.g., to bound the concurrent calls to a remote service,
+ * and the queue size the number of further tasks waiting for a permit on their virtual thread. Tasks beyond both are rejected.
+ */
+class VirtualStageThreads implements StageThreads {
+
+    private final String stage;
+    private final int capacity;
+    private final Semaphore permits;
+    private final ThreadFactory threadFactory;
+    private final AtomicInteger admitted = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+
+    VirtualStageThreads(String stage, StageExecutorConfig config) {
+        int threads = Math.max(1, config.getThreads());
+        this.stage = stage;
+        this.capacity = threads + Math.max(1, config.getQueueSize());
+        this.permits = new Semaphore(threads);
+        this.threadFactory = Thread.ofVirtual().name("stage-" + stage + "-virtual-", 0).factory();
+    }
+
+    @Override
+    public void execute(Runnable task) throws RejectedExecutionException {
+        if (admitted.incrementAndGet() > capacity) {
+            admitted.decrementAndGet();
+            throw new RejectedExecutionException(String.format("Virtual threads of stage %s are saturated", stage));
+        }
+
+        try {
+            threadFactory.newThread(() -> run(task)).start();
+        } catch (RuntimeException | Error ex) {
+            admitted.decrementAndGet();
+            throw ex;
+        }
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return Math.max(0, admitted.get() - active.get());
+    }
+
+    @Override
+    public int getActiveCount() {
+        return active.get();
+    }
+
+    private void run(Runnable task) {
+        permits.acquireUninterruptibly();
+        active.incrementAndGet();
+        try {
+            task.run();
+        } finally {
+            active.decrementAndGet();
+            permits.release();
+            admitted.decrementAndGet();
+        }
+    }
+}
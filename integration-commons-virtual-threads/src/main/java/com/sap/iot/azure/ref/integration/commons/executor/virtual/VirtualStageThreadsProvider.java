@@ -0,0 +1,23 @@
+package com.sap.iot.azure.ref.integration.commons.executor.virtual;
+
+import com.sap.iot.azure.ref.integration.commons.executor.StageExecutorConfig;
+import com.sap.iot.azure.ref.integration.commons.executor.StageThreads;
+import com.sap.iot.azure.ref.integration.commons.executor.StageThreadsProvider;
+
+/**
+ * Provides {@link VirtualStageThreads}, selected with "executor-{stage}-thread-provider" set to "virtual".
+ */
+public class VirtualStageThreadsProvider implements StageThreadsProvider {
+
+    public static final String NAME = "virtual";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public StageThreads create(String stage, StageExecutorConfig config) {
+        return new VirtualStageThreads(stage, config);
+    }
+}
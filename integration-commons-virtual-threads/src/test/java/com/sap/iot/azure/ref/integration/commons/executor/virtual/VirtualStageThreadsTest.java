@@ -0,0 +1,132 @@
+package com.sap.iot.azure.ref.integration.commons.executor.virtual;
+
+import com.sap.iot.azure.ref.integration.commons.executor.StageExecutorConfig;
+import com.sap.iot.azure.ref.integration.commons.executor.StageThreads;
+import com.sap.iot.azure.ref.integration.commons.executor.StageThreadsProvider;
+import org.junit.Test;
+
+import java.util.ServiceLoader;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class VirtualStageThreadsTest {
+
+    @Test
+    public void testProvider() {
+        StageThreadsProvider provider = ServiceLoader.load(StageThreadsProvider.class).stream()
+                .map(ServiceLoader.Provider::get)
+                .filter(loaded -> VirtualStageThreadsProvider.NAME.equals(loaded.getName()))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("virtual stage threads provider not registered"));
+
+        assertTrue(provider.create("test", createConfig(1, 1)) instanceof VirtualStageThreads);
+    }
+
+    @Test
+    public void testPermits() throws InterruptedException {
+        StageThreads stageThreads = new VirtualStageThreads("test", createConfig(2, 10));
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch completed = new CountDownLatch(6);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        for (int i = 0; i < 6; i++) {
+            stageThreads.execute(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                await(release);
+                running.decrementAndGet();
+                completed.countDown();
+            });
+        }
+
+        // only as many tasks run as there are permits, the others wait on their virtual thread
+        awaitCondition(() -> stageThreads.getActiveCount() == 2 && stageThreads.getQueueDepth() == 4);
+        assertEquals(2, maxRunning.get());
+
+        release.countDown();
+        assertTrue(completed.await(10, TimeUnit.SECONDS));
+        assertEquals(2, maxRunning.get());
+        awaitCondition(() -> stageThreads.getActiveCount() == 0 && stageThreads.getQueueDepth() == 0);
+    }
+
+    @Test
+    public void testSaturation() throws InterruptedException {
+        StageThreads stageThreads = new VirtualStageThreads("test", createConfig(1, 2));
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch completed = new CountDownLatch(3);
+
+        // one running and two waiting tasks saturate the stage
+        for (int i = 0; i < 3; i++) {
+            stageThreads.execute(() -> {
+                await(release);
+                completed.countDown();
+            });
+        }
+
+        try {
+            stageThreads.execute(() -> fail("saturated stage must not run further tasks"));
+            fail("RejectedExecutionException expected");
+        } catch (RejectedExecutionException e) {
+            assertTrue(e.getMessage().contains("test"));
+        }
+
+        release.countDown();
+        assertTrue(completed.await(10, TimeUnit.SECONDS));
+
+        // completed tasks release their slots
+        CountDownLatch admitted = new CountDownLatch(3);
+        awaitCondition(() -> stageThreads.getActiveCount() == 0 && stageThreads.getQueueDepth() == 0);
+        for (int i = 0; i < 3; i++) {
+            stageThreads.execute(admitted::countDown);
+        }
+        assertTrue(admitted.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testFailingTask() throws InterruptedException {
+        StageThreads stageThreads = new VirtualStageThreads("test", createConfig(1, 1));
+
+        stageThreads.execute(() -> {
+            throw new IllegalStateException("task failure");
+        });
+
+        // a failing task releases its permit and slot
+        CountDownLatch completed = new CountDownLatch(1);
+        awaitCondition(() -> stageThreads.getActiveCount() == 0 && stageThreads.getQueueDepth() == 0);
+        stageThreads.execute(completed::countDown);
+        assertTrue(completed.await(10, TimeUnit.SECONDS));
+    }
+
+    private static StageExecutorConfig createConfig(int threads, int queueSize) {
+        return StageExecutorConfig.builder()
+                .threads(threads)
+                .queueSize(queueSize)
+                .threadProvider(VirtualStageThreadsProvider.NAME)
+                .build();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail("condition not met within 10 seconds");
+            }
+            Thread.sleep(10);
+        }
+    }
+}
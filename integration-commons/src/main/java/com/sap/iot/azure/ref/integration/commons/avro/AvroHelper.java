@@ -9,6 +9,7 @@ import com.sap.iot.azure.ref.integration.commons.constants.CommonConstants;
 import com.sap.iot.azure.ref.integration.commons.context.InvocationContext;
 import com.sap.iot.azure.ref.integration.commons.exception.AvroIngestionException;
 import com.sap.iot.azure.ref.integration.commons.exception.IdentifierUtil;
+import com.sap.iot.azure.ref.integration.commons.logging.StructuredLog;
 import com.sap.iot.azure.ref.integration.commons.model.timeseries.processed.ProcessedMessage;
 import org.apache.avro.AvroRuntimeException;
 import org.apache.avro.Schema;
@@ -140,7 +141,7 @@ public class AvroHelper {
                     byte[] avroMessage = Arrays.copyOf(byteArrayOutputStream.toByteArray(), lastValidSize);
                     avroMessages.add(avroMessage);
 
-                    InvocationContext.getLogger().fine("Avro Message size: " + avroMessage.length);
+                    StructuredLog.log(Level.FINE, "Avro Message created", "size", avroMessage.length);
                     IOUtils.closeQuietly(fileWriter);
 
                     // prepare for next avro message
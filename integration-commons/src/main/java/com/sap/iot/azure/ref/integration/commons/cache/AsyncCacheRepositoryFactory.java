@@ -0,0 +1,45 @@
+package com.sap.iot.azure.ref.integration.commons.cache;
+
+import com.sap.iot.azure.ref.integration.commons.cache.api.AsyncCacheRepository;
+import com.sap.iot.azure.ref.integration.commons.cache.api.CacheRepository;
+import com.sap.iot.azure.ref.integration.commons.cache.redis.PipelinedCacheRepository;
+import com.sap.iot.azure.ref.integration.commons.circuitbreaker.CircuitBreakerConstants;
+import com.sap.iot.azure.ref.integration.commons.circuitbreaker.CircuitBreakerRegistry;
+import com.sap.iot.azure.ref.integration.commons.util.EnvUtils;
+
+public class AsyncCacheRepositoryFactory {
+
+    private static PipelinedCacheRepository pipelinedCacheRepository;
+
+    private AsyncCacheRepositoryFactory() {
+    }
+
+    /**
+     * Returns the {@link AsyncCacheRepository} configured by the environment, guarded by the circuit breaker of the cache. Defaults to
+     * running the operations of the given blocking repository on the calling thread. With the pipelined mode, all callers share a single
+     * {@link PipelinedCacheRepository}, which is closed on shutdown.
+     *
+     * @param cacheRepository blocking repository of the caller, used unless the pipelined mode is configured; expected to be guarded by
+     *                        the circuit breaker of the cache already
+     * @return {@link AsyncCacheRepository} for the configured cache resource
+     */
+    public static AsyncCacheRepository fromEnv(CacheRepository cacheRepository) {
+        if (CacheConstants.CACHE_ASYNC_MODE_PIPELINED.equalsIgnoreCase(EnvUtils.getEnv(CacheConstants.CACHE_ASYNC_MODE_PROP,
+                CacheConstants.CACHE_ASYNC_MODE_BLOCKING))) {
+            return new CircuitBreakingAsyncCacheRepository(getPipelinedCacheRepository(),
+                    CircuitBreakerRegistry.getDefault().get(CircuitBreakerConstants.CACHE));
+        }
+
+        return new BlockingAsyncCacheRepository(cacheRepository);
+    }
+
+    private static synchronized PipelinedCacheRepository getPipelinedCacheRepository() {
+        if (pipelinedCacheRepository == null) {
+            pipelinedCacheRepository = new PipelinedCacheRepository();
+            PipelinedCacheRepository repository = pipelinedCacheRepository;
+            Runtime.getRuntime().addShutdownHook(new Thread(repository::close));
+        }
+
+        return pipelinedCacheRepository;
+    }
+}
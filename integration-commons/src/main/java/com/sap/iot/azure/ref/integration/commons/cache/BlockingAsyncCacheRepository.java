@@ -0,0 +1,66 @@
+package com.sap.iot.azure.ref.integration.commons.cache;
+
+import com.sap.iot.azure.ref.integration.commons.cache.api.AsyncCacheRepository;
+import com.sap.iot.azure.ref.integration.commons.cache.api.CacheRepository;
+import com.sap.iot.azure.ref.integration.commons.exception.base.IoTRuntimeException;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * {@link AsyncCacheRepository} which runs the operations of a {@link CacheRepository} on the calling thread and returns completed futures.
+ * Used if the pipelined cache access is not enabled, so that callers of the asynchronous interface keep the blocking behavior.
+ */
+public class BlockingAsyncCacheRepository implements AsyncCacheRepository {
+
+    private final CacheRepository cacheRepository;
+
+    public BlockingAsyncCacheRepository(CacheRepository cacheRepository) {
+        this.cacheRepository = cacheRepository;
+    }
+
+    @Override
+    public <T> CompletableFuture<Optional<T>> get(byte[] key, Class<T> clazz) {
+        return call(() -> cacheRepository.get(key, clazz));
+    }
+
+    @Override
+    public <T> CompletableFuture<List<Optional<T>>> multiGet(List<byte[]> keys, Class<T> clazz) {
+        return call(() -> cacheRepository.multiGet(keys, clazz));
+    }
+
+    @Override
+    public <T> CompletableFuture<Optional<Map<String, T>>> getHash(byte[] key, Class<T> clazz) {
+        return call(() -> cacheRepository.getHash(key, clazz));
+    }
+
+    @Override
+    public <T> CompletableFuture<Void> set(byte[] key, T t, Class<T> clazz) {
+        return call(() -> {
+            cacheRepository.set(key, t, clazz);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> delete(byte[] key) {
+        return call(() -> {
+            cacheRepository.delete(key);
+            return null;
+        });
+    }
+
+    private static <R> CompletableFuture<R> call(Supplier<R> operation) {
+        CompletableFuture<R> result = new CompletableFuture<>();
+        try {
+            result.complete(operation.get());
+        } catch (IoTRuntimeException e) {
+            result.completeExceptionally(e);
+        }
+
+        return result;
+    }
+}
@@ -13,4 +13,52 @@ public class CacheConstants {
     public static final int SCAN_COUNT = 100;
     public static final int AZURE_CACHE_PORT = 6380;
     public static final int AZURE_CACHE_TIMEOUT = 5000;
-}
\ No newline at end of file
+    public static final int MULTI_KEY_CHUNK_SIZE = 100;
+    public static final String CACHE_ENTRY_TTL_SECONDS_PROP = "cache-entry-ttl-seconds";
+    public static final int CACHE_ENTRY_TTL_SECONDS_DEFAULT = 0;
+    // set once no entries written before the index sets were maintained are left, e.g., after a cache flush or after the entry TTL passed
+    public static final String CACHE_INDEX_COMPLETE_PROP = "cache-index-complete";
+    public static final boolean CACHE_INDEX_COMPLETE_DEFAULT = false;
+
+    //Cache Key Namespaces
+    public static final String CACHE_NAMESPACE_KEY_PREFIX = "NAMESPACE_";
+    public static final String CACHE_NAMESPACE_VERSION_PREFIX = "V";
+    public static final String CACHE_NAMESPACE_REFRESH_SECONDS_PROP = "cache-namespace-refresh-seconds";
+    public static final int CACHE_NAMESPACE_REFRESH_SECONDS_DEFAULT = 30;
+    public static final String CACHE_NAMESPACE_RESET_PROP = "cache-namespace-reset";
+    public static final String CACHE_NAMESPACE_RESET_KEY_SUFFIX = "RESET";
+    // applied to the entries of bumped namespaces without an entry TTL, so that they are removed once their namespace is bumped again
+    public static final String CACHE_NAMESPACE_ENTRY_TTL_SECONDS_PROP = "cache-namespace-entry-ttl-seconds";
+    public static final int CACHE_NAMESPACE_ENTRY_TTL_SECONDS_DEFAULT = 7 * 24 * 60 * 60;
+
+    //Cache Value Encoding
+    public static final String CACHE_VALUE_CODEC_PROP = "cache-value-codec";
+    public static final String CACHE_VALUE_CODEC_JSON = "json";
+    public static final String CACHE_VALUE_CODEC_BINARY = "binary";
+    public static final String CACHE_VALUE_COMPRESSION_THRESHOLD_PROP = "cache-value-compression-threshold-bytes";
+    public static final int CACHE_VALUE_COMPRESSION_THRESHOLD_DEFAULT = 1024;
+
+    //Cache Connection Pool
+    public static final String CACHE_POOL_SIZING_PROP = "cache-pool-sizing";
+    public static final String CACHE_POOL_SIZING_FIXED = "fixed";
+    public static final String CACHE_POOL_SIZING_HOST_CONCURRENCY = "host-concurrency";
+    public static final String CACHE_POOL_MAX_TOTAL_PROP = "cache-pool-max-total";
+    public static final int CACHE_POOL_MAX_TOTAL_DEFAULT = 8;
+    public static final String CACHE_POOL_MAX_IDLE_PROP = "cache-pool-max-idle";
+    public static final int CACHE_POOL_MAX_IDLE_DEFAULT = 8;
+    public static final String CACHE_POOL_MIN_IDLE_PROP = "cache-pool-min-idle";
+    public static final int CACHE_POOL_MIN_IDLE_DEFAULT = 0;
+    public static final String CACHE_POOL_MAX_WAIT_MILLIS_PROP = "cache-pool-max-wait-millis";
+    public static final int CACHE_POOL_MAX_WAIT_MILLIS_DEFAULT = AZURE_CACHE_TIMEOUT;
+    public static final String CACHE_POOL_CONCURRENT_INVOCATIONS_PROP = "cache-pool-concurrent-invocations";
+    public static final int CACHE_POOL_CONCURRENT_INVOCATIONS_DEFAULT = 1;
+
+    //Asynchronous Cache Access
+    public static final String CACHE_ASYNC_MODE_PROP = "cache-async-mode";
+    public static final String CACHE_ASYNC_MODE_BLOCKING = "blocking";
+    public static final String CACHE_ASYNC_MODE_PIPELINED = "pipelined";
+    public static final String CACHE_ASYNC_DISPATCHERS_PROP = "cache-async-dispatchers";
+    public static final int CACHE_ASYNC_DISPATCHERS_DEFAULT = 2;
+    public static final String CACHE_ASYNC_QUEUE_CAPACITY_PROP = "cache-async-queue-capacity";
+    public static final int CACHE_ASYNC_QUEUE_CAPACITY_DEFAULT = 10000;
+}
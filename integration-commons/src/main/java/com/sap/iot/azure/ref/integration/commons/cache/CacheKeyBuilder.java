@@ -3,9 +3,21 @@ package com.sap.iot.azure.ref.integration.commons.cache;
 import com.sap.iot.azure.ref.integration.commons.mapping.MappingServiceConstants;
 
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+/**
+ * Builds the keys of cache entries. Keys of all {@link CacheKeyFamily}s, except index keys, embed the namespace
+ * version of their family (see {@link CacheNamespace}), as {@code SAP_V{version}_...}. Version 0 keys are built without version segment.
+ */
 public class CacheKeyBuilder {
 
+    private static final byte[] VERSIONED_KEY_PREFIX = (MappingServiceConstants.CACHE_KEY_CREATOR_PREFIX
+            + CacheConstants.CACHE_NAMESPACE_VERSION_PREFIX).getBytes(StandardCharsets.UTF_8);
+
     /**
      * Generate key for sensor info cache entry from sensor and capability id.
      *
@@ -14,11 +26,13 @@ public class CacheKeyBuilder {
      * @return sensor info key as byte array
      */
     public static byte[] constructSensorInfoKey(String sensorId, String capabilityId) {
-        return (MappingServiceConstants.CACHE_KEY_CREATOR_PREFIX + MappingServiceConstants.CACHE_SENSOR_KEY_PREFIX + sensorId + MappingServiceConstants.CACHE_KEY_SEPARATOR + capabilityId).getBytes(StandardCharsets.UTF_8);
+        return (prefix(CacheKeyFamily.SENSOR_INFO) + MappingServiceConstants.CACHE_SENSOR_KEY_PREFIX + sensorId + MappingServiceConstants.CACHE_KEY_SEPARATOR + capabilityId).getBytes(StandardCharsets.UTF_8);
     }
 
     /**
      * Generate key for property mapping info cache entry from mapping, structure and virtual capability id.
+     * Property mapping infos are stored as hash entries, under a different key than the serialized entries of previous versions, so that
+     * instances of previous versions never read a hash entry.
      *
      * @param mappingId used for constructing key
      * @param structureId used for constructing key
@@ -27,7 +41,21 @@ public class CacheKeyBuilder {
      */
     public static byte[] constructPropertyMappingInfoKey(String mappingId, String structureId, String virtualCapabilityId) {
         String sep = MappingServiceConstants.CACHE_KEY_SEPARATOR;
-        return (MappingServiceConstants.CACHE_KEY_CREATOR_PREFIX + MappingServiceConstants.CACHE_MAPPING_KEY_PREFIX + mappingId + sep + structureId + sep + virtualCapabilityId).getBytes(StandardCharsets.UTF_8);
+        return (prefix(CacheKeyFamily.PROPERTY_MAPPING_INFO) + MappingServiceConstants.CACHE_MAPPING_FIELDS_KEY_PREFIX + mappingId + sep + structureId + sep + virtualCapabilityId).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Generate key for the serialized property mapping info cache entry written by previous versions from mapping, structure and virtual
+     * capability id. Only used for deleting these entries on changes of the mapping.
+     *
+     * @param mappingId used for constructing key
+     * @param structureId used for constructing key
+     * @param virtualCapabilityId used for constructing key
+     * @return legacy property mapping info key as byte array
+     */
+    public static byte[] constructLegacyPropertyMappingInfoKey(String mappingId, String structureId, String virtualCapabilityId) {
+        String sep = MappingServiceConstants.CACHE_KEY_SEPARATOR;
+        return (prefix(CacheKeyFamily.PROPERTY_MAPPING_INFO) + MappingServiceConstants.CACHE_MAPPING_KEY_PREFIX + mappingId + sep + structureId + sep + virtualCapabilityId).getBytes(StandardCharsets.UTF_8);
     }
 
     /**
@@ -37,7 +65,7 @@ public class CacheKeyBuilder {
      * @return sensor key as byte array
      */
     public static byte[] constructSensorKey(String sensorId) {
-        return (MappingServiceConstants.CACHE_KEY_CREATOR_PREFIX + MappingServiceConstants.CACHE_SENSOR_KEY_PREFIX + sensorId).getBytes(StandardCharsets.UTF_8);
+        return (prefix(CacheKeyFamily.SENSOR) + MappingServiceConstants.CACHE_SENSOR_KEY_PREFIX + sensorId).getBytes(StandardCharsets.UTF_8);
     }
 
     /**
@@ -47,7 +75,133 @@ public class CacheKeyBuilder {
      * @return schema info key as byte array
      */
     public static byte[] constructSchemaInfoKey(String structureId) {
-        return (MappingServiceConstants.CACHE_KEY_CREATOR_PREFIX + MappingServiceConstants.CACHE_STRUCTURE_KEY_PREFIX + structureId).getBytes(StandardCharsets.UTF_8);
+        return (prefix(CacheKeyFamily.SCHEMA_INFO) + MappingServiceConstants.CACHE_STRUCTURE_KEY_PREFIX + structureId).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Generate key for the composite sensor mapping info cache entry from sensor and virtual capability id.
+     *
+     * @param sensorId used for constructing key
+     * @param virtualCapabilityId used for constructing key
+     * @return sensor mapping info key as byte array
+     */
+    public static byte[] constructSensorMappingInfoKey(String sensorId, String virtualCapabilityId) {
+        return (prefix(CacheKeyFamily.SENSOR_MAPPING_INFO) + MappingServiceConstants.CACHE_SENSOR_MAPPING_KEY_PREFIX + sensorId + MappingServiceConstants.CACHE_KEY_SEPARATOR + virtualCapabilityId).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String prefix(CacheKeyFamily family) {
+        return CacheNamespace.getDefault().getKeyPrefix(family);
+    }
+
+    /**
+     * Returns the key prefixes of all cache entries derived from a sensor (sensor info and sensor assignment entries), in the unversioned
+     * key format and in the current namespace versions, for scanning the cache keys of the sensor.
+     *
+     * @param sensorId used for constructing the prefixes
+     * @return distinct key prefixes
+     */
+    public static List<String> constructSensorKeyPrefixes(String sensorId) {
+        return keyPrefixes(MappingServiceConstants.CACHE_SENSOR_KEY_PREFIX + sensorId, CacheKeyFamily.SENSOR_INFO, CacheKeyFamily.SENSOR);
+    }
+
+    /**
+     * Returns the key prefixes of all property mapping info cache entries of a mapping (hash and legacy entries), in the unversioned key
+     * format and in the current namespace version, for scanning the cache keys of the mapping.
+     *
+     * @param mappingId used for constructing the prefixes
+     * @return distinct key prefixes
+     */
+    public static List<String> constructMappingKeyPrefixes(String mappingId) {
+        List<String> prefixes = new ArrayList<>(keyPrefixes(MappingServiceConstants.CACHE_MAPPING_FIELDS_KEY_PREFIX + mappingId,
+                CacheKeyFamily.PROPERTY_MAPPING_INFO));
+        prefixes.addAll(keyPrefixes(MappingServiceConstants.CACHE_MAPPING_KEY_PREFIX + mappingId, CacheKeyFamily.PROPERTY_MAPPING_INFO));
+        return prefixes;
+    }
+
+    /**
+     * Returns whether the given key embeds a namespace version, i.e., has the format {@code SAP_V{version}_...}.
+     *
+     * @param key cache key
+     * @return true if the key is versioned
+     */
+    public static boolean isVersionedKey(byte[] key) {
+        int versionIndex = VERSIONED_KEY_PREFIX.length;
+        if (key.length <= versionIndex || !Character.isDigit(key[versionIndex])) {
+            return false;
+        }
+
+        for (int i = 0; i < versionIndex; i++) {
+            if (key[i] != VERSIONED_KEY_PREFIX[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static List<String> keyPrefixes(String keySuffix, CacheKeyFamily... families) {
+        Set<String> prefixes = new LinkedHashSet<>();
+        prefixes.add(MappingServiceConstants.CACHE_KEY_CREATOR_PREFIX + keySuffix);
+        for (CacheKeyFamily family : families) {
+            prefixes.add(prefix(family) + keySuffix);
+        }
+
+        return new ArrayList<>(prefixes);
+    }
+
+    /**
+     * Generate key for the index set of all cache entries derived from a sensor (sensor info and sensor assignment entries).
+     * Index keys are not versioned, so that entries of all namespace versions are found.
+     *
+     * @param sensorId used for constructing key
+     * @return sensor index key as byte array
+     */
+    public static byte[] constructSensorIndexKey(String sensorId) {
+        return (MappingServiceConstants.CACHE_KEY_CREATOR_PREFIX + MappingServiceConstants.CACHE_INDEX_KEY_PREFIX + MappingServiceConstants.CACHE_SENSOR_KEY_PREFIX + sensorId).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Generate key for the index set of all cache entries derived from a mapping (property mapping info entries).
+     *
+     * @param mappingId used for constructing key
+     * @return mapping index key as byte array
+     */
+    public static byte[] constructMappingIndexKey(String mappingId) {
+        return (MappingServiceConstants.CACHE_KEY_CREATOR_PREFIX + MappingServiceConstants.CACHE_INDEX_KEY_PREFIX + MappingServiceConstants.CACHE_MAPPING_KEY_PREFIX + mappingId).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Generate key for the index set of all composite sensor mapping info entries derived from a mapping. Kept separate from the mapping
+     * index, so that the composite entries can be invalidated without deleting the property mapping info entries.
+     *
+     * @param mappingId used for constructing key
+     * @return sensor mapping index key as byte array
+     */
+    public static byte[] constructSensorMappingIndexKey(String mappingId) {
+        return (MappingServiceConstants.CACHE_KEY_CREATOR_PREFIX + MappingServiceConstants.CACHE_INDEX_KEY_PREFIX + MappingServiceConstants.CACHE_SENSOR_MAPPING_KEY_PREFIX + mappingId).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Generate key for the generation counter of a sensor, incremented whenever the cache entries derived from the sensor are invalidated.
+     * Generation keys are not versioned, see
+     * {@link com.sap.iot.azure.ref.integration.commons.cache.api.CacheRepository#setIfUnchanged(byte[], Object, Class, List, Map)}.
+     *
+     * @param sensorId used for constructing key
+     * @return sensor generation key as byte array
+     */
+    public static byte[] constructSensorGenerationKey(String sensorId) {
+        return (MappingServiceConstants.CACHE_KEY_CREATOR_PREFIX + MappingServiceConstants.CACHE_GENERATION_KEY_PREFIX + MappingServiceConstants.CACHE_SENSOR_KEY_PREFIX + sensorId).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Generate key for the generation counter of a mapping, incremented whenever the cache entries derived from the mapping are
+     * invalidated.
+     *
+     * @param mappingId used for constructing key
+     * @return mapping generation key as byte array
+     */
+    public static byte[] constructMappingGenerationKey(String mappingId) {
+        return (MappingServiceConstants.CACHE_KEY_CREATOR_PREFIX + MappingServiceConstants.CACHE_GENERATION_KEY_PREFIX + MappingServiceConstants.CACHE_MAPPING_KEY_PREFIX + mappingId).getBytes(StandardCharsets.UTF_8);
     }
 
     /**
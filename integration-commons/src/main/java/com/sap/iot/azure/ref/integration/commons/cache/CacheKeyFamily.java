@@ -0,0 +1,56 @@
+package com.sap.iot.azure.ref.integration.commons.cache;
+
+import com.sap.iot.azure.ref.integration.commons.mapping.MappingServiceConstants;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Families of cache keys built by the {@link CacheKeyBuilder}. Each family has its own namespace version, see {@link CacheNamespace}.
+ */
+public enum CacheKeyFamily {
+    SENSOR_INFO("SensorInfo"),
+    PROPERTY_MAPPING_INFO("PropertyMappingInfo"),
+    SCHEMA_INFO("SchemaInfo"),
+    SENSOR("SensorAssignment"),
+    // composite entries, derived from the sensor info, property mapping info and sensor assignment entries
+    SENSOR_MAPPING_INFO("SensorMappingInfo", SENSOR_INFO, PROPERTY_MAPPING_INFO, SENSOR);
+
+    private final String metricLabel;
+    private final List<CacheKeyFamily> sources;
+
+    CacheKeyFamily(String metricLabel, CacheKeyFamily... sources) {
+        this.metricLabel = metricLabel;
+        this.sources = Arrays.asList(sources);
+    }
+
+    /**
+     * Returns whether the entries of this family are derived from the entries of the given family, i.e., whether they become stale once
+     * the namespace version of the given family is bumped.
+     *
+     * @param family key family
+     * @return true if the entries of this family are derived from the given family
+     */
+    public boolean isDerivedFrom(CacheKeyFamily family) {
+        return sources.contains(family);
+    }
+
+    /**
+     * Returns the label of this family in metric names, named after the type of the cached values.
+     *
+     * @return metric label
+     */
+    public String getMetricLabel() {
+        return metricLabel;
+    }
+
+    /**
+     * Returns the key of the cache entry holding the namespace version of this family.
+     *
+     * @return namespace version key as byte array
+     */
+    public byte[] getNamespaceVersionKey() {
+        return (MappingServiceConstants.CACHE_KEY_CREATOR_PREFIX + CacheConstants.CACHE_NAMESPACE_KEY_PREFIX + name()).getBytes(StandardCharsets.UTF_8);
+    }
+}
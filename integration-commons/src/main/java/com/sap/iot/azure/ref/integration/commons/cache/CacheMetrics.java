@@ -0,0 +1,92 @@
+package com.sap.iot.azure.ref.integration.commons.cache;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.sap.iot.azure.ref.integration.commons.metrics.MetricName;
+import com.sap.iot.azure.ref.integration.commons.metrics.MetricsAggregator;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache lookup statistics per {@link CacheKeyFamily}: counters of hits, misses, errors and fallbacks to the mapping APIs, as well as a
+ * histogram of the cache lookup latency in microseconds.
+ * <p>
+ * The statistics are pre-aggregated by the {@link MetricsAggregator} and published once per flush interval as "{Family}CacheHits",
+ * "{Family}CacheMisses", "{Family}CacheErrors", "{Family}CacheFallbacks" and "{Family}CacheLatencyMicros", including its percentiles.
+ * Families without lookups in the interval are skipped.
+ */
+public class CacheMetrics {
+
+    private static final CacheMetrics DEFAULT = new CacheMetrics(MetricsAggregator.getDefault());
+
+    private final MetricsAggregator aggregator;
+    private final FamilyMetrics[] metrics = new FamilyMetrics[CacheKeyFamily.values().length];
+
+    @VisibleForTesting
+    CacheMetrics(MetricsAggregator aggregator) {
+        this.aggregator = aggregator;
+
+        for (CacheKeyFamily family : CacheKeyFamily.values()) {
+            metrics[family.ordinal()] = new FamilyMetrics(family.getMetricLabel() + "Cache");
+        }
+    }
+
+    /**
+     * Returns the cache metrics published by the default {@link MetricsAggregator}.
+     * Will always return the same instance.
+     *
+     * @return {@link CacheMetrics}
+     */
+    public static CacheMetrics getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Records a successful cache lookup.
+     *
+     * @param family       key family of the looked up entry
+     * @param hit          whether the entry was found
+     * @param latencyNanos duration of the lookup
+     */
+    public void recordLookup(CacheKeyFamily family, boolean hit, long latencyNanos) {
+        FamilyMetrics familyMetrics = metrics[family.ordinal()];
+        aggregator.increment((hit ? familyMetrics.hits : familyMetrics.misses).get(), 1);
+        aggregator.recordHistogram(familyMetrics.latency.get(), TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+    }
+
+    /**
+     * Records a failed cache lookup.
+     *
+     * @param family       key family of the looked up entry
+     * @param latencyNanos duration of the lookup until it failed
+     */
+    public void recordError(CacheKeyFamily family, long latencyNanos) {
+        FamilyMetrics familyMetrics = metrics[family.ordinal()];
+        aggregator.increment(familyMetrics.errors.get(), 1);
+        aggregator.recordHistogram(familyMetrics.latency.get(), TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+    }
+
+    /**
+     * Records a fallback to the mapping APIs after a cache miss.
+     *
+     * @param family key family of the missed entry
+     */
+    public void recordFallback(CacheKeyFamily family) {
+        aggregator.increment(metrics[family.ordinal()].fallbacks.get(), 1);
+    }
+
+    private static final class FamilyMetrics {
+        private final MetricName hits;
+        private final MetricName misses;
+        private final MetricName errors;
+        private final MetricName fallbacks;
+        private final MetricName latency;
+
+        private FamilyMetrics(String prefix) {
+            hits = new MetricName(prefix + "Hits");
+            misses = new MetricName(prefix + "Misses");
+            errors = new MetricName(prefix + "Errors");
+            fallbacks = new MetricName(prefix + "Fallbacks");
+            latency = new MetricName(prefix + "LatencyMicros");
+        }
+    }
+}
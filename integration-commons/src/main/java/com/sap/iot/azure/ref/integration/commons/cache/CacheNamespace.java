@@ -0,0 +1,199 @@
+package com.sap.iot.azure.ref.integration.commons.cache;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.sap.iot.azure.ref.integration.commons.cache.api.CacheRepository;
+import com.sap.iot.azure.ref.integration.commons.context.InvocationContext;
+import com.sap.iot.azure.ref.integration.commons.exception.base.IoTRuntimeException;
+import com.sap.iot.azure.ref.integration.commons.mapping.MappingServiceConstants;
+import com.sap.iot.azure.ref.integration.commons.util.EnvUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.logging.Level;
+
+/**
+ * Namespace versions of the {@link CacheKeyFamily}s, embedded into every key built by the {@link CacheKeyBuilder}.
+ * <p>
+ * The versions are stored in the cache resource and cached locally, together with the key prefix of each family. They are read once
+ * when the cache repository is attached, and then refreshed in the background in the configured interval, so that building a key never
+ * waits for the cache resource. Bumping the version of a family makes all existing keys of this family unreachable with a single
+ * operation. Entries of a bumped namespace expire (see {@link CacheConstants#CACHE_NAMESPACE_ENTRY_TTL_SECONDS_PROP}), so that the
+ * unreachable entries are removed by the cache resource. Other instances pick up a bumped version with their next refresh.
+ * <p>
+ * All versions are bumped once whenever a new value of {@link CacheConstants#CACHE_NAMESPACE_RESET_PROP} is deployed, e.g., after a full
+ * model re-sync or a tenant reset.
+ * <p>
+ * Until a cache repository is attached, or as long as a family has never been bumped, the version is 0 and keys are built without a
+ * version segment, i.e., in the same format as before namespaces were introduced.
+ */
+public class CacheNamespace {
+
+    private static final byte[] RESET_KEY = (MappingServiceConstants.CACHE_KEY_CREATOR_PREFIX + CacheConstants.CACHE_NAMESPACE_KEY_PREFIX
+            + CacheConstants.CACHE_NAMESPACE_RESET_KEY_SUFFIX).getBytes(StandardCharsets.UTF_8);
+
+    // the refresh thread is only started once a cache repository is attached
+    private static final CacheNamespace DEFAULT = new CacheNamespace(TimeUnit.SECONDS.toMillis(EnvUtils.getEnv(
+            CacheConstants.CACHE_NAMESPACE_REFRESH_SECONDS_PROP, CacheConstants.CACHE_NAMESPACE_REFRESH_SECONDS_DEFAULT)),
+            EnvUtils.getEnv(CacheConstants.CACHE_NAMESPACE_RESET_PROP, ""),
+            Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setNameFormat("cache-namespace-%d").setDaemon(true).build()));
+
+    private final long refreshIntervalMillis;
+    private final String resetToken;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicReferenceArray<Namespace> namespaces = new AtomicReferenceArray<>(CacheKeyFamily.values().length);
+    private volatile CacheRepository cacheRepository;
+    private volatile boolean resetApplied;
+
+    @VisibleForTesting
+    CacheNamespace(long refreshIntervalMillis, String resetToken, ScheduledExecutorService scheduler) {
+        this.refreshIntervalMillis = refreshIntervalMillis;
+        this.resetToken = resetToken;
+        this.scheduler = scheduler;
+        this.resetApplied = resetToken.isEmpty();
+
+        for (CacheKeyFamily family : CacheKeyFamily.values()) {
+            namespaces.set(family.ordinal(), new Namespace(0));
+        }
+    }
+
+    /**
+     * Returns the namespace versions used by the {@link CacheKeyBuilder}.
+     * Will always return the same instance.
+     *
+     * @return {@link CacheNamespace}
+     */
+    public static CacheNamespace getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Attaches the cache repository the namespace versions are read from, if no repository is attached yet. The versions are read once,
+     * and then refreshed in the background.
+     *
+     * @param cacheRepository cache repository of the configured cache resource
+     */
+    public synchronized void attach(CacheRepository cacheRepository) {
+        if (this.cacheRepository == null) {
+            this.cacheRepository = cacheRepository;
+            refresh();
+            scheduler.scheduleWithFixedDelay(this::refresh, refreshIntervalMillis, refreshIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Returns the last known namespace version of the given key family.
+     *
+     * @param family key family
+     * @return namespace version, 0 if the family has never been bumped
+     */
+    public long getVersion(CacheKeyFamily family) {
+        return namespaces.get(family.ordinal()).version;
+    }
+
+    /**
+     * Returns the prefix of the keys of the given key family in its last known namespace version, {@code SAP_} for version 0 and
+     * {@code SAP_V{version}_} otherwise.
+     *
+     * @param family key family
+     * @return key prefix
+     */
+    public String getKeyPrefix(CacheKeyFamily family) {
+        return namespaces.get(family.ordinal()).keyPrefix;
+    }
+
+    /**
+     * Bumps the namespace version of the given key family, which makes all existing keys of this family unreachable. The versions of
+     * the families derived from the given family are bumped as well (see {@link CacheKeyFamily#isDerivedFrom(CacheKeyFamily)}).
+     *
+     * @param family key family
+     * @return new namespace version
+     * @throws IoTRuntimeException of type {@link com.sap.iot.azure.ref.integration.commons.exception.CommonErrorType#CACHE_ACCESS_ERROR}
+     */
+    public synchronized long bump(CacheKeyFamily family) throws IoTRuntimeException {
+        CacheRepository repository = cacheRepository;
+        if (repository == null) {
+            throw new IllegalStateException("No cache repository attached to the cache namespace");
+        }
+
+        long version = repository.increment(family.getNamespaceVersionKey());
+        namespaces.set(family.ordinal(), new Namespace(version));
+        InvocationContext.getLogger().log(Level.INFO, String.format("Bumped cache namespace version of %s to %d", family, version));
+
+        for (CacheKeyFamily derivedFamily : CacheKeyFamily.values()) {
+            if (derivedFamily.isDerivedFrom(family)) {
+                bump(derivedFamily);
+            }
+        }
+
+        return version;
+    }
+
+    /**
+     * Bumps the namespace versions of all key families, e.g., after a full model re-sync or a cache format migration.
+     *
+     * @throws IoTRuntimeException of type {@link com.sap.iot.azure.ref.integration.commons.exception.CommonErrorType#CACHE_ACCESS_ERROR}
+     */
+    public void bumpAll() throws IoTRuntimeException {
+        for (CacheKeyFamily family : CacheKeyFamily.values()) {
+            // derived families are bumped with their source families
+            if (Arrays.stream(CacheKeyFamily.values()).noneMatch(family::isDerivedFrom)) {
+                bump(family);
+            }
+        }
+    }
+
+    @VisibleForTesting
+    synchronized void refresh() {
+        try {
+            List<byte[]> keys = new ArrayList<>();
+            for (CacheKeyFamily family : CacheKeyFamily.values()) {
+                keys.add(family.getNamespaceVersionKey());
+            }
+
+            List<Optional<Long>> storedVersions = cacheRepository.multiGet(keys, Long.class);
+            for (CacheKeyFamily family : CacheKeyFamily.values()) {
+                // a missing entry (never bumped or cache flushed) is version 0 on all instances
+                long version = storedVersions.get(family.ordinal()).orElse(0L);
+                if (version != getVersion(family)) {
+                    namespaces.set(family.ordinal(), new Namespace(version));
+                }
+            }
+
+            if (!resetApplied) {
+                applyReset();
+            }
+        } catch (IoTRuntimeException e) {
+            InvocationContext.getLogger().log(Level.FINE, "Unable to refresh cache namespace versions, keeping last known versions", e);
+        }
+    }
+
+    private void applyReset() {
+        // the first instance seeing a new reset token bumps all versions, concurrent instances may bump them once more
+        if (!cacheRepository.get(RESET_KEY, String.class).filter(resetToken::equals).isPresent()) {
+            InvocationContext.getLogger().log(Level.INFO, String.format("Resetting cache namespaces for reset %s", resetToken));
+            bumpAll();
+            cacheRepository.set(RESET_KEY, resetToken, String.class);
+        }
+
+        resetApplied = true;
+    }
+
+    private static final class Namespace {
+        private final long version;
+        private final String keyPrefix;
+
+        private Namespace(long version) {
+            this.version = version;
+            this.keyPrefix = version == 0 ? MappingServiceConstants.CACHE_KEY_CREATOR_PREFIX : MappingServiceConstants.CACHE_KEY_CREATOR_PREFIX
+                    + CacheConstants.CACHE_NAMESPACE_VERSION_PREFIX + version + MappingServiceConstants.CACHE_KEY_SEPARATOR;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.sap.iot.azure.ref.integration.commons.cache;
+
+import com.sap.iot.azure.ref.integration.commons.cache.api.AsyncCacheRepository;
+import com.sap.iot.azure.ref.integration.commons.circuitbreaker.CircuitBreaker;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * {@link AsyncCacheRepository} decorator, which guards every access to the cache resource with a {@link CircuitBreaker}, as the
+ * {@link CircuitBreakingCacheRepository} does for blocking access. The outcome of an operation is recorded once its future completes.
+ * While the circuit is open, all operations fail fast with a transient
+ * {@link com.sap.iot.azure.ref.integration.commons.exception.CircuitBreakerOpenException}.
+ */
+public class CircuitBreakingAsyncCacheRepository implements AsyncCacheRepository {
+
+    private final AsyncCacheRepository cacheRepository;
+    private final CircuitBreaker circuitBreaker;
+
+    public CircuitBreakingAsyncCacheRepository(AsyncCacheRepository cacheRepository, CircuitBreaker circuitBreaker) {
+        this.cacheRepository = cacheRepository;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    @Override
+    public <T> CompletableFuture<Optional<T>> get(byte[] key, Class<T> clazz) {
+        return circuitBreaker.executeAsync(() -> cacheRepository.get(key, clazz));
+    }
+
+    @Override
+    public <T> CompletableFuture<List<Optional<T>>> multiGet(List<byte[]> keys, Class<T> clazz) {
+        return circuitBreaker.executeAsync(() -> cacheRepository.multiGet(keys, clazz));
+    }
+
+    @Override
+    public <T> CompletableFuture<Optional<Map<String, T>>> getHash(byte[] key, Class<T> clazz) {
+        return circuitBreaker.executeAsync(() -> cacheRepository.getHash(key, clazz));
+    }
+
+    @Override
+    public <T> CompletableFuture<Void> set(byte[] key, T t, Class<T> clazz) {
+        return circuitBreaker.executeAsync(() -> cacheRepository.set(key, t, clazz));
+    }
+
+    @Override
+    public CompletableFuture<Void> delete(byte[] key) {
+        return circuitBreaker.executeAsync(() -> cacheRepository.delete(key));
+    }
+}
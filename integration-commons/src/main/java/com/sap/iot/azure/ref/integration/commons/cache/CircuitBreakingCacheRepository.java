@@ -0,0 +1,107 @@
+package com.sap.iot.azure.ref.integration.commons.cache;
+
+import com.sap.iot.azure.ref.integration.commons.cache.api.CacheRepository;
+import com.sap.iot.azure.ref.integration.commons.circuitbreaker.CircuitBreaker;
+import com.sap.iot.azure.ref.integration.commons.exception.base.IoTRuntimeException;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * {@link CacheRepository} decorator, which guards every access to the cache resource with a {@link CircuitBreaker}.
+ * While the circuit is open, all operations fail fast with a transient
+ * {@link com.sap.iot.azure.ref.integration.commons.exception.CircuitBreakerOpenException}.
+ */
+public class CircuitBreakingCacheRepository implements CacheRepository {
+
+    private final CacheRepository cacheRepository;
+    private final CircuitBreaker circuitBreaker;
+
+    public CircuitBreakingCacheRepository(CacheRepository cacheRepository, CircuitBreaker circuitBreaker) {
+        this.cacheRepository = cacheRepository;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    @Override
+    public <T> Optional<T> get(byte[] key, Class<T> clazz) throws IoTRuntimeException {
+        return circuitBreaker.execute(() -> cacheRepository.get(key, clazz));
+    }
+
+    @Override
+    public <T> void set(byte[] key, T t, Class<T> clazz) throws IoTRuntimeException {
+        circuitBreaker.run(() -> cacheRepository.set(key, t, clazz));
+    }
+
+    @Override
+    public <T> void set(byte[] key, T t, Class<T> clazz, byte[] indexKey) throws IoTRuntimeException {
+        circuitBreaker.run(() -> cacheRepository.set(key, t, clazz, indexKey));
+    }
+
+    @Override
+    public <T> void set(byte[] key, T t, Class<T> clazz, List<byte[]> indexKeys) throws IoTRuntimeException {
+        circuitBreaker.run(() -> cacheRepository.set(key, t, clazz, indexKeys));
+    }
+
+    @Override
+    public <T> boolean setIfUnchanged(byte[] key, T t, Class<T> clazz, List<byte[]> indexKeys, Map<byte[], Long> expectedGenerations)
+            throws IoTRuntimeException {
+        return circuitBreaker.execute(() -> cacheRepository.setIfUnchanged(key, t, clazz, indexKeys, expectedGenerations));
+    }
+
+    @Override
+    public <T> List<Optional<T>> multiGet(List<byte[]> keys, Class<T> clazz) throws IoTRuntimeException {
+        return circuitBreaker.execute(() -> cacheRepository.multiGet(keys, clazz));
+    }
+
+    @Override
+    public <T> void multiSet(Map<byte[], T> entries, Class<T> clazz) throws IoTRuntimeException {
+        circuitBreaker.run(() -> cacheRepository.multiSet(entries, clazz));
+    }
+
+    @Override
+    public <T> void multiSet(Map<byte[], T> entries, Class<T> clazz, byte[] indexKey) throws IoTRuntimeException {
+        circuitBreaker.run(() -> cacheRepository.multiSet(entries, clazz, indexKey));
+    }
+
+    @Override
+    public <T> Optional<Map<String, T>> getHash(byte[] key, Class<T> clazz) throws IoTRuntimeException {
+        return circuitBreaker.execute(() -> cacheRepository.getHash(key, clazz));
+    }
+
+    @Override
+    public <T> void multiSetHash(Map<byte[], Map<String, T>> entries, byte[] indexKey) throws IoTRuntimeException {
+        circuitBreaker.run(() -> cacheRepository.multiSetHash(entries, indexKey));
+    }
+
+    @Override
+    public <T> boolean updateHash(byte[] key, Map<String, T> fieldsToSet, Collection<String> fieldsToDelete) throws IoTRuntimeException {
+        return circuitBreaker.execute(() -> cacheRepository.updateHash(key, fieldsToSet, fieldsToDelete));
+    }
+
+    @Override
+    public void delete(byte[] key) throws IoTRuntimeException {
+        circuitBreaker.run(() -> cacheRepository.delete(key));
+    }
+
+    @Override
+    public void multiDelete(List<byte[]> keys) throws IoTRuntimeException {
+        circuitBreaker.run(() -> cacheRepository.multiDelete(keys));
+    }
+
+    @Override
+    public boolean deleteIndexed(byte[] indexKey) throws IoTRuntimeException {
+        return circuitBreaker.execute(() -> cacheRepository.deleteIndexed(indexKey));
+    }
+
+    @Override
+    public long increment(byte[] key) throws IoTRuntimeException {
+        return circuitBreaker.execute(() -> cacheRepository.increment(key));
+    }
+
+    @Override
+    public List<String> scanCacheKey(String partialKey) {
+        return circuitBreaker.execute(() -> cacheRepository.scanCacheKey(partialKey));
+    }
+}
@@ -0,0 +1,60 @@
+package com.sap.iot.azure.ref.integration.commons.cache.api;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous interface of a Cache resource. Operations have the same semantics as the corresponding {@link CacheRepository} operations,
+ * but return a {@link CompletableFuture} instead of blocking the calling thread for the round trip to the cache resource.
+ * Failed operations complete exceptionally with an {@link com.sap.iot.azure.ref.integration.commons.exception.base.IoTRuntimeException}
+ * of type {@link com.sap.iot.azure.ref.integration.commons.exception.CommonErrorType#CACHE_ACCESS_ERROR}.
+ */
+public interface AsyncCacheRepository {
+
+    /**
+     * Get a cache entry for a given key, see {@link CacheRepository#get(byte[], Class)}.
+     *
+     * @param key,   of the cache entry
+     * @param clazz, class which the cache entry is parsed to
+     * @return future of an {@link Optional} which contains the cache entry. Is empty if no cache entry is found.
+     */
+    <T> CompletableFuture<Optional<T>> get(byte[] key, Class<T> clazz);
+
+    /**
+     * Get the cache entries for the given keys, see {@link CacheRepository#multiGet(List, Class)}.
+     *
+     * @param keys,  of the cache entries
+     * @param clazz, class which the cache entries are parsed to
+     * @return future of a {@link List} with an {@link Optional} per key, in the order of the given keys
+     */
+    <T> CompletableFuture<List<Optional<T>>> multiGet(List<byte[]> keys, Class<T> clazz);
+
+    /**
+     * Get all fields of a hash cache entry for a given key, see {@link CacheRepository#getHash(byte[], Class)}.
+     *
+     * @param key,   of the cache entry
+     * @param clazz, class which the field values are parsed to
+     * @return future of an {@link Optional} which contains the field values by field name. Is empty if no hash cache entry is found.
+     */
+    <T> CompletableFuture<Optional<Map<String, T>>> getHash(byte[] key, Class<T> clazz);
+
+    /**
+     * Set a cache entry for a given key, see {@link CacheRepository#set(byte[], Object, Class)}.
+     *
+     * @param key,   of the cache entry
+     * @param t,     cache value
+     * @param clazz, class of the cache value
+     * @return future which completes once the cache entry is written
+     */
+    <T> CompletableFuture<Void> set(byte[] key, T t, Class<T> clazz);
+
+    /**
+     * Delete a cache entry for a given key, see {@link CacheRepository#delete(byte[])}.
+     *
+     * @param key, of the cache entry
+     * @return future which completes once the cache entry is deleted
+     */
+    CompletableFuture<Void> delete(byte[] key);
+}
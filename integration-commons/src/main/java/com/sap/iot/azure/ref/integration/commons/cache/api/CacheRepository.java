@@ -2,7 +2,9 @@ package com.sap.iot.azure.ref.integration.commons.cache.api;
 
 import com.sap.iot.azure.ref.integration.commons.exception.base.IoTRuntimeException;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -30,6 +32,107 @@ public interface CacheRepository {
      */
     <T> void set(byte[] key, T t, Class<T> clazz) throws IoTRuntimeException;
 
+    /**
+     * Set a cache entry for a given key and add the key to the given index set, within a single round trip to the cache resource.
+     *
+     * @param key,      of the cache entry
+     * @param t,        cache value
+     * @param clazz,    class of the cache value
+     * @param indexKey, key of the index set, see {@link #deleteIndexed(byte[])}
+     * @throws IoTRuntimeException with type {@link com.sap.iot.azure.ref.integration.commons.exception.CommonErrorType#CACHE_ACCESS_ERROR}
+     */
+    <T> void set(byte[] key, T t, Class<T> clazz, byte[] indexKey) throws IoTRuntimeException;
+
+    /**
+     * Set a cache entry for a given key and add the key to each of the given index sets, within a single round trip to the cache resource.
+     * Used for entries derived from several cached objects, which have to be invalidated whenever any of them changes.
+     *
+     * @param key,       of the cache entry
+     * @param t,         cache value
+     * @param clazz,     class of the cache value
+     * @param indexKeys, keys of the index sets, see {@link #deleteIndexed(byte[])}
+     * @throws IoTRuntimeException with type {@link com.sap.iot.azure.ref.integration.commons.exception.CommonErrorType#CACHE_ACCESS_ERROR}
+     */
+    <T> void set(byte[] key, T t, Class<T> clazz, List<byte[]> indexKeys) throws IoTRuntimeException;
+
+    /**
+     * Set a cache entry for a given key and add the key to each of the given index sets, atomically within a single round trip to the cache
+     * resource, but only if none of the given generation entries has changed. Used for entries derived from several cached objects, which
+     * must not be written after any of these objects has been invalidated concurrently. Missing generation entries have generation 0.
+     *
+     * @param key,                 of the cache entry
+     * @param t,                   cache value
+     * @param clazz,               class of the cache value
+     * @param indexKeys,           keys of the index sets, see {@link #deleteIndexed(byte[])}
+     * @param expectedGenerations, generations read before the cache value was derived, by generation key, see {@link #increment(byte[])}.
+     *                             The map is only iterated, hence byte array keys are fine
+     * @return false, if the cache entry was not set, since a generation has changed
+     * @throws IoTRuntimeException with type {@link com.sap.iot.azure.ref.integration.commons.exception.CommonErrorType#CACHE_ACCESS_ERROR}
+     */
+    <T> boolean setIfUnchanged(byte[] key, T t, Class<T> clazz, List<byte[]> indexKeys, Map<byte[], Long> expectedGenerations)
+            throws IoTRuntimeException;
+
+    /**
+     * Get the cache entries for the given keys with as few round trips to the cache resource as possible.
+     *
+     * @param keys,  of the cache entries
+     * @param clazz, class which the cache entries are parsed to
+     * @return {@link List} with an {@link Optional} per key, in the order of the given keys. Is empty if no cache entry is found.
+     * @throws IoTRuntimeException with type {@link com.sap.iot.azure.ref.integration.commons.exception.CommonErrorType#CACHE_ACCESS_ERROR}
+     */
+    <T> List<Optional<T>> multiGet(List<byte[]> keys, Class<T> clazz) throws IoTRuntimeException;
+
+    /**
+     * Set the given cache entries with as few round trips to the cache resource as possible.
+     *
+     * @param entries, cache values by key. The map is only iterated, hence byte array keys are fine
+     * @param clazz,   class of the cache values
+     * @throws IoTRuntimeException with type {@link com.sap.iot.azure.ref.integration.commons.exception.CommonErrorType#CACHE_ACCESS_ERROR}
+     */
+    <T> void multiSet(Map<byte[], T> entries, Class<T> clazz) throws IoTRuntimeException;
+
+    /**
+     * Set the given cache entries and add their keys to the given index set with as few round trips to the cache resource as possible.
+     *
+     * @param entries,  cache values by key. The map is only iterated, hence byte array keys are fine
+     * @param clazz,    class of the cache values
+     * @param indexKey, key of the index set, see {@link #deleteIndexed(byte[])}
+     * @throws IoTRuntimeException with type {@link com.sap.iot.azure.ref.integration.commons.exception.CommonErrorType#CACHE_ACCESS_ERROR}
+     */
+    <T> void multiSet(Map<byte[], T> entries, Class<T> clazz, byte[] indexKey) throws IoTRuntimeException;
+
+    /**
+     * Get all fields of a hash cache entry for a given key.
+     *
+     * @param key,   of the cache entry
+     * @param clazz, class which the field values are parsed to
+     * @return {@link Optional} which contains the field values by field name. Is empty if no hash cache entry is found.
+     * @throws IoTRuntimeException with type {@link com.sap.iot.azure.ref.integration.commons.exception.CommonErrorType#CACHE_ACCESS_ERROR}
+     */
+    <T> Optional<Map<String, T>> getHash(byte[] key, Class<T> clazz) throws IoTRuntimeException;
+
+    /**
+     * Replace the given hash cache entries and add their keys to the given index set with as few round trips to the cache resource as
+     * possible. Each entry is replaced atomically.
+     *
+     * @param entries,  field values by field name, by key. The map is only iterated, hence byte array keys are fine
+     * @param indexKey, key of the index set, see {@link #deleteIndexed(byte[])}
+     * @throws IoTRuntimeException with type {@link com.sap.iot.azure.ref.integration.commons.exception.CommonErrorType#CACHE_ACCESS_ERROR}
+     */
+    <T> void multiSetHash(Map<byte[], Map<String, T>> entries, byte[] indexKey) throws IoTRuntimeException;
+
+    /**
+     * Atomically set and remove fields of an existing hash cache entry within a single round trip to the cache resource.
+     * Fields are set before fields are removed. A missing cache entry is not created.
+     *
+     * @param key,            of the cache entry
+     * @param fieldsToSet,    field values by field name
+     * @param fieldsToDelete, names of the fields to remove
+     * @return false, if no hash cache entry exists for the given key
+     * @throws IoTRuntimeException with type {@link com.sap.iot.azure.ref.integration.commons.exception.CommonErrorType#CACHE_ACCESS_ERROR}
+     */
+    <T> boolean updateHash(byte[] key, Map<String, T> fieldsToSet, Collection<String> fieldsToDelete) throws IoTRuntimeException;
+
     /**
      * Remove a cache entry for a given key
      *
@@ -38,6 +141,33 @@ public interface CacheRepository {
      */
     void delete(byte[] key) throws IoTRuntimeException;
 
+    /**
+     * Remove the cache entries for the given keys with as few round trips to the cache resource as possible.
+     *
+     * @param keys, of the cache entries
+     * @throws IoTRuntimeException with type {@link com.sap.iot.azure.ref.integration.commons.exception.CommonErrorType#CACHE_ACCESS_ERROR}
+     */
+    void multiDelete(List<byte[]> keys) throws IoTRuntimeException;
+
+    /**
+     * Remove all cache entries referenced by the given index set, and the references themselves.
+     * The cost depends on the number of referenced entries only, not on the size of the keyspace.
+     *
+     * @param indexKey, key of the index set
+     * @return false, if the index set does not exist, i.e., no entries have been indexed yet
+     * @throws IoTRuntimeException with type {@link com.sap.iot.azure.ref.integration.commons.exception.CommonErrorType#CACHE_ACCESS_ERROR}
+     */
+    boolean deleteIndexed(byte[] indexKey) throws IoTRuntimeException;
+
+    /**
+     * Atomically increment the integer value of a cache entry. A missing cache entry is incremented from 0.
+     *
+     * @param key, of the cache entry
+     * @return value after the increment
+     * @throws IoTRuntimeException with type {@link com.sap.iot.azure.ref.integration.commons.exception.CommonErrorType#CACHE_ACCESS_ERROR}
+     */
+    long increment(byte[] key) throws IoTRuntimeException;
+
     /**
      * Scan a cache entry for a given partialKey
      *
@@ -0,0 +1,95 @@
+package com.sap.iot.azure.ref.integration.commons.cache.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Compact binary encoding of cache values.
+ * <p>
+ * Layout: format version (1 byte), flags (1 byte), [uncompressed length (4 bytes) if compressed], Smile encoded value.
+ * Values larger than the compression threshold are LZ4 compressed, if this reduces their size.
+ * Legacy JSON values are detected by their first byte (JSON text never starts with the version byte) and decoded as JSON.
+ */
+public class BinaryCacheValueCodec implements CacheValueCodec {
+
+    static final byte FORMAT_VERSION = 0x01;
+    static final byte FLAG_LZ4 = 0x01;
+    private static final int HEADER_LENGTH = 2;
+    private static final int COMPRESSED_HEADER_LENGTH = HEADER_LENGTH + Integer.BYTES;
+
+    private static final ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+    private static final LZ4Compressor compressor = LZ4Factory.fastestInstance().fastCompressor();
+    private static final LZ4FastDecompressor decompressor = LZ4Factory.fastestInstance().fastDecompressor();
+
+    private final int compressionThreshold;
+    private final JsonCacheValueCodec legacyCodec;
+
+    public BinaryCacheValueCodec(int compressionThreshold) {
+        this.compressionThreshold = compressionThreshold;
+        this.legacyCodec = new JsonCacheValueCodec(this);
+    }
+
+    BinaryCacheValueCodec(int compressionThreshold, JsonCacheValueCodec legacyCodec) {
+        this.compressionThreshold = compressionThreshold;
+        this.legacyCodec = legacyCodec;
+    }
+
+    @Override
+    public byte[] encode(Object value) throws IOException {
+        byte[] payload = smileMapper.writeValueAsBytes(value);
+
+        if (payload.length > compressionThreshold) {
+            byte[] compressed = new byte[COMPRESSED_HEADER_LENGTH + compressor.maxCompressedLength(payload.length)];
+            int compressedLength = compressor.compress(payload, 0, payload.length, compressed, COMPRESSED_HEADER_LENGTH);
+
+            if (compressedLength < payload.length - Integer.BYTES) {
+                compressed[0] = FORMAT_VERSION;
+                compressed[1] = FLAG_LZ4;
+                ByteBuffer.wrap(compressed, HEADER_LENGTH, Integer.BYTES).putInt(payload.length);
+                return Arrays.copyOf(compressed, COMPRESSED_HEADER_LENGTH + compressedLength);
+            }
+        }
+
+        byte[] encoded = new byte[HEADER_LENGTH + payload.length];
+        encoded[0] = FORMAT_VERSION;
+        encoded[1] = 0;
+        System.arraycopy(payload, 0, encoded, HEADER_LENGTH, payload.length);
+        return encoded;
+    }
+
+    @Override
+    public <T> T decode(byte[] bytes, Class<T> clazz) throws IOException {
+        if (!isBinary(bytes)) {
+            return legacyCodec.decodeJson(bytes, clazz);
+        }
+
+        if (bytes.length < HEADER_LENGTH) {
+            throw new IOException("Truncated cache value");
+        }
+
+        if ((bytes[1] & FLAG_LZ4) == 0) {
+            return smileMapper.readValue(bytes, HEADER_LENGTH, bytes.length - HEADER_LENGTH, clazz);
+        }
+
+        try {
+            int uncompressedLength = ByteBuffer.wrap(bytes, HEADER_LENGTH, Integer.BYTES).getInt();
+            byte[] payload = new byte[uncompressedLength];
+            decompressor.decompress(bytes, COMPRESSED_HEADER_LENGTH, payload, 0, uncompressedLength);
+            return smileMapper.readValue(payload, clazz);
+        } catch (RuntimeException e) {
+            // LZ4Exception, BufferUnderflowException, NegativeArraySizeException for corrupt values
+            throw new IOException("Invalid compressed cache value", e);
+        }
+    }
+
+    static boolean isBinary(byte[] bytes) {
+        return bytes.length > 0 && bytes[0] == FORMAT_VERSION;
+    }
+}
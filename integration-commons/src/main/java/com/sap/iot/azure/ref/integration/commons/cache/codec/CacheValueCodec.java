@@ -0,0 +1,30 @@
+package com.sap.iot.azure.ref.integration.commons.cache.codec;
+
+import java.io.IOException;
+
+/**
+ * Encoding of the values stored in the cache resource.
+ * Every codec is able to decode the values written by any other codec, so that the codec can be switched without invalidating the cache.
+ */
+public interface CacheValueCodec {
+
+    /**
+     * Encodes the given cache value.
+     *
+     * @param value cache value
+     * @return encoded cache value
+     * @throws IOException if the value cannot be encoded
+     */
+    byte[] encode(Object value) throws IOException;
+
+    /**
+     * Decodes the given cache value to an instance of the provided class.
+     *
+     * @param bytes encoded cache value
+     * @param clazz class which the cache value is parsed to
+     * @param <T>   type of the cache value
+     * @return decoded cache value
+     * @throws IOException if the cache value is invalid
+     */
+    <T> T decode(byte[] bytes, Class<T> clazz) throws IOException;
+}
@@ -0,0 +1,28 @@
+package com.sap.iot.azure.ref.integration.commons.cache.codec;
+
+import com.sap.iot.azure.ref.integration.commons.cache.CacheConstants;
+import com.sap.iot.azure.ref.integration.commons.util.EnvUtils;
+
+public class CacheValueCodecFactory {
+
+    private CacheValueCodecFactory() {
+    }
+
+    /**
+     * Returns the {@link CacheValueCodec} configured by the environment. Defaults to the legacy JSON encoding, so that the binary encoding
+     * is only written once all readers are able to decode it.
+     *
+     * @return {@link CacheValueCodec} used for writing cache values
+     */
+    public static CacheValueCodec fromEnv() {
+        int compressionThreshold = EnvUtils.getEnv(CacheConstants.CACHE_VALUE_COMPRESSION_THRESHOLD_PROP,
+                CacheConstants.CACHE_VALUE_COMPRESSION_THRESHOLD_DEFAULT);
+
+        if (CacheConstants.CACHE_VALUE_CODEC_BINARY.equalsIgnoreCase(EnvUtils.getEnv(CacheConstants.CACHE_VALUE_CODEC_PROP,
+                CacheConstants.CACHE_VALUE_CODEC_JSON))) {
+            return new BinaryCacheValueCodec(compressionThreshold);
+        }
+
+        return new JsonCacheValueCodec(compressionThreshold);
+    }
+}
@@ -0,0 +1,41 @@
+package com.sap.iot.azure.ref.integration.commons.cache.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+
+/**
+ * Encodes cache values as JSON text (legacy format). Binary values written by {@link BinaryCacheValueCodec} are decoded as well.
+ */
+public class JsonCacheValueCodec implements CacheValueCodec {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final BinaryCacheValueCodec binaryCodec;
+
+    public JsonCacheValueCodec(int compressionThreshold) {
+        this.binaryCodec = new BinaryCacheValueCodec(compressionThreshold, this);
+    }
+
+    JsonCacheValueCodec(BinaryCacheValueCodec binaryCodec) {
+        this.binaryCodec = binaryCodec;
+    }
+
+    @Override
+    public byte[] encode(Object value) throws IOException {
+        return objectMapper.writeValueAsBytes(value);
+    }
+
+    @Override
+    public <T> T decode(byte[] bytes, Class<T> clazz) throws IOException {
+        if (BinaryCacheValueCodec.isBinary(bytes)) {
+            return binaryCodec.decode(bytes, clazz);
+        }
+
+        return decodeJson(bytes, clazz);
+    }
+
+    <T> T decodeJson(byte[] bytes, Class<T> clazz) throws IOException {
+        return objectMapper.readValue(bytes, clazz);
+    }
+}
@@ -0,0 +1,134 @@
+package com.sap.iot.azure.ref.integration.commons.cache.codec;
+
+import com.sap.iot.azure.ref.integration.commons.model.mapping.cache.PropertyMapping;
+import com.sap.iot.azure.ref.integration.commons.model.mapping.cache.PropertyMappingInfo;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Encodes a {@link PropertyMappingInfo} as fields of a cache hash entry.
+ * <p>
+ * The IDs of the property mapping info are stored in fixed fields. Each {@link PropertyMapping} is stored as a separate field, so that a
+ * single property mapping can be added or removed without reading and rewriting the whole entry. The value of a property mapping field
+ * is its position in the property mappings, since the cache resource does not keep the order of hash fields.
+ */
+public class PropertyMappingInfoFields {
+
+    static final String MAPPING_ID_FIELD = "_mappingId";
+    static final String STRUCTURE_ID_FIELD = "_structureId";
+    static final String VIRTUAL_CAPABILITY_ID_FIELD = "_virtualCapabilityId";
+    static final String PROPERTY_MAPPING_FIELD_PREFIX = "pm:";
+    // appended property mappings are positioned after all property mappings of a full entry, and in the order they were appended
+    static final long APPENDED_POSITIONS_PER_MILLI = 1_000_000L;
+    // ASCII unit separator, not part of any property ID
+    private static final char SEPARATOR = '\u001F';
+    private static final String EMPTY_VALUE = "";
+
+    private PropertyMappingInfoFields() {
+    }
+
+    /**
+     * Returns the hash fields of the given property mapping info.
+     *
+     * @param propertyMappingInfo property mapping info
+     * @return hash fields by field name
+     */
+    public static Map<String, String> toFields(PropertyMappingInfo propertyMappingInfo) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put(MAPPING_ID_FIELD, propertyMappingInfo.getMappingId());
+        fields.put(STRUCTURE_ID_FIELD, propertyMappingInfo.getStructureId());
+        fields.put(VIRTUAL_CAPABILITY_ID_FIELD, propertyMappingInfo.getVirtualCapabilityId());
+
+        if (propertyMappingInfo.getPropertyMappings() != null) {
+            fields.putAll(toFields(propertyMappingInfo.getPropertyMappings(), 0));
+        }
+
+        return fields;
+    }
+
+    /**
+     * Returns the hash fields of the given property mappings, for appending them to the property mappings of an existing hash entry.
+     *
+     * @param propertyMappings property mappings to append
+     * @return hash fields by field name
+     */
+    public static Map<String, String> toAppendedFields(List<PropertyMapping> propertyMappings) {
+        return toFields(propertyMappings, System.currentTimeMillis() * APPENDED_POSITIONS_PER_MILLI);
+    }
+
+    /**
+     * Returns the property mapping info encoded in the given hash fields. Property mappings are returned in the order of their positions.
+     *
+     * @param fields hash fields by field name
+     * @return property mapping info
+     */
+    public static PropertyMappingInfo fromFields(Map<String, String> fields) {
+        List<Map.Entry<String, Long>> positions = new ArrayList<>();
+        for (Map.Entry<String, String> field : fields.entrySet()) {
+            if (field.getKey().startsWith(PROPERTY_MAPPING_FIELD_PREFIX)
+                    && field.getKey().indexOf(SEPARATOR, PROPERTY_MAPPING_FIELD_PREFIX.length()) >= 0) {
+                positions.add(new AbstractMap.SimpleImmutableEntry<>(field.getKey(), getPosition(field.getValue())));
+            }
+        }
+
+        // equal positions are only possible for property mappings appended concurrently, these are ordered by their fields
+        List<PropertyMapping> propertyMappings = positions.stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().thenComparing(Map.Entry.comparingByKey()))
+                .map(position -> toPropertyMapping(position.getKey()))
+                .collect(Collectors.toList());
+
+        return PropertyMappingInfo.builder()
+                .mappingId(fields.get(MAPPING_ID_FIELD))
+                .structureId(fields.get(STRUCTURE_ID_FIELD))
+                .virtualCapabilityId(fields.get(VIRTUAL_CAPABILITY_ID_FIELD))
+                .propertyMappings(propertyMappings)
+                .build();
+    }
+
+    /**
+     * Returns the hash field name of the given property mapping.
+     *
+     * @param propertyMapping property mapping
+     * @return field name
+     */
+    public static String getField(PropertyMapping propertyMapping) {
+        return PROPERTY_MAPPING_FIELD_PREFIX + nullToEmpty(propertyMapping.getStructurePropertyId()) + SEPARATOR
+                + nullToEmpty(propertyMapping.getCapabilityPropertyId());
+    }
+
+    private static Map<String, String> toFields(List<PropertyMapping> propertyMappings, long firstPosition) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        long position = firstPosition;
+        for (PropertyMapping propertyMapping : propertyMappings) {
+            fields.putIfAbsent(getField(propertyMapping), String.valueOf(position++));
+        }
+
+        return fields;
+    }
+
+    private static PropertyMapping toPropertyMapping(String field) {
+        int separatorIndex = field.indexOf(SEPARATOR, PROPERTY_MAPPING_FIELD_PREFIX.length());
+        return PropertyMapping.builder()
+                .structurePropertyId(field.substring(PROPERTY_MAPPING_FIELD_PREFIX.length(), separatorIndex))
+                .capabilityPropertyId(field.substring(separatorIndex + 1))
+                .build();
+    }
+
+    private static long getPosition(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            // property mappings without valid position are returned last
+            return Long.MAX_VALUE;
+        }
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? EMPTY_VALUE : value;
+    }
+}
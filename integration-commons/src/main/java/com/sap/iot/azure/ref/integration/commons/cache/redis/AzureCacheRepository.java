@@ -1,43 +1,117 @@
 package com.sap.iot.azure.ref.integration.commons.cache.redis;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import com.sap.iot.azure.ref.integration.commons.cache.CacheConstants;
+import com.sap.iot.azure.ref.integration.commons.cache.CacheKeyBuilder;
+import com.sap.iot.azure.ref.integration.commons.cache.CacheNamespace;
 import com.sap.iot.azure.ref.integration.commons.cache.api.CacheRepository;
+import com.sap.iot.azure.ref.integration.commons.cache.codec.CacheValueCodec;
+import com.sap.iot.azure.ref.integration.commons.cache.codec.CacheValueCodecFactory;
+import com.sap.iot.azure.ref.integration.commons.cache.codec.JsonCacheValueCodec;
 import com.sap.iot.azure.ref.integration.commons.constants.CommonConstants;
 import com.sap.iot.azure.ref.integration.commons.context.InvocationContext;
 import com.sap.iot.azure.ref.integration.commons.exception.CommonErrorType;
 import com.sap.iot.azure.ref.integration.commons.exception.IdentifierUtil;
 import com.sap.iot.azure.ref.integration.commons.exception.base.IoTRuntimeException;
+import com.sap.iot.azure.ref.integration.commons.util.EnvUtils;
 import org.jetbrains.annotations.NotNull;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
 import redis.clients.jedis.ScanParams;
 import redis.clients.jedis.ScanResult;
+import redis.clients.jedis.exceptions.JedisDataException;
 import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.jedis.exceptions.JedisNoScriptException;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.logging.Level;
+import java.util.stream.Collectors;
 
 public class AzureCacheRepository implements CacheRepository {
-    private static final ObjectMapper objectMapper = new ObjectMapper();
+    // sets and removes fields of an existing hash atomically. ARGV: number of fields to set, field/value pairs, fields to remove.
+    // returns 0 if the entry does not exist, -1 if the entry is not a hash
+    private static final String UPDATE_HASH_SCRIPT = "local entryType = redis.call('TYPE', KEYS[1])['ok']\n" +
+            "if entryType == 'none' then return 0 end\n" +
+            "if entryType ~= 'hash' then return -1 end\n" +
+            "local setCount = tonumber(ARGV[1])\n" +
+            "for i = 2, setCount * 2, 2 do redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 1]) end\n" +
+            "for i = setCount * 2 + 2, #ARGV do redis.call('HDEL', KEYS[1], ARGV[i]) end\n" +
+            "return 1";
+    private static final byte[] UPDATE_HASH_SCRIPT_BYTES = UPDATE_HASH_SCRIPT.getBytes(StandardCharsets.UTF_8);
+    private static final byte[] UPDATE_HASH_SCRIPT_SHA = sha1Hex(UPDATE_HASH_SCRIPT_BYTES).getBytes(StandardCharsets.UTF_8);
+    // sets an entry and adds it to index sets, if no generation changed. KEYS: entry, generation keys, index sets.
+    // ARGV: number of generation keys, expected generations, value, entry TTL, index TTL. Returns 0 if a generation changed
+    private static final String SET_IF_UNCHANGED_SCRIPT = "local generationCount = tonumber(ARGV[1])\n" +
+            "for i = 2, generationCount + 1 do\n" +
+            "  if (redis.call('GET', KEYS[i]) or '0') ~= ARGV[i] then return 0 end\n" +
+            "end\n" +
+            "local entryTtl = tonumber(ARGV[generationCount + 3])\n" +
+            "local indexTtl = tonumber(ARGV[generationCount + 4])\n" +
+            "if entryTtl > 0 then redis.call('SETEX', KEYS[1], entryTtl, ARGV[generationCount + 2])\n" +
+            "else redis.call('SET', KEYS[1], ARGV[generationCount + 2]) end\n" +
+            "for i = generationCount + 2, #KEYS do\n" +
+            "  redis.call('SADD', KEYS[i], KEYS[1])\n" +
+            "  if indexTtl > 0 then redis.call('EXPIRE', KEYS[i], indexTtl) end\n" +
+            "end\n" +
+            "return 1";
+    private static final byte[] SET_IF_UNCHANGED_SCRIPT_BYTES = SET_IF_UNCHANGED_SCRIPT.getBytes(StandardCharsets.UTF_8);
+    private static final byte[] SET_IF_UNCHANGED_SCRIPT_SHA = sha1Hex(SET_IF_UNCHANGED_SCRIPT_BYTES).getBytes(StandardCharsets.UTF_8);
+    private static final long SET_IF_UNCHANGED_SET = 1;
+    private static final long UPDATE_HASH_UPDATED = 1;
+    private static final long UPDATE_HASH_NOT_A_HASH = -1;
+    private static final String WRONG_TYPE_ERROR_PREFIX = "WRONGTYPE";
+
     private final JedisPool jedisPool;
+    private final CacheValueCodec cacheValueCodec;
+    private final int entryTtlSeconds;
+    private final int namespaceEntryTtlSeconds;
 
     public AzureCacheRepository() {
-        this(new JedisPoolFactory().getJedisPool());
+        this(new JedisPoolFactory().getJedisPool(), CacheValueCodecFactory.fromEnv(),
+                EnvUtils.getEnv(CacheConstants.CACHE_ENTRY_TTL_SECONDS_PROP, CacheConstants.CACHE_ENTRY_TTL_SECONDS_DEFAULT),
+                EnvUtils.getEnv(CacheConstants.CACHE_NAMESPACE_ENTRY_TTL_SECONDS_PROP, CacheConstants.CACHE_NAMESPACE_ENTRY_TTL_SECONDS_DEFAULT));
+        // namespace versions are read from the first repository of the configured cache resource
+        CacheNamespace.getDefault().attach(this);
     }
 
     AzureCacheRepository(JedisPool jedisPool) {
+        this(jedisPool, new JsonCacheValueCodec(CacheConstants.CACHE_VALUE_COMPRESSION_THRESHOLD_DEFAULT));
+    }
+
+    AzureCacheRepository(JedisPool jedisPool, CacheValueCodec cacheValueCodec) {
+        this(jedisPool, cacheValueCodec, CacheConstants.CACHE_ENTRY_TTL_SECONDS_DEFAULT);
+    }
+
+    AzureCacheRepository(JedisPool jedisPool, CacheValueCodec cacheValueCodec, int entryTtlSeconds) {
+        this(jedisPool, cacheValueCodec, entryTtlSeconds, CacheConstants.CACHE_NAMESPACE_ENTRY_TTL_SECONDS_DEFAULT);
+    }
+
+    AzureCacheRepository(JedisPool jedisPool, CacheValueCodec cacheValueCodec, int entryTtlSeconds, int namespaceEntryTtlSeconds) {
         this.jedisPool = jedisPool;
+        this.cacheValueCodec = cacheValueCodec;
+        this.entryTtlSeconds = entryTtlSeconds;
+        this.namespaceEntryTtlSeconds = namespaceEntryTtlSeconds;
     }
 
     /**
      * Gets a cache entry from the configured Azure Redis Cache resource.
-     * Uses the {@link ObjectMapper} to parse the cache entry to an instance of the provided class.
+     * Uses the {@link CacheValueCodec} to parse the cache entry to an instance of the provided class. Cache entries in any supported
+     * encoding are accepted.
      *
      * @param key,   of the cache entry
      * @param clazz, class which the cache entry is parsed to
@@ -53,7 +127,7 @@ public class AzureCacheRepository implements CacheRepository {
             byte[] cacheEntry = jedis.get(key);
 
             if (cacheEntry != null) {
-                value = Optional.of(objectMapper.readValue(cacheEntry, clazz));
+                value = Optional.of(cacheValueCodec.decode(cacheEntry, clazz));
             }
 
             return value;
@@ -74,7 +148,8 @@ public class AzureCacheRepository implements CacheRepository {
 
     /**
      * Set a cache entry for a given key. The value is passed as POJO.
-     * The {@link ObjectMapper} is used to parse the POJO to a JSON string and serialize it to a byte array.
+     * The configured {@link CacheValueCodec} is used to serialize the POJO to a byte array. If configured, the entry expires after the
+     * entry TTL. Entries with a versioned key expire after the namespace entry TTL otherwise.
      *
      * @param key,   of the cache entry
      * @param t,     cache value
@@ -86,9 +161,62 @@ public class AzureCacheRepository implements CacheRepository {
         Jedis jedis = null;
         try {
             jedis = jedisPool.getResource();
-            jedis.set(key, objectMapper.writeValueAsString(t).getBytes(StandardCharsets.UTF_8));
+            byte[] value = cacheValueCodec.encode(t);
+            int ttlSeconds = getTtlSeconds(key);
+            if (ttlSeconds > 0) {
+                jedis.setex(key, ttlSeconds, value);
+            } else {
+                jedis.set(key, value);
+            }
+
+        } catch (IOException e) {
+            InvocationContext.getLogger().log(Level.SEVERE, "Unable to Parse Object for Cache Key: " + getKeyAsString(key), e);
+        } catch (JedisException e) {
+            throw IoTRuntimeException.wrapTransient(IdentifierUtil.getIdentifier(CommonConstants.CACHE_KEY, getKeyAsString(key)),
+                    CommonErrorType.CACHE_ACCESS_ERROR, "Error in setting cache entry", e);
+        } finally {
+            if (jedis != null) {
+                jedis.close();
+            }
+        }
+    }
+
+    /**
+     * Set a cache entry for a given key and add the key to the given index set. Both commands are sent in a single pipeline.
+     *
+     * @param key,      of the cache entry
+     * @param t,        cache value
+     * @param clazz,    class of the cache value
+     * @param indexKey, key of the index set
+     * @throws IoTRuntimeException of type {@link com.sap.iot.azure.ref.integration.commons.exception.CommonErrorType#CACHE_ACCESS_ERROR}
+     */
+    @Override
+    public <T> void set(byte[] key, T t, Class<T> clazz, byte[] indexKey) throws IoTRuntimeException {
+        set(key, t, clazz, Collections.singletonList(indexKey));
+    }
+
+    /**
+     * Set a cache entry for a given key and add the key to each of the given index sets. All commands are sent in a single pipeline.
+     *
+     * @param key,       of the cache entry
+     * @param t,         cache value
+     * @param clazz,     class of the cache value
+     * @param indexKeys, keys of the index sets
+     * @throws IoTRuntimeException of type {@link com.sap.iot.azure.ref.integration.commons.exception.CommonErrorType#CACHE_ACCESS_ERROR}
+     */
+    @Override
+    public <T> void set(byte[] key, T t, Class<T> clazz, List<byte[]> indexKeys) throws IoTRuntimeException {
+        Jedis jedis = null;
+        try {
+            jedis = jedisPool.getResource();
+            Pipeline pipeline = jedis.pipelined();
+            set(pipeline, key, cacheValueCodec.encode(t));
+            for (byte[] indexKey : indexKeys) {
+                addToIndex(pipeline, indexKey, key);
+            }
+            pipeline.sync();
 
-        } catch (JsonProcessingException e) {
+        } catch (IOException e) {
             InvocationContext.getLogger().log(Level.SEVERE, "Unable to Parse Object for Cache Key: " + getKeyAsString(key), e);
         } catch (JedisException e) {
             throw IoTRuntimeException.wrapTransient(IdentifierUtil.getIdentifier(CommonConstants.CACHE_KEY, getKeyAsString(key)),
@@ -100,6 +228,315 @@ public class AzureCacheRepository implements CacheRepository {
         }
     }
 
+    /**
+     * Set a cache entry for a given key and add the key to each of the given index sets with a server side Lua script, i.e., atomically
+     * within a single round trip, if the values of all generation entries still equal the given generations. The script is invoked by its
+     * SHA1 digest and only sent, if it is not yet loaded by the cache resource.
+     *
+     * @param key,                 of the cache entry
+     * @param t,                   cache value
+     * @param clazz,               class of the cache value
+     * @param indexKeys,           keys of the index sets
+     * @param expectedGenerations, generations by generation key
+     * @return false, if the cache entry was not set, since a generation has changed
+     * @throws IoTRuntimeException of type {@link com.sap.iot.azure.ref.integration.commons.exception.CommonErrorType#CACHE_ACCESS_ERROR}
+     */
+    @Override
+    public <T> boolean setIfUnchanged(byte[] key, T t, Class<T> clazz, List<byte[]> indexKeys, Map<byte[], Long> expectedGenerations)
+            throws IoTRuntimeException {
+        List<byte[]> keys = new ArrayList<>(1 + expectedGenerations.size() + indexKeys.size());
+        List<byte[]> args = new ArrayList<>(4 + expectedGenerations.size());
+        keys.add(key);
+        args.add(String.valueOf(expectedGenerations.size()).getBytes(StandardCharsets.UTF_8));
+        expectedGenerations.forEach((generationKey, generation) -> {
+            keys.add(generationKey);
+            args.add(String.valueOf(generation).getBytes(StandardCharsets.UTF_8));
+        });
+        keys.addAll(indexKeys);
+
+        Jedis jedis = null;
+        try {
+            args.add(cacheValueCodec.encode(t));
+            args.add(String.valueOf(getTtlSeconds(key)).getBytes(StandardCharsets.UTF_8));
+            // the index sets live as long as their latest member
+            args.add(String.valueOf(entryTtlSeconds).getBytes(StandardCharsets.UTF_8));
+
+            jedis = jedisPool.getResource();
+            Object result = evalScript(jedis, SET_IF_UNCHANGED_SCRIPT_SHA, SET_IF_UNCHANGED_SCRIPT_BYTES, keys, args);
+            return result instanceof Long && (Long) result == SET_IF_UNCHANGED_SET;
+        } catch (IOException e) {
+            InvocationContext.getLogger().log(Level.SEVERE, "Unable to Parse Object for Cache Key: " + getKeyAsString(key), e);
+            return false;
+        } catch (JedisException e) {
+            throw IoTRuntimeException.wrapTransient(IdentifierUtil.getIdentifier(CommonConstants.CACHE_KEY, getKeyAsString(key)),
+                    CommonErrorType.CACHE_ACCESS_ERROR, "Error in setting cache entry", e);
+        } finally {
+            if (jedis != null) {
+                jedis.close();
+            }
+        }
+    }
+
+    /**
+     * Gets the cache entries for the given keys from the configured Azure Redis Cache resource.
+     * Keys are fetched with one MGET per chunk of {@link CacheConstants#MULTI_KEY_CHUNK_SIZE} keys. Invalid cache entries are deleted.
+     *
+     * @param keys,  of the cache entries
+     * @param clazz, class which the cache entries are parsed to
+     * @return {@link List} with an {@link Optional} per key, in the order of the given keys. Is empty if no cache entry is found.
+     * @throws IoTRuntimeException of type {@link com.sap.iot.azure.ref.integration.commons.exception.CommonErrorType#CACHE_ACCESS_ERROR}
+     */
+    @Override
+    public <T> List<Optional<T>> multiGet(List<byte[]> keys, Class<T> clazz) throws IoTRuntimeException {
+        List<Optional<T>> values = new ArrayList<>(keys.size());
+        if (keys.isEmpty()) {
+            return values;
+        }
+
+        List<byte[]> invalidKeys = new ArrayList<>();
+        Jedis jedis = null;
+        try {
+            jedis = jedisPool.getResource();
+            for (List<byte[]> chunk : Lists.partition(keys, CacheConstants.MULTI_KEY_CHUNK_SIZE)) {
+                List<byte[]> cacheEntries = jedis.mget(chunk.toArray(new byte[0][]));
+
+                for (int i = 0; i < chunk.size(); i++) {
+                    values.add(decode(chunk.get(i), cacheEntries.get(i), clazz, invalidKeys));
+                }
+            }
+        } catch (JedisException e) {
+            throw IoTRuntimeException.wrapTransient(IdentifierUtil.getIdentifier(CommonConstants.CACHE_KEY, getKeysAsString(keys)),
+                    CommonErrorType.CACHE_ACCESS_ERROR, "Error in reading redis", e);
+        } finally {
+            if (jedis != null) {
+                jedis.close();
+            }
+        }
+
+        if (!invalidKeys.isEmpty()) {
+            multiDelete(invalidKeys);
+        }
+
+        return values;
+    }
+
+    /**
+     * Sets the given cache entries. The entries are written with one pipeline per chunk of {@link CacheConstants#MULTI_KEY_CHUNK_SIZE}
+     * entries.
+     *
+     * @param entries, cache values by key
+     * @param clazz,   class of the cache values
+     * @throws IoTRuntimeException of type {@link com.sap.iot.azure.ref.integration.commons.exception.CommonErrorType#CACHE_ACCESS_ERROR}
+     */
+    @Override
+    public <T> void multiSet(Map<byte[], T> entries, Class<T> clazz) throws IoTRuntimeException {
+        multiSet(entries, clazz, null);
+    }
+
+    /**
+     * Sets the given cache entries and adds their keys to the given index set. The entries are written with one pipeline per chunk of
+     * {@link CacheConstants#MULTI_KEY_CHUNK_SIZE} entries, including one SADD for the keys of the chunk.
+     *
+     * @param entries,  cache values by key
+     * @param clazz,    class of the cache values
+     * @param indexKey, key of the index set, or null if the keys are not indexed
+     * @throws IoTRuntimeException of type {@link com.sap.iot.azure.ref.integration.commons.exception.CommonErrorType#CACHE_ACCESS_ERROR}
+     */
+    @Override
+    public <T> void multiSet(Map<byte[], T> entries, Class<T> clazz, byte[] indexKey) throws IoTRuntimeException {
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        Jedis jedis = null;
+        try {
+            jedis = jedisPool.getResource();
+            for (List<Map.Entry<byte[], T>> chunk : Iterables.partition(entries.entrySet(), CacheConstants.MULTI_KEY_CHUNK_SIZE)) {
+                Pipeline pipeline = jedis.pipelined();
+                List<byte[]> indexedKeys = new ArrayList<>(chunk.size());
+                for (Map.Entry<byte[], T> entry : chunk) {
+                    try {
+                        set(pipeline, entry.getKey(), cacheValueCodec.encode(entry.getValue()));
+                        indexedKeys.add(entry.getKey());
+                    } catch (IOException e) {
+                        InvocationContext.getLogger().log(Level.SEVERE, "Unable to Parse Object for Cache Key: " + getKeyAsString(entry.getKey()), e);
+                    }
+                }
+                if (indexKey != null && !indexedKeys.isEmpty()) {
+                    addToIndex(pipeline, indexKey, indexedKeys.toArray(new byte[0][]));
+                }
+                pipeline.sync();
+            }
+        } catch (JedisException e) {
+            throw IoTRuntimeException.wrapTransient(IdentifierUtil.getIdentifier(CommonConstants.CACHE_KEY, getKeysAsString(entries.keySet())),
+                    CommonErrorType.CACHE_ACCESS_ERROR, "Error in setting cache entries", e);
+        } finally {
+            if (jedis != null) {
+                jedis.close();
+            }
+        }
+    }
+
+    /**
+     * Gets all fields of the hash cache entry for the given key with a single HGETALL.
+     * Uses the {@link CacheValueCodec} to parse the field values to instances of the provided class. A cache entry of another type or
+     * with invalid field values is deleted and reported as missing.
+     *
+     * @param key,   of the cache entry
+     * @param clazz, class which the field values are parsed to
+     * @return {@link Optional} which contains the field values by field name. Is empty if no hash cache entry is found.
+     * @throws IoTRuntimeException of type {@link com.sap.iot.azure.ref.integration.commons.exception.CommonErrorType#CACHE_ACCESS_ERROR}
+     */
+    @Override
+    public <T> Optional<Map<String, T>> getHash(byte[] key, Class<T> clazz) throws IoTRuntimeException {
+        Jedis jedis = null;
+        try {
+            jedis = jedisPool.getResource();
+            Map<byte[], byte[]> cacheEntry;
+            try {
+                cacheEntry = jedis.hgetAll(key);
+            } catch (JedisDataException e) {
+                if (!isWrongType(e)) {
+                    throw e;
+                }
+                InvocationContext.getLogger().log(Level.WARNING, "Deleting Cache Entry of unexpected type with key: " + getKeyAsString(key));
+                jedis.del(key);
+                return Optional.empty();
+            }
+
+            if (cacheEntry == null || cacheEntry.isEmpty()) {
+                return Optional.empty();
+            }
+
+            Map<String, T> fields = new HashMap<>();
+            for (Map.Entry<byte[], byte[]> field : cacheEntry.entrySet()) {
+                fields.put(getKeyAsString(field.getKey()), cacheValueCodec.decode(field.getValue(), clazz));
+            }
+            return Optional.of(fields);
+        } catch (IOException ex) {
+            InvocationContext.getLogger().log(Level.WARNING, "Deleting invalid Cache Entry with key: " + getKeyAsString(key), ex);
+            delete(key);
+            return Optional.empty();
+        } catch (JedisException e) {
+            throw IoTRuntimeException.wrapTransient(IdentifierUtil.getIdentifier(CommonConstants.CACHE_KEY, getKeyAsString(key)),
+                    CommonErrorType.CACHE_ACCESS_ERROR, "Error in reading redis", e);
+        } finally {
+            if (jedis != null) {
+                jedis.close();
+            }
+        }
+    }
+
+    /**
+     * Replaces the given hash cache entries and adds their keys to the given index set. For each chunk of
+     * {@link CacheConstants#MULTI_KEY_CHUNK_SIZE} entries, a single pipeline with a MULTI / EXEC transaction is sent, in which each entry is
+     * deleted and written with all fields. The field values are serialized with the configured {@link CacheValueCodec}. Entries without
+     * fields are only deleted, and not added to the index set.
+     *
+     * @param entries,  field values by field name, by key
+     * @param indexKey, key of the index set, or null if the keys are not indexed
+     * @throws IoTRuntimeException of type {@link com.sap.iot.azure.ref.integration.commons.exception.CommonErrorType#CACHE_ACCESS_ERROR}
+     */
+    @Override
+    public <T> void multiSetHash(Map<byte[], Map<String, T>> entries, byte[] indexKey) throws IoTRuntimeException {
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        Jedis jedis = null;
+        try {
+            jedis = jedisPool.getResource();
+            for (List<Map.Entry<byte[], Map<String, T>>> chunk : Iterables.partition(entries.entrySet(), CacheConstants.MULTI_KEY_CHUNK_SIZE)) {
+                Pipeline pipeline = jedis.pipelined();
+                pipeline.multi();
+                List<byte[]> keys = new ArrayList<>(chunk.size());
+                for (Map.Entry<byte[], Map<String, T>> entry : chunk) {
+                    Map<byte[], byte[]> fields;
+                    try {
+                        fields = encodeFields(entry.getValue());
+                    } catch (IOException e) {
+                        InvocationContext.getLogger().log(Level.SEVERE, "Unable to Parse Object for Cache Key: " + getKeyAsString(entry.getKey()), e);
+                        continue;
+                    }
+
+                    pipeline.del(entry.getKey());
+                    if (fields.isEmpty()) {
+                        // a hash without fields does not exist, HSET requires at least one field
+                        continue;
+                    }
+
+                    pipeline.hset(entry.getKey(), fields);
+                    int ttlSeconds = getTtlSeconds(entry.getKey());
+                    if (ttlSeconds > 0) {
+                        pipeline.expire(entry.getKey(), ttlSeconds);
+                    }
+                    keys.add(entry.getKey());
+                }
+                if (indexKey != null && !keys.isEmpty()) {
+                    addToIndex(pipeline, indexKey, keys.toArray(new byte[0][]));
+                }
+                Response<List<Object>> transaction = pipeline.exec();
+                pipeline.sync();
+                checkExecuted(transaction, chunk.stream().map(Map.Entry::getKey).collect(Collectors.toList()));
+            }
+        } catch (JedisException e) {
+            throw IoTRuntimeException.wrapTransient(IdentifierUtil.getIdentifier(CommonConstants.CACHE_KEY, getKeysAsString(entries.keySet())),
+                    CommonErrorType.CACHE_ACCESS_ERROR, "Error in setting cache entries", e);
+        } finally {
+            if (jedis != null) {
+                jedis.close();
+            }
+        }
+    }
+
+    /**
+     * Sets and removes fields of an existing hash cache entry with a server side Lua script, i.e., atomically within a single round trip.
+     * The script is invoked by its SHA1 digest and only sent, if it is not yet loaded by the cache resource. The field values are
+     * serialized with the configured {@link CacheValueCodec}. A cache entry of another type is deleted and reported as missing.
+     *
+     * @param key,            of the cache entry
+     * @param fieldsToSet,    field values by field name
+     * @param fieldsToDelete, names of the fields to remove
+     * @return false, if no hash cache entry exists for the given key
+     * @throws IoTRuntimeException of type {@link com.sap.iot.azure.ref.integration.commons.exception.CommonErrorType#CACHE_ACCESS_ERROR}
+     */
+    @Override
+    public <T> boolean updateHash(byte[] key, Map<String, T> fieldsToSet, Collection<String> fieldsToDelete) throws IoTRuntimeException {
+        List<byte[]> keys = Collections.singletonList(key);
+        List<byte[]> args = new ArrayList<>(1 + fieldsToSet.size() * 2 + fieldsToDelete.size());
+        args.add(String.valueOf(fieldsToSet.size()).getBytes(StandardCharsets.UTF_8));
+
+        Jedis jedis = null;
+        try {
+            encodeFields(fieldsToSet).forEach((field, value) -> {
+                args.add(field);
+                args.add(value);
+            });
+            fieldsToDelete.forEach(field -> args.add(field.getBytes(StandardCharsets.UTF_8)));
+
+            jedis = jedisPool.getResource();
+            Object result = evalScript(jedis, UPDATE_HASH_SCRIPT_SHA, UPDATE_HASH_SCRIPT_BYTES, keys, args);
+
+            long status = result instanceof Long ? (Long) result : 0;
+            if (status == UPDATE_HASH_NOT_A_HASH) {
+                InvocationContext.getLogger().log(Level.WARNING, "Deleting Cache Entry of unexpected type with key: " + getKeyAsString(key));
+                jedis.del(key);
+            }
+
+            return status == UPDATE_HASH_UPDATED;
+        } catch (IOException e) {
+            throw IoTRuntimeException.wrapNonTransient(IdentifierUtil.getIdentifier(CommonConstants.CACHE_KEY, getKeyAsString(key)),
+                    CommonErrorType.CACHE_ACCESS_ERROR, "Unable to Parse Object for Cache Key", e);
+        } catch (JedisException e) {
+            throw IoTRuntimeException.wrapTransient(IdentifierUtil.getIdentifier(CommonConstants.CACHE_KEY, getKeyAsString(key)),
+                    CommonErrorType.CACHE_ACCESS_ERROR, "Error in updating cache entry", e);
+        } finally {
+            if (jedis != null) {
+                jedis.close();
+            }
+        }
+    }
+
     /**
      * Deletes the cache entry for the given key.
      *
@@ -122,6 +559,95 @@ public class AzureCacheRepository implements CacheRepository {
         }
     }
 
+    /**
+     * Deletes the cache entries for the given keys with one DEL per chunk of {@link CacheConstants#MULTI_KEY_CHUNK_SIZE} keys.
+     *
+     * @param keys, of the cache entries
+     * @throws IoTRuntimeException of type {@link com.sap.iot.azure.ref.integration.commons.exception.CommonErrorType#CACHE_ACCESS_ERROR}
+     */
+    @Override
+    public void multiDelete(List<byte[]> keys) throws IoTRuntimeException {
+        if (keys.isEmpty()) {
+            return;
+        }
+
+        Jedis jedis = null;
+        try {
+            jedis = jedisPool.getResource();
+            for (List<byte[]> chunk : Lists.partition(keys, CacheConstants.MULTI_KEY_CHUNK_SIZE)) {
+                jedis.del(chunk.toArray(new byte[0][]));
+            }
+        } catch (JedisException e) {
+            throw IoTRuntimeException.wrapTransient(IdentifierUtil.getIdentifier(CommonConstants.CACHE_KEY, getKeysAsString(keys)),
+                    CommonErrorType.CACHE_ACCESS_ERROR, "Error in deleting cache entries", e);
+        } finally {
+            if (jedis != null) {
+                jedis.close();
+            }
+        }
+    }
+
+    /**
+     * Deletes all cache entries referenced by the given index set. The members are read with a single SMEMBERS, and for each chunk of
+     * {@link CacheConstants#MULTI_KEY_CHUNK_SIZE} members, the entries are deleted and the members are removed from the index set within
+     * one pipeline. Only the read members are removed, so that keys indexed concurrently are kept.
+     *
+     * @param indexKey, key of the index set
+     * @return false, if the index set does not exist
+     * @throws IoTRuntimeException of type {@link com.sap.iot.azure.ref.integration.commons.exception.CommonErrorType#CACHE_ACCESS_ERROR}
+     */
+    @Override
+    public boolean deleteIndexed(byte[] indexKey) throws IoTRuntimeException {
+        Jedis jedis = null;
+        try {
+            jedis = jedisPool.getResource();
+            Set<byte[]> members = jedis.smembers(indexKey);
+            if (members == null || members.isEmpty()) {
+                return false;
+            }
+
+            for (List<byte[]> chunk : Iterables.partition(members, CacheConstants.MULTI_KEY_CHUNK_SIZE)) {
+                byte[][] keys = chunk.toArray(new byte[0][]);
+                Pipeline pipeline = jedis.pipelined();
+                pipeline.del(keys);
+                pipeline.srem(indexKey, keys);
+                pipeline.sync();
+            }
+
+            return true;
+        } catch (JedisException e) {
+            throw IoTRuntimeException.wrapTransient(IdentifierUtil.getIdentifier(CommonConstants.CACHE_KEY, getKeyAsString(indexKey)),
+                    CommonErrorType.CACHE_ACCESS_ERROR, "Error in deleting indexed cache entries", e);
+        } finally {
+            if (jedis != null) {
+                jedis.close();
+            }
+        }
+    }
+
+    /**
+     * Atomically increments the integer value of the cache entry for the given key. The entry does not expire.
+     *
+     * @param key, of the cache entry
+     * @return value after the increment
+     * @throws IoTRuntimeException of type {@link com.sap.iot.azure.ref.integration.commons.exception.CommonErrorType#CACHE_ACCESS_ERROR}
+     */
+    @Override
+    public long increment(byte[] key) throws IoTRuntimeException {
+        Jedis jedis = null;
+        try {
+            jedis = jedisPool.getResource();
+            return jedis.incr(key);
+        } catch (JedisException e) {
+            throw IoTRuntimeException.wrapTransient(IdentifierUtil.getIdentifier(CommonConstants.CACHE_KEY, getKeyAsString(key)),
+                    CommonErrorType.CACHE_ACCESS_ERROR, "Error in incrementing cache entry", e);
+        } finally {
+            if (jedis != null) {
+                jedis.close();
+            }
+        }
+    }
+
     /**
      * Scans the cache entry for the given partialKey using cursor based pattern matching
      *
@@ -154,6 +680,105 @@ public class AzureCacheRepository implements CacheRepository {
         }
     }
 
+    private void set(Pipeline pipeline, byte[] key, byte[] value) {
+        int ttlSeconds = getTtlSeconds(key);
+        if (ttlSeconds > 0) {
+            pipeline.setex(key, ttlSeconds, value);
+        } else {
+            pipeline.set(key, value);
+        }
+    }
+
+    // entries of bumped namespaces expire even without entry TTL, since they are unreachable once their namespace is bumped again
+    private int getTtlSeconds(byte[] key) {
+        if (entryTtlSeconds > 0 || !CacheKeyBuilder.isVersionedKey(key)) {
+            return entryTtlSeconds;
+        }
+
+        return namespaceEntryTtlSeconds;
+    }
+
+    private void checkExecuted(Response<List<Object>> transaction, List<byte[]> keys) throws IoTRuntimeException {
+        List<Object> results;
+        try {
+            results = transaction.get();
+        } catch (JedisDataException e) {
+            // EXECABORT, a command of the transaction was rejected and none of the commands was executed
+            throw IoTRuntimeException.wrapNonTransient(IdentifierUtil.getIdentifier(CommonConstants.CACHE_KEY, getKeysAsString(keys)),
+                    CommonErrorType.CACHE_ACCESS_ERROR, "Transaction for setting cache entries aborted", e);
+        }
+
+        if (results == null) {
+            throw IoTRuntimeException.wrapTransient(IdentifierUtil.getIdentifier(CommonConstants.CACHE_KEY, getKeysAsString(keys)),
+                    CommonErrorType.CACHE_ACCESS_ERROR, "Transaction for setting cache entries aborted");
+        }
+    }
+
+    private void addToIndex(Pipeline pipeline, byte[] indexKey, byte[]... keys) {
+        pipeline.sadd(indexKey, keys);
+        if (entryTtlSeconds > 0) {
+            // the index set lives as long as its latest member
+            pipeline.expire(indexKey, entryTtlSeconds);
+        }
+    }
+
+    private <T> Optional<T> decode(byte[] key, byte[] cacheEntry, Class<T> clazz, List<byte[]> invalidKeys) {
+        if (cacheEntry == null) {
+            return Optional.empty();
+        }
+
+        try {
+            return Optional.of(cacheValueCodec.decode(cacheEntry, clazz));
+        } catch (IOException ex) {
+            InvocationContext.getLogger().log(Level.WARNING, "Deleting invalid Cache Entry with key: " + getKeyAsString(key), ex);
+            invalidKeys.add(key);
+            return Optional.empty();
+        }
+    }
+
+    // the script is invoked by its SHA1 digest and only sent, if it is not yet loaded by the cache resource
+    private static Object evalScript(Jedis jedis, byte[] scriptSha, byte[] script, List<byte[]> keys, List<byte[]> args) {
+        try {
+            return jedis.evalsha(scriptSha, keys, args);
+        } catch (JedisNoScriptException e) {
+            return jedis.eval(script, keys, args);
+        }
+    }
+
+    private <T> Map<byte[], byte[]> encodeFields(Map<String, T> fields) throws IOException {
+        // the fields of the script arguments are iterated in the given order
+        Map<byte[], byte[]> encodedFields = new LinkedHashMap<>();
+        for (Map.Entry<String, T> field : fields.entrySet()) {
+            encodedFields.put(field.getKey().getBytes(StandardCharsets.UTF_8), cacheValueCodec.encode(field.getValue()));
+        }
+
+        return encodedFields;
+    }
+
+    private static boolean isWrongType(JedisDataException e) {
+        return e.getMessage() != null && e.getMessage().startsWith(WRONG_TYPE_ERROR_PREFIX);
+    }
+
+    private static String sha1Hex(byte[] value) {
+        try {
+            StringBuilder hex = new StringBuilder();
+            for (byte b : MessageDigest.getInstance("SHA-1").digest(value)) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-1 is supported by every Java platform
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @NotNull
+    private String getKeysAsString(Iterable<byte[]> keys) {
+        List<String> keyStrings = new ArrayList<>();
+        keys.forEach(key -> keyStrings.add(getKeyAsString(key)));
+        return String.join(",", keyStrings);
+    }
+
     @NotNull
     private String getKeyAsString(byte[] key) {
         return new String(key, StandardCharsets.UTF_8);
@@ -0,0 +1,75 @@
+package com.sap.iot.azure.ref.integration.commons.cache.redis;
+
+import com.sap.iot.azure.ref.integration.commons.cache.CacheConstants;
+import com.sap.iot.azure.ref.integration.commons.executor.StageExecutors;
+import com.sap.iot.azure.ref.integration.commons.util.EnvUtils;
+import lombok.Builder;
+import lombok.Value;
+import redis.clients.jedis.JedisPoolConfig;
+
+/**
+ * Sizing of the connection pool to the cache resource.
+ * <p>
+ * With the {@link CacheConstants#CACHE_POOL_SIZING_FIXED fixed} sizing, the configured max total and max idle connections are used as is.
+ * With the {@link CacheConstants#CACHE_POOL_SIZING_HOST_CONCURRENCY host-concurrency} sizing, the pool is sized to the number of threads
+ * which can access the cache at the same time: the threads of the {@link StageExecutors#io() io stage}, which runs the cache lookups, plus
+ * the threads of the concurrently running function invocations. The configured max total is then used as lower bound.
+ */
+@Value
+@Builder
+class CachePoolConfig {
+    @Builder.Default
+    String sizing = CacheConstants.CACHE_POOL_SIZING_FIXED;
+    @Builder.Default
+    int maxTotal = CacheConstants.CACHE_POOL_MAX_TOTAL_DEFAULT;
+    @Builder.Default
+    int maxIdle = CacheConstants.CACHE_POOL_MAX_IDLE_DEFAULT;
+    @Builder.Default
+    int minIdle = CacheConstants.CACHE_POOL_MIN_IDLE_DEFAULT;
+    @Builder.Default
+    long maxWaitMillis = CacheConstants.CACHE_POOL_MAX_WAIT_MILLIS_DEFAULT;
+    @Builder.Default
+    int concurrentInvocations = CacheConstants.CACHE_POOL_CONCURRENT_INVOCATIONS_DEFAULT;
+
+    /**
+     * Returns the pool configuration set in the environment, falling back to the defaults for unset values.
+     *
+     * @return {@link CachePoolConfig}
+     */
+    static CachePoolConfig fromEnv() {
+        return CachePoolConfig.builder()
+                .sizing(EnvUtils.getEnv(CacheConstants.CACHE_POOL_SIZING_PROP, CacheConstants.CACHE_POOL_SIZING_FIXED))
+                .maxTotal(EnvUtils.getEnv(CacheConstants.CACHE_POOL_MAX_TOTAL_PROP, CacheConstants.CACHE_POOL_MAX_TOTAL_DEFAULT))
+                .maxIdle(EnvUtils.getEnv(CacheConstants.CACHE_POOL_MAX_IDLE_PROP, CacheConstants.CACHE_POOL_MAX_IDLE_DEFAULT))
+                .minIdle(EnvUtils.getEnv(CacheConstants.CACHE_POOL_MIN_IDLE_PROP, CacheConstants.CACHE_POOL_MIN_IDLE_DEFAULT))
+                .maxWaitMillis(EnvUtils.getEnv(CacheConstants.CACHE_POOL_MAX_WAIT_MILLIS_PROP, CacheConstants.CACHE_POOL_MAX_WAIT_MILLIS_DEFAULT))
+                .concurrentInvocations(EnvUtils.getEnv(CacheConstants.CACHE_POOL_CONCURRENT_INVOCATIONS_PROP,
+                        CacheConstants.CACHE_POOL_CONCURRENT_INVOCATIONS_DEFAULT))
+                .build();
+    }
+
+    /**
+     * Returns the {@link JedisPoolConfig} for the given thread count of the io stage.
+     *
+     * @param ioThreads configured thread count of the {@link StageExecutors#io() io stage}
+     * @return {@link JedisPoolConfig}
+     */
+    JedisPoolConfig toJedisPoolConfig(int ioThreads) {
+        int poolMaxTotal = maxTotal;
+        int poolMaxIdle = maxIdle;
+        if (CacheConstants.CACHE_POOL_SIZING_HOST_CONCURRENCY.equalsIgnoreCase(sizing)) {
+            poolMaxTotal = Math.max(maxTotal, ioThreads + concurrentInvocations);
+            // keep the connections of a busy host open instead of re-establishing TLS connections after each burst
+            poolMaxIdle = poolMaxTotal;
+        }
+
+        JedisPoolConfig jedisPoolConfig = new JedisPoolConfig();
+        jedisPoolConfig.setMaxTotal(poolMaxTotal);
+        jedisPoolConfig.setMaxIdle(poolMaxIdle);
+        jedisPoolConfig.setMinIdle(Math.min(minIdle, poolMaxIdle));
+        jedisPoolConfig.setMaxWaitMillis(maxWaitMillis);
+        jedisPoolConfig.setBlockWhenExhausted(true);
+
+        return jedisPoolConfig;
+    }
+}
@@ -0,0 +1,50 @@
+package com.sap.iot.azure.ref.integration.commons.cache.redis;
+
+import com.sap.iot.azure.ref.integration.commons.metrics.MetricsClient;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.exceptions.JedisExhaustedPoolException;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link JedisPool} which publishes the time spent waiting for a connection, the number of active and idle connections as well as the
+ * number of threads waiting for a connection with every borrow. Borrow timeouts, i.e., an exhausted pool, are always published.
+ */
+class InstrumentedJedisPool extends JedisPool {
+
+    private static final String BORROW_WAIT_METRIC = "RedisPoolBorrowWait";
+    private static final String ACTIVE_METRIC = "RedisPoolActive";
+    private static final String IDLE_METRIC = "RedisPoolIdle";
+    private static final String WAITERS_METRIC = "RedisPoolWaiters";
+    private static final String TIMEOUT_METRIC = "RedisPoolTimeout";
+
+    InstrumentedJedisPool(JedisPoolConfig poolConfig, String host, int port, int timeout, String password, boolean ssl) {
+        super(poolConfig, host, port, timeout, password, ssl);
+    }
+
+    @Override
+    public Jedis getResource() {
+        long start = System.nanoTime();
+        try {
+            Jedis jedis = super.getResource();
+            trackPoolMetrics(start);
+
+            return jedis;
+        } catch (JedisExhaustedPoolException e) {
+            MetricsClient.incrementCounter(MetricsClient.getMetricName(TIMEOUT_METRIC), 1);
+            trackPoolMetrics(start);
+            throw e;
+        }
+    }
+
+    private void trackPoolMetrics(long start) {
+        if (MetricsClient.PERF_METRICS_ENABLED) {
+            MetricsClient.trackPerfMetric(MetricsClient.getMetricName(BORROW_WAIT_METRIC), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            MetricsClient.trackPerfMetric(MetricsClient.getMetricName(ACTIVE_METRIC), getNumActive());
+            MetricsClient.trackPerfMetric(MetricsClient.getMetricName(IDLE_METRIC), getNumIdle());
+            MetricsClient.trackPerfMetric(MetricsClient.getMetricName(WAITERS_METRIC), getNumWaiters());
+        }
+    }
+}
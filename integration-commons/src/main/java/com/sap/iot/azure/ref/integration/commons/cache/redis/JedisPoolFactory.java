@@ -1,9 +1,10 @@
 package com.sap.iot.azure.ref.integration.commons.cache.redis;
 
 import com.sap.iot.azure.ref.integration.commons.cache.CacheConstants;
+import com.sap.iot.azure.ref.integration.commons.executor.StageExecutorConfig;
+import com.sap.iot.azure.ref.integration.commons.executor.StageExecutorConstants;
 import com.sap.iot.azure.ref.integration.commons.metrics.MetricsClient;
 import redis.clients.jedis.JedisPool;
-import redis.clients.jedis.JedisPoolConfig;
 
 class JedisPoolFactory {
     private static final String CACHE_HOST = System.getenv(CacheConstants.AZURE_CACHE_HOST_PROP);
@@ -12,8 +13,9 @@ class JedisPoolFactory {
 
     static  {
         MetricsClient.timed(() -> {
-            jedisPool = new JedisPool(new JedisPoolConfig(), CACHE_HOST, CacheConstants.AZURE_CACHE_PORT, CacheConstants.AZURE_CACHE_TIMEOUT,
-                    CACHE_KEY, true);
+            jedisPool = new InstrumentedJedisPool(CachePoolConfig.fromEnv().toJedisPoolConfig(
+                    StageExecutorConfig.fromEnv(StageExecutorConstants.IO, StageExecutorConstants.IO_THREADS_DEFAULT).getThreads()),
+                    CACHE_HOST, CacheConstants.AZURE_CACHE_PORT, CacheConstants.AZURE_CACHE_TIMEOUT, CACHE_KEY, true);
         }, "RedisCacheInit");
     }
 
@@ -22,7 +24,7 @@ class JedisPoolFactory {
     }
 
     /**
-     * Returns a {@link JedisPool}.
+     * Returns a {@link JedisPool}, sized and instrumented as described in {@link CachePoolConfig} and {@link InstrumentedJedisPool}.
      * Will always return the same instance of the {@link JedisPool}.
      * A shutdown hook is attached so the {@link JedisPool} client will be closed.
      *
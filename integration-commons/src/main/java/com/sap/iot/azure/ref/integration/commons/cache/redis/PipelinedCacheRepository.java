@@ -0,0 +1,352 @@
+package com.sap.iot.azure.ref.integration.commons.cache.redis;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.sap.iot.azure.ref.integration.commons.cache.CacheConstants;
+import com.sap.iot.azure.ref.integration.commons.cache.CacheKeyBuilder;
+import com.sap.iot.azure.ref.integration.commons.cache.api.AsyncCacheRepository;
+import com.sap.iot.azure.ref.integration.commons.cache.codec.CacheValueCodec;
+import com.sap.iot.azure.ref.integration.commons.cache.codec.CacheValueCodecFactory;
+import com.sap.iot.azure.ref.integration.commons.constants.CommonConstants;
+import com.sap.iot.azure.ref.integration.commons.context.InvocationContext;
+import com.sap.iot.azure.ref.integration.commons.exception.CommonErrorType;
+import com.sap.iot.azure.ref.integration.commons.exception.IdentifierUtil;
+import com.sap.iot.azure.ref.integration.commons.exception.base.IoTRuntimeException;
+import com.sap.iot.azure.ref.integration.commons.metrics.MetricsClient;
+import com.sap.iot.azure.ref.integration.commons.util.CompletableFutures;
+import com.sap.iot.azure.ref.integration.commons.util.EnvUtils;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.exceptions.JedisException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.logging.Level;
+
+/**
+ * {@link AsyncCacheRepository} for the configured Azure Redis Cache resource, which multiplexes the operations of all calling threads over
+ * a few pipelined connections.
+ * <p>
+ * Operations are queued and return immediately. A small, fixed number of dispatcher threads drain the queue and send all queued commands,
+ * up to {@link CacheConstants#MULTI_KEY_CHUNK_SIZE} at a time, with a single pipeline, i.e., a single round trip to the cache resource. The
+ * number of operations in flight is therefore bounded by the queue rather than by the number of threads blocked on a connection. The queue
+ * holds at most "cache-async-queue-capacity" commands; operations submitted while it is full fail with a transient error.
+ * <p>
+ * The futures are completed on the dispatcher threads. Callers should not run blocking work in dependent stages without providing an
+ * executor, as this would delay all queued operations.
+ */
+public class PipelinedCacheRepository implements AsyncCacheRepository, Closeable {
+
+    private static final String WRONG_TYPE_ERROR_PREFIX = "WRONGTYPE";
+    private static final String READ_ERROR_MESSAGE = "Error in reading redis";
+    private static final String CLOSED_ERROR_MESSAGE = "Cache repository closed";
+    private static final String QUEUE_FULL_METRIC = "RedisAsyncQueueFull";
+
+    private final JedisPool jedisPool;
+    private final CacheValueCodec cacheValueCodec;
+    private final int entryTtlSeconds;
+    private final int namespaceEntryTtlSeconds;
+    private final int maxBatchSize;
+    private final BlockingQueue<PipelinedCommand<?>> commands;
+    private final ExecutorService dispatchers;
+
+    public PipelinedCacheRepository() {
+        this(new JedisPoolFactory().getJedisPool(), CacheValueCodecFactory.fromEnv(),
+                EnvUtils.getEnv(CacheConstants.CACHE_ENTRY_TTL_SECONDS_PROP, CacheConstants.CACHE_ENTRY_TTL_SECONDS_DEFAULT),
+                EnvUtils.getEnv(CacheConstants.CACHE_NAMESPACE_ENTRY_TTL_SECONDS_PROP, CacheConstants.CACHE_NAMESPACE_ENTRY_TTL_SECONDS_DEFAULT),
+                Math.max(1, EnvUtils.getEnv(CacheConstants.CACHE_ASYNC_DISPATCHERS_PROP, CacheConstants.CACHE_ASYNC_DISPATCHERS_DEFAULT)),
+                CacheConstants.MULTI_KEY_CHUNK_SIZE,
+                Math.max(1, EnvUtils.getEnv(CacheConstants.CACHE_ASYNC_QUEUE_CAPACITY_PROP, CacheConstants.CACHE_ASYNC_QUEUE_CAPACITY_DEFAULT)));
+    }
+
+    @VisibleForTesting
+    PipelinedCacheRepository(JedisPool jedisPool, CacheValueCodec cacheValueCodec, int entryTtlSeconds, int namespaceEntryTtlSeconds,
+                             int dispatcherCount, int maxBatchSize, int queueCapacity) {
+        this.jedisPool = jedisPool;
+        this.cacheValueCodec = cacheValueCodec;
+        this.entryTtlSeconds = entryTtlSeconds;
+        this.namespaceEntryTtlSeconds = namespaceEntryTtlSeconds;
+        this.maxBatchSize = maxBatchSize;
+        this.commands = new ArrayBlockingQueue<>(queueCapacity);
+        this.dispatchers = Executors.newFixedThreadPool(dispatcherCount,
+                new ThreadFactoryBuilder().setNameFormat("cache-dispatcher-%d").setDaemon(true).build());
+
+        for (int i = 0; i < dispatcherCount; i++) {
+            dispatchers.execute(this::dispatch);
+        }
+    }
+
+    /**
+     * Gets a cache entry from the configured Azure Redis Cache resource. Invalid cache entries are deleted and returned as empty, as in
+     * {@link AzureCacheRepository#get(byte[], Class)}.
+     *
+     * @param key,   of the cache entry
+     * @param clazz, class which the cache entry is parsed to
+     * @return future of an {@link Optional} which contains the cache entry. Is empty if no cache entry is found.
+     */
+    @Override
+    public <T> CompletableFuture<Optional<T>> get(byte[] key, Class<T> clazz) {
+        return submit(key, READ_ERROR_MESSAGE, pipeline -> pipeline.get(key))
+                .thenApply(cacheEntry -> decode(key, cacheEntry, clazz));
+    }
+
+    /**
+     * Gets the cache entries for the given keys. Each key is queued as a separate command, so that the keys are pipelined together with
+     * the commands of other callers.
+     *
+     * @param keys,  of the cache entries
+     * @param clazz, class which the cache entries are parsed to
+     * @return future of a {@link List} with an {@link Optional} per key, in the order of the given keys
+     */
+    @Override
+    public <T> CompletableFuture<List<Optional<T>>> multiGet(List<byte[]> keys, Class<T> clazz) {
+        List<CompletableFuture<Optional<T>>> values = new ArrayList<>(keys.size());
+        for (byte[] key : keys) {
+            values.add(get(key, clazz));
+        }
+
+        return CompletableFuture.allOf(values.toArray(new CompletableFuture[0]))
+                .thenApply(ignored -> {
+                    List<Optional<T>> result = new ArrayList<>(values.size());
+                    values.forEach(value -> result.add(value.join()));
+                    return result;
+                });
+    }
+
+    /**
+     * Gets all fields of a hash cache entry. Cache entries of another type or with invalid field values are deleted and returned as empty,
+     * as in {@link AzureCacheRepository#getHash(byte[], Class)}.
+     *
+     * @param key,   of the cache entry
+     * @param clazz, class which the field values are parsed to
+     * @return future of an {@link Optional} which contains the field values by field name. Is empty if no hash cache entry is found.
+     */
+    @Override
+    public <T> CompletableFuture<Optional<Map<String, T>>> getHash(byte[] key, Class<T> clazz) {
+        CompletableFuture<Optional<Map<String, T>>> result = new CompletableFuture<>();
+
+        submit(key, READ_ERROR_MESSAGE, pipeline -> pipeline.hgetAll(key)).whenComplete((cacheEntry, e) -> {
+            if (e == null) {
+                result.complete(decodeFields(key, cacheEntry, clazz));
+            } else if (isWrongType(e)) {
+                InvocationContext.getLogger().log(Level.WARNING, "Deleting Cache Entry of unexpected type with key: " + getKeyAsString(key));
+                delete(key).whenComplete((ignored, deleteException) -> result.complete(Optional.empty()));
+            } else {
+                result.completeExceptionally(unwrap(e));
+            }
+        });
+
+        return result;
+    }
+
+    /**
+     * Sets a cache entry for a given key. If configured, the entry expires after the entry TTL. Entries with a versioned key expire after the
+     * namespace entry TTL otherwise, as in {@link AzureCacheRepository#set(byte[], Object, Class)}.
+     *
+     * @param key,   of the cache entry
+     * @param t,     cache value
+     * @param clazz, class of the cache value
+     * @return future which completes once the cache entry is written
+     */
+    @Override
+    public <T> CompletableFuture<Void> set(byte[] key, T t, Class<T> clazz) {
+        byte[] value;
+        try {
+            value = cacheValueCodec.encode(t);
+        } catch (IOException e) {
+            InvocationContext.getLogger().log(Level.SEVERE, "Unable to Parse Object for Cache Key: " + getKeyAsString(key), e);
+            return CompletableFutures.voidCompletedFuture();
+        }
+
+        int ttlSeconds = getTtlSeconds(key);
+        return submit(key, "Error in setting cache entry", pipeline -> ttlSeconds > 0 ? pipeline.setex(key, ttlSeconds, value)
+                : pipeline.set(key, value)).thenApply(ignored -> null);
+    }
+
+    /**
+     * Deletes a cache entry for a given key.
+     *
+     * @param key, of the cache entry
+     * @return future which completes once the cache entry is deleted
+     */
+    @Override
+    public CompletableFuture<Void> delete(byte[] key) {
+        return submit(key, "Error in deleting cache entry", pipeline -> pipeline.del(key)).thenApply(ignored -> null);
+    }
+
+    /**
+     * Stops the dispatcher threads. Queued operations complete exceptionally.
+     */
+    @Override
+    public void close() {
+        dispatchers.shutdownNow();
+
+        List<PipelinedCommand<?>> pending = new ArrayList<>();
+        commands.drainTo(pending);
+        pending.forEach(command -> command.fail(new JedisException(CLOSED_ERROR_MESSAGE)));
+    }
+
+    private <R> CompletableFuture<R> submit(byte[] key, String errorMessage, Function<Pipeline, Response<R>> operation) {
+        PipelinedCommand<R> command = new PipelinedCommand<>(key, errorMessage, operation);
+        if (dispatchers.isShutdown()) {
+            command.fail(new JedisException(CLOSED_ERROR_MESSAGE));
+        } else if (!commands.offer(command)) {
+            // the callers are not blocked, they back off as for an exhausted connection pool
+            MetricsClient.incrementCounter(MetricsClient.getMetricName(QUEUE_FULL_METRIC), 1);
+            command.future.completeExceptionally(IoTRuntimeException.wrapTransient(IdentifierUtil.getIdentifier(CommonConstants.CACHE_KEY,
+                    getKeyAsString(key)), CommonErrorType.CACHE_ACCESS_ERROR, "Cache operation queue full"));
+        }
+
+        return command.future;
+    }
+
+    private void dispatch() {
+        List<PipelinedCommand<?>> batch = new ArrayList<>(maxBatchSize);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                batch.add(commands.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            commands.drainTo(batch, maxBatchSize - 1);
+            execute(batch);
+            batch.clear();
+        }
+    }
+
+    private void execute(List<PipelinedCommand<?>> batch) {
+        JedisException failure = null;
+        Jedis jedis = null;
+        try {
+            jedis = jedisPool.getResource();
+            Pipeline pipeline = jedis.pipelined();
+            batch.forEach(command -> command.send(pipeline));
+            pipeline.sync();
+        } catch (JedisException e) {
+            failure = e;
+        } catch (RuntimeException e) {
+            // keep the dispatcher alive, the commands of the batch are failed as for a failed round trip
+            InvocationContext.getLogger().log(Level.WARNING, "Unexpected error in sending pipelined cache commands", e);
+            failure = new JedisException(e);
+        } finally {
+            if (jedis != null) {
+                jedis.close();
+            }
+        }
+
+        // the connection is returned to the pool before the futures complete, so that dependent stages do not hold it
+        if (failure == null) {
+            batch.forEach(PipelinedCommand::complete);
+        } else {
+            JedisException batchFailure = failure;
+            batch.forEach(command -> command.fail(batchFailure));
+        }
+    }
+
+    private <T> Optional<T> decode(byte[] key, byte[] cacheEntry, Class<T> clazz) {
+        if (cacheEntry == null) {
+            return Optional.empty();
+        }
+
+        try {
+            return Optional.of(cacheValueCodec.decode(cacheEntry, clazz));
+        } catch (IOException ex) {
+            InvocationContext.getLogger().log(Level.WARNING, "Deleting invalid Cache Entry with key: " + getKeyAsString(key), ex);
+            delete(key);
+            return Optional.empty();
+        }
+    }
+
+    private <T> Optional<Map<String, T>> decodeFields(byte[] key, Map<byte[], byte[]> cacheEntry, Class<T> clazz) {
+        if (cacheEntry == null || cacheEntry.isEmpty()) {
+            return Optional.empty();
+        }
+
+        try {
+            Map<String, T> fields = new HashMap<>();
+            for (Map.Entry<byte[], byte[]> field : cacheEntry.entrySet()) {
+                fields.put(getKeyAsString(field.getKey()), cacheValueCodec.decode(field.getValue(), clazz));
+            }
+            return Optional.of(fields);
+        } catch (IOException ex) {
+            InvocationContext.getLogger().log(Level.WARNING, "Deleting invalid Cache Entry with key: " + getKeyAsString(key), ex);
+            delete(key);
+            return Optional.empty();
+        }
+    }
+
+    // entries of bumped namespaces expire even without entry TTL, since they are unreachable once their namespace is bumped again
+    private int getTtlSeconds(byte[] key) {
+        if (entryTtlSeconds > 0 || !CacheKeyBuilder.isVersionedKey(key)) {
+            return entryTtlSeconds;
+        }
+
+        return namespaceEntryTtlSeconds;
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+
+    private static boolean isWrongType(Throwable e) {
+        Throwable cause = unwrap(e).getCause();
+        return cause instanceof JedisDataException && cause.getMessage() != null && cause.getMessage().startsWith(WRONG_TYPE_ERROR_PREFIX);
+    }
+
+    private static String getKeyAsString(byte[] key) {
+        return new String(key, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Operation queued for the next pipeline of a dispatcher thread.
+     */
+    private static final class PipelinedCommand<R> {
+        private final byte[] key;
+        private final String errorMessage;
+        private final Function<Pipeline, Response<R>> operation;
+        private final CompletableFuture<R> future = new CompletableFuture<>();
+        private Response<R> response;
+
+        private PipelinedCommand(byte[] key, String errorMessage, Function<Pipeline, Response<R>> operation) {
+            this.key = key;
+            this.errorMessage = errorMessage;
+            this.operation = operation;
+        }
+
+        private void send(Pipeline pipeline) {
+            response = operation.apply(pipeline);
+        }
+
+        private void complete() {
+            try {
+                // data errors, e.g. of a wrong entry type, are thrown per response
+                future.complete(response.get());
+            } catch (JedisException e) {
+                fail(e);
+            }
+        }
+
+        private void fail(JedisException e) {
+            future.completeExceptionally(IoTRuntimeException.wrapTransient(IdentifierUtil.getIdentifier(CommonConstants.CACHE_KEY,
+                    getKeyAsString(key)), CommonErrorType.CACHE_ACCESS_ERROR, errorMessage, e));
+        }
+    }
+}
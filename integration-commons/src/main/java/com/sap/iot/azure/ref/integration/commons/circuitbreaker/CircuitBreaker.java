@@ -0,0 +1,242 @@
+package com.sap.iot.azure.ref.integration.commons.circuitbreaker;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.sap.iot.azure.ref.integration.commons.context.InvocationContext;
+import com.sap.iot.azure.ref.integration.commons.exception.CircuitBreakerOpenException;
+import com.sap.iot.azure.ref.integration.commons.exception.base.IoTRuntimeException;
+import com.sap.iot.azure.ref.integration.commons.metrics.MetricsClient;
+import com.sap.iot.azure.ref.integration.commons.util.CompletableFutures;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+
+/**
+ * Count based circuit breaker for a single dependency (e.g., the cache or a mapping API endpoint).
+ * <p>
+ * The outcome of the last calls is kept in a sliding window. Once the window holds the minimum number of calls and either the failure
+ * rate or the slow call rate crosses its threshold, the circuit opens and calls fail fast with a transient
+ * {@link CircuitBreakerOpenException} without accessing the dependency. After the open duration, a single trial call is permitted
+ * (half-open); its outcome either closes the circuit again or re-opens it.
+ * <p>
+ * Transient {@link IoTRuntimeException}s, unexpected runtime exceptions and errors count as failures. Non-transient exceptions (e.g., a mapping
+ * that does not exist) are answers of a healthy dependency and count as success.
+ */
+public class CircuitBreaker {
+
+    enum State {CLOSED, OPEN, HALF_OPEN}
+
+    private static final byte SUCCESS = 0;
+    private static final byte FAILURE = 1;
+    private static final byte SLOW = 2;
+
+    private final String name;
+    private final CircuitBreakerConfig config;
+    private final LongSupplier clock;
+
+    // sliding window of call outcomes
+    private final byte[] outcomes;
+    private int windowIndex = 0;
+    private int windowCount = 0;
+    private int failureCount = 0;
+    private int slowCount = 0;
+
+    private State state = State.CLOSED;
+    private long openedAt = 0;
+    private boolean trialCallInFlight = false;
+
+    public CircuitBreaker(String name, CircuitBreakerConfig config) {
+        this(name, config, System::currentTimeMillis);
+    }
+
+    @VisibleForTesting
+    CircuitBreaker(String name, CircuitBreakerConfig config, LongSupplier clock) {
+        this.name = name;
+        this.config = config;
+        this.clock = clock;
+        this.outcomes = new byte[Math.max(1, config.getWindowSize())];
+    }
+
+    /**
+     * Executes the given call, if permitted by the circuit state, and records its outcome.
+     *
+     * @param call call to the dependency
+     * @param <T>  result type
+     * @return result of the call
+     * @throws CircuitBreakerOpenException if the circuit is open
+     */
+    public <T> T execute(Supplier<T> call) throws CircuitBreakerOpenException {
+        if (!config.isEnabled()) {
+            return call.get();
+        }
+
+        acquirePermission();
+
+        long start = clock.getAsLong();
+        boolean failed = true;
+        try {
+            T result = call.get();
+            failed = false;
+            return result;
+        } catch (IoTRuntimeException e) {
+            failed = e.isTransient();
+            throw e;
+        } finally {
+            // recorded for errors as well, so that a failing trial call never leaves the circuit half-open
+            onResult(failed, clock.getAsLong() - start);
+        }
+    }
+
+    /**
+     * Executes the given call, if permitted by the circuit state, and records its outcome.
+     *
+     * @param call call to the dependency
+     * @throws CircuitBreakerOpenException if the circuit is open
+     */
+    public void run(Runnable call) throws CircuitBreakerOpenException {
+        execute(() -> {
+            call.run();
+            return null;
+        });
+    }
+
+    /**
+     * Starts the given asynchronous call, if permitted by the circuit state, and records its outcome once the returned future completes.
+     * The call is slow, if its future completes after the slow call duration.
+     *
+     * @param call asynchronous call to the dependency
+     * @param <T>  result type
+     * @return future of the call, or a future failed with a {@link CircuitBreakerOpenException} if the circuit is open
+     */
+    public <T> CompletableFuture<T> executeAsync(Supplier<CompletableFuture<T>> call) {
+        if (!config.isEnabled()) {
+            return call.get();
+        }
+
+        try {
+            acquirePermission();
+        } catch (CircuitBreakerOpenException e) {
+            return CompletableFutures.completeExceptionally(e);
+        }
+
+        long start = clock.getAsLong();
+        CompletableFuture<T> result;
+        try {
+            result = call.get();
+        } catch (RuntimeException | Error e) {
+            onResult(isFailure(e), clock.getAsLong() - start);
+            throw e;
+        }
+
+        return result.whenComplete((value, e) -> onResult(e != null && isFailure(e), clock.getAsLong() - start));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @VisibleForTesting
+    synchronized State getState() {
+        return state;
+    }
+
+    private static boolean isFailure(Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        return !(cause instanceof IoTRuntimeException) || ((IoTRuntimeException) cause).isTransient();
+    }
+
+    private synchronized void acquirePermission() {
+        if (state == State.OPEN) {
+            if (clock.getAsLong() - openedAt < config.getOpenDurationMillis()) {
+                throw new CircuitBreakerOpenException(name);
+            }
+            transitionTo(State.HALF_OPEN);
+        }
+
+        if (state == State.HALF_OPEN) {
+            if (trialCallInFlight) {
+                throw new CircuitBreakerOpenException(name);
+            }
+            trialCallInFlight = true;
+        }
+    }
+
+    private synchronized void onResult(boolean failed, long durationMillis) {
+        boolean slow = durationMillis > config.getSlowCallDurationMillis();
+
+        if (state == State.HALF_OPEN) {
+            trialCallInFlight = false;
+            if (failed || slow) {
+                transitionTo(State.OPEN);
+            } else {
+                resetWindow();
+                transitionTo(State.CLOSED);
+            }
+            return;
+        }
+
+        if (state == State.OPEN) {
+            // call permitted before the circuit opened
+            return;
+        }
+
+        record(failed ? FAILURE : slow ? SLOW : SUCCESS);
+
+        if (windowCount >= Math.max(1, config.getMinimumCalls())
+                && (failureCount * 100 >= config.getFailureRateThreshold() * windowCount
+                || slowCount * 100 >= config.getSlowCallRateThreshold() * windowCount)) {
+            transitionTo(State.OPEN);
+        }
+    }
+
+    private void record(byte outcome) {
+        if (windowCount == outcomes.length) {
+            forget(outcomes[windowIndex]);
+        } else {
+            windowCount++;
+        }
+
+        outcomes[windowIndex] = outcome;
+        if (outcome == FAILURE) {
+            failureCount++;
+        } else if (outcome == SLOW) {
+            slowCount++;
+        }
+
+        windowIndex = (windowIndex + 1) % outcomes.length;
+    }
+
+    private void forget(byte outcome) {
+        if (outcome == FAILURE) {
+            failureCount--;
+        } else if (outcome == SLOW) {
+            slowCount--;
+        }
+    }
+
+    private void resetWindow() {
+        windowIndex = 0;
+        windowCount = 0;
+        failureCount = 0;
+        slowCount = 0;
+    }
+
+    private void transitionTo(State newState) {
+        if (newState == State.OPEN) {
+            openedAt = clock.getAsLong();
+            resetWindow();
+            InvocationContext.getLogger().log(Level.WARNING, String.format("Circuit breaker for %s opened for %d ms", name,
+                    config.getOpenDurationMillis()));
+        } else if (newState == State.CLOSED) {
+            InvocationContext.getLogger().log(Level.INFO, String.format("Circuit breaker for %s closed", name));
+        }
+
+        if ((state == State.OPEN) != (newState == State.OPEN)) {
+            MetricsClient.trackMetric(MetricsClient.getMetricName(CircuitBreakerConstants.STATE_METRIC_PREFIX + name), newState == State.OPEN ? 1 : 0);
+        }
+
+        state = newState;
+    }
+}
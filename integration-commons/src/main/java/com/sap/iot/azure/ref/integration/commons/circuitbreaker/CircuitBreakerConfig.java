@@ -0,0 +1,50 @@
+package com.sap.iot.azure.ref.integration.commons.circuitbreaker;
+
+import com.sap.iot.azure.ref.integration.commons.util.EnvUtils;
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Thresholds of a {@link CircuitBreaker}. Rates are given in percent of the calls in the sliding window.
+ */
+@Value
+@Builder
+public class CircuitBreakerConfig {
+    @Builder.Default
+    boolean enabled = CircuitBreakerConstants.ENABLED_DEFAULT;
+    @Builder.Default
+    int windowSize = CircuitBreakerConstants.WINDOW_SIZE_DEFAULT;
+    @Builder.Default
+    int minimumCalls = CircuitBreakerConstants.MINIMUM_CALLS_DEFAULT;
+    @Builder.Default
+    int failureRateThreshold = CircuitBreakerConstants.FAILURE_RATE_THRESHOLD_DEFAULT;
+    @Builder.Default
+    long slowCallDurationMillis = CircuitBreakerConstants.SLOW_CALL_DURATION_MILLIS_DEFAULT;
+    @Builder.Default
+    int slowCallRateThreshold = CircuitBreakerConstants.SLOW_CALL_RATE_THRESHOLD_DEFAULT;
+    @Builder.Default
+    long openDurationMillis = TimeUnit.SECONDS.toMillis(CircuitBreakerConstants.OPEN_DURATION_SECONDS_DEFAULT);
+
+    /**
+     * Returns the circuit breaker configuration set in the environment, falling back to the defaults for unset values.
+     *
+     * @return {@link CircuitBreakerConfig}
+     */
+    public static CircuitBreakerConfig fromEnv() {
+        return CircuitBreakerConfig.builder()
+                .enabled(EnvUtils.getEnv(CircuitBreakerConstants.ENABLED_PROP, CircuitBreakerConstants.ENABLED_DEFAULT))
+                .windowSize(EnvUtils.getEnv(CircuitBreakerConstants.WINDOW_SIZE_PROP, CircuitBreakerConstants.WINDOW_SIZE_DEFAULT))
+                .minimumCalls(EnvUtils.getEnv(CircuitBreakerConstants.MINIMUM_CALLS_PROP, CircuitBreakerConstants.MINIMUM_CALLS_DEFAULT))
+                .failureRateThreshold(EnvUtils.getEnv(CircuitBreakerConstants.FAILURE_RATE_THRESHOLD_PROP,
+                        CircuitBreakerConstants.FAILURE_RATE_THRESHOLD_DEFAULT))
+                .slowCallDurationMillis(EnvUtils.getEnv(CircuitBreakerConstants.SLOW_CALL_DURATION_MILLIS_PROP,
+                        CircuitBreakerConstants.SLOW_CALL_DURATION_MILLIS_DEFAULT))
+                .slowCallRateThreshold(EnvUtils.getEnv(CircuitBreakerConstants.SLOW_CALL_RATE_THRESHOLD_PROP,
+                        CircuitBreakerConstants.SLOW_CALL_RATE_THRESHOLD_DEFAULT))
+                .openDurationMillis(TimeUnit.SECONDS.toMillis(EnvUtils.getEnv(CircuitBreakerConstants.OPEN_DURATION_SECONDS_PROP,
+                        CircuitBreakerConstants.OPEN_DURATION_SECONDS_DEFAULT)))
+                .build();
+    }
+}
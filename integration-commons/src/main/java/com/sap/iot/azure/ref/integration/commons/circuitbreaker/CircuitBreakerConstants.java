@@ -0,0 +1,33 @@
+package com.sap.iot.azure.ref.integration.commons.circuitbreaker;
+
+public class CircuitBreakerConstants {
+
+    private CircuitBreakerConstants() {
+    }
+
+    // circuit breaker names
+    public static final String CACHE = "Cache";
+    public static final String TAGS_API = "TagsAPI";
+    public static final String ASSIGNMENT_API = "AssignmentAPI";
+    public static final String MAPPING_API = "MappingAPI";
+    public static final String SCHEMA_API = "SchemaAPI";
+
+    // configuration
+    public static final String ENABLED_PROP = "circuit-breaker-enabled";
+    public static final boolean ENABLED_DEFAULT = true;
+    public static final String WINDOW_SIZE_PROP = "circuit-breaker-window-size";
+    public static final int WINDOW_SIZE_DEFAULT = 20;
+    public static final String MINIMUM_CALLS_PROP = "circuit-breaker-minimum-calls";
+    public static final int MINIMUM_CALLS_DEFAULT = 10;
+    public static final String FAILURE_RATE_THRESHOLD_PROP = "circuit-breaker-failure-rate-threshold";
+    public static final int FAILURE_RATE_THRESHOLD_DEFAULT = 50;
+    public static final String SLOW_CALL_DURATION_MILLIS_PROP = "circuit-breaker-slow-call-duration-millis";
+    public static final int SLOW_CALL_DURATION_MILLIS_DEFAULT = 3000;
+    public static final String SLOW_CALL_RATE_THRESHOLD_PROP = "circuit-breaker-slow-call-rate-threshold";
+    public static final int SLOW_CALL_RATE_THRESHOLD_DEFAULT = 80;
+    public static final String OPEN_DURATION_SECONDS_PROP = "circuit-breaker-open-duration-seconds";
+    public static final int OPEN_DURATION_SECONDS_DEFAULT = 30;
+
+    // metrics
+    public static final String STATE_METRIC_PREFIX = "CircuitBreakerOpen";
+}
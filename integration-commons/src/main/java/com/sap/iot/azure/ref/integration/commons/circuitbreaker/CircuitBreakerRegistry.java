@@ -0,0 +1,39 @@
+package com.sap.iot.azure.ref.integration.commons.circuitbreaker;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Holds one {@link CircuitBreaker} per dependency name, so that all clients of a dependency within an instance share the circuit state.
+ */
+public class CircuitBreakerRegistry {
+
+    private static final CircuitBreakerRegistry DEFAULT_REGISTRY = new CircuitBreakerRegistry(CircuitBreakerConfig.fromEnv());
+
+    private final CircuitBreakerConfig config;
+    private final ConcurrentMap<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+
+    public CircuitBreakerRegistry(CircuitBreakerConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * Returns the registry configured by the environment.
+     * Will always return the same instance.
+     *
+     * @return {@link CircuitBreakerRegistry}
+     */
+    public static CircuitBreakerRegistry getDefault() {
+        return DEFAULT_REGISTRY;
+    }
+
+    /**
+     * Returns the circuit breaker for the given dependency name, creating it on first access.
+     *
+     * @param name dependency name, see {@link CircuitBreakerConstants}
+     * @return {@link CircuitBreaker}
+     */
+    public CircuitBreaker get(String name) {
+        return circuitBreakers.computeIfAbsent(name, key -> new CircuitBreaker(key, config));
+    }
+}
@@ -3,14 +3,18 @@ package com.sap.iot.azure.ref.integration.commons.connection;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.microsoft.azure.eventhubs.EventHubClient;
 import com.microsoft.azure.eventhubs.EventHubException;
+import com.sap.iot.azure.ref.integration.commons.constants.CommonConstants;
 import com.sap.iot.azure.ref.integration.commons.context.InvocationContext;
 import com.sap.iot.azure.ref.integration.commons.exception.CommonErrorType;
 import com.sap.iot.azure.ref.integration.commons.exception.IdentifierUtil;
 import com.sap.iot.azure.ref.integration.commons.exception.base.IoTRuntimeException;
 import com.sap.iot.azure.ref.integration.commons.metrics.MetricsClient;
+import com.sap.iot.azure.ref.integration.commons.util.EnvUtils;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executors;
@@ -18,40 +22,85 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.logging.Level;
 
 public class EventHubClientFactory {
-    private static Map<String, CompletableFuture<EventHubClient>> ehClientByConnectionString = new HashMap<>();
+    private static final Object LOCK = new Object();
+    private static Map<String, EventHubClientPool> ehClientPoolByConnectionString = new HashMap<>();
+
+    private final int connectionsPerHub;
+    private final boolean partitionAffine;
+    private final boolean partitionPinned;
+
+    public EventHubClientFactory() {
+        this(EnvUtils.getEnv(CommonConstants.EVENTHUB_CONNECTIONS_PER_HUB_PROP, CommonConstants.EVENTHUB_CONNECTIONS_PER_HUB_DEFAULT),
+                !CommonConstants.EVENTHUB_CLIENT_ASSIGNMENT_ROUND_ROBIN.equalsIgnoreCase(EnvUtils.getEnv(CommonConstants.EVENTHUB_CLIENT_ASSIGNMENT_PROP,
+                        CommonConstants.EVENTHUB_CLIENT_ASSIGNMENT_PARTITION_AFFINE)),
+                CommonConstants.EVENTHUB_SEND_MODE_PARTITION_SENDER.equalsIgnoreCase(EnvUtils.getEnv(CommonConstants.EVENTHUB_SEND_MODE_PROP,
+                        CommonConstants.EVENTHUB_SEND_MODE_PARTITION_KEY)));
+    }
+
+    /* visible for test */
+    EventHubClientFactory(int connectionsPerHub, boolean partitionAffine) {
+        this(connectionsPerHub, partitionAffine, false);
+    }
+
+    /* visible for test */
+    EventHubClientFactory(int connectionsPerHub, boolean partitionAffine, boolean partitionPinned) {
+        this.connectionsPerHub = Math.max(1, connectionsPerHub);
+        this.partitionAffine = partitionAffine;
+        this.partitionPinned = partitionPinned;
+    }
 
     /**
      * Create an {@link EventHubClient} for a given connection string.
-     * For every connection string, the same {@link EventHubClient} is always returned.
+     * For every connection string, the same {@link EventHubClient} is always returned, which is the first client of the
+     * {@link #getEhClientPool(String) client pool} of the connection string.
      * A shutdown hook is attached so the {@link EventHubClient} will be closed.
      *
      * @param connectionString, for which to create an {@link EventHubClient}
      * @return {@link EventHubClient} for given connection string
      */
-    public synchronized CompletableFuture<EventHubClient> getEhClient(String connectionString) {
-        MetricsClient.timed(() -> {
-            InvocationContext.getLogger().log(Level.FINE, "Fetching Event Hub Client.");
-            if (ehClientByConnectionString.get(connectionString) == null) {
-                ScheduledExecutorService executorService = registerExecutorServiceShutdown(
-                        Executors.newScheduledThreadPool(4,
-                                new ThreadFactoryBuilder().setNameFormat("event-hub-client-%d").build()));
-
-                EventHubClient ehClient = null;
-
-                try {
-                    CompletableFuture<EventHubClient> eventHubClientCompletableFuture = createEventHubClient(connectionString, executorService)
-                            .whenCompleteAsync((ehClientAlias, ex) -> registerClientShutdown(ehClient));
-
-                    ehClientByConnectionString.put(connectionString, eventHubClientCompletableFuture);
-                } catch (EventHubException | IOException ex) {
-                    // shall be retried to create a new connection object todo: to be enhanced with circuit break for stopping ingestion function
-                    throw IoTRuntimeException.wrapTransient(IdentifierUtil.empty(), CommonErrorType.EVENT_HUB_ERROR, "Error in creating Event Hub Client",  ex);
-                }
-            }
-        }, "EventHubInit") ;
+    public CompletableFuture<EventHubClient> getEhClient(String connectionString) {
+        return getEhClientPool(connectionString).getClients().get(0);
+    }
+
+    /**
+     * Create a pool of {@link EventHubClient}s for a given connection string, each with a separate connection. The pool size is
+     * configured with {@link CommonConstants#EVENTHUB_CONNECTIONS_PER_HUB_PROP}, the partition-pinned mode with
+     * {@link CommonConstants#EVENTHUB_SEND_MODE_PROP}. All clients share a single scheduler.
+     * For every connection string, the same pool is always returned.
+     * A shutdown hook is attached so the {@link EventHubClient}s will be closed.
+     *
+     * @param connectionString, for which to create the {@link EventHubClient}s
+     * @return {@link EventHubClientPool} for given connection string
+     */
+    public EventHubClientPool getEhClientPool(String connectionString) {
+        synchronized (LOCK) {
+            MetricsClient.timed(() -> {
+                InvocationContext.getLogger().log(Level.FINE, "Fetching Event Hub Client.");
+                if (ehClientPoolByConnectionString.get(connectionString) == null) {
+                    ScheduledExecutorService executorService = SharedExecutorService.INSTANCE;
 
+                    List<CompletableFuture<EventHubClient>> clients = new ArrayList<>();
+                    try {
+                        for (int i = 0; i < connectionsPerHub; i++) {
+                            clients.add(createEventHubClient(connectionString, executorService)
+                                    .whenCompleteAsync((ehClient, ex) -> {
+                                        if (ehClient != null) {
+                                            registerClientShutdown(ehClient);
+                                        }
+                                    }));
+                        }
 
-        return ehClientByConnectionString.get(connectionString);
+                        ehClientPoolByConnectionString.put(connectionString, new EventHubClientPool(clients, partitionAffine, partitionPinned));
+                    } catch (EventHubException | IOException ex) {
+                        // shall be retried to create a new connection object todo: to be enhanced with circuit break for stopping ingestion function
+                        clients.forEach(client -> client.thenAccept(EventHubClient::close));
+                        throw IoTRuntimeException.wrapTransient(IdentifierUtil.empty(), CommonErrorType.EVENT_HUB_ERROR, "Error in creating Event Hub Client",  ex);
+                    }
+                }
+            }, "EventHubInit");
+
+            return ehClientPoolByConnectionString.get(connectionString);
+        }
     }
 
     /* visible for test */
@@ -60,14 +109,14 @@ public class EventHubClientFactory {
         return EventHubClient.createFromConnectionString(connectionString, executorService);
     }
 
-    private ScheduledExecutorService registerExecutorServiceShutdown(ScheduledExecutorService executorService) {
+    private static ScheduledExecutorService registerExecutorServiceShutdown(ScheduledExecutorService executorService) {
         Runtime.getRuntime().addShutdownHook(new Thread(() -> shutdownExecutorService(executorService)));
 
         return executorService;
     }
 
     // visible for test
-    void shutdownExecutorService(ScheduledExecutorService executorService) {
+    static void shutdownExecutorService(ScheduledExecutorService executorService) {
         executorService.shutdown();
     }
 
@@ -80,9 +129,18 @@ public class EventHubClientFactory {
     void shutdownClient(EventHubClient ehClient) {
         try {
             ehClient.closeSync();
-            ehClientByConnectionString.clear();
+            synchronized (LOCK) {
+                ehClientPoolByConnectionString.clear();
+            }
         } catch (EventHubException ex) {
             InvocationContext.getLogger().log(Level.SEVERE, "Unable to close Event Hub connection.", ex);
         }
     }
+
+    // scheduler shared by the clients of all connection strings, created with the first client
+    private static final class SharedExecutorService {
+        private static final ScheduledExecutorService INSTANCE = registerExecutorServiceShutdown(Executors.newScheduledThreadPool(
+                EnvUtils.getEnv(CommonConstants.EVENTHUB_SCHEDULER_THREADS_PROP, CommonConstants.EVENTHUB_SCHEDULER_THREADS_DEFAULT),
+                new ThreadFactoryBuilder().setNameFormat("event-hub-client-%d").build()));
+    }
 }
@@ -0,0 +1,157 @@
+package com.sap.iot.azure.ref.integration.commons.connection;
+
+import com.microsoft.azure.eventhubs.EventHubClient;
+import com.microsoft.azure.eventhubs.EventHubException;
+import com.microsoft.azure.eventhubs.EventHubRuntimeInformation;
+import com.microsoft.azure.eventhubs.PartitionSender;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Fixed set of {@link EventHubClient}s for the same Event Hub, each with its own AMQP connection.
+ * <p>
+ * Senders are assigned a client either partition-affine, i.e., all sends for a partition key go over the same connection, or round-robin
+ * over all clients of the pool.
+ * <p>
+ * In partition-pinned mode, senders resolve the partition of a partition key on the client side and send over a {@link PartitionSender}
+ * of that partition. The partition IDs of the Event Hub are read once, and one {@link PartitionSender} per partition is created on the
+ * client assigned to the partition ID and reused for all sends to the partition.
+ */
+public class EventHubClientPool {
+
+    private final List<CompletableFuture<EventHubClient>> clients;
+    private final boolean partitionAffine;
+    private final boolean partitionPinned;
+    private final AtomicInteger nextClient = new AtomicInteger();
+    private final AtomicReference<CompletableFuture<List<String>>> partitionIds = new AtomicReference<>();
+    private final ConcurrentMap<String, CompletableFuture<PartitionSender>> partitionSenders = new ConcurrentHashMap<>();
+
+    public EventHubClientPool(List<CompletableFuture<EventHubClient>> clients, boolean partitionAffine) {
+        this(clients, partitionAffine, false);
+    }
+
+    public EventHubClientPool(List<CompletableFuture<EventHubClient>> clients, boolean partitionAffine, boolean partitionPinned) {
+        if (clients.isEmpty()) {
+            throw new IllegalArgumentException("Event Hub client pool requires at least one client");
+        }
+
+        this.clients = Collections.unmodifiableList(new ArrayList<>(clients));
+        this.partitionAffine = partitionAffine;
+        this.partitionPinned = partitionPinned;
+    }
+
+    /**
+     * Returns a pool with the given client as single client.
+     *
+     * @param client future of the Event Hub client
+     * @return {@link EventHubClientPool}
+     */
+    public static EventHubClientPool of(CompletableFuture<EventHubClient> client) {
+        return new EventHubClientPool(Collections.singletonList(client), true);
+    }
+
+    /**
+     * Returns the client for sending the messages of the given partition key.
+     *
+     * @param partitionKey partition key, may be null
+     * @return future of the assigned Event Hub client
+     */
+    public CompletableFuture<EventHubClient> select(String partitionKey) {
+        if (clients.size() == 1) {
+            return clients.get(0);
+        }
+
+        if (partitionAffine && partitionKey != null) {
+            return clients.get(Math.floorMod(partitionKey.hashCode(), clients.size()));
+        }
+
+        return clients.get(Math.floorMod(nextClient.getAndIncrement(), clients.size()));
+    }
+
+    /**
+     * Returns the futures of all clients of the pool.
+     *
+     * @return futures of the Event Hub clients
+     */
+    public List<CompletableFuture<EventHubClient>> getClients() {
+        return clients;
+    }
+
+    /**
+     * Returns the partition IDs of the Event Hub. The runtime information of the Event Hub is only read on the first call; a failed read
+     * is repeated on the next call.
+     *
+     * @return future of the partition IDs, in the order of the partition indexes
+     */
+    public CompletableFuture<List<String>> getPartitionIds() {
+        CompletableFuture<List<String>> current = partitionIds.get();
+        if (current != null) {
+            return current;
+        }
+
+        CompletableFuture<List<String>> created = new CompletableFuture<>();
+        if (!partitionIds.compareAndSet(null, created)) {
+            return partitionIds.get();
+        }
+
+        clients.get(0)
+                .thenCompose(EventHubClient::getRuntimeInformation)
+                .thenApply(EventHubRuntimeInformation::getPartitionIds)
+                .whenComplete((ids, ex) -> {
+                    if (ex != null) {
+                        partitionIds.compareAndSet(created, null);
+                        created.completeExceptionally(ex);
+                    } else {
+                        created.complete(Collections.unmodifiableList(Arrays.asList(ids)));
+                    }
+                });
+
+        return created;
+    }
+
+    /**
+     * Returns the cached {@link PartitionSender} for the given partition, creating it on first access. A sender which could not be
+     * created is created again on the next call.
+     *
+     * @param partitionId partition ID
+     * @return future of the {@link PartitionSender}
+     */
+    public CompletableFuture<PartitionSender> getPartitionSender(String partitionId) {
+        CompletableFuture<PartitionSender> partitionSender = partitionSenders.computeIfAbsent(partitionId, this::createPartitionSender);
+        partitionSender.whenComplete((sender, ex) -> {
+            if (ex != null) {
+                partitionSenders.remove(partitionId, partitionSender);
+            }
+        });
+
+        return partitionSender;
+    }
+
+    private CompletableFuture<PartitionSender> createPartitionSender(String partitionId) {
+        return select(partitionId).thenCompose(client -> {
+            try {
+                return client.createPartitionSender(partitionId);
+            } catch (EventHubException ex) {
+                CompletableFuture<PartitionSender> failed = new CompletableFuture<>();
+                failed.completeExceptionally(ex);
+                return failed;
+            }
+        });
+    }
+
+    public boolean isPartitionPinned() {
+        return partitionPinned;
+    }
+
+    public int size() {
+        return clients.size();
+    }
+}
@@ -35,6 +35,8 @@ public class CommonConstants {
     public static final String MAPPING_ID_PROPERTY_KEY = "mappingId";
     public static final String ASSIGNMENT_ID = "assignmentId";
     public static final String PARTITION_KEY = "PartitionKey";
+    // application property carrying the partition key of an event, also if the event is sent to a partition without its partition key
+    public static final String PARTITION_KEY_PROPERTY_KEY = "partitionKey";
     public static final String OPERATION_ID = "operationId";
     public static final String CORRELATION_ID = "correlationId";
     public static final String MESSAGE_ID = "messageId";
@@ -42,6 +44,7 @@ public class CommonConstants {
 
     // common function trigger constants
     public static final String TRIGGER_SYSTEM_PROPERTIES_ARRAY_NAME = "SystemPropertiesArray";
+    public static final String TRIGGER_PROPERTIES_ARRAY_NAME = "PropertiesArray";
     public static final String TRIGGER_EVENT_HUB_DATA_TYPE_BINARY = "binary";
     public static final String PARTITION_CONTEXT = "PartitionContext";
 
@@ -52,5 +55,34 @@ public class CommonConstants {
     public static final String EVENTHUB_SKU_TIER = EnvUtils.getEnv(EVENTHUB_SKU_NAME, EVENTHUB_SKU_BASIC_TIER);
     public static final int EVENTHUB_SKU_STANDARD_TIER_SIZE = 1024;
     public static final int EVENTHUB_SKU_BASIC_TIER_SIZE = 256;
+    public static final int EVENTHUB_MAX_MESSAGE_SIZE_BYTES = (EVENTHUB_SKU_STANDARD_TIER.equals(EVENTHUB_SKU_TIER) ?
+            EVENTHUB_SKU_STANDARD_TIER_SIZE : EVENTHUB_SKU_BASIC_TIER_SIZE) * 1024;
+    // allowance for the AMQP header and properties of a message, as reserved by the Event Hubs client
+    public static final int EVENTHUB_AMQP_HEADER_ALLOWANCE_BYTES = 512;
+
+    // EventHub Client Pool
+    public static final String EVENTHUB_CONNECTIONS_PER_HUB_PROP = "eventhub-connections-per-hub";
+    public static final int EVENTHUB_CONNECTIONS_PER_HUB_DEFAULT = 1;
+    public static final String EVENTHUB_CLIENT_ASSIGNMENT_PROP = "eventhub-client-assignment";
+    public static final String EVENTHUB_CLIENT_ASSIGNMENT_PARTITION_AFFINE = "partition-affine";
+    public static final String EVENTHUB_CLIENT_ASSIGNMENT_ROUND_ROBIN = "round-robin";
+    public static final String EVENTHUB_SEND_MODE_PROP = "eventhub-send-mode";
+    public static final String EVENTHUB_SEND_MODE_PARTITION_KEY = "partition-key";
+    public static final String EVENTHUB_SEND_MODE_PARTITION_SENDER = "partition-sender";
+    public static final String EVENTHUB_COALESCE_PER_PARTITION_KEY_PROP = "eventhub-coalesce-per-partition-key";
+    public static final String EVENTHUB_SCHEDULER_THREADS_PROP = "eventhub-scheduler-threads";
+    public static final int EVENTHUB_SCHEDULER_THREADS_DEFAULT = 4;
+
+    // Output Sink
+    public static final String OUTPUT_SINK_PROP = "output-sink";
+    public static final String OUTPUT_SINK_EVENTHUB = "eventhub";
+    public static final String OUTPUT_SINK_MEMORY = "memory";
+    public static final String OUTPUT_SINK_FILE = "file";
+    public static final String OUTPUT_SINK_MEMORY_LATENCY_MILLIS_PROP = "output-sink-memory-latency-millis";
+    public static final int OUTPUT_SINK_MEMORY_LATENCY_MILLIS_DEFAULT = 0;
+    public static final String OUTPUT_SINK_MEMORY_THROTTLE_PERCENT_PROP = "output-sink-memory-throttle-percent";
+    public static final int OUTPUT_SINK_MEMORY_THROTTLE_PERCENT_DEFAULT = 0;
+    public static final String OUTPUT_SINK_FILE_DIRECTORY_PROP = "output-sink-file-directory";
+    public static final String OUTPUT_SINK_FILE_EXTENSION = ".events";
     
 }
\ No newline at end of file
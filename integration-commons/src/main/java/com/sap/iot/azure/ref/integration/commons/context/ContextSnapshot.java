@@ -0,0 +1,98 @@
+package com.sap.iot.azure.ref.integration.commons.context;
+
+import com.microsoft.azure.functions.ExecutionContext;
+
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+/**
+ * Immutable snapshot of the {@link ExecutionContext} of a thread, captured once when a task is submitted and attached to the thread running
+ * the task.
+ * <p>
+ * Attaching a snapshot only sets the context of the thread, and the invocation id of the log4j thread context if it differs. The logging
+ * filter of the logger is not installed again, it is installed once by {@link InvocationContext#setupInvocationContext(ExecutionContext)}.
+ * Once the task has completed, the previous context of the thread is restored, so that a task can run on the submitting thread as well.
+ */
+public final class ContextSnapshot {
+
+    private final ExecutionContext context;
+    private final String invocationId;
+
+    private ContextSnapshot(ExecutionContext context) {
+        this.context = context;
+        this.invocationId = context.getInvocationId();
+    }
+
+    /**
+     * Captures the context of the current thread (see {@link InvocationContext#getContext()}).
+     *
+     * @return {@link ContextSnapshot}
+     */
+    public static ContextSnapshot capture() {
+        return new ContextSnapshot(InvocationContext.getContext());
+    }
+
+    public ExecutionContext getContext() {
+        return context;
+    }
+
+    public String getInvocationId() {
+        return invocationId;
+    }
+
+    /**
+     * Checks whether this snapshot was captured from the context the current thread runs with.
+     *
+     * @return true if the context of the current thread is the captured context
+     */
+    public boolean isCurrent() {
+        return InvocationContext.getContext() == context;
+    }
+
+    /**
+     * Runs the given task with the captured context.
+     *
+     * @param runnable task
+     */
+    public void run(Runnable runnable) {
+        ExecutionContext previous = InvocationContext.attach(this);
+        try {
+            runnable.run();
+        } finally {
+            InvocationContext.detach(previous);
+        }
+    }
+
+    /**
+     * Gets a result of the given supplier with the captured context.
+     *
+     * @param supplier supplier
+     * @param <T>      result type
+     * @return result of the supplier
+     */
+    public <T> T get(Supplier<T> supplier) {
+        ExecutionContext previous = InvocationContext.attach(this);
+        try {
+            return supplier.get();
+        } finally {
+            InvocationContext.detach(previous);
+        }
+    }
+
+    /**
+     * Calls the given callable with the captured context.
+     *
+     * @param callable callable
+     * @param <T>      result type
+     * @return result of the callable
+     * @throws Exception if the callable fails
+     */
+    public <T> T call(Callable<T> callable) throws Exception {
+        ExecutionContext previous = InvocationContext.attach(this);
+        try {
+            return callable.call();
+        } finally {
+            InvocationContext.detach(previous);
+        }
+    }
+}
@@ -4,11 +4,14 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.microsoft.azure.functions.ExecutionContext;
+import com.sap.iot.azure.ref.integration.commons.logging.AsyncLogAppender;
 import org.apache.logging.log4j.ThreadContext;
 
 import javax.annotation.Nonnull;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Supplier;
 import java.util.logging.Filter;
 import java.util.logging.Logger;
@@ -24,9 +27,15 @@ public class InvocationContext {
 
     private static final String UNKNOWN_FUNCTION = "UnknownFunction";
 
+    // key of the invocation id in the log4j thread context
+    private static final String INVOCATION_ID_KEY = "invocation-id";
+
     // context set after the run method in the function in called
     private static ThreadLocal<ExecutionContext> invocationContextThreadLocal = new ThreadLocal<>();
 
+    // start of the open invocations, by context - the context is passed on to other threads with the tasks of the invocation
+    private static final Map<ExecutionContext, Long> invocationStartNanos = new ConcurrentHashMap<>();
+
     // context set during the initialization of the function - e.g., used when reporting metrics / logs in the constructor
     private static ThreadLocal<ExecutionContext> initializationContextThreadLocal = ThreadLocal.withInitial(() -> new ExecutionContext() {
         @Override
@@ -54,22 +63,34 @@ public class InvocationContext {
      * @param context, current execution context should not be null
      */
     public static void setupInvocationContext(@Nonnull ExecutionContext context) {
+        ExecutionContext previous = invocationContextThreadLocal.get();
+        if (previous != null) {
+            // previous invocation on this thread was not closed
+            invocationStartNanos.remove(previous);
+        }
+
         InvocationContext.invocationContextThreadLocal.set(context);
+        invocationStartNanos.put(context, System.nanoTime());
 
         addLoggingFilter(context);
-        ThreadContext.put("invocation-id", context.getInvocationId());
+        putInvocationId(context.getInvocationId());
     }
 
     /**
-     * Closes all open threadContexts that were used to add invocation id to external libraries using log4j/slf4j
+     * Closes all open threadContexts that were used to add invocation id to external libraries using log4j/slf4j, after publishing the log
+     * records still queued by the {@link AsyncLogAppender}.
      * Should be invoked before exiting the function invocation.
      */
     public static void closeInvocationContext() {
-        // remove the log4j MDC
-        ThreadContext.clearAll();
+        // publish the records logged asynchronously before the invocation returns
+        AsyncLogAppender.flushDefault();
 
-        // remove the execution context - since the same thread can be reused (in case of thread pool
-        invocationContextThreadLocal.remove();
+        ExecutionContext context = invocationContextThreadLocal.get();
+        if (context != null) {
+            invocationStartNanos.remove(context);
+        }
+
+        clear();
     }
 
     /**
@@ -128,19 +149,28 @@ public class InvocationContext {
         return invocationContextThreadLocal.get().getLogger();
     }
 
+    /**
+     * Returns the time passed since the invocation of the current {@link ExecutionContext} was set up, also on other threads running tasks
+     * of the invocation.
+     *
+     * @return elapsed time of the invocation in nanoseconds, 0 if the current thread runs outside of an invocation
+     */
+    public static long getInvocationElapsedNanos() {
+        ExecutionContext context = invocationContextThreadLocal.get();
+        Long startNanos = context == null ? null : invocationStartNanos.get(context);
+        return startNanos == null ? 0 : System.nanoTime() - startNanos;
+    }
+
     /**
      * transfer the current ExecutionContext to the new thread for this runnable
      * this util is always used when starting a new thread from the main function execution thread
      * @param runnable task
      * @return runnable with thread context cloned from the thread invoking this function
+     * @see ContextSnapshot
      */
     public static Runnable withContext(Runnable runnable) {
-        ExecutionContext currThreadContext = InvocationContext.getContext();
-        return () -> {
-            setupInvocationContext(currThreadContext); // set the current thread context to the new Thread that runs this runnable
-            runnable.run();
-            closeInvocationContext();
-        };
+        ContextSnapshot snapshot = ContextSnapshot.capture();
+        return () -> snapshot.run(runnable);
     }
 
     /**
@@ -148,15 +178,11 @@ public class InvocationContext {
      * this util is always used when starting a new thread from the main function execution thread
      * @param supplier supplier
      * @return supplier with thread context cloned from the thread invoking this function
+     * @see ContextSnapshot
      */
     public static <T> Supplier<T> withContext(Supplier<T> supplier) {
-        ExecutionContext currThreadContext = InvocationContext.getContext();
-        return () -> {
-            setupInvocationContext(currThreadContext); // set the current thread context to the new Thread that runs this runnable
-            T res = supplier.get();
-            closeInvocationContext();
-            return res;
-        };
+        ContextSnapshot snapshot = ContextSnapshot.capture();
+        return () -> snapshot.get(supplier);
     }
 
     /**
@@ -164,15 +190,11 @@ public class InvocationContext {
      * this util is always used when starting a new thread from the main function execution thread
      * @param callable callable
      * @return callable with thread context cloned from the thread invoking this function
+     * @see ContextSnapshot
      */
     public static <T> Callable<T> withContext(Callable<T> callable) {
-        ExecutionContext currThreadContext = InvocationContext.getContext();
-        return () -> {
-            setupInvocationContext(currThreadContext); // set the current thread context to the new Thread that runs this runnable
-            T res = callable.call();
-            closeInvocationContext();
-            return res;
-        };
+        ContextSnapshot snapshot = ContextSnapshot.capture();
+        return () -> snapshot.call(callable);
     }
 
     /**
@@ -207,9 +229,51 @@ public class InvocationContext {
         return messageInfo;
     }
 
+    /**
+     * sets the context of the snapshot for the current thread without installing the logging filter again
+     * @param snapshot context snapshot
+     * @return previous context of the current thread, null if not set
+     */
+    static ExecutionContext attach(ContextSnapshot snapshot) {
+        ExecutionContext previous = invocationContextThreadLocal.get();
+        invocationContextThreadLocal.set(snapshot.getContext());
+        putInvocationId(snapshot.getInvocationId());
+        return previous;
+    }
+
+    /**
+     * restores the previous context of the current thread after a snapshot was attached; clears the context of the thread if not set before
+     * @param previous previous context returned by {@link #attach(ContextSnapshot)}
+     */
+    static void detach(ExecutionContext previous) {
+        if (previous == null) {
+            clear();
+        } else {
+            invocationContextThreadLocal.set(previous);
+            putInvocationId(previous.getInvocationId());
+        }
+    }
+
+    private static void clear() {
+        // remove the log4j MDC
+        ThreadContext.clearAll();
+
+        // remove the execution context - since the same thread can be reused (in case of thread pool
+        invocationContextThreadLocal.remove();
+    }
+
+    // the log4j thread context map is copied on write, so it is only updated if the invocation id changes
+    private static void putInvocationId(String invocationId) {
+        if (!Objects.equals(invocationId, ThreadContext.get(INVOCATION_ID_KEY))) {
+            ThreadContext.put(INVOCATION_ID_KEY, invocationId);
+        }
+    }
+
     private static void addLoggingFilter(@Nonnull ExecutionContext context) {
         Logger logger = context.getLogger();
-        Filter enhanceFilter = LoggingMessageFilter.getEnrichedFilter(logger.getFilter());
-        logger.setFilter(enhanceFilter);
+        Filter filter = logger.getFilter();
+        if (!(filter instanceof LoggingMessageFilter)) {
+            logger.setFilter(LoggingMessageFilter.getEnrichedFilter(filter));
+        }
     }
 }
\ No newline at end of file
@@ -29,7 +29,8 @@ public class LoggingMessageFilter implements Filter {
             return Objects.isNull(origFilter) || origFilter.isLoggable(null);
         }
 
-        logRecord.setMessage(String.format("[%s %s] %s", logRecord.getSourceClassName(), logRecord.getSourceMethodName(), logRecord.getMessage()));
+        // called for every record logged, hence concatenated without format parsing
+        logRecord.setMessage("[" + logRecord.getSourceClassName() + " " + logRecord.getSourceMethodName() + "] " + logRecord.getMessage());
         return Objects.isNull(origFilter) || origFilter.isLoggable(logRecord);
     }
 }
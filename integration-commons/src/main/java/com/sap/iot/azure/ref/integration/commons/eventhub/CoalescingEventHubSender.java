@@ -0,0 +1,267 @@
+package com.sap.iot.azure.ref.integration.commons.eventhub;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.microsoft.azure.eventhubs.EventData;
+import com.microsoft.azure.eventhubs.EventDataBatch;
+import com.microsoft.azure.eventhubs.EventHubException;
+import com.microsoft.azure.eventhubs.PayloadSizeExceededException;
+import com.sap.iot.azure.ref.integration.commons.constants.CommonConstants;
+import com.sap.iot.azure.ref.integration.commons.context.InvocationContext;
+import com.sap.iot.azure.ref.integration.commons.eventhub.sink.EventHubSink;
+import com.sap.iot.azure.ref.integration.commons.eventhub.sink.EventSink;
+import com.sap.iot.azure.ref.integration.commons.eventhub.sink.EventSinkTarget;
+import com.sap.iot.azure.ref.integration.commons.exception.CommonErrorType;
+import com.sap.iot.azure.ref.integration.commons.exception.IdentifierUtil;
+import com.sap.iot.azure.ref.integration.commons.exception.base.IoTRuntimeException;
+import com.sap.iot.azure.ref.integration.commons.limiter.AdaptiveConcurrencyLimiter;
+import com.sap.iot.azure.ref.integration.commons.logging.StructuredLog;
+import com.sap.iot.azure.ref.integration.commons.metrics.MetricsClient;
+import com.sap.iot.azure.ref.integration.commons.util.CompletableFutures;
+import com.sap.iot.azure.ref.integration.commons.util.EnvUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+import java.util.logging.Level;
+
+/**
+ * Collects the {@link EventData} of all message groups of an invocation and sends them to the {@link EventSink} (usually an Event Hub) with
+ * as few sends as possible.
+ * <p>
+ * Event data is coalesced into a single bucket per {@link EventSinkTarget} of its partition key, even if added for different message groups,
+ * and sent in batches filled up to the maximum message size of the Event Hub. If the {@link EventHubSink} resolves the partition keys to
+ * partitions, the event data of all partition keys of a partition is coalesced into the bucket of the partition, and sent either over the
+ * partition sender or with the partition key of the first event data of the bucket; otherwise the target of a batch is its partition key. Buckets are sent concurrently. Within a bucket, the event data keeps the order in which it was added and the
+ * batches are sent one after another, so that the order per partition key is preserved. The concurrent sends to the Event Hub are bounded by
+ * an {@link AdaptiveConcurrencyLimiter} shared by all senders of the Event Hub. Sends to a partition are bounded per partition, and the number
+ * of events sent to each partition is published as metric.
+ * <p>
+ * With {@link CommonConstants#EVENTHUB_COALESCE_PER_PARTITION_KEY_PROP}, the event data of each partition key is kept in a bucket of its own,
+ * even if partition keys are resolved to the same partition.
+ * <p>
+ * Batch sizes, sends and send latencies are recorded in the {@link EventHubSendMetrics}.
+ * <p>
+ * The partition key of each event data is added as application property {@link CommonConstants#PARTITION_KEY_PROPERTY_KEY}, so that
+ * consumers can read it also if the event data is sent to a resolved partition without its partition key.
+ * <p>
+ * Event data can be added concurrently. A sender is meant to be used for a single invocation, i.e., {@link #send()} is called once after
+ * all event data has been added.
+ */
+public class CoalescingEventHubSender {
+
+    static final String PARTITION_EVENTS_METRIC_PREFIX = "PartitionEvents";
+
+    private final EventSink eventSink;
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final Function<String, AdaptiveConcurrencyLimiter> partitionLimiters;
+    private final EventHubSendMetrics sendMetrics;
+    private final String eventSinkName;
+    private final boolean bucketPerPartitionKey;
+    private final Map<String, TargetBucket> buckets = new ConcurrentHashMap<>();
+
+    CoalescingEventHubSender(EventSink eventSink, AdaptiveConcurrencyLimiter limiter) {
+        this(eventSink, limiter, partitionId -> limiter);
+    }
+
+    CoalescingEventHubSender(EventSink eventSink, AdaptiveConcurrencyLimiter limiter, Function<String, AdaptiveConcurrencyLimiter> partitionLimiters) {
+        this(eventSink, limiter, partitionLimiters, EventHubSendMetrics.getDefault());
+    }
+
+    CoalescingEventHubSender(EventSink eventSink, AdaptiveConcurrencyLimiter limiter, Function<String, AdaptiveConcurrencyLimiter> partitionLimiters,
+                             EventHubSendMetrics sendMetrics) {
+        this(eventSink, limiter, partitionLimiters, sendMetrics, EnvUtils.getEnv(CommonConstants.EVENTHUB_COALESCE_PER_PARTITION_KEY_PROP, false));
+    }
+
+    CoalescingEventHubSender(EventSink eventSink, AdaptiveConcurrencyLimiter limiter, Function<String, AdaptiveConcurrencyLimiter> partitionLimiters,
+                             EventHubSendMetrics sendMetrics, boolean bucketPerPartitionKey) {
+        this.eventSink = eventSink;
+        this.limiter = limiter;
+        this.partitionLimiters = partitionLimiters;
+        this.sendMetrics = sendMetrics;
+        this.eventSinkName = eventSink.getName();
+        this.bucketPerPartitionKey = bucketPerPartitionKey;
+    }
+
+    /**
+     * Adds the event data of a message group to the bucket of the target of the given partition key, i.e., the bucket of the resolved
+     * partition or of the partition key. The partition key is added to the application properties of the event data.
+     *
+     * @param partitionKey  partition key
+     * @param eventDataList event data of the message group
+     * @throws IoTRuntimeException of type {@link CommonErrorType#EVENT_HUB_ERROR} if the target of the partition key cannot be resolved
+     */
+    public void add(String partitionKey, List<EventData> eventDataList) throws IoTRuntimeException {
+        if (eventDataList.isEmpty()) {
+            return;
+        }
+
+        for (EventData eventData : eventDataList) {
+            if (eventData != null) {
+                eventData.getProperties().put(CommonConstants.PARTITION_KEY_PROPERTY_KEY, partitionKey);
+            }
+        }
+
+        EventSinkTarget target = eventSink.getTarget(partitionKey);
+        TargetBucket bucket = buckets.computeIfAbsent(bucketPerPartitionKey ? partitionKey : target.getKey(), key -> new TargetBucket(target));
+        synchronized (bucket) {
+            bucket.eventDataList.addAll(eventDataList);
+        }
+    }
+
+    /**
+     * Batches the collected event data per bucket and sends the batches to the Event Hub.
+     *
+     * @return CompletableFuture for sending all batches to the Event Hub
+     * @throws IoTRuntimeException of type {@link CommonErrorType#EVENT_HUB_ERROR} if a batch cannot be created or the event data does
+     *                             not fit into a single batch
+     */
+    public CompletableFuture<Void> send() throws IoTRuntimeException {
+        if (buckets.isEmpty()) {
+            return CompletableFutures.voidCompletedFuture();
+        }
+
+        List<CompletableFuture<Void>> sendFutures = new ArrayList<>();
+        int sends = 0;
+        for (TargetBucket targetBucket : buckets.values()) {
+            EventSinkTarget target = targetBucket.target;
+            String partitionId = target.getPartitionId();
+            ObjectNode identifier = partitionId == null ? IdentifierUtil.getIdentifier("Partition Key", target.getKey()) :
+                    IdentifierUtil.getIdentifier("Partition Id", partitionId);
+            List<EventDataBatch> batches;
+            synchronized (targetBucket) {
+                batches = createBatches(target, identifier, targetBucket.eventDataList);
+            }
+
+            if (partitionId == null) {
+                sendFutures.add(sendInOrder(target, limiter, identifier, batches));
+            } else {
+                MetricsClient.trackMetric(MetricsClient.getMetricName(PARTITION_EVENTS_METRIC_PREFIX + eventSinkName + "-" + partitionId),
+                        batches.stream().mapToInt(EventDataBatch::getSize).sum());
+                sendFutures.add(sendInOrder(target, partitionLimiters.apply(partitionId), identifier, batches));
+            }
+            sends += batches.size();
+        }
+
+        sendMetrics.recordInvocation(eventSinkName, sends);
+
+        return CompletableFuture.allOf(sendFutures.toArray(new CompletableFuture[0]));
+    }
+
+    private List<EventDataBatch> createBatches(EventSinkTarget target, ObjectNode identifier, List<EventData> eventDataList) throws IoTRuntimeException {
+        List<EventDataBatch> batches = new ArrayList<>();
+
+        EventDataBatch eventDataBatch = createBatch(target, identifier);
+        long batchBytes = 0;
+        for (int i = 0; i < eventDataList.size();) {
+            EventData eventData = eventDataList.get(i);
+            if (eventData == null) {
+                i++;
+                continue;
+            }
+
+            try {
+                if (eventDataBatch.tryAdd(eventData)) {
+                    // in case adding eventData is successful, we'll proceed to the next event data; In case add fails, the counter is not incremented
+                    batchBytes += eventData.getBytes() == null ? 0 : eventData.getBytes().length;
+                    i++;
+                } else {
+                    // close the current batch and prepare the next batch
+                    closeBatch(batches, eventDataBatch, batchBytes);
+                    eventDataBatch = createBatch(target, identifier);
+                    batchBytes = 0;
+                }
+            } catch (PayloadSizeExceededException ex) {
+
+                if (eventDataBatch.getSize() == 0) {
+                    // single event data is more than allowed size - unexpected; will be treated as permanent exception
+                    throw IoTRuntimeException.wrapNonTransient(identifier, CommonErrorType.EVENT_HUB_ERROR, "Event Data is greater than allowed size", ex);
+                }
+
+                // tryAdd method can still throw PayloadSizeExceededException - in which case we close the current batch and start with the next batch
+                closeBatch(batches, eventDataBatch, batchBytes);
+                eventDataBatch = createBatch(target, identifier);
+                batchBytes = 0;
+            }
+        }
+
+        if (eventDataBatch.getSize() > 0) {
+            closeBatch(batches, eventDataBatch, batchBytes);
+        }
+
+        return batches;
+    }
+
+    private void closeBatch(List<EventDataBatch> batches, EventDataBatch eventDataBatch, long batchBytes) {
+        batches.add(eventDataBatch);
+        sendMetrics.recordBatch(eventSinkName, eventDataBatch.getSize(), batchBytes);
+    }
+
+    private EventDataBatch createBatch(EventSinkTarget target, ObjectNode identifier) throws IoTRuntimeException {
+        try {
+            return target.createBatch();
+        } catch (EventHubException ex) {
+
+            // this is not expected since the batch size not set explicitly, but requires handling as checked exception
+            throw new IoTRuntimeException("Error in creating Event Hub Batch", CommonErrorType.EVENT_HUB_ERROR,
+                    InvocationContext.getContext().getInvocationId(), identifier, isTransient(ex));
+        }
+    }
+
+    private CompletableFuture<Void> sendInOrder(EventSinkTarget target, AdaptiveConcurrencyLimiter batchLimiter, ObjectNode identifier,
+                                                List<EventDataBatch> batches) {
+        CompletableFuture<Void> sendFuture = CompletableFutures.voidCompletedFuture();
+        for (int i = 0; i < batches.size(); i++) {
+            EventDataBatch eventDataBatch = batches.get(i);
+            int batchCounter = i;
+            sendFuture = sendFuture.thenCompose(ignored -> sendBatch(target, batchLimiter, identifier, eventDataBatch, batchCounter));
+        }
+
+        return sendFuture;
+    }
+
+    private CompletableFuture<Void> sendBatch(EventSinkTarget target, AdaptiveConcurrencyLimiter batchLimiter, ObjectNode identifier,
+                                              EventDataBatch eventDataBatch, int batchCounter) {
+        StructuredLog.log(Level.FINE, "Sending event hub batch message", "batch", batchCounter, "size", eventDataBatch.getSize());
+        return batchLimiter.submit(() -> {
+                    long startedAt = System.nanoTime();
+                    CompletableFuture<Void> sendFuture = target.send(eventDataBatch);
+                    // recorded on a separate stage, so that the exception of the send reaches the caller unwrapped
+                    sendFuture.whenComplete((ignored, ex) -> sendMetrics.recordSend(eventSinkName, System.nanoTime() - startedAt, ex));
+                    return sendFuture;
+                })
+                .exceptionally(ex -> {
+                    throw new IoTRuntimeException("error in sending event data batch", CommonErrorType.EVENT_HUB_ERROR,
+                            InvocationContext.getContext().getInvocationId(), identifier, isTransient(ex));
+                });
+    }
+
+    /**
+     * Checks whether the given exception of an Event Hub operation is transient. Exceptions other than {@link EventHubException} are
+     * considered transient.
+     *
+     * @param ex exception of an Event Hub operation, possibly wrapped in an {@link ExecutionException}
+     * @return true if the operation can be retried
+     */
+    public static boolean isTransient(Throwable ex) {
+        boolean isTransient = true;
+        if (ex instanceof ExecutionException && EventHubException.class.isAssignableFrom(ex.getCause().getClass())) {
+            isTransient = ((EventHubException) ex.getCause()).getIsTransient();
+        } else if (ex instanceof EventHubException) {
+            isTransient = ((EventHubException) ex).getIsTransient();
+        }
+        return isTransient;
+    }
+
+    private static final class TargetBucket {
+        private final EventSinkTarget target;
+        private final List<EventData> eventDataList = new ArrayList<>();
+
+        private TargetBucket(EventSinkTarget target) {
+            this.target = target;
+        }
+    }
+}
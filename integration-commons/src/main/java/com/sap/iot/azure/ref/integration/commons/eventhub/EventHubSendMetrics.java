@@ -0,0 +1,126 @@
+package com.sap.iot.azure.ref.integration.commons.eventhub;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.sap.iot.azure.ref.integration.commons.constants.CommonConstants;
+import com.sap.iot.azure.ref.integration.commons.limiter.AdaptiveConcurrencyLimiter;
+import com.sap.iot.azure.ref.integration.commons.metrics.MetricName;
+import com.sap.iot.azure.ref.integration.commons.metrics.MetricsAggregator;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Send statistics per Event Hub: counters of sends, failed, transiently failed and throttled sends, as well as histograms of the send
+ * latency in microseconds, the batch size in bytes and events, the batch fill ratio relative to the max message size and the number of
+ * sends per invocation.
+ * <p>
+ * The statistics are pre-aggregated by the {@link MetricsAggregator} and published once per flush interval, and when the instance shuts
+ * down, as "{EventHubName}Sends", "...SendFailures", "...SendTransientFailures", "...SendThrottled", "...SendLatencyMicros",
+ * "...BatchBytes", "...BatchEvents", "...BatchFillPercent" and "...SendsPerInvocation", the histograms including their percentiles.
+ * Event Hubs without sends in the interval are skipped.
+ */
+public class EventHubSendMetrics {
+
+    private static final EventHubSendMetrics DEFAULT = new EventHubSendMetrics(CommonConstants.EVENTHUB_MAX_MESSAGE_SIZE_BYTES,
+            MetricsAggregator.getDefault());
+
+    private final long maxMessageSizeBytes;
+    private final MetricsAggregator aggregator;
+    private final ConcurrentMap<String, HubMetrics> metrics = new ConcurrentHashMap<>();
+
+    @VisibleForTesting
+    EventHubSendMetrics(long maxMessageSizeBytes, MetricsAggregator aggregator) {
+        this.maxMessageSizeBytes = maxMessageSizeBytes;
+        this.aggregator = aggregator;
+    }
+
+    /**
+     * Returns the send metrics published by the default {@link MetricsAggregator}.
+     * Will always return the same instance.
+     *
+     * @return {@link EventHubSendMetrics}
+     */
+    public static EventHubSendMetrics getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Records a batch created for sending.
+     *
+     * @param eventHubName name of the Event Hub
+     * @param events       number of events in the batch
+     * @param bytes        size of the event bodies in the batch
+     */
+    public void recordBatch(String eventHubName, int events, long bytes) {
+        HubMetrics hubMetrics = getMetrics(eventHubName);
+        aggregator.recordHistogram(hubMetrics.batchEvents.get(), events);
+        aggregator.recordHistogram(hubMetrics.batchBytes.get(), bytes);
+        aggregator.recordHistogram(hubMetrics.fillPercent.get(), bytes * 100 / maxMessageSizeBytes);
+    }
+
+    /**
+     * Records the number of sends to the Event Hub made by an invocation.
+     *
+     * @param eventHubName name of the Event Hub
+     * @param sends        number of batches sent by the invocation
+     */
+    public void recordInvocation(String eventHubName, int sends) {
+        aggregator.recordHistogram(getMetrics(eventHubName).sendsPerInvocation.get(), sends);
+    }
+
+    /**
+     * Records a completed send.
+     *
+     * @param eventHubName name of the Event Hub
+     * @param latencyNanos duration of the send
+     * @param ex           exception the send failed with, null if the send succeeded
+     */
+    public void recordSend(String eventHubName, long latencyNanos, Throwable ex) {
+        HubMetrics hubMetrics = getMetrics(eventHubName);
+        aggregator.increment(hubMetrics.sends.get(), 1);
+        aggregator.recordHistogram(hubMetrics.latency.get(), TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+
+        if (ex != null) {
+            Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+            aggregator.increment(hubMetrics.failures.get(), 1);
+            if (CoalescingEventHubSender.isTransient(cause)) {
+                aggregator.increment(hubMetrics.transientFailures.get(), 1);
+            }
+            if (AdaptiveConcurrencyLimiter.isThrottled(cause)) {
+                aggregator.increment(hubMetrics.throttled.get(), 1);
+            }
+        }
+    }
+
+    private HubMetrics getMetrics(String eventHubName) {
+        // get first, computeIfAbsent locks the bin even if the metrics exist
+        HubMetrics hubMetrics = metrics.get(eventHubName);
+        return hubMetrics != null ? hubMetrics : metrics.computeIfAbsent(eventHubName, HubMetrics::new);
+    }
+
+    private static final class HubMetrics {
+        private final MetricName sends;
+        private final MetricName failures;
+        private final MetricName transientFailures;
+        private final MetricName throttled;
+        private final MetricName latency;
+        private final MetricName batchBytes;
+        private final MetricName batchEvents;
+        private final MetricName fillPercent;
+        private final MetricName sendsPerInvocation;
+
+        private HubMetrics(String prefix) {
+            sends = new MetricName(prefix + "Sends");
+            failures = new MetricName(prefix + "SendFailures");
+            transientFailures = new MetricName(prefix + "SendTransientFailures");
+            throttled = new MetricName(prefix + "SendThrottled");
+            latency = new MetricName(prefix + "SendLatencyMicros");
+            batchBytes = new MetricName(prefix + "BatchBytes");
+            batchEvents = new MetricName(prefix + "BatchEvents");
+            fillPercent = new MetricName(prefix + "BatchFillPercent");
+            sendsPerInvocation = new MetricName(prefix + "SendsPerInvocation");
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.sap.iot.azure.ref.integration.commons.eventhub;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Maps partition keys to partitions of an Event Hub on the client side.
+ * <p>
+ * Uses the same scheme as the Event Hubs gateway (and the partition resolver of the newer Event Hubs SDKs): the UTF-8 bytes of the
+ * partition key are hashed with Bob Jenkins' lookup3 (hashlittle2, both seeds 0), the two 32 bit results are combined with XOR and
+ * truncated to 16 bit, and the partition index is the absolute value of this hash modulo the partition count. This way, a partition key
+ * is assigned to the same partition, whether the events are sent with the partition key or to the resolved partition.
+ */
+public class PartitionResolver {
+
+    private PartitionResolver() {
+    }
+
+    /**
+     * Returns the index of the partition the given partition key is assigned to.
+     *
+     * @param partitionKey   partition key
+     * @param partitionCount number of partitions of the Event Hub
+     * @return partition index, between 0 (inclusive) and the partition count (exclusive)
+     */
+    public static int resolve(String partitionKey, int partitionCount) {
+        short hash = hash(partitionKey);
+        return Math.abs(hash % partitionCount);
+    }
+
+    private static short hash(String partitionKey) {
+        if (partitionKey == null) {
+            return 0;
+        }
+
+        long hashes = hashLittle2(partitionKey.getBytes(StandardCharsets.UTF_8));
+        return (short) ((int) (hashes >>> 32) ^ (int) hashes);
+    }
+
+    /**
+     * lookup3 hashlittle2 with both seeds 0.
+     *
+     * @param data bytes to hash
+     * @return primary hash (c) in the upper and secondary hash (b) in the lower 32 bit
+     */
+    @VisibleForTesting
+    static long hashLittle2(byte[] data) {
+        int a = 0xdeadbeef + data.length;
+        int b = a;
+        int c = a;
+
+        ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+        int index = 0;
+        int size = data.length;
+        while (size > 12) {
+            a += buffer.getInt(index);
+            b += buffer.getInt(index + 4);
+            c += buffer.getInt(index + 8);
+
+            // mix
+            a -= c; a ^= Integer.rotateLeft(c, 4); c += b;
+            b -= a; b ^= Integer.rotateLeft(a, 6); a += c;
+            c -= b; c ^= Integer.rotateLeft(b, 8); b += a;
+            a -= c; a ^= Integer.rotateLeft(c, 16); c += b;
+            b -= a; b ^= Integer.rotateLeft(a, 19); a += c;
+            c -= b; c ^= Integer.rotateLeft(b, 4); b += a;
+
+            index += 12;
+            size -= 12;
+        }
+
+        if (size == 0) {
+            return combine(c, b);
+        }
+
+        // the remaining bytes of the last block, each added to the byte position within its word
+        for (int i = 0; i < size; i++) {
+            int value = (data[index + i] & 0xFF) << ((i % 4) * 8);
+            if (i < 4) {
+                a += value;
+            } else if (i < 8) {
+                b += value;
+            } else {
+                c += value;
+            }
+        }
+
+        // final
+        c ^= b; c -= Integer.rotateLeft(b, 14);
+        a ^= c; a -= Integer.rotateLeft(c, 11);
+        b ^= a; b -= Integer.rotateLeft(a, 25);
+        c ^= b; c -= Integer.rotateLeft(b, 16);
+        a ^= c; a -= Integer.rotateLeft(c, 4);
+        b ^= a; b -= Integer.rotateLeft(a, 14);
+        c ^= b; c -= Integer.rotateLeft(b, 24);
+
+        return combine(c, b);
+    }
+
+    private static long combine(int c, int b) {
+        return ((long) c << 32) | (b & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,171 @@
+package com.sap.iot.azure.ref.integration.commons.eventhub.sink;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.microsoft.azure.eventhubs.BatchOptions;
+import com.microsoft.azure.eventhubs.EventDataBatch;
+import com.microsoft.azure.eventhubs.EventHubClient;
+import com.microsoft.azure.eventhubs.EventHubException;
+import com.microsoft.azure.eventhubs.PartitionSender;
+import com.sap.iot.azure.ref.integration.commons.connection.EventHubClientPool;
+import com.sap.iot.azure.ref.integration.commons.context.InvocationContext;
+import com.sap.iot.azure.ref.integration.commons.eventhub.CoalescingEventHubSender;
+import com.sap.iot.azure.ref.integration.commons.eventhub.PartitionResolver;
+import com.sap.iot.azure.ref.integration.commons.exception.CommonErrorType;
+import com.sap.iot.azure.ref.integration.commons.exception.IdentifierUtil;
+import com.sap.iot.azure.ref.integration.commons.exception.base.IoTRuntimeException;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Level;
+
+/**
+ * {@link EventSink} sending to an Event Hub over the clients of an {@link EventHubClientPool}.
+ * <p>
+ * Event data is sent with a partition key over the client the pool assigns to the partition key. Once the partition IDs of the Event Hub
+ * are known, the partition of each partition key is resolved with the {@link PartitionResolver}, so that the event data of all partition
+ * keys of a partition can be sent in the same batches, with the partition key of the first event data. Until then, or if the partition
+ * IDs cannot be read, the target of each partition key is the partition key itself. If the pool is
+ * {@link EventHubClientPool#isPartitionPinned() partition-pinned}, the partition of each partition key is resolved with the
+ * {@link PartitionResolver} and the event data is sent over the cached {@link PartitionSender} of the partition.
+ */
+public class EventHubSink implements EventSink {
+
+    private final EventHubClientPool eventHubClientPool;
+
+    public EventHubSink(EventHubClientPool eventHubClientPool) {
+        this.eventHubClientPool = eventHubClientPool;
+
+        eventHubClientPool.getClients().forEach(eventHubCreationFuture -> eventHubCreationFuture.whenCompleteAsync((eventHubClientAlias, ex) -> {
+            if (ex != null) {
+                // exception will be thrown when sending message
+                InvocationContext.getLogger().log(Level.SEVERE, "Error in initializing Event Hub Connection", ex);
+            }
+        }));
+    }
+
+    @Override
+    public void awaitReady(ObjectNode identifier) throws IoTRuntimeException {
+        try {
+            // only the first invocation of get - there's a sync wait involved; for subsequent calls, the CFs are already completed
+            for (CompletableFuture<EventHubClient> eventHubCreationFuture : eventHubClientPool.getClients()) {
+                eventHubCreationFuture.get();
+            }
+        } catch (InterruptedException e) {
+            // set the interrupted state again
+            Thread.currentThread().interrupt();
+            throw IoTRuntimeException.wrapNonTransient(identifier, CommonErrorType.EVENT_HUB_ERROR,
+                    "Interrupted while waiting for EventHub Connection Initialization", e); // will not retry since it's interrupted
+        } catch (ExecutionException e) {
+            throw new IoTRuntimeException("Error in initializing Event Hub Connection", CommonErrorType.EVENT_HUB_ERROR,
+                    InvocationContext.getContext().getInvocationId(), identifier, CoalescingEventHubSender.isTransient(e));
+        }
+    }
+
+    @Override
+    public String getName() {
+        return String.valueOf(eventHubClientPool.getClients().get(0).join().getEventHubName());
+    }
+
+    @Override
+    public EventSinkTarget getTarget(String partitionKey) throws IoTRuntimeException {
+        if (!eventHubClientPool.isPartitionPinned()) {
+            // the partition IDs are read with the first target, without waiting for them
+            CompletableFuture<List<String>> partitionIds = eventHubClientPool.getPartitionIds();
+            String partitionId = partitionIds.isDone() && !partitionIds.isCompletedExceptionally() ?
+                    resolvePartitionId(partitionKey, partitionIds.join()) : null;
+
+            // the clients of the pool are created before a sender is created
+            return new PartitionKeyTarget(eventHubClientPool.select(partitionKey).join(), partitionKey, partitionId);
+        }
+
+        List<String> partitionIds = join(eventHubClientPool.getPartitionIds(), IdentifierUtil.empty(), "Error in reading Event Hub partitions");
+        String partitionId = resolvePartitionId(partitionKey, partitionIds);
+        PartitionSender partitionSender = join(eventHubClientPool.getPartitionSender(partitionId),
+                IdentifierUtil.getIdentifier("Partition Id", partitionId), "Error in creating Event Hub Partition Sender");
+
+        return new PartitionTarget(partitionId, partitionSender);
+    }
+
+    private static String resolvePartitionId(String partitionKey, List<String> partitionIds) {
+        return partitionIds.get(PartitionResolver.resolve(partitionKey, partitionIds.size()));
+    }
+
+    private static <T> T join(CompletableFuture<T> future, ObjectNode identifier, String message) throws IoTRuntimeException {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            throw new IoTRuntimeException(message, CommonErrorType.EVENT_HUB_ERROR, InvocationContext.getContext().getInvocationId(), identifier,
+                    CoalescingEventHubSender.isTransient(ex.getCause()));
+        }
+    }
+
+    private static final class PartitionKeyTarget implements EventSinkTarget {
+        private final EventHubClient eventHubClient;
+        private final String partitionKey;
+        private final String partitionId;
+        private final BatchOptions batchOptions;
+
+        private PartitionKeyTarget(EventHubClient eventHubClient, String partitionKey, String partitionId) {
+            this.eventHubClient = eventHubClient;
+            this.partitionKey = partitionKey;
+            this.partitionId = partitionId;
+            this.batchOptions = new BatchOptions().with(options -> {
+                // max message will be automatically determined by the event hub client if not set using internal MessageSender#getMaxMessageSize() method
+                options.partitionKey = partitionKey;
+            });
+        }
+
+        @Override
+        public String getKey() {
+            return partitionId == null ? partitionKey : partitionId;
+        }
+
+        @Override
+        public String getPartitionId() {
+            // the partition the partition key is routed to by the Event Hubs service
+            return partitionId;
+        }
+
+        @Override
+        public EventDataBatch createBatch() throws EventHubException {
+            return eventHubClient.createBatch(batchOptions);
+        }
+
+        @Override
+        public CompletableFuture<Void> send(EventDataBatch eventDataBatch) {
+            return eventHubClient.send(eventDataBatch);
+        }
+    }
+
+    private static final class PartitionTarget implements EventSinkTarget {
+        private final String partitionId;
+        private final PartitionSender partitionSender;
+
+        private PartitionTarget(String partitionId, PartitionSender partitionSender) {
+            this.partitionId = partitionId;
+            this.partitionSender = partitionSender;
+        }
+
+        @Override
+        public String getKey() {
+            return partitionId;
+        }
+
+        @Override
+        public String getPartitionId() {
+            return partitionId;
+        }
+
+        @Override
+        public EventDataBatch createBatch() {
+            return partitionSender.createBatch(new BatchOptions());
+        }
+
+        @Override
+        public CompletableFuture<Void> send(EventDataBatch eventDataBatch) {
+            return partitionSender.send(eventDataBatch);
+        }
+    }
+}
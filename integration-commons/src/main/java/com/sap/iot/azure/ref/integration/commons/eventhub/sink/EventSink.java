@@ -0,0 +1,37 @@
+package com.sap.iot.azure.ref.integration.commons.eventhub.sink;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sap.iot.azure.ref.integration.commons.exception.base.IoTRuntimeException;
+
+/**
+ * Output of a {@link com.sap.iot.azure.ref.integration.commons.eventhub.BaseEventHubProcessor}, which receives the batched event data.
+ * <p>
+ * The {@link EventHubSink} sends to an Event Hub and is the default. The {@link InMemoryEventSink} and the {@link FileEventSink} allow running
+ * the functions without an Event Hubs namespace, e.g., for load tests. The sink is selected with {@link EventSinkFactory}.
+ */
+public interface EventSink {
+
+    /**
+     * Waits until the sink can accept event data, e.g., until the connections of the sink are established.
+     *
+     * @param identifier identifier for the exception in case the sink is not available
+     * @throws IoTRuntimeException if the sink is not available
+     */
+    void awaitReady(ObjectNode identifier) throws IoTRuntimeException;
+
+    /**
+     * Returns the name of the sink, used for the concurrency limit and the metrics of the sends. Only called once the sink is ready.
+     *
+     * @return name of the sink, e.g., the Event Hub name
+     */
+    String getName();
+
+    /**
+     * Returns the target the event data of the given partition key is batched for and sent to.
+     *
+     * @param partitionKey partition key
+     * @return {@link EventSinkTarget}
+     * @throws IoTRuntimeException if the target cannot be resolved
+     */
+    EventSinkTarget getTarget(String partitionKey) throws IoTRuntimeException;
+}
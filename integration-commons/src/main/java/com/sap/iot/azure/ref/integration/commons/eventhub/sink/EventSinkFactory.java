@@ -0,0 +1,48 @@
+package com.sap.iot.azure.ref.integration.commons.eventhub.sink;
+
+import com.sap.iot.azure.ref.integration.commons.connection.EventHubClientPool;
+import com.sap.iot.azure.ref.integration.commons.constants.CommonConstants;
+import com.sap.iot.azure.ref.integration.commons.util.EnvUtils;
+
+import java.nio.file.Paths;
+import java.util.function.Supplier;
+
+/**
+ * Creates the {@link EventSink} of a processor as configured with {@link CommonConstants#OUTPUT_SINK_PROP}.
+ */
+public class EventSinkFactory {
+
+    private final String sinkType;
+
+    public EventSinkFactory() {
+        this(EnvUtils.getEnv(CommonConstants.OUTPUT_SINK_PROP, CommonConstants.OUTPUT_SINK_EVENTHUB));
+    }
+
+    /* visible for test */
+    EventSinkFactory(String sinkType) {
+        this.sinkType = sinkType;
+    }
+
+    /**
+     * Creates the sink for the given output. The Event Hub clients are only created if the output is sent to Event Hub.
+     *
+     * @param name               name of the output, used as name of the sink without Event Hub and as name of the output file
+     * @param eventHubClientPool supplier of the Event Hub clients of the output
+     * @return {@link EventSink}
+     */
+    public EventSink getSink(String name, Supplier<EventHubClientPool> eventHubClientPool) {
+        if (CommonConstants.OUTPUT_SINK_MEMORY.equalsIgnoreCase(sinkType)) {
+            return new InMemoryEventSink(name, CommonConstants.EVENTHUB_MAX_MESSAGE_SIZE_BYTES,
+                    EnvUtils.getEnv(CommonConstants.OUTPUT_SINK_MEMORY_LATENCY_MILLIS_PROP, CommonConstants.OUTPUT_SINK_MEMORY_LATENCY_MILLIS_DEFAULT),
+                    EnvUtils.getEnv(CommonConstants.OUTPUT_SINK_MEMORY_THROTTLE_PERCENT_PROP, CommonConstants.OUTPUT_SINK_MEMORY_THROTTLE_PERCENT_DEFAULT));
+        }
+
+        if (CommonConstants.OUTPUT_SINK_FILE.equalsIgnoreCase(sinkType)) {
+            String directory = EnvUtils.getEnv(CommonConstants.OUTPUT_SINK_FILE_DIRECTORY_PROP, System.getProperty("java.io.tmpdir"));
+            return new FileEventSink(name, Paths.get(directory, name + CommonConstants.OUTPUT_SINK_FILE_EXTENSION),
+                    CommonConstants.EVENTHUB_MAX_MESSAGE_SIZE_BYTES);
+        }
+
+        return new EventHubSink(eventHubClientPool.get());
+    }
+}
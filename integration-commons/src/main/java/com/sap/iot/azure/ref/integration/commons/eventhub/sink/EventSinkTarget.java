@@ -0,0 +1,43 @@
+package com.sap.iot.azure.ref.integration.commons.eventhub.sink;
+
+import com.microsoft.azure.eventhubs.EventDataBatch;
+import com.microsoft.azure.eventhubs.EventHubException;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Destination of the event data of one or more partition keys within an {@link EventSink}. The event data of all partition keys with targets of
+ * the same key is batched together.
+ */
+public interface EventSinkTarget {
+
+    /**
+     * Returns the key of the target, i.e., the partition key, or the partition ID if partition keys are resolved to partitions.
+     *
+     * @return key of the target
+     */
+    String getKey();
+
+    /**
+     * Returns the partition ID of the target.
+     *
+     * @return partition ID, or null if the event data is sent with its partition key
+     */
+    String getPartitionId();
+
+    /**
+     * Creates an empty batch for this target.
+     *
+     * @return {@link EventDataBatch}
+     * @throws EventHubException if the batch cannot be created
+     */
+    EventDataBatch createBatch() throws EventHubException;
+
+    /**
+     * Sends a batch created by this target.
+     *
+     * @param eventDataBatch batch to be sent
+     * @return CompletableFuture completed once the batch is acknowledged
+     */
+    CompletableFuture<Void> send(EventDataBatch eventDataBatch);
+}
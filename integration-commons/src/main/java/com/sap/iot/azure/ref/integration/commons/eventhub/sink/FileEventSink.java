@@ -0,0 +1,128 @@
+package com.sap.iot.azure.ref.integration.commons.eventhub.sink;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sap.iot.azure.ref.integration.commons.context.InvocationContext;
+import com.sap.iot.azure.ref.integration.commons.exception.CommonErrorType;
+import com.sap.iot.azure.ref.integration.commons.exception.base.IoTRuntimeException;
+import com.sap.iot.azure.ref.integration.commons.util.CompletableFutures;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+
+/**
+ * {@link EventSink} which appends the bodies of the event data to a file, so that the output of a function can be captured and replayed.
+ * <p>
+ * Each body is written as its length (4 byte, big-endian) followed by the body bytes; properties of the event data are not written. Batches
+ * are written in the order in which they are sent, and the file is flushed after each batch. The captured bodies can be read with
+ * {@link #readBodies(Path)}.
+ */
+public class FileEventSink implements EventSink {
+
+    private final String name;
+    private final Path file;
+    private final long maxBatchBytes;
+    private DataOutputStream outputStream;
+
+    public FileEventSink(String name, Path file, long maxBatchBytes) {
+        this.name = name;
+        this.file = file;
+        this.maxBatchBytes = maxBatchBytes;
+    }
+
+    @Override
+    public synchronized void awaitReady(ObjectNode identifier) throws IoTRuntimeException {
+        if (outputStream != null) {
+            return;
+        }
+
+        try {
+            Path directory = file.getParent();
+            if (directory != null) {
+                Files.createDirectories(directory);
+            }
+
+            OutputStream fileOutputStream = Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            outputStream = new DataOutputStream(new BufferedOutputStream(fileOutputStream));
+            Runtime.getRuntime().addShutdownHook(new Thread(this::close));
+        } catch (IOException e) {
+            throw IoTRuntimeException.wrapNonTransient(identifier, CommonErrorType.EVENT_HUB_ERROR, "Unable to open output file " + file, e);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public EventSinkTarget getTarget(String partitionKey) {
+        return new LocalEventSinkTarget(partitionKey, maxBatchBytes, this::write);
+    }
+
+    /**
+     * Reads the bodies written by a {@link FileEventSink}.
+     *
+     * @param file output file of the sink
+     * @return bodies in the order they were written
+     * @throws IOException if the file cannot be read or is truncated
+     */
+    public static List<byte[]> readBodies(Path file) throws IOException {
+        List<byte[]> bodies = new ArrayList<>();
+        try (InputStream fileInputStream = Files.newInputStream(file);
+             DataInputStream inputStream = new DataInputStream(new BufferedInputStream(fileInputStream))) {
+            while (true) {
+                int length;
+                try {
+                    length = inputStream.readInt();
+                } catch (EOFException e) {
+                    return bodies;
+                }
+
+                byte[] body = new byte[length];
+                inputStream.readFully(body);
+                bodies.add(body);
+            }
+        }
+    }
+
+    private synchronized CompletableFuture<Void> write(SizeLimitedEventDataBatch eventDataBatch) {
+        try {
+            for (int i = 0; i < eventDataBatch.getEvents().size(); i++) {
+                byte[] body = eventDataBatch.getEvents().get(i).getBytes();
+                outputStream.writeInt(body == null ? 0 : body.length);
+                if (body != null) {
+                    outputStream.write(body);
+                }
+            }
+            outputStream.flush();
+
+            return CompletableFutures.voidCompletedFuture();
+        } catch (IOException e) {
+            CompletableFuture<Void> writeFuture = new CompletableFuture<>();
+            writeFuture.completeExceptionally(e);
+            return writeFuture;
+        }
+    }
+
+    private synchronized void close() {
+        try {
+            outputStream.close();
+        } catch (IOException e) {
+            // the last batch has been flushed already
+            InvocationContext.getLogger().log(Level.WARNING, "Unable to close output file " + file, e);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.sap.iot.azure.ref.integration.commons.eventhub.sink;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.microsoft.azure.eventhubs.ServerBusyException;
+import com.sap.iot.azure.ref.integration.commons.metrics.MetricName;
+import com.sap.iot.azure.ref.integration.commons.metrics.MetricsAggregator;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link EventSink} which discards the event data and only counts the sent batches, events and bytes. Sends complete after the configured
+ * latency, and the configured share of the sends fails with a {@link ServerBusyException} to simulate throttling by the Event Hub.
+ * <p>
+ * The counts are also recorded in the {@link MetricsAggregator} and published once per flush interval as "{SinkName}SinkBatches",
+ * "...SinkEvents", "...SinkBytes" and "...SinkThrottled", so that they can be compared with the input of a load test.
+ */
+public class InMemoryEventSink implements EventSink {
+
+    private final String name;
+    private final long maxBatchBytes;
+    private final long latencyMillis;
+    private final int throttlePercent;
+
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder events = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+
+    private final MetricsAggregator aggregator;
+    private final MetricName batchesMetric;
+    private final MetricName eventsMetric;
+    private final MetricName bytesMetric;
+    private final MetricName throttledMetric;
+
+    public InMemoryEventSink(String name, long maxBatchBytes, long latencyMillis, int throttlePercent) {
+        this(name, maxBatchBytes, latencyMillis, throttlePercent, MetricsAggregator.getDefault());
+    }
+
+    public InMemoryEventSink(String name, long maxBatchBytes, long latencyMillis, int throttlePercent, MetricsAggregator aggregator) {
+        this.name = name;
+        this.maxBatchBytes = maxBatchBytes;
+        this.latencyMillis = latencyMillis;
+        this.throttlePercent = throttlePercent;
+        this.aggregator = aggregator;
+        this.batchesMetric = new MetricName(name + "SinkBatches");
+        this.eventsMetric = new MetricName(name + "SinkEvents");
+        this.bytesMetric = new MetricName(name + "SinkBytes");
+        this.throttledMetric = new MetricName(name + "SinkThrottled");
+    }
+
+    @Override
+    public void awaitReady(ObjectNode identifier) {
+        // always ready
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public EventSinkTarget getTarget(String partitionKey) {
+        return new LocalEventSinkTarget(partitionKey, maxBatchBytes, this::send);
+    }
+
+    public long getBatchCount() {
+        return batches.sum();
+    }
+
+    public long getEventCount() {
+        return events.sum();
+    }
+
+    public long getByteCount() {
+        return bytes.sum();
+    }
+
+    public long getThrottledCount() {
+        return throttled.sum();
+    }
+
+    private CompletableFuture<Void> send(SizeLimitedEventDataBatch eventDataBatch) {
+        CompletableFuture<Void> sendFuture = new CompletableFuture<>();
+        Runnable complete = () -> {
+            if (throttlePercent > 0 && ThreadLocalRandom.current().nextInt(100) < throttlePercent) {
+                throttled.increment();
+                aggregator.increment(throttledMetric.get(), 1);
+                sendFuture.completeExceptionally(new ServerBusyException("Simulated throttling of " + name));
+            } else {
+                batches.increment();
+                events.add(eventDataBatch.getSize());
+                bytes.add(eventDataBatch.getBytes());
+                aggregator.increment(batchesMetric.get(), 1);
+                aggregator.increment(eventsMetric.get(), eventDataBatch.getSize());
+                aggregator.increment(bytesMetric.get(), eventDataBatch.getBytes());
+                sendFuture.complete(null);
+            }
+        };
+
+        if (latencyMillis > 0) {
+            LatencyScheduler.INSTANCE.schedule(complete, latencyMillis, TimeUnit.MILLISECONDS);
+        } else {
+            complete.run();
+        }
+
+        return sendFuture;
+    }
+
+    // completes the sends after the simulated latency, created with the first delayed send
+    private static final class LatencyScheduler {
+        private static final ScheduledExecutorService INSTANCE = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("in-memory-sink-%d").setDaemon(true).build());
+    }
+}
@@ -0,0 +1,42 @@
+package com.sap.iot.azure.ref.integration.commons.eventhub.sink;
+
+import com.microsoft.azure.eventhubs.EventDataBatch;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * {@link EventSinkTarget} of the sinks without Event Hub, which batches the event data of a partition key in {@link SizeLimitedEventDataBatch}es.
+ */
+class LocalEventSinkTarget implements EventSinkTarget {
+
+    private final String partitionKey;
+    private final long maxBatchBytes;
+    private final Function<SizeLimitedEventDataBatch, CompletableFuture<Void>> sendFunction;
+
+    LocalEventSinkTarget(String partitionKey, long maxBatchBytes, Function<SizeLimitedEventDataBatch, CompletableFuture<Void>> sendFunction) {
+        this.partitionKey = partitionKey;
+        this.maxBatchBytes = maxBatchBytes;
+        this.sendFunction = sendFunction;
+    }
+
+    @Override
+    public String getKey() {
+        return partitionKey;
+    }
+
+    @Override
+    public String getPartitionId() {
+        return null;
+    }
+
+    @Override
+    public EventDataBatch createBatch() {
+        return new SizeLimitedEventDataBatch(maxBatchBytes);
+    }
+
+    @Override
+    public CompletableFuture<Void> send(EventDataBatch eventDataBatch) {
+        return sendFunction.apply((SizeLimitedEventDataBatch) eventDataBatch);
+    }
+}
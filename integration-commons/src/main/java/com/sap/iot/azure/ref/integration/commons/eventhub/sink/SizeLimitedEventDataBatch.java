@@ -0,0 +1,58 @@
+package com.sap.iot.azure.ref.integration.commons.eventhub.sink;
+
+import com.microsoft.azure.eventhubs.EventData;
+import com.microsoft.azure.eventhubs.EventDataBatch;
+import com.microsoft.azure.eventhubs.PayloadSizeExceededException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * {@link EventDataBatch} of the sinks without Event Hub, limited by the size of the event bodies. The AMQP overhead of an Event Hub batch is
+ * not accounted for.
+ */
+class SizeLimitedEventDataBatch implements EventDataBatch {
+
+    private final long maxBytes;
+    private final List<EventData> events = new ArrayList<>();
+    private long bytes = 0;
+
+    SizeLimitedEventDataBatch(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public int getSize() {
+        return events.size();
+    }
+
+    @Override
+    public boolean tryAdd(EventData eventData) throws PayloadSizeExceededException {
+        long eventBytes = getBytes(eventData);
+        if (eventBytes > maxBytes) {
+            throw new PayloadSizeExceededException(String.format("Size of the event data (%d bytes) exceeds the max message size (%d bytes)",
+                    eventBytes, maxBytes));
+        }
+
+        if (bytes + eventBytes > maxBytes) {
+            return false;
+        }
+
+        events.add(eventData);
+        bytes += eventBytes;
+        return true;
+    }
+
+    List<EventData> getEvents() {
+        return Collections.unmodifiableList(events);
+    }
+
+    long getBytes() {
+        return bytes;
+    }
+
+    static long getBytes(EventData eventData) {
+        return eventData.getBytes() == null ? 0 : eventData.getBytes().length;
+    }
+}
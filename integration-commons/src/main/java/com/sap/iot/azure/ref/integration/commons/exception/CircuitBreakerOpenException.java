@@ -0,0 +1,17 @@
+package com.sap.iot.azure.ref.integration.commons.exception;
+
+import com.sap.iot.azure.ref.integration.commons.context.InvocationContext;
+import com.sap.iot.azure.ref.integration.commons.exception.base.IoTRuntimeException;
+
+/**
+ * raised without calling the dependency, if the circuit breaker of the dependency is open. the call can be retried once the dependency recovered
+ */
+public class CircuitBreakerOpenException extends IoTRuntimeException {
+
+    public static final String CIRCUIT_BREAKER_PROPERTY_KEY = "circuitBreaker";
+
+    public CircuitBreakerOpenException(String circuitBreakerName) {
+        super(String.format("Circuit breaker for %s is open", circuitBreakerName), CommonErrorType.CIRCUIT_BREAKER_OPEN,
+                InvocationContext.getContext().getInvocationId(), IdentifierUtil.getIdentifier(CIRCUIT_BREAKER_PROPERTY_KEY, circuitBreakerName), true);
+    }
+}
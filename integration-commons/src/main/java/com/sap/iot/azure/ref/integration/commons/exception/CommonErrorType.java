@@ -14,7 +14,8 @@ public enum CommonErrorType implements ErrorType {
     AVRO_EXCEPTION("Avro Parse Exception"),
     EVENT_HUB_ERROR("Event Hub Access Error"),
     RUNTIME_ERROR("Runtime Error"),
-    JSON_PROCESSING_ERROR("Json Processing Error");
+    JSON_PROCESSING_ERROR("Json Processing Error"),
+    CIRCUIT_BREAKER_OPEN("Circuit Breaker Open");
 
     private final String description;
 
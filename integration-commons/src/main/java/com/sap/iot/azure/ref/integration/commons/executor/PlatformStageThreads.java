@@ -0,0 +1,39 @@
+package com.sap.iot.azure.ref.integration.commons.executor;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fixed number of daemon platform threads, which time out when idle, and a bounded queue for tasks waiting while all threads are busy.
+ */
+class PlatformStageThreads implements StageThreads {
+
+    private final ThreadPoolExecutor threadPool;
+
+    PlatformStageThreads(String stage, StageExecutorConfig config) {
+        int threads = Math.max(1, config.getThreads());
+        this.threadPool = new ThreadPoolExecutor(threads, threads, StageExecutorConstants.KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, config.getQueueSize())),
+                new ThreadFactoryBuilder().setNameFormat("stage-" + stage + "-%d").setDaemon(true).build());
+        this.threadPool.allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public void execute(Runnable task) throws RejectedExecutionException {
+        threadPool.execute(task);
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return threadPool.getQueue().size();
+    }
+
+    @Override
+    public int getActiveCount() {
+        return threadPool.getActiveCount();
+    }
+}
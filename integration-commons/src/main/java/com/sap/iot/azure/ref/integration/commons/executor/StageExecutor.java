@@ -0,0 +1,245 @@
+package com.sap.iot.azure.ref.integration.commons.executor;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.sap.iot.azure.ref.integration.commons.context.ContextSnapshot;
+import com.sap.iot.azure.ref.integration.commons.context.InvocationContext;
+import com.sap.iot.azure.ref.integration.commons.exception.CommonErrorType;
+import com.sap.iot.azure.ref.integration.commons.exception.IdentifierUtil;
+import com.sap.iot.azure.ref.integration.commons.exception.base.IoTRuntimeException;
+import com.sap.iot.azure.ref.integration.commons.metrics.MetricName;
+import com.sap.iot.azure.ref.integration.commons.metrics.MetricsAggregator;
+import com.sap.iot.azure.ref.integration.commons.metrics.MetricsClient;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Named, bounded executor for a class of work (see {@link StageExecutors}).
+ * <p>
+ * Tasks run on the {@link StageThreads} of the stage, at most the configured number of tasks concurrently, and wait in a bounded queue while
+ * all threads are busy. By default, these are platform threads which time out when idle; a {@link StageThreadsProvider} can run them on other
+ * threads, e.g., virtual threads. Tasks submitted while the queue is full are handled according to the configured {@link StageRejectionPolicy}. Every task runs with the
+ * {@link InvocationContext} of the thread submitting it, captured once per submission as {@link ContextSnapshot}; {@link #contextual()} binds
+ * the context of the current thread for asynchronous stages of a {@link CompletableFuture}, which are submitted by the thread completing the
+ * previous stage.
+ * <p>
+ * The queue depth and the share of busy threads in percent are sampled, and the rejected tasks are counted, by the {@link MetricsAggregator}
+ * of the stage, which publishes them once per flush interval.
+ */
+public class StageExecutor implements Executor {
+
+    private final String name;
+    private final int threads;
+    private final StageRejectionPolicy rejectionPolicy;
+    private final StageThreads stageThreads;
+    private final MetricsAggregator aggregator;
+    private final MetricName rejectedMetric;
+
+    @VisibleForTesting
+    StageExecutor(String name, StageExecutorConfig config, MetricsAggregator aggregator) {
+        this(name, config, new PlatformStageThreads(name, config), aggregator);
+    }
+
+    StageExecutor(String name, StageExecutorConfig config, StageThreads stageThreads, MetricsAggregator aggregator) {
+        this.name = name;
+        this.threads = Math.max(1, config.getThreads());
+        this.rejectionPolicy = config.getRejectionPolicy();
+        this.stageThreads = stageThreads;
+        this.aggregator = aggregator;
+        this.rejectedMetric = new MetricName(StageExecutorConstants.REJECTED_METRIC_PREFIX + name);
+
+        // the stages are created on first use, hence with the function name of the invocation using them first
+        aggregator.registerGauge(MetricsClient.getMetricName(StageExecutorConstants.QUEUE_DEPTH_METRIC_PREFIX + name), this::getQueueDepth);
+        aggregator.registerGauge(MetricsClient.getMetricName(StageExecutorConstants.UTILIZATION_METRIC_PREFIX + name),
+                this::getUtilizationPercent);
+    }
+
+    /**
+     * Runs the given task with the {@link InvocationContext} of the calling thread.
+     *
+     * @param command task
+     * @throws IoTRuntimeException transient, if the stage is saturated and the rejection policy is {@link StageRejectionPolicy#ABORT}
+     */
+    @Override
+    public void execute(Runnable command) throws IoTRuntimeException {
+        submit(command, ContextSnapshot.capture(), rejectionPolicy);
+    }
+
+    /**
+     * Returns an executor, which runs its tasks on this stage with the {@link InvocationContext} of the thread submitting them, but fails
+     * tasks submitted while the stage is saturated regardless of the configured rejection policy. Used by threads which must never run the
+     * tasks themselves, e.g., timer threads.
+     *
+     * @return executor aborting on saturation
+     */
+    public Executor withAbortPolicy() {
+        return command -> submit(command, ContextSnapshot.capture(), StageRejectionPolicy.ABORT);
+    }
+
+    /**
+     * Returns an executor, which runs its tasks on this stage with the {@link InvocationContext} of the calling thread, e.g., for
+     * {@link CompletableFuture#thenApplyAsync(java.util.function.Function, Executor)}.
+     *
+     * @return executor bound to the current context
+     */
+    public Executor contextual() {
+        ContextSnapshot snapshot = ContextSnapshot.capture();
+        return command -> submit(command, snapshot, rejectionPolicy);
+    }
+
+    /**
+     * Runs the given supplier on this stage.
+     *
+     * @param supplier supplier
+     * @param <T>      result type
+     * @return future completed with the result of the supplier
+     */
+    public <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier) {
+        return CompletableFuture.supplyAsync(supplier, this);
+    }
+
+    /**
+     * Runs the given task on this stage.
+     *
+     * @param runnable task
+     * @return future completed once the task has run
+     */
+    public CompletableFuture<Void> runAsync(Runnable runnable) {
+        return CompletableFuture.runAsync(runnable, this);
+    }
+
+    /**
+     * Performs the given action for all items in parallel and returns once all actions have completed.
+     * <p>
+     * The calling thread takes part and performs the actions not yet started by the stage itself. Hence, this method can be called from a
+     * task of any stage, including this one, without waiting for threads which are waiting themselves, and it completes even if the stage
+     * is saturated.
+     *
+     * @param items  items
+     * @param action action to perform for each item
+     * @param <T>    item type
+     * @throws RuntimeException the first failure of an action, after all actions have completed
+     */
+    public <T> void forEach(Collection<T> items, Consumer<? super T> action) {
+        if (items.size() <= 1) {
+            items.forEach(action);
+            return;
+        }
+
+        ContextSnapshot snapshot = ContextSnapshot.capture();
+        List<ClaimedTask> tasks = new ArrayList<>(items.size());
+        for (T item : items) {
+            ClaimedTask task = new ClaimedTask(() -> action.accept(item));
+            tasks.add(task);
+            try {
+                stageThreads.execute(() -> snapshot.run(task));
+            } catch (RejectedExecutionException ex) {
+                // performed by the calling thread below
+                aggregator.increment(rejectedMetric.get(), 1);
+            }
+        }
+
+        tasks.forEach(ClaimedTask::run);
+        for (ClaimedTask task : tasks) {
+            task.await();
+        }
+
+        for (ClaimedTask task : tasks) {
+            task.rethrowFailure();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the number of tasks waiting for a thread.
+     *
+     * @return queue depth
+     */
+    public int getQueueDepth() {
+        return stageThreads.getQueueDepth();
+    }
+
+    /**
+     * Returns the share of threads running a task.
+     *
+     * @return utilization in percent
+     */
+    public int getUtilizationPercent() {
+        return stageThreads.getActiveCount() * 100 / threads;
+    }
+
+    private void submit(Runnable command, ContextSnapshot snapshot, StageRejectionPolicy policy) throws IoTRuntimeException {
+        try {
+            stageThreads.execute(() -> snapshot.run(command));
+        } catch (RejectedExecutionException ex) {
+            aggregator.increment(rejectedMetric.get(), 1);
+            if (policy == StageRejectionPolicy.ABORT) {
+                throw IoTRuntimeException.wrapTransient(IdentifierUtil.getIdentifier("Stage", name), CommonErrorType.RUNTIME_ERROR,
+                        String.format("Stage executor %s is saturated", name), ex);
+            }
+
+            // the calling thread runs the task with its own context if it is the one the task was submitted with
+            if (snapshot.isCurrent()) {
+                command.run();
+            } else {
+                snapshot.run(command);
+            }
+        }
+    }
+
+    // task run by either a thread of the stage or the thread waiting for it, whichever claims it first
+    private static final class ClaimedTask implements Runnable {
+        private final Runnable action;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile Throwable failure;
+
+        private ClaimedTask(Runnable action) {
+            this.action = action;
+        }
+
+        @Override
+        public void run() {
+            if (!claimed.compareAndSet(false, true)) {
+                return;
+            }
+
+            try {
+                action.run();
+            } catch (Throwable ex) {
+                failure = ex;
+            } finally {
+                done.countDown();
+            }
+        }
+
+        private void await() {
+            try {
+                done.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw IoTRuntimeException.wrapTransient(IdentifierUtil.empty(), CommonErrorType.RUNTIME_ERROR, "Interrupted while waiting for stage tasks", ex);
+            }
+        }
+
+        private void rethrowFailure() {
+            Throwable ex = failure;
+            if (ex instanceof RuntimeException) {
+                throw (RuntimeException) ex;
+            } else if (ex instanceof Error) {
+                throw (Error) ex;
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.sap.iot.azure.ref.integration.commons.executor;
+
+import com.sap.iot.azure.ref.integration.commons.util.EnvUtils;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Thread count, queue size, rejection policy and thread provider of a {@link StageExecutor}.
+ */
+@Value
+@Builder
+public class StageExecutorConfig {
+    int threads;
+    @Builder.Default
+    int queueSize = StageExecutorConstants.QUEUE_SIZE_DEFAULT;
+    @Builder.Default
+    StageRejectionPolicy rejectionPolicy = StageRejectionPolicy.fromName(StageExecutorConstants.REJECTION_POLICY_DEFAULT);
+    @Builder.Default
+    String threadProvider = StageExecutorConstants.THREAD_PROVIDER_PLATFORM;
+
+    /**
+     * Returns the configuration of the given stage set in the environment ("executor-{stage}-threads", "executor-{stage}-queue-size",
+     * "executor-{stage}-rejection-policy" and "executor-{stage}-thread-provider"), falling back to the defaults for unset values.
+     *
+     * @param stage          name of the stage
+     * @param threadsDefault default thread count of the stage
+     * @return {@link StageExecutorConfig}
+     */
+    public static StageExecutorConfig fromEnv(String stage, int threadsDefault) {
+        String prefix = StageExecutorConstants.PROP_PREFIX + stage;
+        return StageExecutorConfig.builder()
+                .threads(EnvUtils.getEnv(prefix + StageExecutorConstants.THREADS_PROP_SUFFIX, threadsDefault))
+                .queueSize(EnvUtils.getEnv(prefix + StageExecutorConstants.QUEUE_SIZE_PROP_SUFFIX, StageExecutorConstants.QUEUE_SIZE_DEFAULT))
+                .rejectionPolicy(StageRejectionPolicy.fromName(EnvUtils.getEnv(prefix + StageExecutorConstants.REJECTION_POLICY_PROP_SUFFIX,
+                        StageExecutorConstants.REJECTION_POLICY_DEFAULT)))
+                .threadProvider(EnvUtils.getEnv(prefix + StageExecutorConstants.THREAD_PROVIDER_PROP_SUFFIX, StageExecutorConstants.THREAD_PROVIDER_PLATFORM))
+                .build();
+    }
+}
@@ -0,0 +1,29 @@
+package com.sap.iot.azure.ref.integration.commons.executor;
+
+public class StageExecutorConstants {
+
+    private StageExecutorConstants() {
+    }
+
+    // stages
+    public static final String CPU = "cpu";
+    public static final String IO = "io";
+
+    // configuration, prefixed with "executor-{stage}"
+    public static final String PROP_PREFIX = "executor-";
+    public static final String THREADS_PROP_SUFFIX = "-threads";
+    public static final String QUEUE_SIZE_PROP_SUFFIX = "-queue-size";
+    public static final String REJECTION_POLICY_PROP_SUFFIX = "-rejection-policy";
+    public static final String THREAD_PROVIDER_PROP_SUFFIX = "-thread-provider";
+    public static final int CPU_THREADS_DEFAULT = Runtime.getRuntime().availableProcessors();
+    public static final int IO_THREADS_DEFAULT = 32;
+    public static final int QUEUE_SIZE_DEFAULT = 1024;
+    public static final String REJECTION_POLICY_DEFAULT = "caller-runs";
+    public static final String THREAD_PROVIDER_PLATFORM = "platform";
+    public static final long KEEP_ALIVE_SECONDS = 60;
+
+    // metrics, suffixed with the stage name
+    public static final String QUEUE_DEPTH_METRIC_PREFIX = "ExecutorQueueDepth";
+    public static final String UTILIZATION_METRIC_PREFIX = "ExecutorUtilizationPercent";
+    public static final String REJECTED_METRIC_PREFIX = "ExecutorRejected";
+}
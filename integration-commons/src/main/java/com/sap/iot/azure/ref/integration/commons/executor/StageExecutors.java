@@ -0,0 +1,82 @@
+package com.sap.iot.azure.ref.integration.commons.executor;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.sap.iot.azure.ref.integration.commons.context.InvocationContext;
+import com.sap.iot.azure.ref.integration.commons.metrics.MetricsAggregator;
+
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.logging.Level;
+
+/**
+ * The {@link StageExecutor}s of the instance, one per workload class, configured by the environment. Use {@link #cpu()} for CPU-bound work
+ * like parsing, transformation and serialization, and {@link #io()} for work blocking on the cache, the mapping APIs, ADX or other remote
+ * calls, so that blocked threads don't hold back CPU-bound work and both stages can be sized independently.
+ * <p>
+ * The threads of a stage are created by the {@link StageThreadsProvider} selected with "executor-{stage}-thread-provider". If the selected
+ * provider is not on the classpath or cannot be loaded on the running JVM, e.g., the "virtual" provider on a JVM without virtual threads,
+ * the stage falls back to platform threads.
+ */
+public class StageExecutors {
+
+    private StageExecutors() {
+    }
+
+    /**
+     * Returns the stage for CPU-bound work, sized to the number of processors by default.
+     * Will always return the same instance.
+     *
+     * @return {@link StageExecutor}
+     */
+    public static StageExecutor cpu() {
+        return CpuStage.INSTANCE;
+    }
+
+    /**
+     * Returns the stage for work blocking on remote calls.
+     * Will always return the same instance.
+     *
+     * @return {@link StageExecutor}
+     */
+    public static StageExecutor io() {
+        return IoStage.INSTANCE;
+    }
+
+    private static StageExecutor create(String stage, int threadsDefault) {
+        StageExecutorConfig config = StageExecutorConfig.fromEnv(stage, threadsDefault);
+        return new StageExecutor(stage, config, createThreads(stage, config, ServiceLoader.load(StageThreadsProvider.class)),
+                MetricsAggregator.getDefault());
+    }
+
+    @VisibleForTesting
+    static StageThreads createThreads(String stage, StageExecutorConfig config, Iterable<StageThreadsProvider> providers) {
+        String providerName = config.getThreadProvider();
+        if (StageExecutorConstants.THREAD_PROVIDER_PLATFORM.equalsIgnoreCase(providerName)) {
+            return new PlatformStageThreads(stage, config);
+        }
+
+        try {
+            for (StageThreadsProvider provider : providers) {
+                if (provider.getName().equalsIgnoreCase(providerName)) {
+                    return provider.create(stage, config);
+                }
+            }
+            InvocationContext.getLogger().log(Level.WARNING, String.format("Thread provider %s of stage %s not found; falling back to platform threads",
+                    providerName, stage));
+        } catch (ServiceConfigurationError | RuntimeException | LinkageError ex) {
+            InvocationContext.getLogger().log(Level.WARNING, String.format("Thread provider %s of stage %s cannot be loaded; falling back to platform " +
+                    "threads", providerName, stage), ex);
+        }
+
+        return new PlatformStageThreads(stage, config);
+    }
+
+    // created on first use, so that functions only start the threads of the stages they use
+    private static final class CpuStage {
+        private static final StageExecutor INSTANCE = create(StageExecutorConstants.CPU, StageExecutorConstants.CPU_THREADS_DEFAULT);
+    }
+
+    private static final class IoStage {
+        private static final StageExecutor INSTANCE = create(StageExecutorConstants.IO, StageExecutorConstants.IO_THREADS_DEFAULT);
+    }
+}
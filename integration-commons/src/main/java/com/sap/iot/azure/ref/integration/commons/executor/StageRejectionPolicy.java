@@ -0,0 +1,28 @@
+package com.sap.iot.azure.ref.integration.commons.executor;
+
+/**
+ * Handling of tasks submitted to a {@link StageExecutor} whose threads are busy and whose queue is full.
+ */
+public enum StageRejectionPolicy {
+
+    /**
+     * Runs the task on the submitting thread, which slows down the submitter until the stage catches up.
+     */
+    CALLER_RUNS,
+
+    /**
+     * Fails the submission with a transient error, so that the invocation is retried later.
+     */
+    ABORT;
+
+    /**
+     * Returns the policy with the given name, e.g., "caller-runs", ignoring the case.
+     *
+     * @param name name of the policy
+     * @return {@link StageRejectionPolicy}
+     * @throws IllegalArgumentException if there is no policy with the given name
+     */
+    public static StageRejectionPolicy fromName(String name) {
+        return valueOf(name.replace('-', '_').toUpperCase());
+    }
+}
@@ -0,0 +1,32 @@
+package com.sap.iot.azure.ref.integration.commons.executor;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Threads running the tasks of a {@link StageExecutor}, created by a {@link StageThreadsProvider}. The stage executor adds the invocation
+ * context, the rejection policy and the metrics on top.
+ */
+public interface StageThreads {
+
+    /**
+     * Runs the given task asynchronously, or waits until a thread becomes available if all threads are busy.
+     *
+     * @param task task
+     * @throws RejectedExecutionException if the task can neither be started nor wait for a thread
+     */
+    void execute(Runnable task) throws RejectedExecutionException;
+
+    /**
+     * Returns the number of tasks waiting for a thread.
+     *
+     * @return queue depth
+     */
+    int getQueueDepth();
+
+    /**
+     * Returns the number of tasks currently running.
+     *
+     * @return active tasks
+     */
+    int getActiveCount();
+}
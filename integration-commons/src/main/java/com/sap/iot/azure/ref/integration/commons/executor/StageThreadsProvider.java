@@ -0,0 +1,28 @@
+package com.sap.iot.azure.ref.integration.commons.executor;
+
+import java.util.ServiceLoader;
+
+/**
+ * Creates the {@link StageThreads} of a {@link StageExecutor}. Providers other than the built-in "platform" provider are discovered with the
+ * {@link ServiceLoader}, i.e., by adding a jar registering the provider in "META-INF/services" to the classpath, and selected per stage
+ * with "executor-{stage}-thread-provider".
+ */
+public interface StageThreadsProvider {
+
+    /**
+     * Returns the name the provider is selected with, e.g., "virtual".
+     *
+     * @return name of the provider
+     */
+    String getName();
+
+    /**
+     * Creates the threads of the given stage, which run at most {@link StageExecutorConfig#getThreads()} tasks concurrently and let at
+     * most {@link StageExecutorConfig#getQueueSize()} further tasks wait.
+     *
+     * @param stage  name of the stage
+     * @param config configuration of the stage
+     * @return {@link StageThreads}
+     */
+    StageThreads create(String stage, StageExecutorConfig config);
+}
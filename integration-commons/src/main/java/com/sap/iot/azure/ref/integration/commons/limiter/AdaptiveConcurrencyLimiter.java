@@ -0,0 +1,287 @@
+package com.sap.iot.azure.ref.integration.commons.limiter;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.microsoft.azure.eventhubs.ServerBusyException;
+import com.sap.iot.azure.ref.integration.commons.exception.CommonErrorType;
+import com.sap.iot.azure.ref.integration.commons.exception.IdentifierUtil;
+import com.sap.iot.azure.ref.integration.commons.exception.base.IoTRuntimeException;
+import com.sap.iot.azure.ref.integration.commons.logging.StructuredLog;
+import com.sap.iot.azure.ref.integration.commons.metrics.MetricsClient;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+
+/**
+ * AIMD (additive increase, multiplicative decrease) limit of the concurrent asynchronous calls to a single target (e.g., an Event Hub).
+ * <p>
+ * Calls beyond the current limit are queued and started in submission order once in-flight calls complete. Queued calls which are not
+ * started within the configured queue timeout fail with a transient error. The limit is cut by the
+ * configured backoff factor if the target throttles a call ({@link ServerBusyException}) or if the latency of a call exceeds the
+ * baseline latency by more than the configured tolerance. The limit is cut at most once per round trip, i.e., only for calls started
+ * after the previous cut. As long as calls are healthy and the limit is used, the limit grows by one per round of calls up to the
+ * maximum limit.
+ * <p>
+ * The baseline latency follows the lowest observed latency and slowly drifts towards higher latencies, so that a permanent latency change
+ * of the target is adopted. The current limit is published as metric whenever it changes.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    // share of the difference to a higher latency the baseline latency drifts per call
+    private static final int BASELINE_DRIFT_DIVISOR = 100;
+
+    // calls permitted on the current thread, started one after another by the outermost caller instead of recursively by calls completing
+    // synchronously
+    private static final ThreadLocal<Queue<Runnable>> permittedCalls = new ThreadLocal<>();
+
+    private final String name;
+    private final AdaptiveConcurrencyLimiterConfig config;
+    private final ScheduledExecutorService timeoutScheduler;
+    private final LongSupplier nanoClock;
+
+    private final Queue<PendingCall> pendingCalls = new ArrayDeque<>();
+    private double limit;
+    private int inFlight = 0;
+    private long baselineLatencyNanos = 0;
+    private long lastDecreaseAt;
+
+    public AdaptiveConcurrencyLimiter(String name, AdaptiveConcurrencyLimiterConfig config) {
+        this(name, config, TimeoutScheduler.INSTANCE, System::nanoTime);
+    }
+
+    @VisibleForTesting
+    AdaptiveConcurrencyLimiter(String name, AdaptiveConcurrencyLimiterConfig config, ScheduledExecutorService timeoutScheduler,
+                               LongSupplier nanoClock) {
+        this.name = name;
+        this.config = config;
+        this.timeoutScheduler = timeoutScheduler;
+        this.nanoClock = nanoClock;
+        this.limit = Math.max(config.getMinLimit(), Math.min(config.getInitialLimit(), config.getMaxLimit()));
+        this.lastDecreaseAt = nanoClock.getAsLong();
+    }
+
+    /**
+     * Starts the given call once permitted by the current limit.
+     *
+     * @param call asynchronous call to the target
+     * @param <T>  result type
+     * @return future completed with the outcome of the call
+     */
+    public <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> call) {
+        if (!config.isEnabled()) {
+            return call.get();
+        }
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Runnable start = () -> start(call, result);
+
+        PendingCall pendingCall = null;
+        synchronized (this) {
+            if (inFlight < (int) limit) {
+                inFlight++;
+            } else {
+                pendingCall = new PendingCall(start, result);
+                pendingCalls.add(pendingCall);
+            }
+        }
+
+        if (pendingCall == null) {
+            startAll(Collections.singletonList(start));
+        } else if (config.getQueueTimeoutMillis() > 0) {
+            PendingCall queuedCall = pendingCall;
+            queuedCall.timeout = timeoutScheduler.schedule(() -> expire(queuedCall), config.getQueueTimeoutMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        return result;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @VisibleForTesting
+    synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    @VisibleForTesting
+    synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    private <T> void start(Supplier<CompletableFuture<T>> call, CompletableFuture<T> result) {
+        long startedAt = nanoClock.getAsLong();
+        CompletableFuture<T> callFuture;
+        try {
+            callFuture = call.get();
+        } catch (RuntimeException e) {
+            onComplete(startedAt, e);
+            result.completeExceptionally(e);
+            return;
+        }
+
+        callFuture.whenComplete((value, ex) -> {
+            onComplete(startedAt, ex);
+            if (ex != null) {
+                result.completeExceptionally(ex);
+            } else {
+                result.complete(value);
+            }
+        });
+    }
+
+    private void onComplete(long startedAt, Throwable ex) {
+        List<PendingCall> startedCalls = new ArrayList<>();
+
+        synchronized (this) {
+            inFlight--;
+            int previousLimit = (int) limit;
+
+            if (ex != null) {
+                if (isThrottled(ex)) {
+                    decrease(startedAt, "throttled");
+                }
+            } else {
+                onSuccess(startedAt, nanoClock.getAsLong() - startedAt);
+            }
+
+            if ((int) limit != previousLimit) {
+                MetricsClient.trackGauge(MetricsClient.getMetricName(AdaptiveConcurrencyLimiterConstants.LIMIT_METRIC_PREFIX + name), (int) limit);
+            }
+
+            while (inFlight < (int) limit && !pendingCalls.isEmpty()) {
+                inFlight++;
+                startedCalls.add(pendingCalls.poll());
+            }
+        }
+
+        List<Runnable> starts = new ArrayList<>(startedCalls.size());
+        for (PendingCall startedCall : startedCalls) {
+            startedCall.cancelTimeout();
+            starts.add(startedCall.start);
+        }
+        startAll(starts);
+    }
+
+    // started outside the lock; if the current thread is already starting calls, e.g., because a call completed synchronously, the calls are
+    // started by that loop, so that the stack doesn't grow with every call completing synchronously
+    private static void startAll(List<Runnable> starts) {
+        if (starts.isEmpty()) {
+            return;
+        }
+
+        Queue<Runnable> queue = permittedCalls.get();
+        if (queue != null) {
+            queue.addAll(starts);
+            return;
+        }
+
+        queue = new ArrayDeque<>(starts);
+        permittedCalls.set(queue);
+        try {
+            Runnable start;
+            while ((start = queue.poll()) != null) {
+                start.run();
+            }
+        } finally {
+            permittedCalls.remove();
+        }
+    }
+
+    private void expire(PendingCall pendingCall) {
+        boolean removed;
+        synchronized (this) {
+            removed = pendingCalls.remove(pendingCall);
+        }
+
+        if (removed) {
+            pendingCall.result.completeExceptionally(IoTRuntimeException.wrapTransient(IdentifierUtil.getIdentifier("Limiter", name),
+                    CommonErrorType.RUNTIME_ERROR, String.format("Call queued by concurrency limiter %s not started within %s ms", name,
+                            config.getQueueTimeoutMillis())));
+        }
+    }
+
+    private void onSuccess(long startedAt, long latencyNanos) {
+        if (baselineLatencyNanos == 0 || latencyNanos < baselineLatencyNanos) {
+            baselineLatencyNanos = latencyNanos;
+        } else {
+            baselineLatencyNanos += (latencyNanos - baselineLatencyNanos) / BASELINE_DRIFT_DIVISOR;
+        }
+
+        if (latencyNanos * 100 > baselineLatencyNanos * config.getLatencyTolerancePercent()) {
+            decrease(startedAt, "latency growth");
+        } else if ((inFlight + 1) * 2 >= limit) {
+            // only grow while the limit is used, otherwise an idle target would accumulate an arbitrarily high limit
+            limit = Math.min(config.getMaxLimit(), limit + 1 / limit);
+        }
+    }
+
+    private void decrease(long startedAt, String reason) {
+        if (startedAt - lastDecreaseAt < 0) {
+            // started before the last decrease, the decrease already accounts for the overload observed by this call
+            return;
+        }
+
+        lastDecreaseAt = nanoClock.getAsLong();
+        limit = Math.max(config.getMinLimit(), Math.floor(limit * config.getBackoffPercent() / 100));
+        StructuredLog.log(Level.FINE, "Concurrency limit decreased", "name", name, "limit", (int) limit, "reason", reason);
+    }
+
+    private static final class PendingCall {
+        private final Runnable start;
+        private final CompletableFuture<?> result;
+        private volatile ScheduledFuture<?> timeout;
+
+        private PendingCall(Runnable start, CompletableFuture<?> result) {
+            this.start = start;
+            this.result = result;
+        }
+
+        private void cancelTimeout() {
+            ScheduledFuture<?> scheduledTimeout = timeout;
+            if (scheduledTimeout != null) {
+                scheduledTimeout.cancel(false);
+            }
+        }
+    }
+
+    // a single thread expires the queued calls of all limiters of the instance
+    private static final class TimeoutScheduler {
+        private static final ScheduledExecutorService INSTANCE = create();
+
+        private static ScheduledExecutorService create() {
+            ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1,
+                    new ThreadFactoryBuilder().setNameFormat("send-limiter-timeout-%d").setDaemon(true).build());
+            // most calls are started before their timeout, so cancelled timeouts are removed right away
+            scheduler.setRemoveOnCancelPolicy(true);
+            return scheduler;
+        }
+    }
+
+    /**
+     * Checks whether the given exception or one of its causes is a {@link ServerBusyException}.
+     *
+     * @param ex exception of a failed call
+     * @return true if the call was throttled
+     */
+    public static boolean isThrottled(Throwable ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ServerBusyException) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
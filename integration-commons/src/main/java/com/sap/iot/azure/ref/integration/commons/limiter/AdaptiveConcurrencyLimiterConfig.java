@@ -0,0 +1,48 @@
+package com.sap.iot.azure.ref.integration.commons.limiter;
+
+import com.sap.iot.azure.ref.integration.commons.util.EnvUtils;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Bounds and adaption factors of an {@link AdaptiveConcurrencyLimiter}. Factors are given in percent.
+ */
+@Value
+@Builder
+public class AdaptiveConcurrencyLimiterConfig {
+    @Builder.Default
+    boolean enabled = AdaptiveConcurrencyLimiterConstants.ENABLED_DEFAULT;
+    @Builder.Default
+    int initialLimit = AdaptiveConcurrencyLimiterConstants.INITIAL_LIMIT_DEFAULT;
+    @Builder.Default
+    int minLimit = AdaptiveConcurrencyLimiterConstants.MIN_LIMIT_DEFAULT;
+    @Builder.Default
+    int maxLimit = AdaptiveConcurrencyLimiterConstants.MAX_LIMIT_DEFAULT;
+    @Builder.Default
+    int backoffPercent = AdaptiveConcurrencyLimiterConstants.BACKOFF_PERCENT_DEFAULT;
+    @Builder.Default
+    int latencyTolerancePercent = AdaptiveConcurrencyLimiterConstants.LATENCY_TOLERANCE_PERCENT_DEFAULT;
+    @Builder.Default
+    int queueTimeoutMillis = AdaptiveConcurrencyLimiterConstants.QUEUE_TIMEOUT_MILLIS_DEFAULT;
+
+    /**
+     * Returns the limiter configuration set in the environment, falling back to the defaults for unset values.
+     *
+     * @return {@link AdaptiveConcurrencyLimiterConfig}
+     */
+    public static AdaptiveConcurrencyLimiterConfig fromEnv() {
+        return AdaptiveConcurrencyLimiterConfig.builder()
+                .enabled(EnvUtils.getEnv(AdaptiveConcurrencyLimiterConstants.ENABLED_PROP, AdaptiveConcurrencyLimiterConstants.ENABLED_DEFAULT))
+                .initialLimit(EnvUtils.getEnv(AdaptiveConcurrencyLimiterConstants.INITIAL_LIMIT_PROP,
+                        AdaptiveConcurrencyLimiterConstants.INITIAL_LIMIT_DEFAULT))
+                .minLimit(EnvUtils.getEnv(AdaptiveConcurrencyLimiterConstants.MIN_LIMIT_PROP, AdaptiveConcurrencyLimiterConstants.MIN_LIMIT_DEFAULT))
+                .maxLimit(EnvUtils.getEnv(AdaptiveConcurrencyLimiterConstants.MAX_LIMIT_PROP, AdaptiveConcurrencyLimiterConstants.MAX_LIMIT_DEFAULT))
+                .backoffPercent(EnvUtils.getEnv(AdaptiveConcurrencyLimiterConstants.BACKOFF_PERCENT_PROP,
+                        AdaptiveConcurrencyLimiterConstants.BACKOFF_PERCENT_DEFAULT))
+                .latencyTolerancePercent(EnvUtils.getEnv(AdaptiveConcurrencyLimiterConstants.LATENCY_TOLERANCE_PERCENT_PROP,
+                        AdaptiveConcurrencyLimiterConstants.LATENCY_TOLERANCE_PERCENT_DEFAULT))
+                .queueTimeoutMillis(EnvUtils.getEnv(AdaptiveConcurrencyLimiterConstants.QUEUE_TIMEOUT_MILLIS_PROP,
+                        AdaptiveConcurrencyLimiterConstants.QUEUE_TIMEOUT_MILLIS_DEFAULT))
+                .build();
+    }
+}
@@ -0,0 +1,26 @@
+package com.sap.iot.azure.ref.integration.commons.limiter;
+
+public class AdaptiveConcurrencyLimiterConstants {
+
+    private AdaptiveConcurrencyLimiterConstants() {
+    }
+
+    // configuration
+    public static final String ENABLED_PROP = "send-limiter-enabled";
+    public static final boolean ENABLED_DEFAULT = true;
+    public static final String INITIAL_LIMIT_PROP = "send-limiter-initial-limit";
+    public static final int INITIAL_LIMIT_DEFAULT = 8;
+    public static final String MIN_LIMIT_PROP = "send-limiter-min-limit";
+    public static final int MIN_LIMIT_DEFAULT = 1;
+    public static final String MAX_LIMIT_PROP = "send-limiter-max-limit";
+    public static final int MAX_LIMIT_DEFAULT = 64;
+    public static final String BACKOFF_PERCENT_PROP = "send-limiter-backoff-percent";
+    public static final int BACKOFF_PERCENT_DEFAULT = 50;
+    public static final String LATENCY_TOLERANCE_PERCENT_PROP = "send-limiter-latency-tolerance-percent";
+    public static final int LATENCY_TOLERANCE_PERCENT_DEFAULT = 200;
+    public static final String QUEUE_TIMEOUT_MILLIS_PROP = "send-limiter-queue-timeout-millis";
+    public static final int QUEUE_TIMEOUT_MILLIS_DEFAULT = 30000;
+
+    // metrics
+    public static final String LIMIT_METRIC_PREFIX = "SendLimit";
+}
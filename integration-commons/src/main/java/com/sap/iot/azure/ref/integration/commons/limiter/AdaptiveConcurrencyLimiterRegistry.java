@@ -0,0 +1,40 @@
+package com.sap.iot.azure.ref.integration.commons.limiter;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Holds one {@link AdaptiveConcurrencyLimiter} per target name, so that all senders to a target within an instance share the limit.
+ */
+public class AdaptiveConcurrencyLimiterRegistry {
+
+    private static final AdaptiveConcurrencyLimiterRegistry DEFAULT_REGISTRY = new AdaptiveConcurrencyLimiterRegistry(
+            AdaptiveConcurrencyLimiterConfig.fromEnv());
+
+    private final AdaptiveConcurrencyLimiterConfig config;
+    private final ConcurrentMap<String, AdaptiveConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+
+    public AdaptiveConcurrencyLimiterRegistry(AdaptiveConcurrencyLimiterConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * Returns the registry configured by the environment.
+     * Will always return the same instance.
+     *
+     * @return {@link AdaptiveConcurrencyLimiterRegistry}
+     */
+    public static AdaptiveConcurrencyLimiterRegistry getDefault() {
+        return DEFAULT_REGISTRY;
+    }
+
+    /**
+     * Returns the limiter for the given target name, creating it on first access.
+     *
+     * @param name target name, e.g., the Event Hub name
+     * @return {@link AdaptiveConcurrencyLimiter}
+     */
+    public AdaptiveConcurrencyLimiter get(String name) {
+        return limiters.computeIfAbsent(name, key -> new AdaptiveConcurrencyLimiter(key, config));
+    }
+}
@@ -0,0 +1,157 @@
+package com.sap.iot.azure.ref.integration.commons.logging;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.sap.iot.azure.ref.integration.commons.context.InvocationContext;
+import com.sap.iot.azure.ref.integration.commons.util.EnvUtils;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * Publishes log records to their logger on a background thread, so that the handlers of the logger (e.g., forwarding the logs to the
+ * functions host) don't run on the logging thread.
+ * <p>
+ * Records with level {@link Level#WARNING} and above are published by the logging thread itself, so that failures are logged before the
+ * invocation completes. So are records which don't fit into the bounded queue, i.e., records are never dropped. Either way, the records
+ * queued before are published first, so that the records stay in order. {@link #flush()} publishes the queued records on the calling
+ * thread; it is called when an invocation is closed, so that no record of an invocation is published after the invocation has returned.
+ */
+public class AsyncLogAppender {
+
+    // the default appender once created, so that closing an invocation doesn't start the appender
+    private static volatile AsyncLogAppender defaultAppender;
+
+    private final boolean enabled;
+    private final BlockingQueue<PendingRecord> queue;
+    // held while publishing records, so that records published by different threads stay in order
+    private final Object publishLock = new Object();
+    private final Thread thread;
+    private volatile boolean waiting;
+
+    @VisibleForTesting
+    AsyncLogAppender(boolean enabled, int queueSize) {
+        this.enabled = enabled;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueSize));
+        this.thread = new Thread(this::publishPending, "log-appender");
+
+        if (enabled) {
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * Returns the appender of the instance, configured by the environment.
+     * Will always return the same instance.
+     *
+     * @return {@link AsyncLogAppender}
+     */
+    public static AsyncLogAppender getDefault() {
+        return DefaultAppender.INSTANCE;
+    }
+
+    /**
+     * Publishes the records queued by the default appender on the calling thread, if the default appender has been created.
+     */
+    public static void flushDefault() {
+        AsyncLogAppender appender = defaultAppender;
+        if (appender != null) {
+            appender.flush();
+        }
+    }
+
+    /**
+     * Publishes the given record to the given logger, asynchronously if possible.
+     *
+     * @param logger logger
+     * @param record record
+     */
+    public void append(Logger logger, LogRecord record) {
+        if (!enabled) {
+            logger.log(record);
+            return;
+        }
+
+        if (record.getLevel().intValue() < Level.WARNING.intValue() && queue.offer(new PendingRecord(logger, record))) {
+            if (waiting) {
+                LockSupport.unpark(thread);
+            }
+            return;
+        }
+
+        synchronized (publishLock) {
+            publishQueued();
+            logger.log(record);
+        }
+    }
+
+    /**
+     * Publishes the queued records on the calling thread.
+     */
+    public void flush() {
+        if (enabled) {
+            // waits for the records being published by the background thread as well
+            synchronized (publishLock) {
+                publishQueued();
+            }
+        }
+    }
+
+    @VisibleForTesting
+    int getQueueDepth() {
+        return queue.size();
+    }
+
+    private void publishPending() {
+        while (!Thread.currentThread().isInterrupted()) {
+            synchronized (publishLock) {
+                publishQueued();
+            }
+
+            // records are only taken from the queue while holding the lock, hence the thread waits for records without taking them
+            waiting = true;
+            if (queue.isEmpty()) {
+                LockSupport.park(this);
+            }
+            waiting = false;
+        }
+    }
+
+    private void publishQueued() {
+        PendingRecord pendingRecord;
+        while ((pendingRecord = queue.poll()) != null) {
+            try {
+                pendingRecord.logger.log(pendingRecord.record);
+            } catch (RuntimeException e) {
+                // a failing filter or handler must not stop the appender, nor fail the thread flushing it
+                InvocationContext.getLogger().log(Level.WARNING, "Unable to publish log record", e);
+            }
+        }
+    }
+    private static final class PendingRecord {
+        private final Logger logger;
+        private final LogRecord record;
+
+        private PendingRecord(Logger logger, LogRecord record) {
+            this.logger = logger;
+            this.record = record;
+        }
+    }
+
+    // created on first use, so that the thread is only started if records are logged
+    private static final class DefaultAppender {
+        private static final AsyncLogAppender INSTANCE = create();
+
+        private static AsyncLogAppender create() {
+            AsyncLogAppender appender = new AsyncLogAppender(
+                    EnvUtils.getEnv(LoggingConstants.ASYNC_ENABLED_PROP, LoggingConstants.ASYNC_ENABLED_DEFAULT),
+                    EnvUtils.getEnv(LoggingConstants.ASYNC_QUEUE_SIZE_PROP, LoggingConstants.ASYNC_QUEUE_SIZE_DEFAULT));
+            defaultAppender = appender;
+            return appender;
+        }
+    }
+}
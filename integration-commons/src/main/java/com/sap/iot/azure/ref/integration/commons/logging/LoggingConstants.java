@@ -0,0 +1,13 @@
+package com.sap.iot.azure.ref.integration.commons.logging;
+
+public class LoggingConstants {
+
+    private LoggingConstants() {
+    }
+
+    // asynchronous appender
+    public static final String ASYNC_ENABLED_PROP = "log-async-enabled";
+    public static final boolean ASYNC_ENABLED_DEFAULT = true;
+    public static final String ASYNC_QUEUE_SIZE_PROP = "log-async-queue-size";
+    public static final int ASYNC_QUEUE_SIZE_DEFAULT = 8192;
+}
@@ -0,0 +1,137 @@
+package com.sap.iot.azure.ref.integration.commons.logging;
+
+import com.sap.iot.azure.ref.integration.commons.context.InvocationContext;
+
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Level-gated structured logging to the logger of the {@link InvocationContext}, for hot paths.
+ * <p>
+ * The level of the logger is checked before anything is formatted; messages and values passed as {@link Supplier} are only evaluated if
+ * the level is enabled. The message is followed by the key/value pairs, e.g., "Sending batch [partition=0, size=12]". Records are
+ * published by the {@link AsyncLogAppender}.
+ */
+public class StructuredLog {
+
+    private StructuredLog() {
+    }
+
+    /**
+     * Checks whether the logger of the current invocation logs the given level.
+     *
+     * @param level level
+     * @return true if records of the given level are logged
+     */
+    public static boolean isLoggable(Level level) {
+        return InvocationContext.getLogger().isLoggable(level);
+    }
+
+    /**
+     * Logs the message supplied by the given supplier.
+     *
+     * @param level   level
+     * @param message message supplier, only called if the level is enabled
+     */
+    public static void log(Level level, Supplier<String> message) {
+        Logger logger = InvocationContext.getLogger();
+        if (logger.isLoggable(level)) {
+            append(logger, level, message.get(), null);
+        }
+    }
+
+    /**
+     * Logs the message supplied by the given supplier with the given failure.
+     *
+     * @param level   level
+     * @param message message supplier, only called if the level is enabled
+     * @param thrown  failure
+     */
+    public static void log(Level level, Supplier<String> message, Throwable thrown) {
+        Logger logger = InvocationContext.getLogger();
+        if (logger.isLoggable(level)) {
+            append(logger, level, message.get(), thrown);
+        }
+    }
+
+    /**
+     * Logs the given message with a key/value pair.
+     *
+     * @param level   level
+     * @param message message
+     * @param key     key
+     * @param value   value, a {@link Supplier} is only called if the level is enabled
+     */
+    public static void log(Level level, String message, String key, Object value) {
+        Logger logger = InvocationContext.getLogger();
+        if (logger.isLoggable(level)) {
+            append(logger, level, newMessage(message).append(key).append('=').append(valueOf(value)).append(']').toString(), null);
+        }
+    }
+
+    /**
+     * Logs the given message with two key/value pairs.
+     *
+     * @param level   level
+     * @param message message
+     * @param key1    first key
+     * @param value1  first value, a {@link Supplier} is only called if the level is enabled
+     * @param key2    second key
+     * @param value2  second value, a {@link Supplier} is only called if the level is enabled
+     */
+    public static void log(Level level, String message, String key1, Object value1, String key2, Object value2) {
+        Logger logger = InvocationContext.getLogger();
+        if (logger.isLoggable(level)) {
+            append(logger, level, newMessage(message).append(key1).append('=').append(valueOf(value1))
+                    .append(", ").append(key2).append('=').append(valueOf(value2)).append(']').toString(), null);
+        }
+    }
+
+    /**
+     * Logs the given message with three key/value pairs.
+     *
+     * @param level   level
+     * @param message message
+     * @param key1    first key
+     * @param value1  first value, a {@link Supplier} is only called if the level is enabled
+     * @param key2    second key
+     * @param value2  second value, a {@link Supplier} is only called if the level is enabled
+     * @param key3    third key
+     * @param value3  third value, a {@link Supplier} is only called if the level is enabled
+     */
+    public static void log(Level level, String message, String key1, Object value1, String key2, Object value2, String key3, Object value3) {
+        Logger logger = InvocationContext.getLogger();
+        if (logger.isLoggable(level)) {
+            append(logger, level, newMessage(message).append(key1).append('=').append(valueOf(value1))
+                    .append(", ").append(key2).append('=').append(valueOf(value2))
+                    .append(", ").append(key3).append('=').append(valueOf(value3)).append(']').toString(), null);
+        }
+    }
+
+    private static StringBuilder newMessage(String message) {
+        return new StringBuilder(message.length() + 64).append(message).append(" [");
+    }
+
+    private static String valueOf(Object value) {
+        return String.valueOf(value instanceof Supplier ? ((Supplier<?>) value).get() : value);
+    }
+
+    private static void append(Logger logger, Level level, String message, Throwable thrown) {
+        StructuredLogRecord record = new StructuredLogRecord(level, message, getSource());
+        record.setLoggerName(logger.getName());
+        record.setThrown(thrown);
+        AsyncLogAppender.getDefault().append(logger, record);
+    }
+
+    // the caller of the facade, resolved only for records which are logged
+    private static StackTraceElement getSource() {
+        for (StackTraceElement element : new Throwable().getStackTrace()) {
+            if (!StructuredLog.class.getName().equals(element.getClassName())) {
+                return element;
+            }
+        }
+
+        return null;
+    }
+}
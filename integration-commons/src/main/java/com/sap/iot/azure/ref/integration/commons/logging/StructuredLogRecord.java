@@ -0,0 +1,21 @@
+package com.sap.iot.azure.ref.integration.commons.logging;
+
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * {@link LogRecord} created by {@link StructuredLog}. The source class and method are resolved on the logging thread, so that the record
+ * can be published by another thread.
+ */
+public final class StructuredLogRecord extends LogRecord {
+
+    private static final long serialVersionUID = 1L;
+
+    StructuredLogRecord(Level level, String message, StackTraceElement source) {
+        super(level, message);
+        if (source != null) {
+            setSourceClassName(source.getClassName());
+            setSourceMethodName(source.getMethodName());
+        }
+    }
+}
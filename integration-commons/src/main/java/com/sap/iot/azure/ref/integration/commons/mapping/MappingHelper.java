@@ -1,75 +1,132 @@
 package com.sap.iot.azure.ref.integration.commons.mapping;
 
+import com.google.common.cache.CacheBuilder;
 import com.sap.iot.azure.ref.integration.commons.adx.ADXTableManager;
+import com.sap.iot.azure.ref.integration.commons.cache.AsyncCacheRepositoryFactory;
 import com.sap.iot.azure.ref.integration.commons.cache.CacheKeyBuilder;
+import com.sap.iot.azure.ref.integration.commons.cache.CacheKeyFamily;
+import com.sap.iot.azure.ref.integration.commons.cache.CacheMetrics;
+import com.sap.iot.azure.ref.integration.commons.cache.CacheNamespace;
+import com.sap.iot.azure.ref.integration.commons.cache.CircuitBreakingCacheRepository;
+import com.sap.iot.azure.ref.integration.commons.cache.api.AsyncCacheRepository;
 import com.sap.iot.azure.ref.integration.commons.cache.api.CacheRepository;
+import com.sap.iot.azure.ref.integration.commons.cache.codec.PropertyMappingInfoFields;
 import com.sap.iot.azure.ref.integration.commons.cache.redis.AzureCacheRepository;
+import com.sap.iot.azure.ref.integration.commons.circuitbreaker.CircuitBreakerConstants;
+import com.sap.iot.azure.ref.integration.commons.circuitbreaker.CircuitBreakerRegistry;
 import com.sap.iot.azure.ref.integration.commons.constants.CommonConstants;
 import com.sap.iot.azure.ref.integration.commons.context.InvocationContext;
 import com.sap.iot.azure.ref.integration.commons.exception.ADXClientException;
+import com.sap.iot.azure.ref.integration.commons.exception.CommonErrorType;
 import com.sap.iot.azure.ref.integration.commons.exception.IdentifierUtil;
 import com.sap.iot.azure.ref.integration.commons.exception.MappingLookupException;
 import com.sap.iot.azure.ref.integration.commons.exception.TokenLookupException;
 import com.sap.iot.azure.ref.integration.commons.exception.base.IoTRuntimeException;
+import com.sap.iot.azure.ref.integration.commons.logging.StructuredLog;
+import com.sap.iot.azure.ref.integration.commons.mapping.snapshot.MappingSnapshot;
+import com.sap.iot.azure.ref.integration.commons.mapping.snapshot.MappingVersionStamp;
+import com.sap.iot.azure.ref.integration.commons.metrics.MetricsClient;
+import com.sap.iot.azure.ref.integration.commons.model.mapping.PropertyProjection;
 import com.sap.iot.azure.ref.integration.commons.model.mapping.SensorMappingInfo;
 import com.sap.iot.azure.ref.integration.commons.model.mapping.cache.PropertyMappingInfo;
 import com.sap.iot.azure.ref.integration.commons.model.mapping.cache.SchemaWithADXStatus;
 import com.sap.iot.azure.ref.integration.commons.model.mapping.cache.SensorAssignment;
 import com.sap.iot.azure.ref.integration.commons.model.mapping.cache.SensorInfo;
+import com.sap.iot.azure.ref.integration.commons.model.mapping.cache.SensorMappingEntry;
+import com.sap.iot.azure.ref.integration.commons.util.EnvUtils;
 
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 
 public class MappingHelper {
+    private static final String STALE_MAPPING_METRIC = "StaleMappingServed";
+
     private final MappingServiceLookup mappingServiceLookup;
     private final CacheRepository cacheRepository;
+    private final AsyncCacheRepository asyncCacheRepository;
     private final ADXTableManager adxTableManager;
+    private final MappingSnapshot mappingSnapshot;
+    private final CacheMetrics cacheMetrics = CacheMetrics.getDefault();
+    // compiled property mappings by sensor, the composite entry is read per lookup and would otherwise be compiled per lookup
+    private final Map<String, PropertyProjection> propertyProjections = CacheBuilder.newBuilder()
+            .maximumSize(Math.max(1, EnvUtils.getEnv(MappingServiceConstants.MAPPING_PROJECTION_MAX_ENTRIES_PROP,
+                    MappingServiceConstants.MAPPING_PROJECTION_MAX_ENTRIES_DEFAULT)))
+            .<String, PropertyProjection>build().asMap();
 
     public MappingHelper() {
-        this(new MappingServiceLookup(), new AzureCacheRepository(), new ADXTableManager());
+        this(new MappingServiceLookup(),
+                new CircuitBreakingCacheRepository(new AzureCacheRepository(), CircuitBreakerRegistry.getDefault().get(CircuitBreakerConstants.CACHE)),
+                new ADXTableManager(), MappingSnapshot.getInstance());
     }
 
     public MappingHelper(MappingServiceLookup mappingServiceLookup, CacheRepository cacheRepository, ADXTableManager adxTableManager) {
+        this(mappingServiceLookup, cacheRepository, adxTableManager, MappingSnapshot.disabled());
+    }
+
+    public MappingHelper(MappingServiceLookup mappingServiceLookup, CacheRepository cacheRepository, ADXTableManager adxTableManager,
+                         MappingSnapshot mappingSnapshot) {
+        this(mappingServiceLookup, cacheRepository, AsyncCacheRepositoryFactory.fromEnv(cacheRepository), adxTableManager, mappingSnapshot);
+    }
+
+    public MappingHelper(MappingServiceLookup mappingServiceLookup, CacheRepository cacheRepository, AsyncCacheRepository asyncCacheRepository,
+                         ADXTableManager adxTableManager, MappingSnapshot mappingSnapshot) {
         this.mappingServiceLookup = mappingServiceLookup;
         this.cacheRepository = cacheRepository;
+        this.asyncCacheRepository = asyncCacheRepository;
         this.adxTableManager = adxTableManager;
+        this.mappingSnapshot = mappingSnapshot;
     }
+
     /**
      * Returns the mapping information for a given sensor ID and virtual Capability ID.
-     * The mapping information is, if possible, looked up from the configured cache resource.
-     * If the mapping information is not available in the cache, the mapping information is fetched from the mapping APIs.
+     * After an instance restart, the mapping information is served from the local {@link MappingSnapshot} while its entries are valid,
+     * i.e., while neither the cache namespace versions nor the generations of the sensor and the mapping have changed since it was resolved.
+     * Otherwise the mapping information is, if possible, looked up from the composite sensor mapping entry in the configured cache resource.
+     * If the composite entry is not available, it is resolved from the cached sensor info and property mapping info, which are fetched from
+     * the mapping APIs if not available in the cache, and written to the cache. The composite entry is only written, if none of its parts
+     * has been invalidated while it was resolved. The AVRO schema is looked up by the structure ID.
+     * The compiled property mappings ({@link PropertyProjection}) of a sensor are kept in memory, and reused as long as its property
+     * mappings are unchanged.
+     * If the cache resource or the mapping APIs are unavailable (transient failure or open circuit breaker), the last known mapping
+     * information of this sensor is served from the {@link MappingSnapshot}, if available.
      *
      * @param sensorId,            used for fetching mapping information
      * @param virtualCapabilityId, used for fetching mapping information
      * @return {@link SensorMappingInfo} containing all mapping information for the provided sensor ID and virtual capability ID.
      * @throws IoTRuntimeException thrown in case mapping lookup fails.
      */
-
     public SensorMappingInfo getSensorMapping(String sensorId, String virtualCapabilityId) throws IoTRuntimeException {
+        Optional<SensorMappingInfo> snapshotMappingInfo = mappingSnapshot.get(sensorId, virtualCapabilityId,
+                versionStamp -> isCurrent(sensorId, versionStamp));
+        if (snapshotMappingInfo.isPresent()) {
+            return withPropertyProjection(sensorId, virtualCapabilityId, snapshotMappingInfo.get());
+        }
 
         try {
-            // Fetch deviceInfo from cache, if it exists
-            SensorInfo sensorInfo = fetchSensorInfoFromCache(sensorId, virtualCapabilityId)
-                    .orElseGet(() -> {
-                        // Fetch sensor and assignment information from cache, if it exists
-                        Optional<SensorAssignment> sensorAssignmentInfo = fetchSensorAssignmentInfoFromCache(sensorId);
-                        return fetchSensorInfoFromAPI(sensorId, virtualCapabilityId, sensorAssignmentInfo);
-                    });
-
-            PropertyMappingInfo propertyMappingInfo = fetchPropertyMappingInfofromCache(sensorInfo.getMappingId(), sensorInfo.getStructureId(),
-                    virtualCapabilityId).orElseGet(() -> fetchPropertyMappingInfofromAPI(sensorInfo.getMappingId(), sensorInfo.getStructureId(), virtualCapabilityId));
-
-            String schemaInfo = getSchemaInfo(sensorInfo.getStructureId());
-
-            return SensorMappingInfo.builder()
-                    .sourceId(sensorInfo.getSourceId())
-                    .structureId(sensorInfo.getStructureId())
-                    .tags(sensorInfo.getTags())
-                    .propertyMappings(propertyMappingInfo.getPropertyMappings())
-                    .schemaInfo(schemaInfo)
-                    .build();
+            // Fetch the composite sensor mapping from cache, if it exists. Otherwise, resolve it from its parts and cache it
+            SensorMappingEntry sensorMappingEntry = fetchSensorMappingFromCache(sensorId, virtualCapabilityId)
+                    .orElseGet(() -> resolveSensorMapping(sensorId, virtualCapabilityId));
+
+            String schemaInfo = getSchemaInfo(sensorMappingEntry.getStructureId());
+
+            return toSensorMappingInfo(sensorId, virtualCapabilityId, sensorMappingEntry, schemaInfo);
         } catch (IoTRuntimeException e) {
+            if (isDependencyUnavailable(e)) {
+                Optional<SensorMappingInfo> lastKnownMappingInfo = mappingSnapshot.getLastKnown(sensorId, virtualCapabilityId);
+                if (lastKnownMappingInfo.isPresent()) {
+                    StructuredLog.log(Level.FINE, "Serving last known mapping", "sensorId", sensorId, "virtualCapabilityId", virtualCapabilityId,
+                            "cause", (Supplier<String>) e::getMessage);
+                    MetricsClient.trackPerfMetric(MetricsClient.getMetricName(STALE_MAPPING_METRIC), 1);
+                    return withPropertyProjection(sensorId, virtualCapabilityId, lastKnownMappingInfo.get());
+                }
+            }
+
             e.addIdentifier(CommonConstants.VIRTUAL_CAPABILITY_ID_PROPERTY_KEY, virtualCapabilityId);
             e.addIdentifier(CommonConstants.SENSOR_ID_PROPERTY_KEY, sensorId);
 
@@ -77,6 +134,153 @@ public class MappingHelper {
         }
     }
 
+    /**
+     * Looks up the mapping information for a given sensor ID and virtual Capability ID from the composite sensor mapping entry and the
+     * AVRO schema in the configured cache resource, without resolving anything that is not cached. With "cache-async-mode" set to
+     * "pipelined", the lookups of all callers are sent over a few pipelined connections, and the calling thread is not blocked. Otherwise
+     * the lookups block the calling thread, as in {@link #getSensorMapping(String, String)}. The lookups are guarded by the circuit
+     * breaker of the cache, and recorded in the {@link CacheMetrics}.
+     * The mapping information is empty, if it has to be resolved with {@link #getSensorMapping(String, String)}, i.e., if a
+     * {@link MappingSnapshot} entry loaded on startup is pending validation, if the composite entry or the schema is not cached, if the
+     * schema has not been synced to ADX yet, or if a lookup failed. The returned future never fails, and may be completed by a cache
+     * dispatcher thread.
+     *
+     * @param sensorId,            used for fetching mapping information
+     * @param virtualCapabilityId, used for fetching mapping information
+     * @return future of the cached {@link SensorMappingInfo}, or empty
+     */
+    public CompletableFuture<Optional<SensorMappingInfo>> getCachedSensorMappingAsync(String sensorId, String virtualCapabilityId) {
+        if (mappingSnapshot.isServable(sensorId, virtualCapabilityId)) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+
+        byte[] key = CacheKeyBuilder.constructSensorMappingInfoKey(sensorId, virtualCapabilityId);
+        return fetchFromCacheAsync(CacheKeyFamily.SENSOR_MAPPING_INFO, () -> asyncCacheRepository.get(key, SensorMappingEntry.class))
+                .thenCompose(sensorMappingEntry -> sensorMappingEntry.isPresent() ?
+                        getCachedSensorMappingAsync(sensorId, virtualCapabilityId, sensorMappingEntry.get()) :
+                        CompletableFuture.completedFuture(Optional.<SensorMappingInfo>empty()))
+                .exceptionally(e -> {
+                    // resolved by getSensorMapping, falling back to the last known mapping if the cache is unavailable
+                    StructuredLog.log(Level.FINE, "Cached sensor mapping not available", "sensorId", sensorId, "virtualCapabilityId",
+                            virtualCapabilityId, "cause", (Supplier<String>) e::getMessage);
+                    return Optional.empty();
+                });
+    }
+
+    private CompletableFuture<Optional<SensorMappingInfo>> getCachedSensorMappingAsync(String sensorId, String virtualCapabilityId,
+                                                                                      SensorMappingEntry sensorMappingEntry) {
+        byte[] key = CacheKeyBuilder.constructSchemaInfoKey(sensorMappingEntry.getStructureId());
+        return fetchFromCacheAsync(CacheKeyFamily.SCHEMA_INFO, () -> asyncCacheRepository.get(key, SchemaWithADXStatus.class))
+                // schemas not yet synced to ADX are synced by getSensorMapping
+                .thenApply(schemaInfo -> schemaInfo.filter(SchemaWithADXStatus::isAdxSync)
+                        .map(schema -> toSensorMappingInfo(sensorId, virtualCapabilityId, sensorMappingEntry, schema.getAvroSchema())));
+    }
+
+    private SensorMappingInfo toSensorMappingInfo(String sensorId, String virtualCapabilityId, SensorMappingEntry sensorMappingEntry,
+                                                  String schemaInfo) {
+        SensorMappingInfo sensorMappingInfo = SensorMappingInfo.builder()
+                .sourceId(sensorMappingEntry.getSourceId())
+                .structureId(sensorMappingEntry.getStructureId())
+                .tags(sensorMappingEntry.getTags())
+                .propertyMappings(sensorMappingEntry.getPropertyMappings())
+                .schemaInfo(schemaInfo)
+                .build();
+        withPropertyProjection(sensorId, virtualCapabilityId, sensorMappingInfo);
+
+        mappingSnapshot.record(sensorId, virtualCapabilityId, sensorMappingInfo, getVersionStamp(sensorMappingEntry));
+        return sensorMappingInfo;
+    }
+
+    private SensorMappingInfo withPropertyProjection(String sensorId, String virtualCapabilityId, SensorMappingInfo sensorMappingInfo) {
+        String key = sensorId + MappingServiceConstants.CACHE_KEY_SEPARATOR + virtualCapabilityId;
+        PropertyProjection propertyProjection = propertyProjections.get(key);
+        if (propertyProjection == null || !propertyProjection.isCompiledFrom(sensorMappingInfo.getPropertyMappings())) {
+            propertyProjection = PropertyProjection.compile(sensorMappingInfo.getPropertyMappings());
+            propertyProjections.put(key, propertyProjection);
+        }
+
+        sensorMappingInfo.setPropertyProjection(propertyProjection);
+        return sensorMappingInfo;
+    }
+
+    private static MappingVersionStamp getVersionStamp(SensorMappingEntry sensorMappingEntry) {
+        CacheNamespace cacheNamespace = CacheNamespace.getDefault();
+        return new MappingVersionStamp(cacheNamespace.getVersion(CacheKeyFamily.SENSOR_MAPPING_INFO),
+                cacheNamespace.getVersion(CacheKeyFamily.SCHEMA_INFO), sensorMappingEntry.getMappingId(),
+                sensorMappingEntry.getSensorGeneration(), sensorMappingEntry.getMappingGeneration());
+    }
+
+    private boolean isCurrent(String sensorId, MappingVersionStamp versionStamp) {
+        CacheNamespace cacheNamespace = CacheNamespace.getDefault();
+        // entries resolved from composite entries cached before the mapping ID was kept cannot be validated
+        if (versionStamp.getMappingId() == null || !versionStamp.hasNamespaceVersions(cacheNamespace.getVersion(CacheKeyFamily.SENSOR_MAPPING_INFO),
+                cacheNamespace.getVersion(CacheKeyFamily.SCHEMA_INFO))) {
+            return false;
+        }
+
+        try {
+            List<Optional<Long>> generations = cacheRepository.multiGet(Arrays.asList(CacheKeyBuilder.constructSensorGenerationKey(sensorId),
+                    CacheKeyBuilder.constructMappingGenerationKey(versionStamp.getMappingId())), Long.class);
+            return generations.get(0).orElse(0L) == versionStamp.getSensorGeneration()
+                    && generations.get(1).orElse(0L) == versionStamp.getMappingGeneration();
+        } catch (IoTRuntimeException e) {
+            // not validated, the mapping is resolved through the cache, falling back to the last known mapping if unavailable
+            StructuredLog.log(Level.FINE, "Mapping snapshot entry not validated", "sensorId", sensorId, "cause", (Supplier<String>) e::getMessage);
+            return false;
+        }
+    }
+
+    private SensorMappingEntry resolveSensorMapping(String sensorId, String virtualCapabilityId) throws IoTRuntimeException {
+        // Generations are read before the parts, the composite entry is only cached if the parts have not been invalidated since
+        Map<byte[], Long> generations = new LinkedHashMap<>();
+        byte[] sensorGenerationKey = CacheKeyBuilder.constructSensorGenerationKey(sensorId);
+        generations.put(sensorGenerationKey, getGeneration(sensorGenerationKey));
+
+        // Fetch deviceInfo from cache, if it exists
+        SensorInfo sensorInfo = fetchSensorInfoFromCache(sensorId, virtualCapabilityId)
+                .orElseGet(() -> {
+                    // Fetch sensor and assignment information from cache, if it exists
+                    Optional<SensorAssignment> sensorAssignmentInfo = fetchSensorAssignmentInfoFromCache(sensorId);
+                    return fetchSensorInfoFromAPI(sensorId, virtualCapabilityId, sensorAssignmentInfo);
+                });
+
+        byte[] mappingGenerationKey = CacheKeyBuilder.constructMappingGenerationKey(sensorInfo.getMappingId());
+        generations.put(mappingGenerationKey, getGeneration(mappingGenerationKey));
+
+        PropertyMappingInfo propertyMappingInfo = fetchPropertyMappingInfofromCache(sensorInfo.getMappingId(), sensorInfo.getStructureId(),
+                virtualCapabilityId).orElseGet(() -> fetchPropertyMappingInfofromAPI(sensorInfo.getMappingId(), sensorInfo.getStructureId(), virtualCapabilityId));
+
+        SensorMappingEntry sensorMappingEntry = SensorMappingEntry.builder()
+                .sourceId(sensorInfo.getSourceId())
+                .structureId(sensorInfo.getStructureId())
+                .tags(sensorInfo.getTags())
+                .propertyMappings(propertyMappingInfo.getPropertyMappings())
+                .mappingId(sensorInfo.getMappingId())
+                .sensorGeneration(generations.get(sensorGenerationKey))
+                .mappingGeneration(generations.get(mappingGenerationKey))
+                .build();
+
+        //Store the composite entry, indexed by sensor and mapping for invalidation on assignment and mapping changes
+        if (!cacheRepository.setIfUnchanged(CacheKeyBuilder.constructSensorMappingInfoKey(sensorId, virtualCapabilityId), sensorMappingEntry,
+                SensorMappingEntry.class, Arrays.asList(CacheKeyBuilder.constructSensorIndexKey(sensorId),
+                        CacheKeyBuilder.constructSensorMappingIndexKey(sensorInfo.getMappingId())), generations)) {
+            StructuredLog.log(Level.FINE, "Sensor mapping changed while resolving, not cached", "sensorId", sensorId,
+                    "virtualCapabilityId", virtualCapabilityId);
+        }
+
+        return sensorMappingEntry;
+    }
+
+    private long getGeneration(byte[] generationKey) {
+        return cacheRepository.get(generationKey, Long.class).orElse(0L);
+    }
+
+    private static boolean isDependencyUnavailable(IoTRuntimeException e) {
+        // ADX errors are excluded - the ADX table has to be in sync with the latest schema
+        return e.isTransient() && (e.getErrorType() == CommonErrorType.CIRCUIT_BREAKER_OPEN || e.getErrorType() == CommonErrorType.CACHE_ACCESS_ERROR
+                || e.getErrorType() == CommonErrorType.MAPPING_LOOKUP_ERROR || e.getErrorType() == CommonErrorType.AUTH_TOKEN_LOOKUP_ERROR);
+    }
+
     /**
      * Returns the AVRO schema for a given structure Id.
      * The AVRO schema, if possible, looked up from the configured cache resource.
@@ -108,40 +312,51 @@ public class MappingHelper {
         return schemaInfo.getAvroSchema();
     }
 
+    private Optional<SensorMappingEntry> fetchSensorMappingFromCache(String sensorId, String virtualCapabilityId) {
+        final byte[] key = CacheKeyBuilder.constructSensorMappingInfoKey(sensorId, virtualCapabilityId);
+        return fetchFromCache(CacheKeyFamily.SENSOR_MAPPING_INFO, () -> cacheRepository.get(key, SensorMappingEntry.class));
+    }
+
     public Optional<SensorAssignment> fetchSensorAssignmentInfoFromCache(String sensorId) {
         final byte[] key = CacheKeyBuilder.constructSensorKey(sensorId);
-        return cacheRepository.get(key, SensorAssignment.class);
+        return fetchFromCache(CacheKeyFamily.SENSOR, () -> cacheRepository.get(key, SensorAssignment.class));
     }
 
     private Optional<SensorInfo> fetchSensorInfoFromCache(String deviceId, String virtualCapabilityId) {
         final byte[] key = CacheKeyBuilder.constructSensorInfoKey(deviceId, virtualCapabilityId);
-        return cacheRepository.get(key, SensorInfo.class);
+        return fetchFromCache(CacheKeyFamily.SENSOR_INFO, () -> cacheRepository.get(key, SensorInfo.class));
     }
 
     private SensorInfo fetchSensorInfoFromAPI(String sensorId, String virtualCapabilityId, Optional<SensorAssignment> sensorAssignment) throws IoTRuntimeException {
-        InvocationContext.getLogger().log(Level.FINE, String.format("Fetching device info for sensor ID '%s' and virtual capability ID '%s' from API.", sensorId, virtualCapabilityId));
+        StructuredLog.log(Level.FINE, "Fetching device info from API", "sensorId", sensorId, "virtualCapabilityId", virtualCapabilityId);
+        cacheMetrics.recordFallback(CacheKeyFamily.SENSOR_INFO);
         SensorInfo sensorInfo = mappingServiceLookup.getSensorInfo(sensorId, virtualCapabilityId, sensorAssignment);
-        //Store deviceInfo in cache
-        cacheRepository.set(CacheKeyBuilder.constructSensorInfoKey(sensorId, virtualCapabilityId), sensorInfo, SensorInfo.class);
+        //Store deviceInfo in cache, indexed by sensor for invalidation on assignment changes
+        cacheRepository.set(CacheKeyBuilder.constructSensorInfoKey(sensorId, virtualCapabilityId), sensorInfo, SensorInfo.class,
+                CacheKeyBuilder.constructSensorIndexKey(sensorId));
         return sensorInfo;
     }
 
     private Optional<PropertyMappingInfo> fetchPropertyMappingInfofromCache(String mappingId, String structureId, String virtualCapabilityId) {
         final byte[] key = CacheKeyBuilder.constructPropertyMappingInfoKey(mappingId, structureId, virtualCapabilityId);
 
-        return cacheRepository.get(key, PropertyMappingInfo.class);
+        return fetchFromCache(CacheKeyFamily.PROPERTY_MAPPING_INFO, () -> cacheRepository.getHash(key, String.class)).map(PropertyMappingInfoFields::fromFields);
     }
 
     private PropertyMappingInfo fetchPropertyMappingInfofromAPI(String mappingId, String structureId, String virtualCapabilityId) throws MappingLookupException {
-        InvocationContext.getLogger().log(Level.FINE, String.format("Fetching Property Mapping Info for mapping ID '%s', structure ID '%s' and virtual " + "capability ID '%s' from API.", mappingId, structureId, virtualCapabilityId));
+        StructuredLog.log(Level.FINE, "Fetching Property Mapping Info from API", "mappingId", mappingId, "structureId", structureId,
+                "virtualCapabilityId", virtualCapabilityId);
+        cacheMetrics.recordFallback(CacheKeyFamily.PROPERTY_MAPPING_INFO);
         List<PropertyMappingInfo> propertyMappingInfos = mappingServiceLookup.getPropertyMappingInfos(mappingId);
 
         //getPropertyMappingInfos returns property mapping infos for different Virtual Capability ids. We will cache all, but only return the relevant one.
+        //property mapping infos are cached as hashes, so that notifications can update single property mappings
+        Map<byte[], Map<String, String>> propertyMappingInfoEntries = new LinkedHashMap<>();
         for (PropertyMappingInfo propertyMappingInfo : propertyMappingInfos) {
-            cacheRepository.set(CacheKeyBuilder.constructPropertyMappingInfoKey(mappingId, structureId, propertyMappingInfo.getVirtualCapabilityId()),
-                    propertyMappingInfo,
-                    PropertyMappingInfo.class);
+            propertyMappingInfoEntries.put(CacheKeyBuilder.constructPropertyMappingInfoKey(mappingId, structureId,
+                    propertyMappingInfo.getVirtualCapabilityId()), PropertyMappingInfoFields.toFields(propertyMappingInfo));
         }
+        cacheRepository.multiSetHash(propertyMappingInfoEntries, CacheKeyBuilder.constructMappingIndexKey(mappingId));
 
         Optional<PropertyMappingInfo> propertyMappingInfoOptional =
                 propertyMappingInfos.stream().filter(propertyMappingInfo -> propertyMappingInfo.getVirtualCapabilityId().equals(virtualCapabilityId) && propertyMappingInfo.getStructureId().equals(structureId)).findFirst();
@@ -155,11 +370,12 @@ public class MappingHelper {
 
     private Optional<SchemaWithADXStatus> fetchSchemaFromCache(String structureId) {
         final byte[] key = CacheKeyBuilder.constructSchemaInfoKey(structureId);
-        return cacheRepository.get(key, SchemaWithADXStatus.class);
+        return fetchFromCache(CacheKeyFamily.SCHEMA_INFO, () -> cacheRepository.get(key, SchemaWithADXStatus.class));
     }
 
     private SchemaWithADXStatus fetchSchemaInfoFromAPI(String structureId) throws IoTRuntimeException {
-        InvocationContext.getLogger().log(Level.FINE, String.format("Fetching Schema Info for structure ID '%s' from API.", structureId));
+        StructuredLog.log(Level.FINE, "Fetching Schema Info from API", "structureId", structureId);
+        cacheMetrics.recordFallback(CacheKeyFamily.SCHEMA_INFO);
         String avroSchema = mappingServiceLookup.getSchemaInfo(structureId);
         SchemaWithADXStatus schemaWithADXStatus = new SchemaWithADXStatus(avroSchema);
         saveSchemaInCache(structureId, schemaWithADXStatus);
@@ -167,6 +383,29 @@ public class MappingHelper {
         return schemaWithADXStatus;
     }
 
+    private <T> Optional<T> fetchFromCache(CacheKeyFamily family, Supplier<Optional<T>> cacheLookup) {
+        long start = System.nanoTime();
+        try {
+            Optional<T> value = cacheLookup.get();
+            cacheMetrics.recordLookup(family, value.isPresent(), System.nanoTime() - start);
+            return value;
+        } catch (IoTRuntimeException e) {
+            cacheMetrics.recordError(family, System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    private <T> CompletableFuture<Optional<T>> fetchFromCacheAsync(CacheKeyFamily family, Supplier<CompletableFuture<Optional<T>>> cacheLookup) {
+        long start = System.nanoTime();
+        return cacheLookup.get().whenComplete((value, e) -> {
+            if (e == null) {
+                cacheMetrics.recordLookup(family, value.isPresent(), System.nanoTime() - start);
+            } else {
+                cacheMetrics.recordError(family, System.nanoTime() - start);
+            }
+        });
+    }
+
     public void saveSchemaInCache(String structureId, SchemaWithADXStatus schemaInfo) {
         cacheRepository.set(CacheKeyBuilder.constructSchemaInfoKey(structureId), schemaInfo, SchemaWithADXStatus.class);
     }
@@ -32,9 +32,26 @@ public class MappingServiceConstants {
     public static final String CACHE_KEY_CREATOR_PREFIX = "SAP_";
     public static final String CACHE_SENSOR_KEY_PREFIX = "SENSOR_";
     public static final String CACHE_MAPPING_KEY_PREFIX = "MAPPING_";
+    public static final String CACHE_MAPPING_FIELDS_KEY_PREFIX = "MAPPINGFIELDS_";
     public static final String CACHE_STRUCTURE_KEY_PREFIX = "STRUCTURE_";
+    public static final String CACHE_SENSOR_MAPPING_KEY_PREFIX = "SENSORMAPPING_";
+    public static final String CACHE_INDEX_KEY_PREFIX = "INDEX_";
+    public static final String CACHE_GENERATION_KEY_PREFIX = "GENERATION_";
     public static final String CACHE_KEY_SEPARATOR = "_";
 
+    //Local Mapping Snapshot
+    public static final String MAPPING_SNAPSHOT_ENABLED_PROP = "mapping-snapshot-enabled";
+    public static final String MAPPING_SNAPSHOT_DIR_PROP = "mapping-snapshot-dir";
+    public static final String MAPPING_SNAPSHOT_MAX_AGE_SECONDS_PROP = "mapping-snapshot-max-age-seconds";
+    public static final int MAPPING_SNAPSHOT_MAX_AGE_SECONDS_DEFAULT = 600;
+    public static final String MAPPING_SNAPSHOT_FLUSH_INTERVAL_SECONDS_PROP = "mapping-snapshot-flush-interval-seconds";
+    public static final int MAPPING_SNAPSHOT_FLUSH_INTERVAL_SECONDS_DEFAULT = 60;
+    public static final String MAPPING_SNAPSHOT_MAX_ENTRIES_PROP = "mapping-snapshot-max-entries";
+    public static final int MAPPING_SNAPSHOT_MAX_ENTRIES_DEFAULT = 100000;
+    public static final String MAPPING_PROJECTION_MAX_ENTRIES_PROP = "mapping-projection-max-entries";
+    public static final int MAPPING_PROJECTION_MAX_ENTRIES_DEFAULT = 100000;
+    public static final String MAPPING_SNAPSHOT_FILE_NAME = "sap-iot-mapping-snapshot.bin";
+
     //Token
     public static final String TOKEN_ENDPOINT_PROP = "token-endpoint";
     public static final String TOKEN_ENDPOINT = System.getenv(TOKEN_ENDPOINT_PROP) + "/oauth/token";
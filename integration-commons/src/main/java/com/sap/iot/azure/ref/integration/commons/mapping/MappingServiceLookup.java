@@ -7,6 +7,9 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.net.HttpHeaders;
+import com.sap.iot.azure.ref.integration.commons.circuitbreaker.CircuitBreakerConfig;
+import com.sap.iot.azure.ref.integration.commons.circuitbreaker.CircuitBreakerConstants;
+import com.sap.iot.azure.ref.integration.commons.circuitbreaker.CircuitBreakerRegistry;
 import com.sap.iot.azure.ref.integration.commons.constants.CommonConstants;
 import com.sap.iot.azure.ref.integration.commons.exception.IdentifierUtil;
 import com.sap.iot.azure.ref.integration.commons.exception.MappingLookupException;
@@ -35,20 +38,28 @@ public class MappingServiceLookup {
     private static final ObjectMapper objectMapper = new ObjectMapper();
     private final AsyncHttpClient asyncHttpClient;
     private final TenantTokenCache tenantTokenCache;
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
 
     public MappingServiceLookup() {
-        this(new AsyncHttpClientFactory().getAsyncHttpClientWitHResponseFilter(), new TenantTokenCache());
+        this(new AsyncHttpClientFactory().getAsyncHttpClientWitHResponseFilter(), new TenantTokenCache(), CircuitBreakerRegistry.getDefault());
     }
 
     @VisibleForTesting
     MappingServiceLookup(AsyncHttpClient asyncHttpClient, TenantTokenCache tenantTokenCache) {
+        this(asyncHttpClient, tenantTokenCache, new CircuitBreakerRegistry(CircuitBreakerConfig.fromEnv()));
+    }
+
+    @VisibleForTesting
+    MappingServiceLookup(AsyncHttpClient asyncHttpClient, TenantTokenCache tenantTokenCache, CircuitBreakerRegistry circuitBreakerRegistry) {
         this.asyncHttpClient = asyncHttpClient;
         this.tenantTokenCache = tenantTokenCache;
+        this.circuitBreakerRegistry = circuitBreakerRegistry;
     }
 
     /**
      * Fetch device mapping information for a given sensor and virtual capability ID.
      * The device mapping information includes the source ID, tags and mapping ID.
+     * Each API endpoint is guarded by its own {@link com.sap.iot.azure.ref.integration.commons.circuitbreaker.CircuitBreaker}.
      *
      * @param sensorId,            required for fetching tags and assignment info
      * @param virtualCapabilityId, required for fetching tags
@@ -63,7 +74,8 @@ public class MappingServiceLookup {
                 .build();
 
         //get source ID & tags from tags endpoint
-        TagEndpointResponse tagEndpointResponse = getTags(sensorId, virtualCapabilityId);
+        TagEndpointResponse tagEndpointResponse = circuitBreakerRegistry.get(CircuitBreakerConstants.TAGS_API)
+                .execute(() -> getTags(sensorId, virtualCapabilityId));
         AssignmentEndpointResponse assignmentEndpointResponse;
 
         //get mappingId, assignmentId and objectId from assignment endpoint depending on the sensorAssignmentCache details, if it is present
@@ -77,7 +89,8 @@ public class MappingServiceLookup {
                     .build();
         } else {
             //retrieving assignment information from the API endpoint for a given sensorId
-            assignmentEndpointResponse = getAssignment(sensorId);
+            assignmentEndpointResponse = circuitBreakerRegistry.get(CircuitBreakerConstants.ASSIGNMENT_API)
+                    .execute(() -> getAssignment(sensorId));
         }
         sensorInfo = addSensorInfo(sensorInfo, tagEndpointResponse, assignmentEndpointResponse);
         return sensorInfo;
@@ -92,6 +105,20 @@ public class MappingServiceLookup {
      * @throws MappingLookupException exception in mapping lookup
      */
     List<PropertyMappingInfo> getPropertyMappingInfos(String mappingId) throws MappingLookupException {
+        return circuitBreakerRegistry.get(CircuitBreakerConstants.MAPPING_API).execute(() -> fetchPropertyMappingInfos(mappingId));
+    }
+
+    /**
+     * Fetches the AVRO schema for a given structure ID as string.
+     *
+     * @param structureId, for which the AVRO schema is fetched
+     * @return AVRO schema as string
+     */
+    public String getSchemaInfo(String structureId) throws MappingLookupException {
+        return circuitBreakerRegistry.get(CircuitBreakerConstants.SCHEMA_API).execute(() -> fetchSchemaInfo(structureId));
+    }
+
+    private List<PropertyMappingInfo> fetchPropertyMappingInfos(String mappingId) throws MappingLookupException {
         try {
             return getMappings(mappingId).stream()
                     .map(mappingEndpointResponse ->
@@ -116,13 +143,7 @@ public class MappingServiceLookup {
         }
     }
 
-    /**
-     * Fetches the AVRO schema for a given structure ID as string.
-     *
-     * @param structureId, for which the AVRO schema is fetched
-     * @return AVRO schema as string
-     */
-    public String getSchemaInfo(String structureId) throws MappingLookupException {
+    private String fetchSchemaInfo(String structureId) throws MappingLookupException {
         try {
             return getSchema(structureId);
 
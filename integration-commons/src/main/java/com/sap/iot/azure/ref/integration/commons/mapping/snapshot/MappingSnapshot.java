@@ -0,0 +1,303 @@
+package com.sap.iot.azure.ref.integration.commons.mapping.snapshot;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.sap.iot.azure.ref.integration.commons.context.InvocationContext;
+import com.sap.iot.azure.ref.integration.commons.mapping.MappingServiceConstants;
+import com.sap.iot.azure.ref.integration.commons.model.mapping.SensorMappingInfo;
+import com.sap.iot.azure.ref.integration.commons.util.EnvUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Clock;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+
+/**
+ * Local, file based snapshot of resolved {@link SensorMappingInfo}s, including the AVRO schema of the referenced structure.
+ * <p>
+ * Each resolved mapping is recorded with the time it was resolved and a {@link MappingVersionStamp} (the namespace versions and the
+ * generations of the sensor and the mapping it was resolved from), and periodically flushed to a binary file in the local temp storage.
+ * On instance startup, the file written by a previous instance on the same host is read, so that a restarted or recycled worker can
+ * serve mappings without resolving them through the cache resource or the mapping APIs.
+ * <p>
+ * Snapshot entries are only served while they are younger than the configured max age, and are validated lazily against the current
+ * version stamp on lookup. Mappings resolved by the running instance are never served from the snapshot again - the cache stays the
+ * source of truth, so that mapping notifications take effect as before.
+ * <p>
+ * Independent of the snapshot file, the last known mapping of each sensor is kept in memory. It is served, regardless of its age, if the
+ * cache resource or the mapping APIs are unavailable (see {@link #getLastKnown(String, String)}). At most the configured number of
+ * resolved mappings are kept; the least recently used mappings are evicted first.
+ */
+public class MappingSnapshot {
+
+    private static final String SEPARATOR = MappingServiceConstants.CACHE_KEY_SEPARATOR;
+    private static final MappingSnapshot DISABLED = new MappingSnapshot(false, null, 0, 0, Clock.systemUTC());
+    private static MappingSnapshot instance;
+
+    private final boolean enabled;
+    private final Path snapshotDirectory;
+    private final Path snapshotFile;
+    private final long maxAgeMillis;
+    private final Clock clock;
+    private final Map<String, MappingSnapshotEntry> resolved;
+    private final Map<String, String> schemas = new ConcurrentHashMap<>();
+    // keys of the loaded snapshot which have not been resolved by this instance since
+    private final Set<String> servable = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean dirty = new AtomicBoolean(false);
+    private volatile MappingSnapshotFile loaded;
+
+    @VisibleForTesting
+    MappingSnapshot(boolean enabled, Path snapshotDirectory, long maxAgeMillis, int maxEntries, Clock clock) {
+        this.enabled = enabled;
+        this.resolved = CacheBuilder.newBuilder().maximumSize(Math.max(1, maxEntries)).<String, MappingSnapshotEntry>build().asMap();
+        this.snapshotDirectory = snapshotDirectory;
+        this.snapshotFile = snapshotDirectory == null ? null : snapshotDirectory.resolve(MappingServiceConstants.MAPPING_SNAPSHOT_FILE_NAME);
+        this.maxAgeMillis = maxAgeMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * Returns the mapping snapshot configured by the environment.
+     * Will always return the same instance. If the snapshot file is enabled, the snapshot of a previous instance is loaded, and a
+     * periodic flush as well as a flush on shutdown are scheduled. Otherwise, the last known mappings are only kept in memory.
+     *
+     * @return {@link MappingSnapshot} for this instance
+     */
+    public static synchronized MappingSnapshot getInstance() {
+        if (instance == null) {
+            int maxEntries = EnvUtils.getEnv(MappingServiceConstants.MAPPING_SNAPSHOT_MAX_ENTRIES_PROP,
+                    MappingServiceConstants.MAPPING_SNAPSHOT_MAX_ENTRIES_DEFAULT);
+            if (EnvUtils.getEnv(MappingServiceConstants.MAPPING_SNAPSHOT_ENABLED_PROP, false)) {
+                Path directory = Paths.get(EnvUtils.getEnv(MappingServiceConstants.MAPPING_SNAPSHOT_DIR_PROP, System.getProperty("java.io.tmpdir")));
+                long maxAgeMillis = TimeUnit.SECONDS.toMillis(EnvUtils.getEnv(MappingServiceConstants.MAPPING_SNAPSHOT_MAX_AGE_SECONDS_PROP,
+                        MappingServiceConstants.MAPPING_SNAPSHOT_MAX_AGE_SECONDS_DEFAULT));
+                int flushInterval = EnvUtils.getEnv(MappingServiceConstants.MAPPING_SNAPSHOT_FLUSH_INTERVAL_SECONDS_PROP,
+                        MappingServiceConstants.MAPPING_SNAPSHOT_FLUSH_INTERVAL_SECONDS_DEFAULT);
+
+                MappingSnapshot snapshot = new MappingSnapshot(true, directory, maxAgeMillis, maxEntries, Clock.systemUTC());
+                snapshot.load();
+                snapshot.scheduleFlush(flushInterval);
+                instance = snapshot;
+            } else {
+                instance = new MappingSnapshot(true, null, 0, maxEntries, Clock.systemUTC());
+            }
+        }
+
+        return instance;
+    }
+
+    /**
+     * Returns a mapping snapshot which neither serves nor records any mapping, including the last known mappings.
+     *
+     * @return disabled {@link MappingSnapshot}
+     */
+    public static MappingSnapshot disabled() {
+        return DISABLED;
+    }
+
+    /**
+     * Returns the mapping information for a given sensor ID and virtual capability ID from the snapshot loaded on startup, if the
+     * entry is younger than the max age, its version stamp is current and the mapping has not been resolved by this instance since.
+     *
+     * @param sensorId            sensor ID
+     * @param virtualCapabilityId virtual capability ID
+     * @param isCurrent           checks whether the version stamp of the snapshot entry is current; only called for entries within
+     *                            the max age
+     * @return {@link SensorMappingInfo}, or empty if no valid snapshot entry is available
+     */
+    public Optional<SensorMappingInfo> get(String sensorId, String virtualCapabilityId, Predicate<MappingVersionStamp> isCurrent) {
+        MappingSnapshotFile snapshotView = loaded;
+        if (!enabled || snapshotView == null) {
+            return Optional.empty();
+        }
+
+        String key = key(sensorId, virtualCapabilityId);
+        if (!servable.contains(key)) {
+            return Optional.empty();
+        }
+
+        return readValid(snapshotView, key)
+                .filter(entry -> isCurrent.test(entry.getVersionStamp()))
+                .map(MappingSnapshotEntry::getSensorMappingInfo);
+    }
+
+    /**
+     * Returns whether the snapshot loaded on startup holds an entry for a given sensor ID and virtual capability ID, which has not been
+     * resolved by this instance since, i.e., whether {@link #get(String, String, Predicate)} may serve it.
+     *
+     * @param sensorId            sensor ID
+     * @param virtualCapabilityId virtual capability ID
+     * @return true if a loaded entry may be served
+     */
+    public boolean isServable(String sensorId, String virtualCapabilityId) {
+        return enabled && loaded != null && servable.contains(key(sensorId, virtualCapabilityId));
+    }
+
+    /**
+     * Records the resolved mapping information for a given sensor ID and virtual capability ID. The entry is persisted with the next
+     * flush.
+     *
+     * @param sensorId            sensor ID
+     * @param virtualCapabilityId virtual capability ID
+     * @param sensorMappingInfo   resolved mapping information
+     * @param versionStamp        version of the cache entries the mapping information was resolved from
+     */
+    public void record(String sensorId, String virtualCapabilityId, SensorMappingInfo sensorMappingInfo, MappingVersionStamp versionStamp) {
+        if (!enabled) {
+            return;
+        }
+
+        String key = key(sensorId, virtualCapabilityId);
+        // also once the entry is evicted from the resolved mappings, the older snapshot entry must not be served
+        servable.remove(key);
+        resolved.put(key, new MappingSnapshotEntry(withSharedSchema(sensorMappingInfo), clock.millis(), versionStamp));
+        dirty.set(true);
+    }
+
+    /**
+     * Returns the last known mapping information for a given sensor ID and virtual capability ID, regardless of its age.
+     * Intended as fallback if the cache resource or the mapping APIs are unavailable.
+     *
+     * @param sensorId            sensor ID
+     * @param virtualCapabilityId virtual capability ID
+     * @return {@link SensorMappingInfo} last resolved by this instance or loaded from the snapshot file, or empty if unknown
+     */
+    public Optional<SensorMappingInfo> getLastKnown(String sensorId, String virtualCapabilityId) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+
+        String key = key(sensorId, virtualCapabilityId);
+        MappingSnapshotEntry entry = resolved.get(key);
+        if (entry != null) {
+            return Optional.of(entry.getSensorMappingInfo());
+        }
+
+        MappingSnapshotFile snapshotView = loaded;
+        if (snapshotView == null || !servable.contains(key)) {
+            return Optional.empty();
+        }
+
+        try {
+            return snapshotView.read(key).map(MappingSnapshotEntry::getSensorMappingInfo);
+        } catch (RuntimeException e) {
+            InvocationContext.getLogger().log(Level.FINE, "Ignoring corrupt mapping snapshot entry " + key, e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Loads the snapshot file written by a previous instance. An unreadable file is ignored, it will be replaced with the next flush.
+     */
+    @VisibleForTesting
+    void load() {
+        if (snapshotFile == null) {
+            return;
+        }
+
+        try {
+            MappingSnapshotFile snapshotView = MappingSnapshotFile.open(snapshotFile).orElse(null);
+            if (snapshotView != null) {
+                servable.clear();
+                servable.addAll(snapshotView.keys());
+                servable.removeAll(resolved.keySet());
+                loaded = snapshotView;
+                InvocationContext.getLogger().log(Level.INFO, String.format("Loaded mapping snapshot with %d entries from %s",
+                        snapshotView.keys().size(), snapshotFile));
+            }
+        } catch (IOException e) {
+            InvocationContext.getLogger().log(Level.WARNING, "Ignoring unreadable mapping snapshot " + snapshotFile, e);
+        }
+    }
+
+    /**
+     * Writes all recorded entries, together with the still valid entries of the loaded snapshot, to the snapshot file.
+     */
+    @VisibleForTesting
+    synchronized void flush() {
+        if (!enabled || snapshotDirectory == null || !dirty.getAndSet(false)) {
+            return;
+        }
+
+        Map<String, MappingSnapshotEntry> entries = new HashMap<>();
+        MappingSnapshotFile snapshotView = loaded;
+        if (snapshotView != null) {
+            for (String key : servable) {
+                readValid(snapshotView, key).ifPresent(entry -> entries.put(key, entry));
+            }
+        }
+        entries.putAll(resolved);
+
+        try {
+            MappingSnapshotFile.write(snapshotDirectory, MappingServiceConstants.MAPPING_SNAPSHOT_FILE_NAME, entries, clock.millis());
+        } catch (IOException e) {
+            dirty.set(true);
+            InvocationContext.getLogger().log(Level.WARNING, "Failed to write mapping snapshot " + snapshotFile, e);
+        }
+    }
+
+    private Optional<MappingSnapshotEntry> readValid(MappingSnapshotFile snapshotView, String key) {
+        try {
+            return snapshotView.read(key)
+                    .filter(entry -> clock.millis() - entry.getResolvedAt() <= maxAgeMillis);
+        } catch (RuntimeException e) {
+            // corrupt entry payload, will be resolved through the cache or the mapping APIs
+            InvocationContext.getLogger().log(Level.FINE, "Ignoring corrupt mapping snapshot entry " + key, e);
+            return Optional.empty();
+        }
+    }
+
+    private void scheduleFlush(int flushIntervalSeconds) {
+        ScheduledExecutorService executorService = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("mapping-snapshot-%d").setDaemon(true).build());
+        executorService.scheduleWithFixedDelay(this::flush, flushIntervalSeconds, flushIntervalSeconds, TimeUnit.SECONDS);
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            executorService.shutdownNow();
+            flush();
+        }));
+    }
+
+    private SensorMappingInfo withSharedSchema(SensorMappingInfo sensorMappingInfo) {
+        // all sensors of a structure share the same schema, keep only a single copy of it
+        String structureId = sensorMappingInfo.getStructureId();
+        String schemaInfo = sensorMappingInfo.getSchemaInfo();
+        if (structureId == null || schemaInfo == null) {
+            return sensorMappingInfo;
+        }
+
+        String sharedSchemaInfo = schemas.get(structureId);
+        if (!schemaInfo.equals(sharedSchemaInfo)) {
+            schemas.put(structureId, schemaInfo);
+            return sensorMappingInfo;
+        }
+
+        SensorMappingInfo sharedSchemaMappingInfo = SensorMappingInfo.builder()
+                .sourceId(sensorMappingInfo.getSourceId())
+                .structureId(structureId)
+                .tags(sensorMappingInfo.getTags())
+                .propertyMappings(sensorMappingInfo.getPropertyMappings())
+                .schemaInfo(sharedSchemaInfo)
+                .build();
+        // keep the compiled property mappings, last known mappings are served without compiling them again
+        sharedSchemaMappingInfo.setPropertyProjection(sensorMappingInfo.getPropertyProjection());
+
+        return sharedSchemaMappingInfo;
+    }
+
+    private static String key(String sensorId, String virtualCapabilityId) {
+        return sensorId + SEPARATOR + virtualCapabilityId;
+    }
+}
@@ -0,0 +1,15 @@
+package com.sap.iot.azure.ref.integration.commons.mapping.snapshot;
+
+import com.sap.iot.azure.ref.integration.commons.model.mapping.SensorMappingInfo;
+import lombok.Value;
+
+/**
+ * Resolved {@link SensorMappingInfo} together with the time (epoch millis) it was resolved from the cache or the mapping APIs, and the
+ * {@link MappingVersionStamp} of the cache entries it was resolved from.
+ */
+@Value
+class MappingSnapshotEntry {
+    SensorMappingInfo sensorMappingInfo;
+    long resolvedAt;
+    MappingVersionStamp versionStamp;
+}
@@ -0,0 +1,287 @@
+package com.sap.iot.azure.ref.integration.commons.mapping.snapshot;
+
+import com.sap.iot.azure.ref.integration.commons.model.mapping.SensorMappingInfo;
+import com.sap.iot.azure.ref.integration.commons.model.mapping.cache.PropertyMapping;
+import com.sap.iot.azure.ref.integration.commons.model.mapping.cache.Tag;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Binary codec for the local mapping snapshot.
+ * <p>
+ * Layout: header (magic, format version, creation time), schema section (distinct AVRO schemas, each stored once) and mapping section
+ * (cache key, resolve time, encoded {@link MappingVersionStamp} and {@link SensorMappingInfo}, referencing its schema by its index in the
+ * schema section). Schemas are stored by content, so that entries of the same structure resolved with different schema versions keep
+ * their own schema.
+ * <p>
+ * Files are read into memory at once and not kept open, so that the file can be replaced by the next flush while the snapshot is in use.
+ * Only the key index is built on load, mapping entries are decoded on lookup.
+ */
+class MappingSnapshotFile {
+
+    static final int MAGIC = 0x53415053;
+    static final int FORMAT_VERSION = 2;
+    private static final int NULL_LENGTH = -1;
+    private static final int NO_SCHEMA = -1;
+
+    private final ByteBuffer buffer;
+    private final long createdAt;
+    private final List<String> schemas;
+    private final Map<String, Integer> entryOffsets;
+
+    private MappingSnapshotFile(ByteBuffer buffer, long createdAt, List<String> schemas, Map<String, Integer> entryOffsets) {
+        this.buffer = buffer;
+        this.createdAt = createdAt;
+        this.schemas = schemas;
+        this.entryOffsets = entryOffsets;
+    }
+
+    /**
+     * Reads the given snapshot file and builds the key index. The file is closed once it is read.
+     *
+     * @param path snapshot file
+     * @return snapshot file view, or empty if the file does not exist
+     * @throws IOException if the file cannot be read or is not a valid snapshot of the current format version
+     */
+    static Optional<MappingSnapshotFile> open(Path path) throws IOException {
+        if (!Files.isRegularFile(path)) {
+            return Optional.empty();
+        }
+
+        return Optional.of(index(ByteBuffer.wrap(Files.readAllBytes(path))));
+    }
+
+    static MappingSnapshotFile index(ByteBuffer source) throws IOException {
+        ByteBuffer buffer = source.duplicate();
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a mapping snapshot file");
+            }
+            int version = buffer.getInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported mapping snapshot format version " + version);
+            }
+            long createdAt = buffer.getLong();
+
+            int schemaCount = buffer.getInt();
+            List<String> schemas = new ArrayList<>(schemaCount);
+            for (int i = 0; i < schemaCount; i++) {
+                schemas.add(readString(buffer));
+            }
+
+            int entryCount = buffer.getInt();
+            Map<String, Integer> entryOffsets = new HashMap<>(capacity(entryCount));
+            for (int i = 0; i < entryCount; i++) {
+                String key = readString(buffer);
+                entryOffsets.put(key, buffer.position());
+                buffer.getLong(); // resolve time
+                int payloadLength = buffer.getInt();
+                buffer.position(buffer.position() + payloadLength);
+            }
+
+            return new MappingSnapshotFile(source, createdAt, schemas, entryOffsets);
+        } catch (RuntimeException e) {
+            // BufferUnderflowException, IllegalArgumentException for truncated or corrupt files
+            throw new IOException("Corrupt mapping snapshot file", e);
+        }
+    }
+
+    long getCreatedAt() {
+        return createdAt;
+    }
+
+    Set<String> keys() {
+        return Collections.unmodifiableSet(entryOffsets.keySet());
+    }
+
+    /**
+     * Decodes the entry for the given key.
+     *
+     * @param key snapshot key
+     * @return decoded entry, or empty if the key is not part of the snapshot
+     */
+    Optional<MappingSnapshotEntry> read(String key) {
+        Integer offset = entryOffsets.get(key);
+        if (offset == null) {
+            return Optional.empty();
+        }
+
+        // duplicate to keep position handling thread-safe, the content is shared
+        ByteBuffer entry = buffer.duplicate();
+        entry.position(offset);
+        long resolvedAt = entry.getLong();
+        entry.getInt(); // payload length
+
+        MappingVersionStamp versionStamp = new MappingVersionStamp(entry.getLong(), entry.getLong(), readString(entry), entry.getLong(),
+                entry.getLong());
+        String sourceId = readString(entry);
+        String structureId = readString(entry);
+        int schemaIndex = entry.getInt();
+
+        int tagCount = entry.getInt();
+        List<Tag> tags = null;
+        if (tagCount != NULL_LENGTH) {
+            tags = new ArrayList<>(tagCount);
+            for (int i = 0; i < tagCount; i++) {
+                tags.add(new Tag(readString(entry), readString(entry)));
+            }
+        }
+
+        int propertyMappingCount = entry.getInt();
+        List<PropertyMapping> propertyMappings = null;
+        if (propertyMappingCount != NULL_LENGTH) {
+            propertyMappings = new ArrayList<>(propertyMappingCount);
+            for (int i = 0; i < propertyMappingCount; i++) {
+                propertyMappings.add(new PropertyMapping(readString(entry), readString(entry)));
+            }
+        }
+
+        SensorMappingInfo sensorMappingInfo = SensorMappingInfo.builder()
+                .sourceId(sourceId)
+                .structureId(structureId)
+                .tags(tags)
+                .propertyMappings(propertyMappings)
+                .schemaInfo(schemaIndex == NO_SCHEMA ? null : schemas.get(schemaIndex))
+                .build();
+
+        return Optional.of(new MappingSnapshotEntry(sensorMappingInfo, resolvedAt, versionStamp));
+    }
+
+    /**
+     * Writes the given entries to a temporary file in the given directory and atomically replaces the snapshot file.
+     *
+     * @param directory snapshot directory
+     * @param fileName  snapshot file name
+     * @param entries   snapshot entries by key
+     * @param createdAt creation time written to the header
+     * @throws IOException if the snapshot cannot be written
+     */
+    static void write(Path directory, String fileName, Map<String, MappingSnapshotEntry> entries, long createdAt) throws IOException {
+        Files.createDirectories(directory);
+        Path target = directory.resolve(fileName);
+        Path tempFile = Files.createTempFile(directory, fileName, ".tmp");
+
+        try {
+            try (OutputStream out = Files.newOutputStream(tempFile)) {
+                write(out, entries, createdAt);
+            }
+            Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    static void write(OutputStream target, Map<String, MappingSnapshotEntry> entries, long createdAt) throws IOException {
+        // schemas are shared by all sensors of a structure and are the largest part of an entry, hence stored only once per content
+        Map<String, Integer> schemaIndexes = new LinkedHashMap<>();
+        for (MappingSnapshotEntry entry : entries.values()) {
+            String schemaInfo = entry.getSensorMappingInfo().getSchemaInfo();
+            if (schemaInfo != null) {
+                schemaIndexes.putIfAbsent(schemaInfo, schemaIndexes.size());
+            }
+        }
+
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(target));
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeLong(createdAt);
+
+        out.writeInt(schemaIndexes.size());
+        for (String schemaInfo : schemaIndexes.keySet()) {
+            writeString(out, schemaInfo);
+        }
+
+        out.writeInt(entries.size());
+        for (Map.Entry<String, MappingSnapshotEntry> entry : entries.entrySet()) {
+            byte[] payload = encode(entry.getValue(), schemaIndexes);
+            writeString(out, entry.getKey());
+            out.writeLong(entry.getValue().getResolvedAt());
+            out.writeInt(payload.length);
+            out.write(payload);
+        }
+
+        out.flush();
+    }
+
+    private static byte[] encode(MappingSnapshotEntry entry, Map<String, Integer> schemaIndexes) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        MappingVersionStamp versionStamp = entry.getVersionStamp();
+        out.writeLong(versionStamp.getSensorMappingNamespaceVersion());
+        out.writeLong(versionStamp.getSchemaNamespaceVersion());
+        writeString(out, versionStamp.getMappingId());
+        out.writeLong(versionStamp.getSensorGeneration());
+        out.writeLong(versionStamp.getMappingGeneration());
+
+        SensorMappingInfo info = entry.getSensorMappingInfo();
+        writeString(out, info.getSourceId());
+        writeString(out, info.getStructureId());
+        out.writeInt(info.getSchemaInfo() == null ? NO_SCHEMA : schemaIndexes.get(info.getSchemaInfo()));
+
+        if (info.getTags() == null) {
+            out.writeInt(NULL_LENGTH);
+        } else {
+            out.writeInt(info.getTags().size());
+            for (Tag tag : info.getTags()) {
+                writeString(out, tag.getTagSemantic());
+                writeString(out, tag.getTagValue());
+            }
+        }
+
+        if (info.getPropertyMappings() == null) {
+            out.writeInt(NULL_LENGTH);
+        } else {
+            out.writeInt(info.getPropertyMappings().size());
+            for (PropertyMapping propertyMapping : info.getPropertyMappings()) {
+                writeString(out, propertyMapping.getStructurePropertyId());
+                writeString(out, propertyMapping.getCapabilityPropertyId());
+            }
+        }
+
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(NULL_LENGTH);
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int capacity(int expectedSize) {
+        return Math.max(16, (int) (expectedSize / 0.75f) + 1);
+    }
+}
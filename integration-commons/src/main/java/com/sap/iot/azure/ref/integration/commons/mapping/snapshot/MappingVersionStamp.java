@@ -0,0 +1,32 @@
+package com.sap.iot.azure.ref.integration.commons.mapping.snapshot;
+
+import com.sap.iot.azure.ref.integration.commons.cache.CacheKeyFamily;
+import com.sap.iot.azure.ref.integration.commons.model.mapping.SensorMappingInfo;
+import lombok.Value;
+
+/**
+ * Version of the cache entries a {@link SensorMappingInfo} was resolved from. A snapshot entry is only served while its version stamp is
+ * current, i.e., while neither the namespace versions nor the generations of the sensor and the mapping have changed.
+ */
+@Value
+public class MappingVersionStamp {
+    // namespace version of the composite sensor mapping entries, see CacheKeyFamily#SENSOR_MAPPING_INFO
+    long sensorMappingNamespaceVersion;
+    // namespace version of the schema entries, see CacheKeyFamily#SCHEMA_INFO
+    long schemaNamespaceVersion;
+    String mappingId;
+    long sensorGeneration;
+    long mappingGeneration;
+
+    /**
+     * Returns whether the entries of the given families are not yet replaced by a namespace bump, i.e., whether the namespace versions of
+     * this stamp are the given versions.
+     *
+     * @param sensorMappingNamespaceVersion current namespace version of {@link CacheKeyFamily#SENSOR_MAPPING_INFO}
+     * @param schemaNamespaceVersion        current namespace version of {@link CacheKeyFamily#SCHEMA_INFO}
+     * @return true if both namespace versions are unchanged
+     */
+    public boolean hasNamespaceVersions(long sensorMappingNamespaceVersion, long schemaNamespaceVersion) {
+        return this.sensorMappingNamespaceVersion == sensorMappingNamespaceVersion && this.schemaNamespaceVersion == schemaNamespaceVersion;
+    }
+}
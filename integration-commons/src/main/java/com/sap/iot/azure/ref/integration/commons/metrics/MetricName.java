@@ -0,0 +1,43 @@
+package com.sap.iot.azure.ref.integration.commons.metrics;
+
+import com.sap.iot.azure.ref.integration.commons.context.InvocationContext;
+
+/**
+ * Name of a metric following the convention "{FunctionName} C_{MetricName}" (see {@link MetricsClient#getMetricName(String)}). The name is
+ * built once per function instead of once per recorded value.
+ */
+public final class MetricName {
+
+    private final String metricName;
+    private volatile Resolved resolved;
+
+    public MetricName(String metricName) {
+        this.metricName = metricName;
+    }
+
+    /**
+     * Returns the metric name for the function of the current {@link InvocationContext}.
+     *
+     * @return formatted metric name
+     */
+    public String get() {
+        String functionName = InvocationContext.getContext().getFunctionName();
+        Resolved current = resolved;
+        if (current == null || !current.functionName.equals(functionName)) {
+            current = new Resolved(functionName, MetricsClient.getMetricName(metricName));
+            resolved = current;
+        }
+
+        return current.name;
+    }
+
+    private static final class Resolved {
+        private final String functionName;
+        private final String name;
+
+        private Resolved(String functionName, String name) {
+            this.functionName = functionName;
+            this.name = name;
+        }
+    }
+}
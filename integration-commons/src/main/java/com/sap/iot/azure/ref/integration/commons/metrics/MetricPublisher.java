@@ -0,0 +1,22 @@
+package com.sap.iot.azure.ref.integration.commons.metrics;
+
+import java.util.Map;
+
+/**
+ * Publishes the aggregate of a metric over a flush interval, e.g., as pre-aggregated metric telemetry to App Insights.
+ */
+@FunctionalInterface
+public interface MetricPublisher {
+
+    /**
+     * Publishes the aggregate of a metric.
+     *
+     * @param name       metric name
+     * @param dimensions dimensions of the metric, empty if none
+     * @param sum        sum of the recorded values
+     * @param count      number of recorded values
+     * @param min        min of the recorded values
+     * @param max        max of the recorded values
+     */
+    void publish(String name, Map<String, String> dimensions, long sum, int count, long min, long max);
+}
@@ -0,0 +1,390 @@
+package com.sap.iot.azure.ref.integration.commons.metrics;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.sap.iot.azure.ref.integration.commons.context.InvocationContext;
+import com.sap.iot.azure.ref.integration.commons.util.EnvUtils;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+
+/**
+ * Local pre-aggregation of metrics keyed by name and dimensions, published by a {@link MetricPublisher} once per flush interval instead of
+ * once per recorded value.
+ * <p>
+ * Recording only updates lock-free counters of the metric. The aggregates are:
+ * <ul>
+ *     <li>counters, published as the sum of the increments of the interval, with the number of increments as count</li>
+ *     <li>gauges, published as the last value set in the interval, or as the value sampled when the interval is published for gauges
+ *     registered with a supplier</li>
+ *     <li>summaries, published as count, sum, min and max of the values recorded in the interval</li>
+ *     <li>histograms, published like summaries and, additionally, the 50th, 95th and 99th percentile as separate metrics named
+ *     "{MetricName}P{Percentile}". Percentiles are approximated by log-linear buckets with a relative error of at most 12.5%.</li>
+ * </ul>
+ * Aggregates are reset when published; metrics without recorded values in the interval are skipped. A value recorded while the interval is
+ * published may be counted in the next interval.
+ */
+public class MetricsAggregator {
+
+    private static final int[] PERCENTILES = {50, 95, 99};
+
+    private final MetricPublisher publisher;
+    // counters are summaries of the increments, so that the sum of the metric is the total and its count the number of increments
+    private final Registry<Summary> counters = new Registry<>(Summary::new);
+    private final Registry<Gauge> gauges = new Registry<>(Gauge::new);
+    private final Registry<Summary> summaries = new Registry<>(Summary::new);
+    private final Registry<Histogram> histograms = new Registry<>(Histogram::new);
+    private final ConcurrentMap<String, LongSupplier> sampledGauges = new ConcurrentHashMap<>();
+
+    /**
+     * Creates an aggregator publishing through the given publisher whenever it is flushed. Use {@link #getDefault()} unless the metrics
+     * are published elsewhere, e.g., in tests.
+     *
+     * @param publisher publisher of the aggregates
+     */
+    public MetricsAggregator(MetricPublisher publisher) {
+        this.publisher = publisher;
+    }
+
+    /**
+     * Returns the aggregator of the instance, which publishes to App Insights in the interval configured by the environment.
+     * Will always return the same instance.
+     *
+     * @return {@link MetricsAggregator}
+     */
+    public static MetricsAggregator getDefault() {
+        return DefaultAggregator.INSTANCE;
+    }
+
+    /**
+     * Adds the given delta to a counter.
+     *
+     * @param name  metric name
+     * @param delta delta
+     */
+    public void increment(String name, long delta) {
+        counters.get(name).record(delta);
+    }
+
+    /**
+     * Adds the given delta to a counter with dimensions.
+     *
+     * @param name       metric name
+     * @param dimensions dimensions
+     * @param delta      delta
+     */
+    public void increment(String name, Map<String, String> dimensions, long delta) {
+        counters.get(name, dimensions).record(delta);
+    }
+
+    /**
+     * Sets the value of a gauge.
+     *
+     * @param name  metric name
+     * @param value value
+     */
+    public void gauge(String name, long value) {
+        gauges.get(name).set(value);
+    }
+
+    /**
+     * Sets the value of a gauge with dimensions.
+     *
+     * @param name       metric name
+     * @param dimensions dimensions
+     * @param value      value
+     */
+    public void gauge(String name, Map<String, String> dimensions, long value) {
+        gauges.get(name, dimensions).set(value);
+    }
+
+    /**
+     * Registers a gauge whose value is sampled from the given supplier whenever the aggregates are published, e.g., the depth of a queue.
+     * Replaces the supplier registered before under the same name.
+     *
+     * @param name     metric name
+     * @param supplier supplier of the current value
+     */
+    public void registerGauge(String name, LongSupplier supplier) {
+        sampledGauges.put(name, supplier);
+    }
+
+    /**
+     * Records a value of a summary.
+     *
+     * @param name  metric name
+     * @param value value
+     */
+    public void record(String name, long value) {
+        summaries.get(name).record(value);
+    }
+
+    /**
+     * Records a value of a summary with dimensions.
+     *
+     * @param name       metric name
+     * @param dimensions dimensions
+     * @param value      value
+     */
+    public void record(String name, Map<String, String> dimensions, long value) {
+        summaries.get(name, dimensions).record(value);
+    }
+
+    /**
+     * Records a value of a histogram.
+     *
+     * @param name  metric name
+     * @param value value
+     */
+    public void recordHistogram(String name, long value) {
+        histograms.get(name).record(value);
+    }
+
+    /**
+     * Records a value of a histogram with dimensions.
+     *
+     * @param name       metric name
+     * @param dimensions dimensions
+     * @param value      value
+     */
+    public void recordHistogram(String name, Map<String, String> dimensions, long value) {
+        histograms.get(name, dimensions).record(value);
+    }
+
+    /**
+     * Publishes the aggregates of all metrics and resets them.
+     */
+    public void flush() {
+        counters.publish(publisher);
+        gauges.publish(publisher);
+        summaries.publish(publisher);
+        histograms.publish(publisher);
+        sampledGauges.forEach((name, supplier) -> {
+            long value = supplier.getAsLong();
+            publisher.publish(name, Collections.emptyMap(), value, 1, value, value);
+        });
+    }
+
+    private interface Aggregate {
+        void publish(String name, Map<String, String> dimensions, MetricPublisher publisher);
+    }
+
+    // aggregates by name, and by name and dimensions for metrics with dimensions
+    private static final class Registry<A extends Aggregate> {
+        private final Supplier<A> factory;
+        private final ConcurrentMap<String, A> byName = new ConcurrentHashMap<>();
+        private final ConcurrentMap<MetricKey, A> byKey = new ConcurrentHashMap<>();
+
+        private Registry(Supplier<A> factory) {
+            this.factory = factory;
+        }
+
+        private A get(String name) {
+            // get first, computeIfAbsent locks the bin even if the aggregate exists
+            A aggregate = byName.get(name);
+            return aggregate != null ? aggregate : byName.computeIfAbsent(name, key -> factory.get());
+        }
+
+        private A get(String name, Map<String, String> dimensions) {
+            if (dimensions.isEmpty()) {
+                return get(name);
+            }
+
+            MetricKey metricKey = new MetricKey(name, dimensions);
+            A aggregate = byKey.get(metricKey);
+            return aggregate != null ? aggregate : byKey.computeIfAbsent(metricKey, key -> factory.get());
+        }
+
+        private void publish(MetricPublisher publisher) {
+            byName.forEach((name, aggregate) -> aggregate.publish(name, Collections.emptyMap(), publisher));
+            byKey.forEach((metricKey, aggregate) -> aggregate.publish(metricKey.name, metricKey.dimensions, publisher));
+        }
+    }
+
+    private static final class MetricKey {
+        private final String name;
+        private final Map<String, String> dimensions;
+
+        private MetricKey(String name, Map<String, String> dimensions) {
+            this.name = name;
+            this.dimensions = Collections.unmodifiableMap(new TreeMap<>(dimensions));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            MetricKey metricKey = (MetricKey) o;
+            return name.equals(metricKey.name) && dimensions.equals(metricKey.dimensions);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(name, dimensions);
+        }
+    }
+
+    private static final class Gauge implements Aggregate {
+        private final AtomicLong value = new AtomicLong();
+        private final AtomicLong updates = new AtomicLong();
+
+        private void set(long newValue) {
+            value.set(newValue);
+            updates.incrementAndGet();
+        }
+
+        @Override
+        public void publish(String name, Map<String, String> dimensions, MetricPublisher publisher) {
+            if (updates.getAndSet(0) == 0) {
+                return;
+            }
+
+            long lastValue = value.get();
+            publisher.publish(name, dimensions, lastValue, 1, lastValue, lastValue);
+        }
+    }
+
+    private static class Summary implements Aggregate {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final LongAccumulator min = new LongAccumulator(Math::min, Long.MAX_VALUE);
+        private final LongAccumulator max = new LongAccumulator(Math::max, Long.MIN_VALUE);
+
+        void record(long value) {
+            count.increment();
+            sum.add(value);
+            min.accumulate(value);
+            max.accumulate(value);
+        }
+
+        @Override
+        public void publish(String name, Map<String, String> dimensions, MetricPublisher publisher) {
+            long countValue = count.sumThenReset();
+            long sumValue = sum.sumThenReset();
+            long minValue = min.getThenReset();
+            long maxValue = max.getThenReset();
+            if (countValue == 0) {
+                return;
+            }
+
+            publisher.publish(name, dimensions, sumValue, (int) Math.min(countValue, Integer.MAX_VALUE), minValue, maxValue);
+            publishDistribution(name, dimensions, publisher, countValue, minValue, maxValue);
+        }
+
+        void publishDistribution(String name, Map<String, String> dimensions, MetricPublisher publisher, long count, long min, long max) {
+            // summaries don't keep the distribution
+        }
+    }
+
+    private static final class Histogram extends Summary {
+        // values below are counted exactly, each power of two above is split into 2^SUB_BUCKET_BITS buckets
+        private static final int SUB_BUCKET_BITS = 3;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+        private static final int EXACT_VALUES = SUB_BUCKETS * 2;
+        private static final int EXACT_BITS = SUB_BUCKET_BITS + 1;
+        private static final int BUCKETS = EXACT_VALUES + (Long.SIZE - 1 - EXACT_BITS) * SUB_BUCKETS;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+        @Override
+        void record(long value) {
+            super.record(value);
+            buckets.incrementAndGet(bucketOf(value));
+        }
+
+        @Override
+        void publishDistribution(String name, Map<String, String> dimensions, MetricPublisher publisher, long count, long min, long max) {
+            long[] bucketCounts = new long[BUCKETS];
+            long bucketTotal = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                bucketCounts[i] = buckets.getAndSet(i, 0);
+                bucketTotal += bucketCounts[i];
+            }
+
+            for (int percentile : PERCENTILES) {
+                long value = Math.max(min, Math.min(max, percentile(bucketCounts, bucketTotal, percentile)));
+                publisher.publish(name + MetricsConstants.PERCENTILE_SUFFIX + percentile, dimensions, value, 1, value, value);
+            }
+        }
+
+        private static long percentile(long[] bucketCounts, long count, int percentile) {
+            long rank = (count * percentile + 99) / 100;
+            long cumulativeCount = 0;
+            for (int i = 0; i < bucketCounts.length; i++) {
+                cumulativeCount += bucketCounts[i];
+                if (cumulativeCount >= rank) {
+                    return upperBoundOf(i);
+                }
+            }
+
+            return Long.MAX_VALUE;
+        }
+
+        @VisibleForTesting
+        static int bucketOf(long value) {
+            if (value < EXACT_VALUES) {
+                return (int) Math.max(0, value);
+            }
+
+            int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+            int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+            return EXACT_VALUES + (exponent - EXACT_BITS) * SUB_BUCKETS + subBucket;
+        }
+
+        @VisibleForTesting
+        static long upperBoundOf(int bucket) {
+            if (bucket < EXACT_VALUES) {
+                return bucket;
+            }
+
+            int exponent = (bucket - EXACT_VALUES) / SUB_BUCKETS + EXACT_BITS;
+            int subBucket = (bucket - EXACT_VALUES) % SUB_BUCKETS;
+            long lowerBound = (long) (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+            return lowerBound + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+        }
+    }
+
+    // created on first use; flushed in a fixed interval and when the instance shuts down
+    private static final class DefaultAggregator {
+        private static final MetricsAggregator INSTANCE = create();
+
+        private static MetricsAggregator create() {
+            MetricsAggregator aggregator = new MetricsAggregator(MetricsClient::publish);
+            long intervalSeconds = EnvUtils.getEnv(MetricsConstants.FLUSH_INTERVAL_SECONDS_PROP, MetricsConstants.FLUSH_INTERVAL_SECONDS_DEFAULT);
+
+            ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+                    new ThreadFactoryBuilder().setNameFormat("metrics-flush-%d").setDaemon(true).build());
+            scheduler.scheduleAtFixedRate(() -> flushQuietly(aggregator), intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> flushQuietly(aggregator), "metrics-flush-shutdown"));
+
+            return aggregator;
+        }
+
+        private static void flushQuietly(MetricsAggregator aggregator) {
+            try {
+                aggregator.flush();
+            } catch (RuntimeException e) {
+                // a failing publish must not cancel the periodic flush
+                InvocationContext.getLogger().log(Level.WARNING, "Unable to flush metrics", e);
+            }
+        }
+    }
+}
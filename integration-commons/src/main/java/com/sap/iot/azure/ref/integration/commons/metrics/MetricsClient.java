@@ -3,11 +3,21 @@ package com.sap.iot.azure.ref.integration.commons.metrics;
 import com.google.common.annotations.VisibleForTesting;
 import com.microsoft.applicationinsights.TelemetryClient;
 import com.sap.iot.azure.ref.integration.commons.context.InvocationContext;
+import com.sap.iot.azure.ref.integration.commons.util.EnvUtils;
 
+import java.util.Map;
+
+/**
+ * Publishes metrics to App Insights. Unless disabled with "metrics-aggregation-enabled", the metrics are pre-aggregated by the
+ * {@link MetricsAggregator} and published once per flush interval instead of once per value.
+ */
 public class MetricsClient {
 
     public static final boolean PERF_METRICS_ENABLED = Boolean.parseBoolean(System.getenv("enable-perf-analysis-metrics"));
 
+    private static final boolean AGGREGATION_ENABLED = EnvUtils.getEnv(MetricsConstants.AGGREGATION_ENABLED_PROP,
+            MetricsConstants.AGGREGATION_ENABLED_DEFAULT);
+
     @VisibleForTesting
     private static TelemetryClient telemetryClient = new TelemetryClient();
 
@@ -28,8 +38,58 @@ public class MetricsClient {
      * @param value value
      */
     public static void trackMetric(String metricName, long value) {
-        // enhance with checking env if metric enabled
-        telemetryClient.trackMetric(metricName, value);
+        if (AGGREGATION_ENABLED) {
+            MetricsAggregator.getDefault().record(metricName, value);
+        } else {
+            telemetryClient.trackMetric(metricName, value);
+        }
+    }
+
+    /**
+     * publish a value of a metric, whose percentiles are published in addition to count, sum, min and max. Falls back to
+     * {@link #trackMetric(String, long)} if the aggregation is disabled
+     * @param metricName name of the metric - naming conversion for metric name is "{FunctionName} C_{MetricName}"
+     * @param value value
+     */
+    public static void trackHistogram(String metricName, long value) {
+        if (AGGREGATION_ENABLED) {
+            MetricsAggregator.getDefault().recordHistogram(metricName, value);
+        } else {
+            telemetryClient.trackMetric(metricName, value);
+        }
+    }
+
+    /**
+     * increment a counter, which is published as the sum of the increments per flush interval. Falls back to
+     * {@link #trackMetric(String, long)} if the aggregation is disabled
+     * @param metricName name of the metric - naming conversion for metric name is "{FunctionName} C_{MetricName}"
+     * @param delta increment
+     */
+    public static void incrementCounter(String metricName, long delta) {
+        if (AGGREGATION_ENABLED) {
+            MetricsAggregator.getDefault().increment(metricName, delta);
+        } else {
+            telemetryClient.trackMetric(metricName, delta);
+        }
+    }
+
+    /**
+     * set the value of a gauge, whose last value is published per flush interval. Falls back to {@link #trackMetric(String, long)} if the
+     * aggregation is disabled
+     * @param metricName name of the metric - naming conversion for metric name is "{FunctionName} C_{MetricName}"
+     * @param value current value
+     */
+    public static void trackGauge(String metricName, long value) {
+        if (AGGREGATION_ENABLED) {
+            MetricsAggregator.getDefault().gauge(metricName, value);
+        } else {
+            telemetryClient.trackMetric(metricName, value);
+        }
+    }
+
+    // publisher of the default aggregator, sending the aggregate as a single pre-aggregated metric telemetry
+    static void publish(String metricName, Map<String, String> dimensions, long sum, int count, long min, long max) {
+        telemetryClient.trackMetric(metricName, sum, count, (double) min, (double) max, null, dimensions);
     }
 
     /**
@@ -38,7 +98,8 @@ public class MetricsClient {
      * @return formatted metric name
      */
     public static String getMetricName(String metricName) {
-        return String.format("%s C_%s", InvocationContext.getContext().getFunctionName(), metricName);
+        // called for every recorded value, hence concatenated without format parsing
+        return InvocationContext.getContext().getFunctionName() + " C_" + metricName;
     }
 
     /**
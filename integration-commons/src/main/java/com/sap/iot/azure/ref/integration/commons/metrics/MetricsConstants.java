@@ -0,0 +1,16 @@
+package com.sap.iot.azure.ref.integration.commons.metrics;
+
+public class MetricsConstants {
+
+    private MetricsConstants() {
+    }
+
+    // aggregation
+    public static final String AGGREGATION_ENABLED_PROP = "metrics-aggregation-enabled";
+    public static final boolean AGGREGATION_ENABLED_DEFAULT = true;
+    public static final String FLUSH_INTERVAL_SECONDS_PROP = "metrics-flush-interval-seconds";
+    public static final int FLUSH_INTERVAL_SECONDS_DEFAULT = 60;
+
+    // percentiles of histograms are published as "{MetricName}P{Percentile}"
+    public static final String PERCENTILE_SUFFIX = "P";
+}
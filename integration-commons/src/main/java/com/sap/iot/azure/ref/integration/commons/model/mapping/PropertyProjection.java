@@ -0,0 +1,211 @@
+package com.sap.iot.azure.ref.integration.commons.model.mapping;
+
+import com.sap.iot.azure.ref.integration.commons.constants.CommonConstants;
+import com.sap.iot.azure.ref.integration.commons.model.mapping.cache.PropertyMapping;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Compiled form of the {@link PropertyMapping}s of a {@link SensorMappingInfo}, which projects the capability properties of a device
+ * measure onto the structure properties.
+ * <p>
+ * The plan holds the capability property IDs and the structure property IDs as arrays, where the structure property at index {@code i} is
+ * read from the capability property at index {@code i}. Index 0 is reserved for the {@link CommonConstants#TIMESTAMP_PROPERTY_KEY}.
+ * Projected measures are backed by an array of values and share the key index of the plan, so that no map has to be built per measure.
+ */
+public class PropertyProjection {
+
+    private static final int TIMESTAMP_INDEX = 0;
+    private static final Object ABSENT = new Object();
+
+    private final String[] capabilityPropertyIds;
+    private final String[] structurePropertyIds;
+    private final Map<String, Integer> structurePropertyIndex;
+
+    private PropertyProjection(String[] capabilityPropertyIds, String[] structurePropertyIds, Map<String, Integer> structurePropertyIndex) {
+        this.capabilityPropertyIds = capabilityPropertyIds;
+        this.structurePropertyIds = structurePropertyIds;
+        this.structurePropertyIndex = structurePropertyIndex;
+    }
+
+    /**
+     * Compiles the projection plan of the given property mappings.
+     *
+     * @param propertyMappings property mappings, may be null
+     * @return {@link PropertyProjection}
+     */
+    public static PropertyProjection compile(List<PropertyMapping> propertyMappings) {
+        int mappingCount = propertyMappings == null ? 0 : propertyMappings.size();
+        String[] capabilityPropertyIds = new String[mappingCount + 1];
+        String[] structurePropertyIds = new String[mappingCount + 1];
+        Map<String, Integer> structurePropertyIndex = new HashMap<>();
+
+        structurePropertyIds[TIMESTAMP_INDEX] = CommonConstants.TIMESTAMP_PROPERTY_KEY;
+        structurePropertyIndex.put(CommonConstants.TIMESTAMP_PROPERTY_KEY, TIMESTAMP_INDEX);
+
+        for (int i = 1; i <= mappingCount; i++) {
+            PropertyMapping propertyMapping = propertyMappings.get(i - 1);
+            capabilityPropertyIds[i] = propertyMapping.getCapabilityPropertyId();
+            structurePropertyIds[i] = propertyMapping.getStructurePropertyId();
+            structurePropertyIndex.put(propertyMapping.getStructurePropertyId(), i);
+        }
+
+        return new PropertyProjection(capabilityPropertyIds, structurePropertyIds, structurePropertyIndex);
+    }
+
+    /**
+     * Returns whether this plan has been compiled from the given property mappings, i.e., whether it can be reused for them.
+     *
+     * @param propertyMappings property mappings, may be null
+     * @return true if the plan projects the same capability properties onto the same structure properties, in the same order
+     */
+    public boolean isCompiledFrom(List<PropertyMapping> propertyMappings) {
+        int mappingCount = propertyMappings == null ? 0 : propertyMappings.size();
+        if (mappingCount + 1 != structurePropertyIds.length) {
+            return false;
+        }
+
+        for (int i = 1; i <= mappingCount; i++) {
+            PropertyMapping propertyMapping = propertyMappings.get(i - 1);
+            if (!Objects.equals(capabilityPropertyIds[i], propertyMapping.getCapabilityPropertyId())
+                    || !Objects.equals(structurePropertyIds[i], propertyMapping.getStructurePropertyId())) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Projects the capability properties of a device measure onto the structure properties. Capability properties without a property
+     * mapping are dropped, and structure properties without a capability property in the measure are omitted.
+     *
+     * @param timestamp  measure timestamp in epoch millis
+     * @param properties capability properties of the measure
+     * @return unmodifiable measure with the timestamp and the structure properties
+     */
+    public Map<String, Object> project(long timestamp, Map<String, Object> properties) {
+        Object[] values = new Object[structurePropertyIds.length];
+        values[TIMESTAMP_INDEX] = timestamp;
+        int size = 1;
+
+        for (int i = 1; i < values.length; i++) {
+            Object value = properties.get(capabilityPropertyIds[i]);
+            if (value == null && !properties.containsKey(capabilityPropertyIds[i])) {
+                values[i] = ABSENT;
+            } else {
+                values[i] = value;
+                size++;
+            }
+        }
+
+        if (structurePropertyIndex.size() < values.length) {
+            size = mergeDuplicates(values, size);
+        }
+
+        return new ProjectedMeasure(values, size);
+    }
+
+    private int mergeDuplicates(Object[] values, int size) {
+        // a structure property mapped more than once keeps the value of its last present slot, in the slot referenced by the index
+        for (int i = values.length - 1; i >= 0; i--) {
+            int index = structurePropertyIndex.get(structurePropertyIds[i]);
+            if (index != i && values[i] != ABSENT) {
+                if (values[index] == ABSENT) {
+                    values[index] = values[i];
+                } else {
+                    size--;
+                }
+                values[i] = ABSENT;
+            }
+        }
+
+        return size;
+    }
+
+    private final class ProjectedMeasure extends AbstractMap<String, Object> {
+
+        private final Object[] values;
+        private final int size;
+        private Set<Entry<String, Object>> entrySet;
+
+        private ProjectedMeasure(Object[] values, int size) {
+            this.values = values;
+            this.size = size;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            Integer index = structurePropertyIndex.get(key);
+            return index != null && values[index] != ABSENT;
+        }
+
+        @Override
+        public Object get(Object key) {
+            Integer index = structurePropertyIndex.get(key);
+            return index == null || values[index] == ABSENT ? null : values[index];
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            if (entrySet == null) {
+                entrySet = new AbstractSet<Entry<String, Object>>() {
+                    @Override
+                    public Iterator<Entry<String, Object>> iterator() {
+                        return new EntryIterator();
+                    }
+
+                    @Override
+                    public int size() {
+                        return size;
+                    }
+                };
+            }
+
+            return entrySet;
+        }
+
+        private final class EntryIterator implements Iterator<Entry<String, Object>> {
+
+            private int next = advance(0);
+
+            private int advance(int from) {
+                int index = from;
+                while (index < values.length && values[index] == ABSENT) {
+                    index++;
+                }
+
+                return index;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next < values.length;
+            }
+
+            @Override
+            public Entry<String, Object> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                Entry<String, Object> entry = new SimpleImmutableEntry<>(structurePropertyIds[next], values[next]);
+                next = advance(next + 1);
+                return entry;
+            }
+        }
+    }
+}
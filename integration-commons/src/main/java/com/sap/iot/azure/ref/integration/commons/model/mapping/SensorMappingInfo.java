@@ -2,10 +2,15 @@ package com.sap.iot.azure.ref.integration.commons.model.mapping;
 
 import com.sap.iot.azure.ref.integration.commons.model.mapping.cache.PropertyMapping;
 import com.sap.iot.azure.ref.integration.commons.model.mapping.cache.Tag;
+import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
 
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Data
 @Builder
@@ -16,4 +21,36 @@ public class SensorMappingInfo {
     private List<Tag> tags;
     private List<PropertyMapping> propertyMappings;
     private String schemaInfo;
+
+    @Getter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final AtomicReference<PropertyProjection> propertyProjection = new AtomicReference<>();
+
+    /**
+     * Returns the compiled property mappings. The plan is compiled on first use and kept with this mapping, the property mappings must not
+     * be replaced afterwards.
+     *
+     * @return {@link PropertyProjection}
+     */
+    public PropertyProjection getPropertyProjection() {
+        PropertyProjection compiled = propertyProjection.get();
+        if (compiled == null) {
+            // concurrent callers may compile the same plan, only the first one is kept
+            propertyProjection.compareAndSet(null, PropertyProjection.compile(propertyMappings));
+            compiled = propertyProjection.get();
+        }
+
+        return compiled;
+    }
+
+    /**
+     * Keeps the given plan with this mapping, if no plan has been compiled yet. The plan must have been compiled from the property mappings
+     * of this mapping, e.g., for reusing the plan of a previously resolved mapping with the same property mappings.
+     *
+     * @param compiled compiled property mappings
+     */
+    public void setPropertyProjection(PropertyProjection compiled) {
+        propertyProjection.compareAndSet(null, compiled);
+    }
 }
@@ -0,0 +1,30 @@
+package com.sap.iot.azure.ref.integration.commons.model.mapping.cache;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Composite cache entry with the resolved mapping of a sensor and virtual capability, ready to be used for mapping measures.
+ * The AVRO schema is referenced through the structure ID and looked up separately, as it is shared by all sensors of a structure.
+ * The mapping ID and the generations of the sensor and the mapping the entry was resolved from are kept for validating copies of the
+ * entry outside the cache.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class SensorMappingEntry {
+    private String sourceId;
+    private String structureId;
+    private List<Tag> tags;
+    private List<PropertyMapping> propertyMappings;
+    private String mappingId;
+    private long sensorGeneration;
+    private long mappingGeneration;
+}
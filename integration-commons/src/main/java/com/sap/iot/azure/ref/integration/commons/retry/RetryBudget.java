@@ -0,0 +1,63 @@
+package com.sap.iot.azure.ref.integration.commons.retry;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket limiting the retries to a share of the calls, so that retries cannot multiply the load on a failing dependency.
+ * <p>
+ * Every call deposits the configured percentage of a token, every retry withdraws a whole token. The bucket holds at most the configured
+ * burst of tokens and starts full, so that occasional failures can always be retried, while a sustained failure rate is retried for at most
+ * the configured percentage of the calls. The budget is lock-free and meant to be shared by all {@link RetryTaskExecutor}s of the instance.
+ */
+public class RetryBudget {
+
+    // tokens are counted in thousandths, so that fractional deposits don't need floating point arithmetic
+    private static final long TOKEN = 1000;
+
+    private final long depositPerCall;
+    private final long capacity;
+    private final AtomicLong balance;
+
+    public RetryBudget(int budgetPercent, int budgetBurst) {
+        this.depositPerCall = TOKEN * Math.max(0, budgetPercent) / 100;
+        this.capacity = TOKEN * Math.max(0, budgetBurst);
+        this.balance = new AtomicLong(capacity);
+    }
+
+    /**
+     * Deposits the share of a token of a call.
+     */
+    public void onCall() {
+        long current;
+        do {
+            current = balance.get();
+            if (current >= capacity) {
+                return;
+            }
+        } while (!balance.compareAndSet(current, Math.min(capacity, current + depositPerCall)));
+    }
+
+    /**
+     * Withdraws a token for a retry.
+     *
+     * @return true if the retry is within the budget
+     */
+    public boolean tryRetry() {
+        long current;
+        do {
+            current = balance.get();
+            if (current < TOKEN) {
+                return false;
+            }
+        } while (!balance.compareAndSet(current, current - TOKEN));
+
+        return true;
+    }
+
+    @VisibleForTesting
+    double getBalance() {
+        return (double) balance.get() / TOKEN;
+    }
+}
@@ -0,0 +1,35 @@
+package com.sap.iot.azure.ref.integration.commons.retry;
+
+import com.sap.iot.azure.ref.integration.commons.util.EnvUtils;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Jitter, deadline and retry budget of a {@link RetryTaskExecutor}.
+ */
+@Value
+@Builder
+public class RetryConfig {
+    @Builder.Default
+    RetryJitter jitter = RetryJitter.fromName(RetryConstants.JITTER_DEFAULT);
+    @Builder.Default
+    int deadlineSeconds = RetryConstants.DEADLINE_SECONDS_DEFAULT;
+    @Builder.Default
+    int budgetPercent = RetryConstants.BUDGET_PERCENT_DEFAULT;
+    @Builder.Default
+    int budgetBurst = RetryConstants.BUDGET_BURST_DEFAULT;
+
+    /**
+     * Returns the retry configuration set in the environment, falling back to the defaults for unset values.
+     *
+     * @return {@link RetryConfig}
+     */
+    public static RetryConfig fromEnv() {
+        return RetryConfig.builder()
+                .jitter(RetryJitter.fromName(EnvUtils.getEnv(RetryConstants.JITTER_PROP, RetryConstants.JITTER_DEFAULT)))
+                .deadlineSeconds(EnvUtils.getEnv(RetryConstants.DEADLINE_SECONDS_PROP, RetryConstants.DEADLINE_SECONDS_DEFAULT))
+                .budgetPercent(EnvUtils.getEnv(RetryConstants.BUDGET_PERCENT_PROP, RetryConstants.BUDGET_PERCENT_DEFAULT))
+                .budgetBurst(EnvUtils.getEnv(RetryConstants.BUDGET_BURST_PROP, RetryConstants.BUDGET_BURST_DEFAULT))
+                .build();
+    }
+}
@@ -0,0 +1,25 @@
+package com.sap.iot.azure.ref.integration.commons.retry;
+
+public class RetryConstants {
+
+    private RetryConstants() {
+    }
+
+    // configuration
+    public static final String JITTER_PROP = "retry-jitter";
+    public static final String JITTER_DEFAULT = "full";
+    public static final String DEADLINE_SECONDS_PROP = "retry-deadline-seconds";
+    // counted from the start of the invocation; below the default function timeout of 5 minutes, so that the last attempt can complete
+    // before the invocation is cancelled
+    public static final int DEADLINE_SECONDS_DEFAULT = 240;
+    public static final String BUDGET_PERCENT_PROP = "retry-budget-percent";
+    public static final int BUDGET_PERCENT_DEFAULT = 20;
+    public static final String BUDGET_BURST_PROP = "retry-budget-burst";
+    public static final int BUDGET_BURST_DEFAULT = 20;
+    public static final String SCHEDULER_THREADS_PROP = "retry-scheduler-threads";
+    public static final int SCHEDULER_THREADS_DEFAULT = 1;
+
+    // metrics
+    public static final String BUDGET_EXHAUSTED_METRIC = "RetryBudgetExhausted";
+    public static final String DEADLINE_EXCEEDED_METRIC = "RetryDeadlineExceeded";
+}
@@ -0,0 +1,68 @@
+package com.sap.iot.azure.ref.integration.commons.retry;
+
+import java.util.Random;
+
+/**
+ * Randomization of the exponential backoff between retries, which spreads the retries of concurrently failing calls (e.g., of all instances
+ * after an outage of a shared dependency) over time instead of retrying them in lockstep.
+ */
+public enum RetryJitter {
+
+    /**
+     * Retries exactly after the exponential backoff.
+     */
+    NONE {
+        @Override
+        long nextDelayMillis(long backoffMillis, long previousDelayMillis, Random random) {
+            return backoffMillis;
+        }
+    },
+
+    /**
+     * Retries after a random delay between zero and the exponential backoff.
+     */
+    FULL {
+        @Override
+        long nextDelayMillis(long backoffMillis, long previousDelayMillis, Random random) {
+            return randomBetween(0, backoffMillis, random);
+        }
+    },
+
+    /**
+     * Retries after a random delay between the base delay and three times the previous delay, bounded by the exponential backoff.
+     */
+    DECORRELATED {
+        @Override
+        long nextDelayMillis(long backoffMillis, long previousDelayMillis, Random random) {
+            long base = Math.min(BASE_DELAY_MILLIS, backoffMillis);
+            return Math.min(backoffMillis, randomBetween(base, Math.max(base, previousDelayMillis * 3), random));
+        }
+    };
+
+    private static final long BASE_DELAY_MILLIS = 1000;
+
+    /**
+     * Calculates the delay before the next retry.
+     *
+     * @param backoffMillis       exponential backoff of the retry, upper bound of the delay
+     * @param previousDelayMillis delay before the previous retry, 0 for the first retry
+     * @param random              source of randomness
+     * @return delay in milliseconds
+     */
+    abstract long nextDelayMillis(long backoffMillis, long previousDelayMillis, Random random);
+
+    /**
+     * Returns the jitter with the given name, ignoring the case.
+     *
+     * @param name name of the jitter, e.g., "full"
+     * @return {@link RetryJitter}
+     * @throws IllegalArgumentException if there is no jitter with the given name
+     */
+    public static RetryJitter fromName(String name) {
+        return valueOf(name.toUpperCase());
+    }
+
+    private static long randomBetween(long from, long to, Random random) {
+        return to <= from ? from : from + (long) (random.nextDouble() * (to - from + 1));
+    }
+}
@@ -1,75 +1,243 @@
 package com.sap.iot.azure.ref.integration.commons.retry;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.microsoft.azure.eventhubs.EventHubException;
+import com.microsoft.azure.functions.ExecutionContext;
+import com.sap.iot.azure.ref.integration.commons.context.ContextSnapshot;
 import com.sap.iot.azure.ref.integration.commons.context.InvocationContext;
+import com.sap.iot.azure.ref.integration.commons.eventhub.CoalescingEventHubSender;
 import com.sap.iot.azure.ref.integration.commons.exception.base.IoTRuntimeException;
+import com.sap.iot.azure.ref.integration.commons.executor.StageExecutors;
+import com.sap.iot.azure.ref.integration.commons.metrics.MetricsClient;
+import com.sap.iot.azure.ref.integration.commons.util.EnvUtils;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 
-import java.util.concurrent.*;
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
 import java.util.logging.Level;
 
+/**
+ * Executes asynchronous tasks with retries on transient failures.
+ * <p>
+ * Retries are chained on the futures of the attempts without blocking a thread while waiting for an attempt or for the backoff. The backoff
+ * grows exponentially, starting with two seconds, and is randomized with the configured {@link RetryJitter}. A retry is only scheduled if it
+ * starts before the deadline of the call, by default the configured deadline ({@link RetryConstants#DEADLINE_SECONDS_DEFAULT}) counted from
+ * the start of the invocation, so that the retries stay within the function timeout, and if the {@link RetryBudget} shared by all executors
+ * of the instance permits it. Permanent failures (see {@link #isTransient(Throwable)})
+ * are not retried.
+ */
 public class RetryTaskExecutor {
-    private static ScheduledExecutorService scheduledExecutor = Executors.newScheduledThreadPool(8);
+
+    private final RetryConfig config;
+    private final RetryBudget budget;
+    private final ScheduledExecutorService scheduler;
+    private final Executor executor;
+    private final LongSupplier nanoClock;
+
+    public RetryTaskExecutor() {
+        // the scheduler threads must not run the retries themselves if the io stage is saturated
+        this(DefaultRetryPolicy.CONFIG, DefaultRetryPolicy.BUDGET, SharedScheduler.INSTANCE, StageExecutors.io().withAbortPolicy(), System::nanoTime);
+    }
+
+    @VisibleForTesting
+    RetryTaskExecutor(RetryConfig config, RetryBudget budget, ScheduledExecutorService scheduler, Executor executor, LongSupplier nanoClock) {
+        this.config = config;
+        this.budget = budget;
+        this.scheduler = scheduler;
+        this.executor = executor;
+        this.nanoClock = nanoClock;
+    }
 
     /**
-     * Execute a provided {@link Callable} with a configurable number of retries.
-     * The provided {@link Callable} returns a {@link CompletableFuture}.
-     * If the {@link CompletableFuture} completes exceptionally, a retry will be scheduled with a delay and exponentially back off.
-     * The delay starts with one second and doubles for every further retry.
-     * If the execution fails for more times than the given retries, the returned {@link CompletableFuture} completes exceptionally
+     * Execute a provided {@link Callable} with a configurable number of tries within the remaining time of the configured deadline, which
+     * is counted from the start of the current invocation (see {@link InvocationContext#getInvocationElapsedNanos()}), or from now if called
+     * outside of an invocation.
      *
      * @param callable,   will be executed. Has to return {@link CompletableFuture}.
-     * @param maxRetries, number of retries in case of exceptional completion of {@link CompletableFuture}
+     * @param maxRetries, max number of executions in case of exceptional completion of {@link CompletableFuture}
      * @return {@link CompletableFuture}
+     * @see #executeWithRetry(Callable, int, Duration)
      */
     public <T> CompletableFuture<T> executeWithRetry(Callable<CompletableFuture<T>> callable, int maxRetries) {
-        CompletableFuture<T> future = new CompletableFuture<>();
-
-        try {
-            future = callable.call();
-
-            for (int i = 1; i < maxRetries; i++) {
-                final int currDelay = getNextDelay(i);
-                final int retryCount = i;
-
-                future = future.exceptionally(cause -> {
-                    CompletableFuture<T> resCF = new CompletableFuture<>();
-
-                    int iotRunTimeExIndex = ExceptionUtils.indexOfType(cause, IoTRuntimeException.class);
-                    if (iotRunTimeExIndex >= 0) {
-                        // if the cause or the most recent exception in the stack is marked as permanent, no more retries will be executed
-                        IoTRuntimeException iotRuntimeException = (IoTRuntimeException) ExceptionUtils.getThrowableList(cause).get(iotRunTimeExIndex);
-                        if (!iotRuntimeException.isTransient()) {
-                            InvocationContext.getLogger().log(Level.WARNING, String.format("Permanent Error %s occurred in retry task; shall not retried further",
-                                    iotRuntimeException.getErrorType()));
-                            throw iotRuntimeException; // not scheduled any further for next retries
-                        }
-                    }
-
-                    scheduledExecutor.schedule(InvocationContext.withContext((Callable<Boolean>) () -> {
-                        try {
-                            InvocationContext.getLogger().log(Level.WARNING, String.format("Running new attempt: %s", retryCount));
-                            callable.call().get();
-
-                            return resCF.complete(null);
-                        } catch (Exception ex) {
-                            InvocationContext.getLogger().log(Level.WARNING, String.format("Transient error - will retry after %s seconds", currDelay), ex);
-                            return resCF.completeExceptionally(ex);
-                        }
-                    }), currDelay, TimeUnit.SECONDS);
-
-                    return resCF.join();
-                });
-            }
-        } catch (Exception ex) {
-            future.completeExceptionally(ex);
-        }
+        Duration remaining = Duration.ofSeconds(config.getDeadlineSeconds()).minusNanos(InvocationContext.getInvocationElapsedNanos());
+        return executeWithRetry(callable, maxRetries, remaining.isNegative() ? Duration.ZERO : remaining);
+    }
+
+    /**
+     * Execute a provided {@link Callable} with a configurable number of tries.
+     * The provided {@link Callable} returns a {@link CompletableFuture}. It is called on the calling thread first; retries are called on the
+     * {@link StageExecutors#io() io stage} with the {@link InvocationContext} of the calling thread.
+     * If the {@link CompletableFuture} completes exceptionally with a transient failure, a retry is scheduled after a randomized exponential
+     * backoff, unless the retry would start after the deadline or the retry budget is exhausted.
+     * If the execution fails permanently or for the last time, the returned {@link CompletableFuture} completes exceptionally with the failure
+     * of the last execution. If a retry is due while the io stage is saturated, it completes exceptionally with the transient rejection.
+     *
+     * @param callable,   will be executed. Has to return {@link CompletableFuture}.
+     * @param maxRetries, max number of executions in case of exceptional completion of {@link CompletableFuture}
+     * @param deadline,   duration from now, after which no further retry is started
+     * @return {@link CompletableFuture}
+     */
+    public <T> CompletableFuture<T> executeWithRetry(Callable<CompletableFuture<T>> callable, int maxRetries, Duration deadline) {
+        budget.onCall();
 
-        return future;
+        RetryingCall<T> retryingCall = new RetryingCall<>(callable, maxRetries, nanoClock.getAsLong() + deadline.toNanos());
+        retryingCall.attempt(1, 0);
+
+        return retryingCall.result;
     }
 
+    /**
+     * Upper bound of the backoff before the given retry in seconds.
+     *
+     * @param counter retry counter, starting with 1
+     * @return backoff in seconds
+     */
     @VisibleForTesting
     int getNextDelay(int counter) {
         return (int) Math.pow(2, counter);
     }
-}
\ No newline at end of file
+
+    /**
+     * Checks whether the given failure is transient, i.e. the task can be retried. If the failure or one of its causes is an
+     * {@link IoTRuntimeException}, the most recent one in the stack decides, otherwise an {@link EventHubException} in the stack decides.
+     * Any other failure is considered transient.
+     *
+     * @param cause failure of a task
+     * @return true if the task can be retried
+     */
+    public static boolean isTransient(Throwable cause) {
+        int iotRunTimeExIndex = ExceptionUtils.indexOfType(cause, IoTRuntimeException.class);
+        if (iotRunTimeExIndex >= 0) {
+            return ((IoTRuntimeException) ExceptionUtils.getThrowableList(cause).get(iotRunTimeExIndex)).isTransient();
+        }
+
+        int eventHubExIndex = ExceptionUtils.indexOfType(cause, EventHubException.class);
+        if (eventHubExIndex >= 0) {
+            return CoalescingEventHubSender.isTransient(ExceptionUtils.getThrowableList(cause).get(eventHubExIndex));
+        }
+
+        return true;
+    }
+
+    private final class RetryingCall<T> {
+        private final Callable<CompletableFuture<T>> callable;
+        private final int maxRetries;
+        private final long deadlineNanos;
+        private final ContextSnapshot snapshot;
+        private final ExecutionContext context;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        private RetryingCall(Callable<CompletableFuture<T>> callable, int maxRetries, long deadlineNanos) {
+            this.callable = callable;
+            this.maxRetries = maxRetries;
+            this.deadlineNanos = deadlineNanos;
+            this.snapshot = ContextSnapshot.capture();
+            this.context = snapshot.getContext();
+        }
+
+        private void attempt(int attempt, long previousDelayMillis) {
+            CompletableFuture<T> future;
+            try {
+                future = callable.call();
+            } catch (Exception ex) {
+                future = new CompletableFuture<>();
+                future.completeExceptionally(ex);
+            }
+
+            future.whenComplete((value, ex) -> {
+                if (ex == null) {
+                    result.complete(value);
+                } else {
+                    onFailure(unwrap(ex), attempt, previousDelayMillis);
+                }
+            });
+        }
+
+        private void onFailure(Throwable cause, int attempt, long previousDelayMillis) {
+            if (!isTransient(cause)) {
+                context.getLogger().log(Level.WARNING, String.format("Permanent Error %s occurred in retry task; shall not retried further",
+                        cause.getMessage()));
+                result.completeExceptionally(cause);
+                return;
+            }
+
+            if (attempt >= maxRetries) {
+                result.completeExceptionally(cause);
+                return;
+            }
+
+            long delayMillis = config.getJitter().nextDelayMillis(TimeUnit.SECONDS.toMillis(getNextDelay(attempt)), previousDelayMillis,
+                    ThreadLocalRandom.current());
+            if (nanoClock.getAsLong() + TimeUnit.MILLISECONDS.toNanos(delayMillis) - deadlineNanos > 0) {
+                context.getLogger().log(Level.WARNING, String.format("Transient error - retry after %s ms would exceed the deadline", delayMillis), cause);
+                MetricsClient.incrementCounter(MetricsClient.getMetricName(RetryConstants.DEADLINE_EXCEEDED_METRIC), 1);
+                result.completeExceptionally(cause);
+                return;
+            }
+
+            if (!budget.tryRetry()) {
+                context.getLogger().log(Level.WARNING, "Transient error - retry budget exhausted", cause);
+                MetricsClient.incrementCounter(MetricsClient.getMetricName(RetryConstants.BUDGET_EXHAUSTED_METRIC), 1);
+                result.completeExceptionally(cause);
+                return;
+            }
+
+            context.getLogger().log(Level.WARNING, String.format("Transient error - will retry after %s ms", delayMillis), cause);
+            try {
+                scheduler.schedule(() -> dispatch(attempt, delayMillis, cause), delayMillis, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException ex) {
+                onDispatchFailure(ex, cause);
+            }
+        }
+
+        // runs on the scheduler thread, hence the retry is handed over to the executor and a rejection fails the call
+        private void dispatch(int attempt, long delayMillis, Throwable cause) {
+            try {
+                executor.execute(() -> snapshot.run(() -> {
+                    context.getLogger().log(Level.WARNING, String.format("Running new attempt: %s", attempt));
+                    attempt(attempt + 1, delayMillis);
+                }));
+            } catch (RejectedExecutionException | IoTRuntimeException ex) {
+                onDispatchFailure(ex, cause);
+            }
+        }
+
+        private void onDispatchFailure(RuntimeException ex, Throwable cause) {
+            context.getLogger().log(Level.WARNING, "Transient error - retry could not be started", ex);
+            ex.addSuppressed(cause);
+            result.completeExceptionally(ex);
+        }
+    }
+
+    private static Throwable unwrap(Throwable ex) {
+        Throwable cause = ex;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    // process-wide retry policy, so that all executors draw from the same retry budget
+    private static final class DefaultRetryPolicy {
+        private static final RetryConfig CONFIG = RetryConfig.fromEnv();
+        private static final RetryBudget BUDGET = new RetryBudget(CONFIG.getBudgetPercent(), CONFIG.getBudgetBurst());
+    }
+
+    // the scheduler only hands the due retries over to the io stage, so that a few threads serve all retries of the instance
+    private static final class SharedScheduler {
+        private static final ScheduledExecutorService INSTANCE = Executors.newScheduledThreadPool(
+                EnvUtils.getEnv(RetryConstants.SCHEDULER_THREADS_PROP, RetryConstants.SCHEDULER_THREADS_DEFAULT),
+                new ThreadFactoryBuilder().setNameFormat("retry-scheduler-%d").setDaemon(true).build());
+    }
+}
@@ -0,0 +1,57 @@
+package com.sap.iot.azure.ref.integration.commons.cache;
+
+import com.sap.iot.azure.ref.integration.commons.cache.api.CacheRepository;
+import com.sap.iot.azure.ref.integration.commons.exception.CommonErrorType;
+import com.sap.iot.azure.ref.integration.commons.exception.IdentifierUtil;
+import com.sap.iot.azure.ref.integration.commons.exception.base.IoTRuntimeException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BlockingAsyncCacheRepositoryTest {
+
+    private static final byte[] KEY = "key".getBytes();
+
+    @Mock
+    private CacheRepository cacheRepository;
+    @InjectMocks
+    private BlockingAsyncCacheRepository blockingAsyncCacheRepository;
+
+    @Test
+    public void testGet() {
+        doReturn(Optional.of("value")).when(cacheRepository).get(KEY, String.class);
+
+        CompletableFuture<Optional<String>> value = blockingAsyncCacheRepository.get(KEY, String.class);
+
+        // completed on the calling thread
+        assertTrue(value.isDone());
+        assertEquals(Optional.of("value"), value.join());
+    }
+
+    @Test
+    public void testFailure() throws InterruptedException {
+        IoTRuntimeException exception = IoTRuntimeException.wrapTransient(IdentifierUtil.empty(), CommonErrorType.CACHE_ACCESS_ERROR, "unavailable");
+        doThrow(exception).when(cacheRepository).delete(KEY);
+
+        try {
+            blockingAsyncCacheRepository.delete(KEY).get();
+            fail("Expected the cache access to fail");
+        } catch (ExecutionException e) {
+            assertSame(exception, e.getCause());
+        }
+    }
+}
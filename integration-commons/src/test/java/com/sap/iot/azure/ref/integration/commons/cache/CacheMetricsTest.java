@@ -0,0 +1,71 @@
+package com.sap.iot.azure.ref.integration.commons.cache;
+
+import com.sap.iot.azure.ref.integration.commons.metrics.MetricsAggregator;
+import com.sap.iot.azure.ref.integration.commons.metrics.MetricsClient;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CacheMetricsTest {
+
+    private final Map<String, long[]> published = new HashMap<>();
+    private MetricsAggregator aggregator;
+    private CacheMetrics cacheMetrics;
+
+    @Before
+    public void setup() {
+        aggregator = new MetricsAggregator((name, dimensions, sum, count, min, max) -> published.put(name, new long[]{sum, count, min, max}));
+        cacheMetrics = new CacheMetrics(aggregator);
+    }
+
+    @Test
+    public void testPublishPerFamily() {
+        for (int i = 0; i < 98; i++) {
+            cacheMetrics.recordLookup(CacheKeyFamily.SENSOR_INFO, true, TimeUnit.MICROSECONDS.toNanos(80));
+        }
+        cacheMetrics.recordLookup(CacheKeyFamily.SENSOR_INFO, false, TimeUnit.MICROSECONDS.toNanos(700));
+        cacheMetrics.recordError(CacheKeyFamily.SENSOR_INFO, TimeUnit.MILLISECONDS.toNanos(5));
+        cacheMetrics.recordFallback(CacheKeyFamily.SENSOR_INFO);
+        cacheMetrics.recordLookup(CacheKeyFamily.SCHEMA_INFO, true, 0);
+
+        // nothing is published until the aggregator is flushed
+        assertTrue(published.isEmpty());
+        aggregator.flush();
+
+        assertEquals(98, published("SensorInfoCacheHits")[0]);
+        assertEquals(1, published("SensorInfoCacheMisses")[0]);
+        assertEquals(1, published("SensorInfoCacheErrors")[0]);
+        assertEquals(1, published("SensorInfoCacheFallbacks")[0]);
+        assertEquals(100, published("SensorInfoCacheLatencyMicros")[1]);
+        assertEquals(5000, published("SensorInfoCacheLatencyMicros")[3]);
+        // percentiles are the upper bound of the histogram bucket containing the percentile
+        assertEquals(87, published("SensorInfoCacheLatencyMicrosP50")[0]);
+        assertEquals(703, published("SensorInfoCacheLatencyMicrosP99")[0]);
+        assertEquals(1, published("SchemaInfoCacheHits")[0]);
+
+        // families without lookups are skipped
+        assertFalse(published.containsKey(MetricsClient.getMetricName("SensorAssignmentCacheHits")));
+    }
+
+    @Test
+    public void testResetAfterPublish() {
+        cacheMetrics.recordLookup(CacheKeyFamily.PROPERTY_MAPPING_INFO, true, 0);
+        aggregator.flush();
+        published.clear();
+
+        aggregator.flush();
+
+        assertTrue(published.isEmpty());
+    }
+
+    private long[] published(String metricName) {
+        return published.get(MetricsClient.getMetricName(metricName));
+    }
+}
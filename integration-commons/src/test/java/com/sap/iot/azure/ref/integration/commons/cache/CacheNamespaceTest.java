@@ -0,0 +1,162 @@
+package com.sap.iot.azure.ref.integration.commons.cache;
+
+import com.sap.iot.azure.ref.integration.commons.cache.api.CacheRepository;
+import com.sap.iot.azure.ref.integration.commons.context.InvocationContextTestUtil;
+import com.sap.iot.azure.ref.integration.commons.exception.CommonErrorType;
+import com.sap.iot.azure.ref.integration.commons.exception.IdentifierUtil;
+import com.sap.iot.azure.ref.integration.commons.exception.base.IoTRuntimeException;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CacheNamespaceTest {
+
+    private static final long REFRESH_INTERVAL_MILLIS = 1000;
+
+    @Mock
+    private CacheRepository cacheRepository;
+    @Mock
+    private ScheduledExecutorService scheduler;
+
+    private CacheNamespace cacheNamespace;
+
+    @Before
+    public void setup() {
+        InvocationContextTestUtil.initInvocationContext();
+        cacheNamespace = new CacheNamespace(REFRESH_INTERVAL_MILLIS, "", scheduler);
+    }
+
+    @Test
+    public void testVersionWithoutRepository() {
+        assertEquals(0, cacheNamespace.getVersion(CacheKeyFamily.SENSOR_INFO));
+    }
+
+    @Test
+    public void testRefresh() {
+        doReturn(versions(3L, null, null, 1L)).when(cacheRepository).multiGet(anyList(), eq(Long.class));
+        cacheNamespace.attach(cacheRepository);
+        verify(scheduler).scheduleWithFixedDelay(any(Runnable.class), eq(REFRESH_INTERVAL_MILLIS), eq(REFRESH_INTERVAL_MILLIS), eq(TimeUnit.MILLISECONDS));
+
+        assertEquals(3, cacheNamespace.getVersion(CacheKeyFamily.SENSOR_INFO));
+        assertEquals(0, cacheNamespace.getVersion(CacheKeyFamily.PROPERTY_MAPPING_INFO));
+        assertEquals(1, cacheNamespace.getVersion(CacheKeyFamily.SENSOR));
+        assertEquals("SAP_V3_", cacheNamespace.getKeyPrefix(CacheKeyFamily.SENSOR_INFO));
+        assertEquals("SAP_", cacheNamespace.getKeyPrefix(CacheKeyFamily.PROPERTY_MAPPING_INFO));
+
+        // versions are cached locally until the next refresh in the background
+        doReturn(versions(4L, null, null, 1L)).when(cacheRepository).multiGet(anyList(), eq(Long.class));
+        assertEquals(3, cacheNamespace.getVersion(CacheKeyFamily.SENSOR_INFO));
+
+        cacheNamespace.refresh();
+        assertEquals(4, cacheNamespace.getVersion(CacheKeyFamily.SENSOR_INFO));
+        assertEquals("SAP_V4_", cacheNamespace.getKeyPrefix(CacheKeyFamily.SENSOR_INFO));
+        verify(cacheRepository, times(2)).multiGet(anyList(), eq(Long.class));
+    }
+
+    @Test
+    public void testRefreshFailure() {
+        doReturn(versions(3L, null, null, null)).when(cacheRepository).multiGet(anyList(), eq(Long.class));
+        cacheNamespace.attach(cacheRepository);
+        assertEquals(3, cacheNamespace.getVersion(CacheKeyFamily.SENSOR_INFO));
+
+        doThrow(IoTRuntimeException.wrapTransient(IdentifierUtil.empty(), CommonErrorType.CACHE_ACCESS_ERROR, "unavailable"))
+                .when(cacheRepository).multiGet(anyList(), eq(Long.class));
+        cacheNamespace.refresh();
+
+        // last known version is kept
+        assertEquals(3, cacheNamespace.getVersion(CacheKeyFamily.SENSOR_INFO));
+    }
+
+    @Test
+    public void testReset() {
+        CacheNamespace resetNamespace = new CacheNamespace(REFRESH_INTERVAL_MILLIS, "resync-1", scheduler);
+        doReturn(versions(null, null, null, null)).when(cacheRepository).multiGet(anyList(), eq(Long.class));
+        doReturn(Optional.of("resync-0")).when(cacheRepository).get(any(byte[].class), eq(String.class));
+        for (CacheKeyFamily family : CacheKeyFamily.values()) {
+            doReturn(1L).when(cacheRepository).increment(family.getNamespaceVersionKey());
+        }
+
+        resetNamespace.attach(cacheRepository);
+
+        // a new reset token bumps all families once
+        for (CacheKeyFamily family : CacheKeyFamily.values()) {
+            assertEquals(1, resetNamespace.getVersion(family));
+        }
+        verify(cacheRepository).set(any(byte[].class), eq("resync-1"), eq(String.class));
+
+        resetNamespace.refresh();
+        verify(cacheRepository, times(1)).increment(CacheKeyFamily.SENSOR_INFO.getNamespaceVersionKey());
+    }
+
+    @Test
+    public void testResetAlreadyApplied() {
+        CacheNamespace resetNamespace = new CacheNamespace(REFRESH_INTERVAL_MILLIS, "resync-1", scheduler);
+        doReturn(versions(2L, null, null, null)).when(cacheRepository).multiGet(anyList(), eq(Long.class));
+        doReturn(Optional.of("resync-1")).when(cacheRepository).get(any(byte[].class), eq(String.class));
+
+        resetNamespace.attach(cacheRepository);
+
+        assertEquals(2, resetNamespace.getVersion(CacheKeyFamily.SENSOR_INFO));
+        verify(cacheRepository, never()).increment(any());
+    }
+
+    @Test
+    public void testBump() {
+        doReturn(versions(null, null, null, null)).when(cacheRepository).multiGet(anyList(), eq(Long.class));
+        doReturn(1L).when(cacheRepository).increment(CacheKeyFamily.SCHEMA_INFO.getNamespaceVersionKey());
+        cacheNamespace.attach(cacheRepository);
+        assertEquals(0, cacheNamespace.getVersion(CacheKeyFamily.SCHEMA_INFO));
+
+        assertEquals(1, cacheNamespace.bump(CacheKeyFamily.SCHEMA_INFO));
+        assertEquals(1, cacheNamespace.getVersion(CacheKeyFamily.SCHEMA_INFO));
+        assertEquals(0, cacheNamespace.getVersion(CacheKeyFamily.SENSOR_INFO));
+    }
+
+    @Test
+    public void testBumpDerivedFamily() {
+        doReturn(versions(null, null, null, null)).when(cacheRepository).multiGet(anyList(), eq(Long.class));
+        doReturn(1L).when(cacheRepository).increment(CacheKeyFamily.SENSOR.getNamespaceVersionKey());
+        doReturn(2L).when(cacheRepository).increment(CacheKeyFamily.SENSOR_MAPPING_INFO.getNamespaceVersionKey());
+        cacheNamespace.attach(cacheRepository);
+        assertEquals(0, cacheNamespace.getVersion(CacheKeyFamily.SENSOR_MAPPING_INFO));
+
+        cacheNamespace.bump(CacheKeyFamily.SENSOR);
+
+        // composite entries derived from the bumped family become unreachable as well
+        assertEquals(1, cacheNamespace.getVersion(CacheKeyFamily.SENSOR));
+        assertEquals(2, cacheNamespace.getVersion(CacheKeyFamily.SENSOR_MAPPING_INFO));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testBumpWithoutRepository() {
+        cacheNamespace.bump(CacheKeyFamily.SENSOR);
+    }
+
+    private static List<Optional<Long>> versions(Long sensorInfo, Long propertyMappingInfo, Long schemaInfo, Long sensor) {
+        return versions(sensorInfo, propertyMappingInfo, schemaInfo, sensor, null);
+    }
+
+    private static List<Optional<Long>> versions(Long sensorInfo, Long propertyMappingInfo, Long schemaInfo, Long sensor, Long sensorMappingInfo) {
+        return Arrays.asList(Optional.ofNullable(sensorInfo), Optional.ofNullable(propertyMappingInfo), Optional.ofNullable(schemaInfo),
+                Optional.ofNullable(sensor), Optional.ofNullable(sensorMappingInfo));
+    }
+}
@@ -0,0 +1,76 @@
+package com.sap.iot.azure.ref.integration.commons.cache.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sap.iot.azure.ref.integration.commons.model.mapping.cache.PropertyMapping;
+import com.sap.iot.azure.ref.integration.commons.model.mapping.cache.PropertyMappingInfo;
+import com.sap.iot.azure.ref.integration.commons.model.mapping.cache.SchemaWithADXStatus;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BinaryCacheValueCodecTest {
+
+    private static final int COMPRESSION_THRESHOLD = 1024;
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final BinaryCacheValueCodec binaryCodec = new BinaryCacheValueCodec(COMPRESSION_THRESHOLD);
+    private final JsonCacheValueCodec jsonCodec = new JsonCacheValueCodec(COMPRESSION_THRESHOLD);
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        PropertyMappingInfo propertyMappingInfo = getSamplePropertyMappingInfo();
+
+        byte[] encoded = binaryCodec.encode(propertyMappingInfo);
+
+        assertEquals(BinaryCacheValueCodec.FORMAT_VERSION, encoded[0]);
+        assertEquals(0, encoded[1] & BinaryCacheValueCodec.FLAG_LZ4);
+        assertEquals(propertyMappingInfo, binaryCodec.decode(encoded, PropertyMappingInfo.class));
+    }
+
+    @Test
+    public void testCompressionOfLargeValues() throws IOException {
+        SchemaWithADXStatus schema = new SchemaWithADXStatus(StringUtils.repeat("{\"name\":\"property\",\"type\":\"double\"},", 100), true);
+
+        byte[] encoded = binaryCodec.encode(schema);
+
+        assertEquals(BinaryCacheValueCodec.FLAG_LZ4, encoded[1] & BinaryCacheValueCodec.FLAG_LZ4);
+        assertTrue(encoded.length < objectMapper.writeValueAsBytes(schema).length);
+        assertEquals(schema, binaryCodec.decode(encoded, SchemaWithADXStatus.class));
+    }
+
+    @Test
+    public void testLegacyJsonValues() throws IOException {
+        PropertyMappingInfo propertyMappingInfo = getSamplePropertyMappingInfo();
+        byte[] legacyValue = objectMapper.writeValueAsBytes(propertyMappingInfo);
+
+        assertEquals(propertyMappingInfo, binaryCodec.decode(legacyValue, PropertyMappingInfo.class));
+        assertEquals(propertyMappingInfo, jsonCodec.decode(legacyValue, PropertyMappingInfo.class));
+    }
+
+    @Test
+    public void testJsonCodecReadsBinaryValues() throws IOException {
+        PropertyMappingInfo propertyMappingInfo = getSamplePropertyMappingInfo();
+
+        assertEquals(propertyMappingInfo, jsonCodec.decode(binaryCodec.encode(propertyMappingInfo), PropertyMappingInfo.class));
+        assertEquals(propertyMappingInfo, objectMapper.readValue(jsonCodec.encode(propertyMappingInfo), PropertyMappingInfo.class));
+    }
+
+    @Test(expected = IOException.class)
+    public void testInvalidCompressedValue() throws IOException {
+        binaryCodec.decode(new byte[]{BinaryCacheValueCodec.FORMAT_VERSION, BinaryCacheValueCodec.FLAG_LZ4, 0, 0, 0, 100, 1, 2}, PropertyMappingInfo.class);
+    }
+
+    private PropertyMappingInfo getSamplePropertyMappingInfo() {
+        return PropertyMappingInfo.builder()
+                .mappingId("mappingId")
+                .structureId("structureId")
+                .virtualCapabilityId("virtualCapabilityId")
+                .propertyMappings(Collections.singletonList(new PropertyMapping("structurePropertyId", "capabilityPropertyId")))
+                .build();
+    }
+}
@@ -0,0 +1,72 @@
+package com.sap.iot.azure.ref.integration.commons.cache.codec;
+
+import com.sap.iot.azure.ref.integration.commons.model.mapping.cache.PropertyMapping;
+import com.sap.iot.azure.ref.integration.commons.model.mapping.cache.PropertyMappingInfo;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+
+public class PropertyMappingInfoFieldsTest {
+
+    private final PropertyMappingInfo propertyMappingInfo = PropertyMappingInfo.builder()
+            .mappingId("mappingId")
+            .structureId("structureId")
+            .virtualCapabilityId("virtualCapabilityId")
+            .propertyMappings(Arrays.asList(
+                    PropertyMapping.builder().structurePropertyId("a_temperature").capabilityPropertyId("temperature").build(),
+                    PropertyMapping.builder().structurePropertyId("b_pressure").capabilityPropertyId("pressure").build()))
+            .build();
+
+    @Test
+    public void testRoundTrip() {
+        Map<String, String> fields = PropertyMappingInfoFields.toFields(propertyMappingInfo);
+
+        // one field per property mapping, in addition to the IDs
+        assertEquals(5, fields.size());
+        assertEquals(propertyMappingInfo, PropertyMappingInfoFields.fromFields(fields));
+    }
+
+    @Test
+    public void testSinglePropertyMappingUpdate() {
+        Map<String, String> fields = PropertyMappingInfoFields.toFields(propertyMappingInfo);
+        PropertyMapping removed = propertyMappingInfo.getPropertyMappings().get(0);
+        fields.remove(PropertyMappingInfoFields.getField(removed));
+
+        assertEquals(Collections.singletonList(propertyMappingInfo.getPropertyMappings().get(1)),
+                PropertyMappingInfoFields.fromFields(fields).getPropertyMappings());
+    }
+
+    @Test
+    public void testPropertyMappingOrder() {
+        PropertyMapping first = PropertyMapping.builder().structurePropertyId("z_vibration").capabilityPropertyId("vibration").build();
+        PropertyMapping second = PropertyMapping.builder().structurePropertyId("a_temperature").capabilityPropertyId("temperature").build();
+        PropertyMapping appended = PropertyMapping.builder().structurePropertyId("m_speed").capabilityPropertyId("speed").build();
+        Map<String, String> fields = PropertyMappingInfoFields.toFields(PropertyMappingInfo.builder()
+                .mappingId("mappingId")
+                .structureId("structureId")
+                .virtualCapabilityId("virtualCapabilityId")
+                .propertyMappings(Arrays.asList(first, second))
+                .build());
+        fields.putAll(PropertyMappingInfoFields.toAppendedFields(Collections.singletonList(appended)));
+
+        // the order of the property mappings is kept, regardless of the order of the fields
+        assertEquals(Arrays.asList(first, second, appended), PropertyMappingInfoFields.fromFields(new TreeMap<>(fields)).getPropertyMappings());
+    }
+
+    @Test
+    public void testEmptyPropertyMappings() {
+        PropertyMappingInfo emptyPropertyMappingInfo = PropertyMappingInfo.builder()
+                .mappingId("mappingId")
+                .structureId("structureId")
+                .virtualCapabilityId("virtualCapabilityId")
+                .build();
+
+        assertEquals(Collections.emptyList(), PropertyMappingInfoFields.fromFields(PropertyMappingInfoFields.toFields(emptyPropertyMappingInfo))
+                .getPropertyMappings());
+    }
+}
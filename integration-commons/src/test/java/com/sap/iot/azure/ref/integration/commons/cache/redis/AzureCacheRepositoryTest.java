@@ -3,6 +3,7 @@ package com.sap.iot.azure.ref.integration.commons.cache.redis;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.sap.iot.azure.ref.integration.commons.cache.CacheConstants;
+import com.sap.iot.azure.ref.integration.commons.cache.codec.JsonCacheValueCodec;
 import com.sap.iot.azure.ref.integration.commons.exception.base.IoTRuntimeException;
 import org.junit.Assert;
 import org.junit.Before;
@@ -16,11 +17,20 @@ import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
 import redis.clients.jedis.ScanParams;
 import redis.clients.jedis.ScanResult;
+import redis.clients.jedis.exceptions.JedisDataException;
 import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.jedis.exceptions.JedisNoScriptException;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -33,6 +43,8 @@ public class AzureCacheRepositoryTest {
     private JedisPool jedisPool;
     @Mock
     private Jedis jedis;
+    @Mock
+    private Response<List<Object>> transaction;
 
     @Captor
     private ArgumentCaptor<byte[]> keyCaptor;
@@ -102,6 +114,27 @@ public class AzureCacheRepositoryTest {
         assertEquals(new String(objectMapper.writeValueAsString(testPojo).getBytes()), new String(valueCaptor.getValue()));
     }
 
+    @Test
+    public void testSetWithTtl() throws JsonProcessingException {
+        azureCacheRepository = new AzureCacheRepository(jedisPool, new JsonCacheValueCodec(CacheConstants.CACHE_VALUE_COMPRESSION_THRESHOLD_DEFAULT), 60);
+        azureCacheRepository.set(testKeyAsBytes, testPojo, TestPojo.class);
+
+        verify(jedis, times(1)).setex(testKeyAsBytes, 60, objectMapper.writeValueAsBytes(testPojo));
+        verify(jedis, never()).set(any(byte[].class), any(byte[].class));
+    }
+
+    @Test
+    public void testSetVersionedKeyWithNamespaceTtl() throws JsonProcessingException {
+        azureCacheRepository = new AzureCacheRepository(jedisPool, new JsonCacheValueCodec(CacheConstants.CACHE_VALUE_COMPRESSION_THRESHOLD_DEFAULT), 0, 120);
+        byte[] versionedKey = "SAP_V2_SENSOR_test".getBytes();
+        azureCacheRepository.set(versionedKey, testPojo, TestPojo.class);
+        azureCacheRepository.set(testKeyAsBytes, testPojo, TestPojo.class);
+
+        // entries of a bumped namespace expire, unversioned entries keep the entry TTL
+        verify(jedis, times(1)).setex(versionedKey, 120, objectMapper.writeValueAsBytes(testPojo));
+        verify(jedis, times(1)).set(testKeyAsBytes, objectMapper.writeValueAsBytes(testPojo));
+    }
+
     @Test
     public void testSetJedisException() {
         doThrow(JedisException.class).when(jedis).set(any(byte[].class), any(byte[].class));
@@ -126,6 +159,337 @@ public class AzureCacheRepositoryTest {
         azureCacheRepository.delete(testKeyAsBytes);
     }
 
+    @Test
+    public void testMultiGet() throws JsonProcessingException {
+        byte[] missingKey = "missing".getBytes();
+        byte[] invalidKey = "invalid".getBytes();
+        doReturn(Arrays.asList(objectMapper.writeValueAsBytes(testPojo), null, "Invalid".getBytes())).when(jedis)
+                .mget(testKeyAsBytes, missingKey, invalidKey);
+
+        List<Optional<TestPojo>> cacheEntries = azureCacheRepository.multiGet(Arrays.asList(testKeyAsBytes, missingKey, invalidKey), TestPojo.class);
+
+        assertEquals(Arrays.asList(Optional.of(testPojo), Optional.empty(), Optional.empty()), cacheEntries);
+        // invalid entries are deleted
+        verify(jedis, times(1)).del(new byte[][]{invalidKey});
+    }
+
+    @Test
+    public void testMultiGetChunks() {
+        List<byte[]> keys = new ArrayList<>();
+        for (int i = 0; i < CacheConstants.MULTI_KEY_CHUNK_SIZE + 1; i++) {
+            keys.add(("key" + i).getBytes());
+        }
+        doAnswer(invocation -> Arrays.asList(new byte[invocation.getArguments().length][])).when(jedis).mget((byte[][]) any());
+
+        List<Optional<TestPojo>> cacheEntries = azureCacheRepository.multiGet(keys, TestPojo.class);
+
+        assertEquals(keys.size(), cacheEntries.size());
+        verify(jedis, times(2)).mget((byte[][]) any());
+        verify(jedis, times(1)).close();
+    }
+
+    @Test
+    public void testMultiGetJedisException() {
+        doThrow(JedisException.class).when(jedis).mget((byte[][]) any());
+        expectedException.expect(IoTRuntimeException.class);
+        expectedException.expectMessage("Error in reading redis");
+        azureCacheRepository.multiGet(Collections.singletonList(testKeyAsBytes), TestPojo.class);
+    }
+
+    @Test
+    public void testMultiSet() throws JsonProcessingException {
+        Pipeline pipeline = mock(Pipeline.class);
+        doReturn(pipeline).when(jedis).pipelined();
+        byte[] otherKey = "other".getBytes();
+        Map<byte[], TestPojo> entries = new LinkedHashMap<>();
+        entries.put(testKeyAsBytes, testPojo);
+        entries.put(otherKey, testPojo);
+
+        azureCacheRepository.multiSet(entries, TestPojo.class);
+
+        verify(pipeline, times(1)).set(testKeyAsBytes, objectMapper.writeValueAsBytes(testPojo));
+        verify(pipeline, times(1)).set(otherKey, objectMapper.writeValueAsBytes(testPojo));
+        verify(pipeline, times(1)).sync();
+    }
+
+    @Test
+    public void testMultiSetJedisException() {
+        Pipeline pipeline = mock(Pipeline.class);
+        doReturn(pipeline).when(jedis).pipelined();
+        doThrow(JedisException.class).when(pipeline).sync();
+        expectedException.expect(IoTRuntimeException.class);
+        expectedException.expectMessage("Error in setting cache entries");
+        azureCacheRepository.multiSet(Collections.singletonMap(testKeyAsBytes, testPojo), TestPojo.class);
+    }
+
+    @Test
+    public void testMultiDelete() {
+        byte[] otherKey = "other".getBytes();
+        azureCacheRepository.multiDelete(Arrays.asList(testKeyAsBytes, otherKey));
+        verify(jedis, times(1)).del(testKeyAsBytes, otherKey);
+
+        // no round trip for empty key sets
+        azureCacheRepository.multiDelete(Collections.emptyList());
+        verify(jedisPool, times(1)).getResource();
+    }
+
+    @Test
+    public void testMultiDeleteJedisException() {
+        doThrow(JedisException.class).when(jedis).del((byte[][]) any());
+        expectedException.expect(IoTRuntimeException.class);
+        expectedException.expectMessage("Error in deleting cache entries");
+        azureCacheRepository.multiDelete(Collections.singletonList(testKeyAsBytes));
+    }
+
+    @Test
+    public void testSetIndexed() throws JsonProcessingException {
+        Pipeline pipeline = mock(Pipeline.class);
+        doReturn(pipeline).when(jedis).pipelined();
+        byte[] indexKey = "index".getBytes();
+
+        azureCacheRepository.set(testKeyAsBytes, testPojo, TestPojo.class, indexKey);
+
+        verify(pipeline, times(1)).set(testKeyAsBytes, objectMapper.writeValueAsBytes(testPojo));
+        verify(pipeline, times(1)).sadd(indexKey, testKeyAsBytes);
+        verify(pipeline, times(1)).sync();
+    }
+
+    @Test
+    public void testMultiSetIndexed() {
+        Pipeline pipeline = mock(Pipeline.class);
+        doReturn(pipeline).when(jedis).pipelined();
+        byte[] otherKey = "other".getBytes();
+        byte[] indexKey = "index".getBytes();
+        Map<byte[], TestPojo> entries = new LinkedHashMap<>();
+        entries.put(testKeyAsBytes, testPojo);
+        entries.put(otherKey, testPojo);
+
+        azureCacheRepository.multiSet(entries, TestPojo.class, indexKey);
+
+        verify(pipeline, times(1)).sadd(indexKey, testKeyAsBytes, otherKey);
+        verify(pipeline, times(1)).sync();
+    }
+
+    @Test
+    public void testDeleteIndexed() {
+        Pipeline pipeline = mock(Pipeline.class);
+        doReturn(pipeline).when(jedis).pipelined();
+        byte[] indexKey = "index".getBytes();
+        doReturn(Collections.singleton(testKeyAsBytes)).when(jedis).smembers(indexKey);
+
+        assertEquals(true, azureCacheRepository.deleteIndexed(indexKey));
+
+        verify(pipeline, times(1)).del(new byte[][]{testKeyAsBytes});
+        verify(pipeline, times(1)).srem(indexKey, testKeyAsBytes);
+        verify(pipeline, times(1)).sync();
+    }
+
+    @Test
+    public void testDeleteIndexedMissingIndex() {
+        byte[] indexKey = "index".getBytes();
+        doReturn(Collections.emptySet()).when(jedis).smembers(indexKey);
+
+        assertEquals(false, azureCacheRepository.deleteIndexed(indexKey));
+        verify(jedis, never()).pipelined();
+    }
+
+    @Test
+    public void testDeleteIndexedJedisException() {
+        doThrow(JedisException.class).when(jedis).smembers(any(byte[].class));
+        expectedException.expect(IoTRuntimeException.class);
+        expectedException.expectMessage("Error in deleting indexed cache entries");
+        azureCacheRepository.deleteIndexed("index".getBytes());
+    }
+
+    @Test
+    public void testSetIndexedWithTtl() {
+        Pipeline pipeline = mock(Pipeline.class);
+        doReturn(pipeline).when(jedis).pipelined();
+        byte[] indexKey = "index".getBytes();
+        azureCacheRepository = new AzureCacheRepository(jedisPool, new JsonCacheValueCodec(CacheConstants.CACHE_VALUE_COMPRESSION_THRESHOLD_DEFAULT), 60);
+
+        azureCacheRepository.set(testKeyAsBytes, testPojo, TestPojo.class, indexKey);
+
+        verify(pipeline, times(1)).setex(eq(testKeyAsBytes), eq(60), any(byte[].class));
+        verify(pipeline, times(1)).sadd(indexKey, testKeyAsBytes);
+        verify(pipeline, times(1)).expire(indexKey, 60);
+    }
+
+    @Test
+    public void testSetIfUnchanged() {
+        doReturn(1L).when(jedis).evalsha(any(byte[].class), anyList(), anyList());
+        byte[] indexKey = "index".getBytes();
+        byte[] generationKey = "generation".getBytes();
+
+        assertEquals(true, azureCacheRepository.setIfUnchanged(testKeyAsBytes, testPojo, TestPojo.class, Collections.singletonList(indexKey),
+                Collections.singletonMap(generationKey, 3L)));
+
+        // entry, generation and index keys, expected generation before the value and TTLs
+        verify(jedis, times(1)).evalsha(any(byte[].class), argThat(keys -> keys.size() == 3 && Arrays.equals(testKeyAsBytes, keys.get(0))
+                        && Arrays.equals(generationKey, keys.get(1)) && Arrays.equals(indexKey, keys.get(2))),
+                argThat(args -> args.size() == 5 && Arrays.equals("1".getBytes(), args.get(0)) && Arrays.equals("3".getBytes(), args.get(1))));
+    }
+
+    @Test
+    public void testSetIfUnchangedGenerationChanged() {
+        doThrow(new JedisNoScriptException("NOSCRIPT")).when(jedis).evalsha(any(byte[].class), anyList(), anyList());
+        doReturn(0L).when(jedis).eval(any(byte[].class), anyList(), anyList());
+
+        assertEquals(false, azureCacheRepository.setIfUnchanged(testKeyAsBytes, testPojo, TestPojo.class, Collections.emptyList(),
+                Collections.singletonMap("generation".getBytes(), 3L)));
+        verify(jedis, times(1)).eval(any(byte[].class), anyList(), anyList());
+    }
+
+    @Test
+    public void testSetIfUnchangedJedisException() {
+        doThrow(JedisException.class).when(jedis).evalsha(any(byte[].class), anyList(), anyList());
+        expectedException.expect(IoTRuntimeException.class);
+        expectedException.expectMessage("Error in setting cache entry");
+        azureCacheRepository.setIfUnchanged(testKeyAsBytes, testPojo, TestPojo.class, Collections.emptyList(), Collections.emptyMap());
+    }
+
+    @Test
+    public void testGetHash() {
+        // field values are encoded with the cache value codec
+        doReturn(Collections.singletonMap("field".getBytes(), "\"value\"".getBytes())).when(jedis).hgetAll(testKeyAsBytes);
+
+        assertEquals(Optional.of(Collections.singletonMap("field", "value")), azureCacheRepository.getHash(testKeyAsBytes, String.class));
+    }
+
+    @Test
+    public void testGetHashInvalidValue() {
+        doReturn(Collections.singletonMap("field".getBytes(), "{invalid".getBytes())).when(jedis).hgetAll(testKeyAsBytes);
+
+        assertEquals(Optional.empty(), azureCacheRepository.getHash(testKeyAsBytes, String.class));
+        verify(jedis, times(1)).del(testKeyAsBytes);
+    }
+
+    @Test
+    public void testGetHashMissing() {
+        doReturn(Collections.emptyMap()).when(jedis).hgetAll(testKeyAsBytes);
+
+        assertEquals(Optional.empty(), azureCacheRepository.getHash(testKeyAsBytes, String.class));
+    }
+
+    @Test
+    public void testGetHashWrongType() {
+        doThrow(new JedisDataException("WRONGTYPE Operation against a key holding the wrong kind of value")).when(jedis).hgetAll(testKeyAsBytes);
+
+        assertEquals(Optional.empty(), azureCacheRepository.getHash(testKeyAsBytes, String.class));
+        // entries of another type are deleted, so that they are refetched
+        verify(jedis, times(1)).del(testKeyAsBytes);
+    }
+
+    @Test
+    public void testGetHashJedisException() {
+        doThrow(JedisException.class).when(jedis).hgetAll(any(byte[].class));
+        expectedException.expect(IoTRuntimeException.class);
+        expectedException.expectMessage("Error in reading redis");
+        azureCacheRepository.getHash(testKeyAsBytes, String.class);
+    }
+
+    @Test
+    public void testMultiSetHash() {
+        Pipeline pipeline = mock(Pipeline.class);
+        doReturn(pipeline).when(jedis).pipelined();
+        doReturn(transaction).when(pipeline).exec();
+        doReturn(Collections.emptyList()).when(transaction).get();
+        byte[] indexKey = "index".getBytes();
+
+        azureCacheRepository.multiSetHash(Collections.singletonMap(testKeyAsBytes, Collections.singletonMap("field", "value")), indexKey);
+
+        // entry is replaced within a transaction
+        verify(pipeline, times(1)).multi();
+        verify(pipeline, times(1)).del(testKeyAsBytes);
+        verify(pipeline, times(1)).hset(eq(testKeyAsBytes), argThat((Map<byte[], byte[]> fields) -> fields.size() == 1
+                && Arrays.equals("\"value\"".getBytes(), fields.values().iterator().next())));
+        verify(pipeline, times(1)).sadd(indexKey, testKeyAsBytes);
+        verify(pipeline, times(1)).exec();
+        verify(pipeline, times(1)).sync();
+    }
+
+    @Test
+    public void testMultiSetHashWithoutFields() {
+        Pipeline pipeline = mock(Pipeline.class);
+        doReturn(pipeline).when(jedis).pipelined();
+        doReturn(transaction).when(pipeline).exec();
+        doReturn(Collections.emptyList()).when(transaction).get();
+
+        azureCacheRepository.multiSetHash(Collections.singletonMap(testKeyAsBytes, Collections.<String, String>emptyMap()), "index".getBytes());
+
+        // an entry without fields is only deleted, no command without arguments is sent within the transaction
+        verify(pipeline, times(1)).del(testKeyAsBytes);
+        verify(pipeline, never()).hset(any(byte[].class), anyMap());
+        verify(pipeline, never()).sadd(any(byte[].class), any());
+        verify(pipeline, times(1)).exec();
+    }
+
+    @Test
+    public void testMultiSetHashTransactionAborted() {
+        Pipeline pipeline = mock(Pipeline.class);
+        doReturn(pipeline).when(jedis).pipelined();
+        doReturn(transaction).when(pipeline).exec();
+        doThrow(new JedisDataException("EXECABORT Transaction discarded because of previous errors.")).when(transaction).get();
+
+        expectedException.expect(IoTRuntimeException.class);
+        expectedException.expectMessage("Transaction for setting cache entries aborted");
+
+        azureCacheRepository.multiSetHash(Collections.singletonMap(testKeyAsBytes, Collections.singletonMap("field", "value")), null);
+    }
+
+    @Test
+    public void testUpdateHash() {
+        doReturn(1L).when(jedis).evalsha(any(byte[].class), anyList(), anyList());
+
+        assertEquals(true, azureCacheRepository.updateHash(testKeyAsBytes, Collections.singletonMap("field", "value"),
+                Collections.singleton("removed")));
+
+        verify(jedis, times(1)).evalsha(any(byte[].class), eq(Collections.singletonList(testKeyAsBytes)),
+                argThat(args -> args.size() == 4 && Arrays.equals("1".getBytes(), args.get(0)) && Arrays.equals("\"value\"".getBytes(), args.get(2))
+                        && Arrays.equals("removed".getBytes(), args.get(3))));
+        verify(jedis, never()).eval(any(byte[].class), anyList(), anyList());
+    }
+
+    @Test
+    public void testUpdateHashScriptNotLoaded() {
+        doThrow(new JedisNoScriptException("NOSCRIPT")).when(jedis).evalsha(any(byte[].class), anyList(), anyList());
+        doReturn(0L).when(jedis).eval(any(byte[].class), anyList(), anyList());
+
+        // missing entries are not created
+        assertEquals(false, azureCacheRepository.updateHash(testKeyAsBytes, Collections.singletonMap("field", "value"), Collections.emptySet()));
+        verify(jedis, times(1)).eval(any(byte[].class), anyList(), anyList());
+    }
+
+    @Test
+    public void testUpdateHashWrongType() {
+        doReturn(-1L).when(jedis).evalsha(any(byte[].class), anyList(), anyList());
+
+        assertEquals(false, azureCacheRepository.updateHash(testKeyAsBytes, Collections.singletonMap("field", "value"), Collections.emptySet()));
+        verify(jedis, times(1)).del(testKeyAsBytes);
+    }
+
+    @Test
+    public void testUpdateHashJedisException() {
+        doThrow(JedisException.class).when(jedis).evalsha(any(byte[].class), anyList(), anyList());
+        expectedException.expect(IoTRuntimeException.class);
+        expectedException.expectMessage("Error in updating cache entry");
+        azureCacheRepository.updateHash(testKeyAsBytes, Collections.emptyMap(), Collections.singleton("removed"));
+    }
+
+    @Test
+    public void testIncrement() {
+        doReturn(2L).when(jedis).incr(testKeyAsBytes);
+        assertEquals(2L, azureCacheRepository.increment(testKeyAsBytes));
+    }
+
+    @Test
+    public void testIncrementJedisException() {
+        doThrow(JedisException.class).when(jedis).incr(any(byte[].class));
+        expectedException.expect(IoTRuntimeException.class);
+        expectedException.expectMessage("Error in incrementing cache entry");
+        azureCacheRepository.increment(testKeyAsBytes);
+    }
+
     @Test
     public void testScan() {
         ScanResult result = mock(ScanResult.class);
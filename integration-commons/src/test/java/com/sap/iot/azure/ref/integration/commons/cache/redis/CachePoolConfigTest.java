@@ -0,0 +1,53 @@
+package com.sap.iot.azure.ref.integration.commons.cache.redis;
+
+import com.sap.iot.azure.ref.integration.commons.cache.CacheConstants;
+import org.junit.Test;
+import redis.clients.jedis.JedisPoolConfig;
+
+import static org.junit.Assert.assertEquals;
+
+public class CachePoolConfigTest {
+
+    @Test
+    public void testFixedSizing() {
+        JedisPoolConfig jedisPoolConfig = CachePoolConfig.builder()
+                .maxTotal(16)
+                .maxIdle(4)
+                .minIdle(2)
+                .maxWaitMillis(100)
+                .build()
+                .toJedisPoolConfig(32);
+
+        assertEquals(16, jedisPoolConfig.getMaxTotal());
+        assertEquals(4, jedisPoolConfig.getMaxIdle());
+        assertEquals(2, jedisPoolConfig.getMinIdle());
+        assertEquals(100, jedisPoolConfig.getMaxWaitMillis());
+    }
+
+    @Test
+    public void testHostConcurrencySizing() {
+        CachePoolConfig cachePoolConfig = CachePoolConfig.builder()
+                .sizing(CacheConstants.CACHE_POOL_SIZING_HOST_CONCURRENCY)
+                .concurrentInvocations(4)
+                .build();
+
+        // io stage threads plus invocation threads
+        JedisPoolConfig jedisPoolConfig = cachePoolConfig.toJedisPoolConfig(15);
+        assertEquals(19, jedisPoolConfig.getMaxTotal());
+        assertEquals(19, jedisPoolConfig.getMaxIdle());
+
+        // configured max total is the lower bound
+        assertEquals(CacheConstants.CACHE_POOL_MAX_TOTAL_DEFAULT, cachePoolConfig.toJedisPoolConfig(1).getMaxTotal());
+    }
+
+    @Test
+    public void testMinIdleBoundedByMaxIdle() {
+        JedisPoolConfig jedisPoolConfig = CachePoolConfig.builder()
+                .maxIdle(2)
+                .minIdle(4)
+                .build()
+                .toJedisPoolConfig(1);
+
+        assertEquals(2, jedisPoolConfig.getMinIdle());
+    }
+}
@@ -0,0 +1,264 @@
+package com.sap.iot.azure.ref.integration.commons.cache.redis;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sap.iot.azure.ref.integration.commons.cache.CacheConstants;
+import com.sap.iot.azure.ref.integration.commons.cache.codec.JsonCacheValueCodec;
+import com.sap.iot.azure.ref.integration.commons.exception.base.IoTRuntimeException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisDataException;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@RunWith(MockitoJUnitRunner.class)
+public class PipelinedCacheRepositoryTest {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final long TIMEOUT_SECONDS = 5;
+    private static final int NAMESPACE_ENTRY_TTL_SECONDS = 120;
+
+    @Mock
+    private JedisPool jedisPool;
+    @Mock
+    private Jedis jedis;
+    @Mock
+    private Pipeline pipeline;
+
+    private PipelinedCacheRepository pipelinedCacheRepository;
+    private final TestPojo testPojo = TestPojo.builder().name("name").number(123).build();
+    private final byte[] testKeyAsBytes = "test".getBytes();
+
+    @Before
+    public void prepare() {
+        pipelinedCacheRepository = createRepository(0);
+    }
+
+    @After
+    public void close() {
+        pipelinedCacheRepository.close();
+    }
+
+    @Test
+    public void testGet() throws Exception {
+        mockConnection();
+        doReturn(response(objectMapper.writeValueAsBytes(testPojo))).when(pipeline).get(testKeyAsBytes);
+
+        assertEquals(Optional.of(testPojo), await(pipelinedCacheRepository.get(testKeyAsBytes, TestPojo.class)));
+        verify(pipeline, times(1)).sync();
+        verify(jedis, times(1)).close();
+    }
+
+    @Test
+    public void testGetInvalidEntry() throws Exception {
+        mockConnection();
+        doReturn(response("Invalid".getBytes())).when(pipeline).get(testKeyAsBytes);
+        doReturn(response(1L)).when(pipeline).del(testKeyAsBytes);
+
+        assertEquals(Optional.empty(), await(pipelinedCacheRepository.get(testKeyAsBytes, TestPojo.class)));
+        verify(pipeline, timeout(TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS)).times(1)).del(testKeyAsBytes);
+    }
+
+    @Test
+    public void testMultiGet() throws Exception {
+        mockConnection();
+        byte[] missingKey = "missing".getBytes();
+        doReturn(response(objectMapper.writeValueAsBytes(testPojo))).when(pipeline).get(testKeyAsBytes);
+        doReturn(response(null)).when(pipeline).get(missingKey);
+
+        List<Optional<TestPojo>> values = await(pipelinedCacheRepository.multiGet(Arrays.asList(testKeyAsBytes, missingKey), TestPojo.class));
+
+        assertEquals(Arrays.asList(Optional.of(testPojo), Optional.empty()), values);
+    }
+
+    @Test
+    public void testGetHashLegacyEntry() throws Exception {
+        mockConnection();
+        Response<Map<byte[], byte[]>> hashResponse = response(null);
+        doThrow(new JedisDataException("WRONGTYPE Operation against a key holding the wrong kind of value")).when(hashResponse).get();
+        doReturn(hashResponse).when(pipeline).hgetAll(testKeyAsBytes);
+        doReturn(response(1L)).when(pipeline).del(testKeyAsBytes);
+
+        assertEquals(Optional.empty(), await(pipelinedCacheRepository.getHash(testKeyAsBytes, String.class)));
+        verify(pipeline, times(1)).del(testKeyAsBytes);
+    }
+
+    @Test
+    public void testGetHash() throws Exception {
+        mockConnection();
+        Map<byte[], byte[]> fields = Collections.singletonMap("field".getBytes(), objectMapper.writeValueAsBytes("value"));
+        doReturn(response(fields)).when(pipeline).hgetAll(testKeyAsBytes);
+
+        assertEquals(Optional.of(Collections.singletonMap("field", "value")), await(pipelinedCacheRepository.getHash(testKeyAsBytes, String.class)));
+    }
+
+    @Test
+    public void testSetWithTtl() throws Exception {
+        pipelinedCacheRepository.close();
+        pipelinedCacheRepository = createRepository(60);
+        mockConnection();
+        doReturn(response("OK")).when(pipeline).setex(any(byte[].class), any(int.class), any(byte[].class));
+
+        await(pipelinedCacheRepository.set(testKeyAsBytes, testPojo, TestPojo.class));
+
+        verify(pipeline, times(1)).setex(testKeyAsBytes, 60, objectMapper.writeValueAsBytes(testPojo));
+    }
+
+    @Test
+    public void testSetVersionedKeyWithNamespaceTtl() throws Exception {
+        mockConnection();
+        byte[] versionedKey = "SAP_V2_SENSOR_test".getBytes();
+        doReturn(response("OK")).when(pipeline).setex(any(byte[].class), any(int.class), any(byte[].class));
+        doReturn(response("OK")).when(pipeline).set(any(byte[].class), any(byte[].class));
+
+        await(pipelinedCacheRepository.set(versionedKey, testPojo, TestPojo.class));
+        await(pipelinedCacheRepository.set(testKeyAsBytes, testPojo, TestPojo.class));
+
+        // entries of a bumped namespace expire, unversioned entries keep the entry TTL
+        verify(pipeline, times(1)).setex(versionedKey, NAMESPACE_ENTRY_TTL_SECONDS, objectMapper.writeValueAsBytes(testPojo));
+        verify(pipeline, times(1)).set(testKeyAsBytes, objectMapper.writeValueAsBytes(testPojo));
+    }
+
+    @Test
+    public void testConnectionFailure() throws InterruptedException {
+        doThrow(new JedisConnectionException("unavailable")).when(jedisPool).getResource();
+
+        try {
+            pipelinedCacheRepository.get(testKeyAsBytes, TestPojo.class).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            fail("Expected the cache access to fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IoTRuntimeException);
+            assertTrue(((IoTRuntimeException) e.getCause()).isTransient());
+        } catch (Exception e) {
+            fail("Unexpected exception " + e);
+        }
+    }
+
+    @Test
+    public void testPipelining() throws Exception {
+        CountDownLatch borrowed = new CountDownLatch(1);
+        CountDownLatch released = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            borrowed.countDown();
+            released.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            return jedis;
+        }).when(jedisPool).getResource();
+        doReturn(pipeline).when(jedis).pipelined();
+        doReturn(response(null)).when(pipeline).get(any(byte[].class));
+
+        // the dispatcher is blocked on the first command while the other commands are queued
+        CompletableFuture<Optional<TestPojo>> first = pipelinedCacheRepository.get("first".getBytes(), TestPojo.class);
+        assertTrue(borrowed.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        CompletableFuture<List<Optional<TestPojo>>> queued = pipelinedCacheRepository.multiGet(Arrays.asList("a".getBytes(), "b".getBytes(),
+                "c".getBytes()), TestPojo.class);
+        released.countDown();
+
+        await(first);
+        assertEquals(Collections.nCopies(3, Optional.empty()), await(queued));
+
+        // one round trip for the first command, one for all queued commands
+        verify(pipeline, times(2)).sync();
+    }
+
+    @Test
+    public void testQueueFull() throws Exception {
+        pipelinedCacheRepository.close();
+        pipelinedCacheRepository = createRepository(0, 1);
+        CountDownLatch borrowed = new CountDownLatch(1);
+        CountDownLatch released = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            borrowed.countDown();
+            released.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            return jedis;
+        }).when(jedisPool).getResource();
+        doReturn(pipeline).when(jedis).pipelined();
+        doReturn(response(null)).when(pipeline).get(any(byte[].class));
+
+        // the dispatcher is blocked on the first command, the second command fills the queue
+        CompletableFuture<Optional<TestPojo>> first = pipelinedCacheRepository.get("first".getBytes(), TestPojo.class);
+        assertTrue(borrowed.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        CompletableFuture<Optional<TestPojo>> queued = pipelinedCacheRepository.get("queued".getBytes(), TestPojo.class);
+        CompletableFuture<Optional<TestPojo>> rejected = pipelinedCacheRepository.get("rejected".getBytes(), TestPojo.class);
+
+        // rejected without blocking the caller
+        assertTrue(rejected.isCompletedExceptionally());
+        try {
+            rejected.join();
+            fail("Expected the cache access to fail");
+        } catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof IoTRuntimeException);
+            assertTrue(((IoTRuntimeException) e.getCause()).isTransient());
+        }
+
+        released.countDown();
+        assertEquals(Optional.empty(), await(first));
+        assertEquals(Optional.empty(), await(queued));
+    }
+
+    @Test
+    public void testClosed() throws InterruptedException, TimeoutException {
+        pipelinedCacheRepository.close();
+
+        try {
+            pipelinedCacheRepository.delete(testKeyAsBytes).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            fail("Expected the cache access to fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IoTRuntimeException);
+        }
+    }
+
+    private PipelinedCacheRepository createRepository(int entryTtlSeconds) {
+        return createRepository(entryTtlSeconds, CacheConstants.CACHE_ASYNC_QUEUE_CAPACITY_DEFAULT);
+    }
+
+    private PipelinedCacheRepository createRepository(int entryTtlSeconds, int queueCapacity) {
+        return new PipelinedCacheRepository(jedisPool, new JsonCacheValueCodec(CacheConstants.CACHE_VALUE_COMPRESSION_THRESHOLD_DEFAULT),
+                entryTtlSeconds, NAMESPACE_ENTRY_TTL_SECONDS, 1, CacheConstants.MULTI_KEY_CHUNK_SIZE, queueCapacity);
+    }
+
+    private void mockConnection() {
+        doReturn(jedis).when(jedisPool).getResource();
+        doReturn(pipeline).when(jedis).pipelined();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Response<T> response(T value) {
+        Response<T> response = mock(Response.class);
+        doReturn(value).when(response).get();
+        return response;
+    }
+
+    private static <T> T await(CompletableFuture<T> future) throws Exception {
+        return future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+}
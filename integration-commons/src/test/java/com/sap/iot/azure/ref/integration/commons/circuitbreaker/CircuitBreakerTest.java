@@ -0,0 +1,179 @@
+package com.sap.iot.azure.ref.integration.commons.circuitbreaker;
+
+import com.sap.iot.azure.ref.integration.commons.context.InvocationContextTestUtil;
+import com.sap.iot.azure.ref.integration.commons.exception.CircuitBreakerOpenException;
+import com.sap.iot.azure.ref.integration.commons.exception.CommonErrorType;
+import com.sap.iot.azure.ref.integration.commons.exception.IdentifierUtil;
+import com.sap.iot.azure.ref.integration.commons.exception.base.IoTRuntimeException;
+import com.sap.iot.azure.ref.integration.commons.util.CompletableFutures;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CircuitBreakerTest {
+
+    private static final long OPEN_DURATION_MILLIS = 1000;
+    private static final long SLOW_CALL_DURATION_MILLIS = 100;
+
+    private final AtomicLong clock = new AtomicLong(0);
+    private CircuitBreaker circuitBreaker;
+
+    @Before
+    public void setup() {
+        InvocationContextTestUtil.initInvocationContext();
+        CircuitBreakerConfig config = CircuitBreakerConfig.builder()
+                .windowSize(4)
+                .minimumCalls(4)
+                .failureRateThreshold(50)
+                .slowCallDurationMillis(SLOW_CALL_DURATION_MILLIS)
+                .slowCallRateThreshold(75)
+                .openDurationMillis(OPEN_DURATION_MILLIS)
+                .build();
+        circuitBreaker = new CircuitBreaker("test", config, clock::get);
+    }
+
+    @Test
+    public void testOpensOnFailureRate() {
+        callSuccessfully();
+        callSuccessfully();
+        callWithFailure(true);
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+
+        callWithFailure(true);
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+
+        AtomicInteger calls = new AtomicInteger();
+        try {
+            circuitBreaker.run(calls::incrementAndGet);
+            fail("Expected CircuitBreakerOpenException");
+        } catch (CircuitBreakerOpenException e) {
+            assertEquals(CommonErrorType.CIRCUIT_BREAKER_OPEN, e.getErrorType());
+            assertTrue(e.isTransient());
+        }
+        assertEquals(0, calls.get());
+    }
+
+    @Test
+    public void testNonTransientFailureCountsAsSuccess() {
+        for (int i = 0; i < 4; i++) {
+            callWithFailure(false);
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    public void testOpensOnSlowCallRate() {
+        callSuccessfully();
+        for (int i = 0; i < 3; i++) {
+            circuitBreaker.run(() -> clock.addAndGet(SLOW_CALL_DURATION_MILLIS + 1));
+        }
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    public void testHalfOpenTrialCall() {
+        openCircuit();
+
+        clock.addAndGet(OPEN_DURATION_MILLIS);
+        callWithFailure(true);
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+
+        clock.addAndGet(OPEN_DURATION_MILLIS);
+        callSuccessfully();
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    public void testHalfOpenTrialCallFailingWithError() {
+        openCircuit();
+
+        clock.addAndGet(OPEN_DURATION_MILLIS);
+        try {
+            circuitBreaker.run(() -> {
+                throw new AssertionError("error");
+            });
+            fail("Expected AssertionError");
+        } catch (AssertionError e) {
+            assertEquals("error", e.getMessage());
+        }
+
+        // the failed trial call re-opens the circuit instead of leaving it half-open
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        clock.addAndGet(OPEN_DURATION_MILLIS);
+        callSuccessfully();
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    public void testExecuteAsync() {
+        CompletableFuture<String> pending = new CompletableFuture<>();
+        CompletableFuture<String> result = circuitBreaker.executeAsync(() -> pending);
+        for (int i = 0; i < 3; i++) {
+            circuitBreaker.executeAsync(() -> CompletableFutures.completeExceptionally(new IoTRuntimeException("error",
+                    CommonErrorType.CACHE_ACCESS_ERROR, "", IdentifierUtil.empty(), true)));
+        }
+
+        // the outcome is recorded once the future completes
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        clock.addAndGet(SLOW_CALL_DURATION_MILLIS + 1);
+        pending.complete("result");
+        assertEquals("result", result.join());
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+
+        AtomicInteger calls = new AtomicInteger();
+        CompletableFuture<String> rejected = circuitBreaker.executeAsync(() -> {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture("result");
+        });
+        assertTrue(rejected.isCompletedExceptionally());
+        assertEquals(0, calls.get());
+        try {
+            rejected.join();
+            fail("Expected CircuitBreakerOpenException");
+        } catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof CircuitBreakerOpenException);
+        }
+    }
+
+    @Test
+    public void testDisabled() {
+        circuitBreaker = new CircuitBreaker("test", CircuitBreakerConfig.builder().enabled(false).windowSize(1).minimumCalls(1).build(), clock::get);
+        openCircuit();
+
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        callSuccessfully();
+    }
+
+    private void openCircuit() {
+        for (int i = 0; i < 4; i++) {
+            callWithFailure(true);
+        }
+    }
+
+    private void callSuccessfully() {
+        assertEquals("result", circuitBreaker.execute(() -> "result"));
+    }
+
+    private void callWithFailure(boolean isTransient) {
+        try {
+            circuitBreaker.run(() -> {
+                throw new IoTRuntimeException("error", CommonErrorType.CACHE_ACCESS_ERROR, "", IdentifierUtil.empty(), isTransient);
+            });
+            fail("Expected IoTRuntimeException");
+        } catch (CircuitBreakerOpenException e) {
+            throw e;
+        } catch (IoTRuntimeException e) {
+            assertEquals(CommonErrorType.CACHE_ACCESS_ERROR, e.getErrorType());
+        }
+    }
+}
@@ -9,14 +9,18 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
 import java.io.IOException;
+import java.util.HashSet;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.logging.Logger;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.mockito.Mockito.*;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -40,7 +44,7 @@ public class EventHubClientFactoryTest {
     public void testShutdownHooks() throws EventHubException {
         EventHubClientFactory eventHubClientFactory = new EventHubClientFactory();
         eventHubClientFactory.shutdownClient(ehclientMock);
-        eventHubClientFactory.shutdownExecutorService(executorService);
+        EventHubClientFactory.shutdownExecutorService(executorService);
 
         verify(ehclientMock, times(1)).closeSync();
         verify(executorService, times(1)).shutdown();
@@ -53,7 +57,7 @@ public class EventHubClientFactoryTest {
         doThrow(EventHubException.class).when(ehclientMock).closeSync();
 
         eventHubClientFactory.shutdownClient(ehclientMock);
-        eventHubClientFactory.shutdownExecutorService(executorService);
+        EventHubClientFactory.shutdownExecutorService(executorService);
     }
 
     @Test
@@ -79,4 +83,23 @@ public class EventHubClientFactoryTest {
         expectedException.expect(IoTRuntimeException.class);
         eventHubClientFactory.getEhClient(sampleConnString);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testCreatePool() throws IOException, EventHubException {
+        String sampleConnString = "pool";
+        EventHubClientFactory eventHubClientFactory = spy(new EventHubClientFactory(3, true));
+        doReturn(CompletableFuture.completedFuture(ehclientMock)).when(eventHubClientFactory).createEventHubClient(eq(sampleConnString),
+                any(ScheduledExecutorService.class));
+
+        EventHubClientPool pool = eventHubClientFactory.getEhClientPool(sampleConnString);
+
+        assertEquals(3, pool.size());
+        assertSame(pool, eventHubClientFactory.getEhClientPool(sampleConnString));
+        assertSame(pool.getClients().get(0), eventHubClientFactory.getEhClient(sampleConnString));
+
+        // all clients share the same scheduler
+        ArgumentCaptor<ScheduledExecutorService> executorCaptor = ArgumentCaptor.forClass(ScheduledExecutorService.class);
+        verify(eventHubClientFactory, times(3)).createEventHubClient(eq(sampleConnString), executorCaptor.capture());
+        assertEquals(1, new HashSet<>(executorCaptor.getAllValues()).size());
+    }
+}
@@ -0,0 +1,90 @@
+package com.sap.iot.azure.ref.integration.commons.connection;
+
+import com.microsoft.azure.eventhubs.EventHubClient;
+import com.microsoft.azure.eventhubs.EventHubException;
+import com.microsoft.azure.eventhubs.EventHubRuntimeInformation;
+import com.microsoft.azure.eventhubs.PartitionSender;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class EventHubClientPoolTest {
+
+    private final List<CompletableFuture<EventHubClient>> clients = Arrays.asList(new CompletableFuture<>(), new CompletableFuture<>(),
+            new CompletableFuture<>());
+
+    @Test
+    public void testPartitionAffine() {
+        EventHubClientPool pool = new EventHubClientPool(clients, true);
+
+        // all sends for a partition key use the same client
+        assertSame(pool.select("key1"), pool.select("key1"));
+        assertSame(clients.get(Math.floorMod("key1".hashCode(), clients.size())), pool.select("key1"));
+
+        Set<CompletableFuture<EventHubClient>> selected = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            selected.add(pool.select("key" + i));
+        }
+        assertEquals(clients.size(), selected.size());
+    }
+
+    @Test
+    public void testRoundRobin() {
+        EventHubClientPool pool = new EventHubClientPool(clients, false);
+
+        assertSame(clients.get(0), pool.select("key1"));
+        assertSame(clients.get(1), pool.select("key1"));
+        assertSame(clients.get(2), pool.select("key1"));
+        assertSame(clients.get(0), pool.select(null));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmptyPool() {
+        new EventHubClientPool(Collections.emptyList(), true);
+    }
+
+    @Test
+    public void testPartitionIdsReadOnce() {
+        EventHubClient client = mock(EventHubClient.class);
+        EventHubRuntimeInformation runtimeInformation = new EventHubRuntimeInformation("hub", Instant.now(), 2, new String[]{"0", "1"});
+        CompletableFuture<EventHubRuntimeInformation> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new IllegalStateException("unavailable"));
+        when(client.getRuntimeInformation()).thenReturn(failed).thenReturn(CompletableFuture.completedFuture(runtimeInformation));
+        EventHubClientPool pool = new EventHubClientPool(Collections.singletonList(CompletableFuture.completedFuture(client)), true, true);
+
+        // a failed read is repeated, a successful read is cached
+        assertTrue(pool.getPartitionIds().isCompletedExceptionally());
+        assertEquals(Arrays.asList("0", "1"), pool.getPartitionIds().join());
+        assertEquals(Arrays.asList("0", "1"), pool.getPartitionIds().join());
+        verify(client, times(2)).getRuntimeInformation();
+    }
+
+    @Test
+    public void testPartitionSenderCached() throws EventHubException {
+        EventHubClient client = mock(EventHubClient.class);
+        PartitionSender partitionSender = mock(PartitionSender.class);
+        CompletableFuture<PartitionSender> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new IllegalStateException("unavailable"));
+        when(client.createPartitionSender("1")).thenReturn(failed).thenReturn(CompletableFuture.completedFuture(partitionSender));
+        EventHubClientPool pool = new EventHubClientPool(Collections.singletonList(CompletableFuture.completedFuture(client)), true, true);
+
+        assertTrue(pool.getPartitionSender("1").isCompletedExceptionally());
+        assertSame(partitionSender, pool.getPartitionSender("1").join());
+        assertSame(partitionSender, pool.getPartitionSender("1").join());
+        verify(client, times(2)).createPartitionSender("1");
+    }
+}
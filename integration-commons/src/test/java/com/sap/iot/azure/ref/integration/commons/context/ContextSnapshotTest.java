@@ -0,0 +1,74 @@
+package com.sap.iot.azure.ref.integration.commons.context;
+
+import com.microsoft.azure.functions.ExecutionContext;
+import org.apache.logging.log4j.ThreadContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Filter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ContextSnapshotTest {
+
+    private ExecutionContext context;
+
+    @Before
+    public void setup() {
+        InvocationContextTestUtil.initInvocationContext();
+        context = InvocationContext.getContext();
+    }
+
+    @After
+    public void teardown() {
+        InvocationContext.closeInvocationContext();
+    }
+
+    @Test
+    public void testRunOnOtherThread() {
+        ContextSnapshot snapshot = ContextSnapshot.capture();
+        assertTrue(snapshot.isCurrent());
+
+        CompletableFuture.runAsync(() -> {
+            assertFalse(snapshot.isCurrent());
+            snapshot.run(() -> {
+                assertSame(context, InvocationContext.getContext());
+                assertEquals(context.getInvocationId(), ThreadContext.get("invocation-id"));
+            });
+
+            // the context is removed from the thread after the task
+            assertNull(ThreadContext.get("invocation-id"));
+            assertTrue(InvocationContext.getContext().getInvocationId().isEmpty());
+        }).join();
+    }
+
+    @Test
+    public void testRestorePreviousContext() throws Exception {
+        ContextSnapshot snapshot = ContextSnapshot.capture();
+        InvocationContext.setupInvocationContext(InvocationContextTestUtil.getMockContext());
+        ExecutionContext otherContext = InvocationContext.getContext();
+
+        assertEquals(context.getInvocationId(), snapshot.call(() -> InvocationContext.getContext().getInvocationId()));
+        assertEquals(context.getInvocationId(), snapshot.get(() -> ThreadContext.get("invocation-id")));
+
+        // the calling thread continues with its own context
+        assertSame(otherContext, InvocationContext.getContext());
+        assertEquals(otherContext.getInvocationId(), ThreadContext.get("invocation-id"));
+    }
+
+    @Test
+    public void testLoggingFilterInstalledOnce() {
+        Filter filter = context.getLogger().getFilter();
+        assertTrue(filter instanceof LoggingMessageFilter);
+
+        InvocationContext.setupInvocationContext(context);
+        CompletableFuture.runAsync(InvocationContext.withContext(() -> assertSame(filter, InvocationContext.getLogger().getFilter()))).join();
+        assertSame(filter, context.getLogger().getFilter());
+    }
+}
@@ -81,6 +81,15 @@ public class InvocationContextTestUtil {
         return createSystemPropertiesMap("PARTITION_KEY_VALUE");
     }
 
+    @SuppressWarnings("unchecked")
+    public static Map<String, Object>[] createPropertiesMap(String partitionKey) {
+
+        HashMap<String, Object> properties = new HashMap<>();
+        properties.put(CommonConstants.PARTITION_KEY_PROPERTY_KEY, partitionKey);
+
+        return new Map[]{properties};
+    }
+
     public static Map<String, Object> createPartitionContext() {
         return Collections.singletonMap("PartitionId", "0");
     }
@@ -145,8 +145,8 @@ public class BaseEventHubProcessorTest {
         reset(eventHubClient); // clears up the stub to return EventBatch
 
         // first batch is created successfully, & then throw batch creation exception
+        // no batch is sent, since the batches are only sent once all batches are created
         when(eventHubClient.createBatch(any(BatchOptions.class))).thenReturn(new SimpleEventBatch()).thenThrow(new EventHubException(false, "create batch failed"));
-        when(eventHubClient.send(any(EventDataBatch.class))).thenReturn(CompletableFutures.voidCompletedFuture());
 
         EventHubProcessorImpl eventHubProcessor = new EventHubProcessorImpl(eventHubClient, 12, 100);
 
@@ -0,0 +1,270 @@
+package com.sap.iot.azure.ref.integration.commons.eventhub;
+
+import com.microsoft.azure.eventhubs.BatchOptions;
+import com.microsoft.azure.eventhubs.EventData;
+import com.microsoft.azure.eventhubs.EventDataBatch;
+import com.microsoft.azure.eventhubs.EventHubClient;
+import com.microsoft.azure.eventhubs.EventHubException;
+import com.microsoft.azure.eventhubs.EventHubRuntimeInformation;
+import com.microsoft.azure.eventhubs.PartitionSender;
+import com.sap.iot.azure.ref.integration.commons.connection.EventHubClientPool;
+import com.sap.iot.azure.ref.integration.commons.constants.CommonConstants;
+import com.sap.iot.azure.ref.integration.commons.context.InvocationContextTestUtil;
+import com.sap.iot.azure.ref.integration.commons.eventhub.BaseEventHubProcessorTest.SimpleEventBatch;
+import com.sap.iot.azure.ref.integration.commons.eventhub.sink.EventHubSink;
+import com.sap.iot.azure.ref.integration.commons.limiter.AdaptiveConcurrencyLimiter;
+import com.sap.iot.azure.ref.integration.commons.limiter.AdaptiveConcurrencyLimiterConfig;
+import com.sap.iot.azure.ref.integration.commons.limiter.AdaptiveConcurrencyLimiterRegistry;
+import com.sap.iot.azure.ref.integration.commons.util.CompletableFutures;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CoalescingEventHubSenderTest {
+
+    @Mock
+    private EventHubClient eventHubClient;
+
+    private final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiterRegistry(AdaptiveConcurrencyLimiterConfig.builder().build())
+            .get("EventHub");
+
+    @BeforeClass
+    public static void classSetup() {
+        InvocationContextTestUtil.initInvocationContext();
+    }
+
+    @Before
+    public void setup() throws EventHubException {
+        when(eventHubClient.createBatch(any(BatchOptions.class))).thenAnswer(invocation -> new SimpleEventBatch());
+    }
+
+    @Test
+    public void testCoalesceGroupsWithSamePartitionKey() throws EventHubException {
+        when(eventHubClient.send(any(EventDataBatch.class))).thenReturn(CompletableFutures.voidCompletedFuture());
+        CoalescingEventHubSender sender = new CoalescingEventHubSender(new EventHubSink(EventHubClientPool.of(CompletableFuture.completedFuture(eventHubClient))), limiter);
+
+        // 300 groups with 1 small message each for 3 partition keys
+        for (int i = 0; i < 300; i++) {
+            sender.add("key" + (i % 3), eventData(i, 10));
+        }
+        sender.send().join();
+
+        // 100 messages of 10 bytes per partition key fit into a single batch of 1000 bytes
+        verify(eventHubClient, times(3)).send(any(EventDataBatch.class));
+        verify(eventHubClient, times(3)).createBatch(any(BatchOptions.class));
+    }
+
+    @Test
+    public void testCoalescePartitionKeysOfPartition() throws EventHubException {
+        EventHubRuntimeInformation runtimeInformation = new EventHubRuntimeInformation("hub", Instant.now(), 2, new String[]{"0", "1"});
+        when(eventHubClient.getRuntimeInformation()).thenReturn(CompletableFuture.completedFuture(runtimeInformation));
+        when(eventHubClient.send(any(EventDataBatch.class))).thenReturn(CompletableFutures.voidCompletedFuture());
+        EventHubClientPool pool = EventHubClientPool.of(CompletableFuture.completedFuture(eventHubClient));
+        pool.getPartitionIds().join();
+        CoalescingEventHubSender sender = new CoalescingEventHubSender(new EventHubSink(pool), limiter);
+
+        // 300 groups with 1 small message each for 30 partition keys
+        for (int i = 0; i < 300; i++) {
+            sender.add("key" + (i % 30), eventData(i, 3));
+        }
+        sender.send().join();
+
+        // the partition keys of each partition share a batch, sent with the partition key of its first message
+        ArgumentCaptor<BatchOptions> batchOptionsCaptor = ArgumentCaptor.forClass(BatchOptions.class);
+        verify(eventHubClient, times(2)).createBatch(batchOptionsCaptor.capture());
+        verify(eventHubClient, times(2)).send(any(EventDataBatch.class));
+        for (BatchOptions batchOptions : batchOptionsCaptor.getAllValues()) {
+            assertTrue(batchOptions.partitionKey.matches("key[0-9]"));
+        }
+    }
+
+    @Test
+    public void testCoalescePerPartitionKey() throws EventHubException {
+        EventHubRuntimeInformation runtimeInformation = new EventHubRuntimeInformation("hub", Instant.now(), 1, new String[]{"0"});
+        when(eventHubClient.getRuntimeInformation()).thenReturn(CompletableFuture.completedFuture(runtimeInformation));
+        when(eventHubClient.send(any(EventDataBatch.class))).thenReturn(CompletableFutures.voidCompletedFuture());
+        EventHubClientPool pool = EventHubClientPool.of(CompletableFuture.completedFuture(eventHubClient));
+        pool.getPartitionIds().join();
+        CoalescingEventHubSender sender = new CoalescingEventHubSender(new EventHubSink(pool), limiter, partitionId -> limiter,
+                EventHubSendMetrics.getDefault(), true);
+
+        for (int i = 0; i < 300; i++) {
+            sender.add("key" + (i % 3), eventData(i, 3));
+        }
+        sender.send().join();
+
+        // each partition key is sent in batches of its own, with its partition key
+        verify(eventHubClient, times(3)).send(any(EventDataBatch.class));
+    }
+
+    @Test
+    public void testPartitionKeyProperty() {
+        when(eventHubClient.send(any(EventDataBatch.class))).thenReturn(CompletableFutures.voidCompletedFuture());
+        CoalescingEventHubSender sender = new CoalescingEventHubSender(new EventHubSink(EventHubClientPool.of(CompletableFuture.completedFuture(eventHubClient))), limiter);
+
+        sender.add("key", eventData(0, 10));
+        sender.send().join();
+
+        ArgumentCaptor<EventDataBatch> batchCaptor = ArgumentCaptor.forClass(EventDataBatch.class);
+        verify(eventHubClient, times(1)).send(batchCaptor.capture());
+        assertEquals("key", ((SimpleEventBatch) batchCaptor.getValue()).getProperties(0).get(CommonConstants.PARTITION_KEY_PROPERTY_KEY));
+    }
+
+    @Test
+    public void testFillBatchesInOrder() {
+        when(eventHubClient.send(any(EventDataBatch.class))).thenReturn(CompletableFutures.voidCompletedFuture());
+        CoalescingEventHubSender sender = new CoalescingEventHubSender(new EventHubSink(EventHubClientPool.of(CompletableFuture.completedFuture(eventHubClient))), limiter);
+
+        sender.add("key", eventData(0, 400));
+        sender.add("key", eventData(1, 400));
+        sender.add("key", eventData(2, 400));
+        sender.send().join();
+
+        ArgumentCaptor<EventDataBatch> batchCaptor = ArgumentCaptor.forClass(EventDataBatch.class);
+        verify(eventHubClient, times(2)).send(batchCaptor.capture());
+        assertEquals(2, batchCaptor.getAllValues().get(0).getSize());
+        assertEquals(0, ((SimpleEventBatch) batchCaptor.getAllValues().get(0)).getBytes(0)[0]);
+        assertEquals(1, ((SimpleEventBatch) batchCaptor.getAllValues().get(0)).getBytes(1)[0]);
+        assertEquals(2, ((SimpleEventBatch) batchCaptor.getAllValues().get(1)).getBytes(0)[0]);
+    }
+
+    @Test
+    public void testSendBatchesOfPartitionKeyOneAfterAnother() {
+        CompletableFuture<Void> firstSend = new CompletableFuture<>();
+        when(eventHubClient.send(any(EventDataBatch.class))).thenReturn(firstSend).thenReturn(CompletableFutures.voidCompletedFuture());
+        CoalescingEventHubSender sender = new CoalescingEventHubSender(new EventHubSink(EventHubClientPool.of(CompletableFuture.completedFuture(eventHubClient))), limiter);
+
+        sender.add("key", eventData(0, 600));
+        sender.add("key", eventData(1, 600));
+        CompletableFuture<Void> sendFuture = sender.send();
+
+        // the second batch is only sent once the first batch is acknowledged
+        verify(eventHubClient, times(1)).send(any(EventDataBatch.class));
+        assertFalse(sendFuture.isDone());
+
+        firstSend.complete(null);
+        verify(eventHubClient, times(2)).send(any(EventDataBatch.class));
+        assertTrue(sendFuture.isDone());
+    }
+
+    @Test
+    public void testRecordSendMetrics() {
+        when(eventHubClient.send(any(EventDataBatch.class))).thenReturn(CompletableFutures.voidCompletedFuture());
+        when(eventHubClient.getEventHubName()).thenReturn("EventHub");
+        EventHubSendMetrics sendMetrics = mock(EventHubSendMetrics.class);
+        CoalescingEventHubSender sender = new CoalescingEventHubSender(new EventHubSink(EventHubClientPool.of(CompletableFuture.completedFuture(eventHubClient))), limiter,
+                partitionId -> limiter, sendMetrics);
+
+        sender.add("key", eventData(0, 400));
+        sender.add("key", eventData(1, 400));
+        sender.add("key", eventData(2, 400));
+        sender.send().join();
+
+        verify(sendMetrics).recordBatch("EventHub", 2, 800);
+        verify(sendMetrics).recordBatch("EventHub", 1, 400);
+        verify(sendMetrics).recordInvocation("EventHub", 2);
+        verify(sendMetrics, times(2)).recordSend(eq("EventHub"), anyLong(), isNull());
+    }
+
+    @Test
+    public void testSendWithoutEventData() {
+        CoalescingEventHubSender sender = new CoalescingEventHubSender(new EventHubSink(EventHubClientPool.of(CompletableFuture.completedFuture(eventHubClient))), limiter);
+        sender.add("key", Collections.emptyList());
+
+        assertTrue(sender.send().isDone());
+        verify(eventHubClient, times(0)).send(any(EventDataBatch.class));
+    }
+
+    @Test
+    public void testSendToResolvedPartitions() throws EventHubException {
+        EventHubRuntimeInformation runtimeInformation = new EventHubRuntimeInformation("hub", Instant.now(), 2, new String[]{"0", "1"});
+        when(eventHubClient.getRuntimeInformation()).thenReturn(CompletableFuture.completedFuture(runtimeInformation));
+        PartitionSender partitionSender0 = partitionSender("0");
+        PartitionSender partitionSender1 = partitionSender("1");
+
+        // keys which resolve to partition 0 and 1
+        List<String> keysOfPartition0 = new ArrayList<>();
+        List<String> keysOfPartition1 = new ArrayList<>();
+        for (int i = 0; keysOfPartition0.size() < 2 || keysOfPartition1.size() < 2; i++) {
+            (PartitionResolver.resolve("key" + i, 2) == 0 ? keysOfPartition0 : keysOfPartition1).add("key" + i);
+        }
+
+        EventHubClientPool pool = new EventHubClientPool(Collections.singletonList(CompletableFuture.completedFuture(eventHubClient)), true, true);
+        CoalescingEventHubSender sender = new CoalescingEventHubSender(new EventHubSink(pool), limiter);
+        for (String key : Arrays.asList(keysOfPartition0.get(0), keysOfPartition0.get(1), keysOfPartition1.get(0), keysOfPartition1.get(1))) {
+            sender.add(key, eventData(0, 10));
+        }
+        sender.send().join();
+
+        // the buckets of both keys of a partition are sent in a single batch over the partition sender
+        ArgumentCaptor<EventDataBatch> batchCaptor = ArgumentCaptor.forClass(EventDataBatch.class);
+        verify(partitionSender0, times(1)).send(batchCaptor.capture());
+        assertEquals(2, batchCaptor.getValue().getSize());
+        verify(partitionSender1, times(1)).send(any(EventDataBatch.class));
+        verify(eventHubClient, never()).send(any(EventDataBatch.class));
+        verify(eventHubClient, never()).createBatch(any(BatchOptions.class));
+    }
+
+    @Test
+    public void testSendToResolvedPartitionsPerPartitionKey() throws EventHubException {
+        EventHubRuntimeInformation runtimeInformation = new EventHubRuntimeInformation("hub", Instant.now(), 1, new String[]{"0"});
+        when(eventHubClient.getRuntimeInformation()).thenReturn(CompletableFuture.completedFuture(runtimeInformation));
+        PartitionSender partitionSender = partitionSender("0");
+
+        EventHubClientPool pool = new EventHubClientPool(Collections.singletonList(CompletableFuture.completedFuture(eventHubClient)), true, true);
+        CoalescingEventHubSender sender = new CoalescingEventHubSender(new EventHubSink(pool), limiter, partitionId -> limiter,
+                EventHubSendMetrics.getDefault(), true);
+        sender.add("key0", eventData(0, 10));
+        sender.add("key1", eventData(1, 10));
+        sender.add("key0", eventData(2, 10));
+        sender.send().join();
+
+        // both keys resolve to the single partition, but each key is sent in a batch of its own
+        ArgumentCaptor<EventDataBatch> batchCaptor = ArgumentCaptor.forClass(EventDataBatch.class);
+        verify(partitionSender, times(2)).send(batchCaptor.capture());
+        assertEquals(3, batchCaptor.getAllValues().stream().mapToInt(EventDataBatch::getSize).sum());
+        assertTrue(batchCaptor.getAllValues().stream().anyMatch(batch -> batch.getSize() == 2));
+    }
+
+    private PartitionSender partitionSender(String partitionId) throws EventHubException {
+        PartitionSender partitionSender = mock(PartitionSender.class);
+        when(partitionSender.createBatch(any(BatchOptions.class))).thenAnswer(invocation -> new SimpleEventBatch());
+        when(partitionSender.send(any(EventDataBatch.class))).thenReturn(CompletableFutures.voidCompletedFuture());
+        when(eventHubClient.createPartitionSender(partitionId)).thenReturn(CompletableFuture.completedFuture(partitionSender));
+        return partitionSender;
+    }
+
+    private static List<EventData> eventData(int marker, int size) {
+        byte[] data = new byte[size];
+        data[0] = (byte) marker;
+
+        List<EventData> eventDataList = new ArrayList<>();
+        eventDataList.add(EventData.create(data));
+        return eventDataList;
+    }
+}
@@ -0,0 +1,78 @@
+package com.sap.iot.azure.ref.integration.commons.eventhub;
+
+import com.microsoft.azure.eventhubs.EventHubException;
+import com.microsoft.azure.eventhubs.ServerBusyException;
+import com.sap.iot.azure.ref.integration.commons.metrics.MetricsAggregator;
+import com.sap.iot.azure.ref.integration.commons.metrics.MetricsClient;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class EventHubSendMetricsTest {
+
+    private static final long MAX_MESSAGE_SIZE_BYTES = 1000;
+
+    // sum, count, min and max per metric name
+    private final Map<String, long[]> published = new HashMap<>();
+    private MetricsAggregator aggregator;
+    private EventHubSendMetrics sendMetrics;
+
+    @Before
+    public void setup() {
+        aggregator = new MetricsAggregator((name, dimensions, sum, count, min, max) -> published.put(name, new long[]{sum, count, min, max}));
+        sendMetrics = new EventHubSendMetrics(MAX_MESSAGE_SIZE_BYTES, aggregator);
+    }
+
+    @Test
+    public void testPublishPerEventHub() {
+        sendMetrics.recordInvocation("hub", 3);
+        sendMetrics.recordBatch("hub", 10, 900);
+        sendMetrics.recordBatch("hub", 10, 900);
+        sendMetrics.recordBatch("hub", 1, 50);
+        sendMetrics.recordSend("hub", TimeUnit.MILLISECONDS.toNanos(4), null);
+        sendMetrics.recordSend("hub", TimeUnit.MILLISECONDS.toNanos(4), new CompletionException(new ServerBusyException("busy")));
+        sendMetrics.recordSend("hub", TimeUnit.MILLISECONDS.toNanos(40), new EventHubException(false, "failed"));
+        sendMetrics.recordSend("other", 0, null);
+
+        // nothing is published until the aggregator is flushed
+        assertTrue(published.isEmpty());
+        aggregator.flush();
+
+        assertEquals(3, published("hubSends")[0]);
+        assertEquals(2, published("hubSendFailures")[0]);
+        assertEquals(1, published("hubSendTransientFailures")[0]);
+        assertEquals(1, published("hubSendThrottled")[0]);
+        assertEquals(3, published("hubSendLatencyMicros")[1]);
+        assertEquals(40000, published("hubSendLatencyMicros")[3]);
+        // percentiles are the upper bound of the histogram bucket containing the percentile, at most the max
+        assertEquals(4095, published("hubSendLatencyMicrosP50")[0]);
+        assertEquals(10, published("hubBatchEventsP95")[0]);
+        assertEquals(90, published("hubBatchFillPercentP50")[0]);
+        assertEquals(185, published("hubBatchFillPercent")[0]);
+        assertEquals(900, published("hubBatchBytesP95")[0]);
+        assertEquals(3, published("hubSendsPerInvocation")[3]);
+        assertEquals(1, published("otherSends")[0]);
+    }
+
+    @Test
+    public void testResetAfterPublish() {
+        sendMetrics.recordSend("hub", 0, null);
+        aggregator.flush();
+        published.clear();
+
+        aggregator.flush();
+
+        assertTrue(published.isEmpty());
+    }
+
+    private long[] published(String metricName) {
+        return published.get(MetricsClient.getMetricName(metricName));
+    }
+}
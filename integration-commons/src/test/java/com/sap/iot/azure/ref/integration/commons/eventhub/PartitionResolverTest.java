@@ -0,0 +1,36 @@
+package com.sap.iot.azure.ref.integration.commons.eventhub;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PartitionResolverTest {
+
+    @Test
+    public void testHashReferenceValues() {
+        // reference values of the lookup3 driver (hashlittle2 with both seeds 0)
+        assertEquals(0xdeadbeefdeadbeefL, PartitionResolver.hashLittle2(new byte[0]));
+        assertEquals(0x17770551ce7226e6L, PartitionResolver.hashLittle2("Four score and seven years ago".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void testResolve() {
+        // the 16 bit hash of the empty key is 0
+        assertEquals(0, PartitionResolver.resolve("", 4));
+
+        Set<Integer> partitions = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            int partition = PartitionResolver.resolve("sourceId" + i + "structureId", 4);
+            assertTrue(partition >= 0 && partition < 4);
+            assertEquals(partition, PartitionResolver.resolve("sourceId" + i + "structureId", 4));
+            partitions.add(partition);
+        }
+
+        assertEquals(4, partitions.size());
+    }
+}
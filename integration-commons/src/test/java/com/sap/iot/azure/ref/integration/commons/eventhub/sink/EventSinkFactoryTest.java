@@ -0,0 +1,38 @@
+package com.sap.iot.azure.ref.integration.commons.eventhub.sink;
+
+import com.sap.iot.azure.ref.integration.commons.connection.EventHubClientPool;
+import com.sap.iot.azure.ref.integration.commons.constants.CommonConstants;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class EventSinkFactoryTest {
+
+    @Test
+    public void testEventHubSink() {
+        EventSink sink = new EventSinkFactory(CommonConstants.OUTPUT_SINK_EVENTHUB).getSink("output", () -> EventHubClientPool.of(new CompletableFuture<>()));
+
+        assertTrue(sink instanceof EventHubSink);
+    }
+
+    @Test
+    public void testSinksWithoutEventHub() {
+        EventSink memorySink = new EventSinkFactory(CommonConstants.OUTPUT_SINK_MEMORY).getSink("output", () -> {
+            fail("no Event Hub clients are created");
+            return null;
+        });
+        EventSink fileSink = new EventSinkFactory(CommonConstants.OUTPUT_SINK_FILE).getSink("output", () -> {
+            fail("no Event Hub clients are created");
+            return null;
+        });
+
+        assertTrue(memorySink instanceof InMemoryEventSink);
+        assertEquals("output", memorySink.getName());
+        assertTrue(fileSink instanceof FileEventSink);
+        assertEquals("output", fileSink.getName());
+    }
+}
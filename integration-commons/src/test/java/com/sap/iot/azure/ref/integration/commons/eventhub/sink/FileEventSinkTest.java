@@ -0,0 +1,44 @@
+package com.sap.iot.azure.ref.integration.commons.eventhub.sink;
+
+import com.microsoft.azure.eventhubs.EventData;
+import com.microsoft.azure.eventhubs.EventDataBatch;
+import com.microsoft.azure.eventhubs.EventHubException;
+import com.sap.iot.azure.ref.integration.commons.exception.IdentifierUtil;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class FileEventSinkTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testWriteAndRead() throws IOException, EventHubException {
+        Path file = temporaryFolder.getRoot().toPath().resolve("output").resolve("sink.events");
+        FileEventSink sink = new FileEventSink("sink", file, 1024);
+        sink.awaitReady(IdentifierUtil.empty());
+
+        EventSinkTarget target = sink.getTarget("key");
+        EventDataBatch firstBatch = target.createBatch();
+        firstBatch.tryAdd(EventData.create("first".getBytes(StandardCharsets.UTF_8)));
+        firstBatch.tryAdd(EventData.create(new byte[0]));
+        EventDataBatch secondBatch = target.createBatch();
+        secondBatch.tryAdd(EventData.create("second".getBytes(StandardCharsets.UTF_8)));
+        target.send(firstBatch).join();
+        target.send(secondBatch).join();
+
+        List<byte[]> bodies = FileEventSink.readBodies(file);
+        assertEquals(3, bodies.size());
+        assertEquals("first", new String(bodies.get(0), StandardCharsets.UTF_8));
+        assertEquals(0, bodies.get(1).length);
+        assertEquals("second", new String(bodies.get(2), StandardCharsets.UTF_8));
+    }
+}
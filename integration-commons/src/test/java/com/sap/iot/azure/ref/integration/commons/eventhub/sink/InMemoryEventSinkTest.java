@@ -0,0 +1,93 @@
+package com.sap.iot.azure.ref.integration.commons.eventhub.sink;
+
+import com.microsoft.azure.eventhubs.EventData;
+import com.microsoft.azure.eventhubs.EventDataBatch;
+import com.microsoft.azure.eventhubs.EventHubException;
+import com.microsoft.azure.eventhubs.PayloadSizeExceededException;
+import com.microsoft.azure.eventhubs.ServerBusyException;
+import com.sap.iot.azure.ref.integration.commons.metrics.MetricsAggregator;
+import com.sap.iot.azure.ref.integration.commons.metrics.MetricsClient;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class InMemoryEventSinkTest {
+
+    @Test
+    public void testSend() throws EventHubException {
+        InMemoryEventSink sink = new InMemoryEventSink("sink", 100, 0, 0);
+        EventSinkTarget target = sink.getTarget("key");
+        assertEquals("key", target.getKey());
+        assertNull(target.getPartitionId());
+
+        // batches are limited by the size of the bodies
+        EventDataBatch batch = target.createBatch();
+        assertTrue(batch.tryAdd(EventData.create(new byte[60])));
+        assertFalse(batch.tryAdd(EventData.create(new byte[60])));
+        assertTrue(batch.tryAdd(EventData.create(new byte[40])));
+        target.send(batch).join();
+
+        assertEquals(1, sink.getBatchCount());
+        assertEquals(2, sink.getEventCount());
+        assertEquals(100, sink.getByteCount());
+    }
+
+    @Test(expected = PayloadSizeExceededException.class)
+    public void testEventExceedsBatchSize() throws EventHubException {
+        new InMemoryEventSink("sink", 100, 0, 0).getTarget("key").createBatch().tryAdd(EventData.create(new byte[101]));
+    }
+
+    @Test
+    public void testSimulatedLatency() throws EventHubException {
+        InMemoryEventSink sink = new InMemoryEventSink("sink", 100, 50, 0);
+        EventSinkTarget target = sink.getTarget("key");
+
+        CompletableFuture<Void> sendFuture = target.send(target.createBatch());
+
+        assertFalse(sendFuture.isDone());
+        sendFuture.join();
+        assertEquals(1, sink.getBatchCount());
+    }
+
+    @Test
+    public void testSimulatedThrottling() throws EventHubException, InterruptedException {
+        InMemoryEventSink sink = new InMemoryEventSink("sink", 100, 0, 100);
+        EventSinkTarget target = sink.getTarget("key");
+
+        try {
+            target.send(target.createBatch()).get();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof ServerBusyException);
+        }
+
+        assertEquals(0, sink.getBatchCount());
+        assertEquals(1, sink.getThrottledCount());
+    }
+
+    @Test
+    public void testPublishCounts() throws EventHubException {
+        Map<String, Long> published = new HashMap<>();
+        MetricsAggregator aggregator = new MetricsAggregator((name, dimensions, sum, count, min, max) -> published.put(name, sum));
+        InMemoryEventSink sink = new InMemoryEventSink("sink", 100, 0, 0, aggregator);
+        EventSinkTarget target = sink.getTarget("key");
+
+        EventDataBatch batch = target.createBatch();
+        batch.tryAdd(EventData.create(new byte[60]));
+        batch.tryAdd(EventData.create(new byte[30]));
+        target.send(batch).join();
+        target.send(target.createBatch()).join();
+        aggregator.flush();
+
+        assertEquals(2, (long) published.get(MetricsClient.getMetricName("sinkSinkBatches")));
+        assertEquals(2, (long) published.get(MetricsClient.getMetricName("sinkSinkEvents")));
+        assertEquals(90, (long) published.get(MetricsClient.getMetricName("sinkSinkBytes")));
+    }
+}
@@ -0,0 +1,206 @@
+package com.sap.iot.azure.ref.integration.commons.executor;
+
+import com.sap.iot.azure.ref.integration.commons.context.InvocationContext;
+import com.sap.iot.azure.ref.integration.commons.context.InvocationContextTestUtil;
+import com.sap.iot.azure.ref.integration.commons.exception.base.IoTRuntimeException;
+import com.sap.iot.azure.ref.integration.commons.metrics.MetricsAggregator;
+import com.sap.iot.azure.ref.integration.commons.metrics.MetricsClient;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class StageExecutorTest {
+
+    private final Map<String, Long> published = new HashMap<>();
+    private final MetricsAggregator aggregator = new MetricsAggregator((name, dimensions, sum, count, min, max) -> published.put(name, sum));
+
+    @Before
+    public void setup() {
+        InvocationContextTestUtil.initInvocationContext();
+    }
+
+    @After
+    public void teardown() {
+        InvocationContext.closeInvocationContext();
+    }
+
+    @Test
+    public void testContextPropagation() {
+        StageExecutor stageExecutor = createStageExecutor(2, 10, StageRejectionPolicy.CALLER_RUNS);
+        String invocationId = InvocationContext.getContext().getInvocationId();
+
+        assertEquals(invocationId, stageExecutor.supplyAsync(() -> InvocationContext.getContext().getInvocationId()).join());
+
+        // asynchronous stages completed by another thread run with the context bound when the stage was added
+        CompletableFuture<Void> trigger = new CompletableFuture<>();
+        CompletableFuture<String> stage = trigger.thenApplyAsync(ignored -> InvocationContext.getContext().getInvocationId(), stageExecutor.contextual());
+        new Thread(() -> trigger.complete(null)).start();
+        assertEquals(invocationId, stage.join());
+    }
+
+    @Test
+    public void testForEachOnSaturatedStage() throws InterruptedException {
+        StageExecutor stageExecutor = createStageExecutor(1, 1, StageRejectionPolicy.ABORT);
+        CountDownLatch blocked = new CountDownLatch(1);
+        stageExecutor.execute(() -> {
+            try {
+                blocked.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        // the only thread of the stage is blocked, the calling thread performs all actions
+        List<Integer> items = IntStream.range(0, 10).boxed().collect(Collectors.toList());
+        Map<Integer, String> processed = new ConcurrentHashMap<>();
+        stageExecutor.forEach(items, item -> processed.put(item, Thread.currentThread().getName()));
+        blocked.countDown();
+
+        assertEquals(10, processed.size());
+        assertTrue(processed.values().stream().allMatch(threadName -> threadName.equals(Thread.currentThread().getName())));
+    }
+
+    @Test
+    public void testForEachFailure() {
+        StageExecutor stageExecutor = createStageExecutor(2, 10, StageRejectionPolicy.CALLER_RUNS);
+        List<Integer> processed = new ArrayList<>();
+
+        try {
+            stageExecutor.forEach(Arrays.asList(1, 2, 3), item -> {
+                synchronized (processed) {
+                    processed.add(item);
+                }
+                if (item == 2) {
+                    throw new IllegalStateException("failed");
+                }
+            });
+            fail("expected failure");
+        } catch (IllegalStateException ex) {
+            assertEquals("failed", ex.getMessage());
+        }
+
+        // all other actions are performed nevertheless
+        assertEquals(3, processed.size());
+    }
+
+    @Test
+    public void testRejection() throws InterruptedException {
+        StageExecutor stageExecutor = createStageExecutor(1, 1, StageRejectionPolicy.ABORT);
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        stageExecutor.execute(() -> {
+            started.countDown();
+            try {
+                blocked.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        started.await(10, TimeUnit.SECONDS);
+        stageExecutor.execute(() -> { });
+
+        try {
+            stageExecutor.execute(() -> { });
+            fail("expected rejection");
+        } catch (IoTRuntimeException ex) {
+            assertTrue(ex.isTransient());
+        }
+
+        assertEquals(1, stageExecutor.getQueueDepth());
+        assertEquals(100, stageExecutor.getUtilizationPercent());
+
+        // the queue depth and utilization are sampled when the metrics are published
+        try {
+            stageExecutor.execute(() -> { });
+            fail("expected rejection");
+        } catch (IoTRuntimeException ex) {
+            assertTrue(ex.isTransient());
+        }
+        aggregator.flush();
+        blocked.countDown();
+
+        assertEquals(Long.valueOf(1), published(StageExecutorConstants.QUEUE_DEPTH_METRIC_PREFIX + "test"));
+        assertEquals(Long.valueOf(100), published(StageExecutorConstants.UTILIZATION_METRIC_PREFIX + "test"));
+        assertEquals(Long.valueOf(2), published(StageExecutorConstants.REJECTED_METRIC_PREFIX + "test"));
+    }
+
+    @Test
+    public void testCallerRuns() throws InterruptedException {
+        StageExecutor stageExecutor = createStageExecutor(1, 1, StageRejectionPolicy.CALLER_RUNS);
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        stageExecutor.execute(() -> {
+            started.countDown();
+            try {
+                blocked.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        started.await(10, TimeUnit.SECONDS);
+        stageExecutor.execute(() -> { });
+
+        String callerThread = Thread.currentThread().getName();
+        String invocationId = InvocationContext.getContext().getInvocationId();
+        assertEquals(callerThread, stageExecutor.supplyAsync(() -> Thread.currentThread().getName()).join());
+        blocked.countDown();
+
+        // the caller keeps its context after running a rejected task
+        assertEquals(invocationId, InvocationContext.getContext().getInvocationId());
+
+        // tasks run by the caller are counted as rejected nevertheless
+        aggregator.flush();
+        assertEquals(Long.valueOf(1), published(StageExecutorConstants.REJECTED_METRIC_PREFIX + "test"));
+    }
+
+    @Test
+    public void testAbortPolicyOverridesCallerRuns() throws InterruptedException {
+        StageExecutor stageExecutor = createStageExecutor(1, 1, StageRejectionPolicy.CALLER_RUNS);
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        stageExecutor.execute(() -> {
+            started.countDown();
+            try {
+                blocked.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        started.await(10, TimeUnit.SECONDS);
+        stageExecutor.execute(() -> { });
+
+        try {
+            stageExecutor.withAbortPolicy().execute(() -> fail("must not run on the caller"));
+            fail("expected rejection");
+        } catch (IoTRuntimeException ex) {
+            assertTrue(ex.isTransient());
+        } finally {
+            blocked.countDown();
+        }
+    }
+
+    private StageExecutor createStageExecutor(int threads, int queueSize, StageRejectionPolicy rejectionPolicy) {
+        return new StageExecutor("test", StageExecutorConfig.builder().threads(threads).queueSize(queueSize).rejectionPolicy(rejectionPolicy).build(),
+                aggregator);
+    }
+
+    private Long published(String metricName) {
+        return published.get(MetricsClient.getMetricName(metricName));
+    }
+}
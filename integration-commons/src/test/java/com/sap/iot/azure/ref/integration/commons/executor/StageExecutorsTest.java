@@ -0,0 +1,65 @@
+package com.sap.iot.azure.ref.integration.commons.executor;
+
+import com.sap.iot.azure.ref.integration.commons.context.InvocationContext;
+import com.sap.iot.azure.ref.integration.commons.context.InvocationContextTestUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.ServiceConfigurationError;
+
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class StageExecutorsTest {
+
+    @Before
+    public void setup() {
+        InvocationContextTestUtil.initInvocationContext();
+    }
+
+    @After
+    public void teardown() {
+        InvocationContext.closeInvocationContext();
+    }
+
+    @Test
+    public void testPlatformThreads() {
+        StageThreads stageThreads = StageExecutors.createThreads("test", createConfig(StageExecutorConstants.THREAD_PROVIDER_PLATFORM),
+                Collections.emptyList());
+
+        assertTrue(stageThreads instanceof PlatformStageThreads);
+    }
+
+    @Test
+    public void testProviderSelection() {
+        StageThreads virtualThreads = mock(StageThreads.class);
+        StageThreadsProvider provider = mock(StageThreadsProvider.class);
+        StageExecutorConfig config = createConfig("Virtual");
+        when(provider.getName()).thenReturn("virtual");
+        when(provider.create(eq("test"), any(StageExecutorConfig.class))).thenReturn(virtualThreads);
+
+        assertSame(virtualThreads, StageExecutors.createThreads("test", config, Collections.singletonList(provider)));
+    }
+
+    @Test
+    public void testFallbackToPlatformThreads() {
+        // provider not on the classpath
+        assertTrue(StageExecutors.createThreads("test", createConfig("virtual"), Collections.emptyList()) instanceof PlatformStageThreads);
+
+        // provider not loadable, e.g., compiled for a newer JVM
+        Iterable<StageThreadsProvider> providers = () -> {
+            throw new ServiceConfigurationError("unsupported class version");
+        };
+        assertTrue(StageExecutors.createThreads("test", createConfig("virtual"), providers) instanceof PlatformStageThreads);
+    }
+
+    private static StageExecutorConfig createConfig(String threadProvider) {
+        return StageExecutorConfig.builder().threads(1).threadProvider(threadProvider).build();
+    }
+}
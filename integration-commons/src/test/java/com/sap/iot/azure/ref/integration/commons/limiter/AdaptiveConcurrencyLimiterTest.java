@@ -0,0 +1,185 @@
+package com.sap.iot.azure.ref.integration.commons.limiter;
+
+import com.microsoft.azure.eventhubs.ServerBusyException;
+import com.sap.iot.azure.ref.integration.commons.context.InvocationContextTestUtil;
+import com.sap.iot.azure.ref.integration.commons.exception.base.IoTRuntimeException;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class AdaptiveConcurrencyLimiterTest {
+
+    private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    private final AtomicLong nanoClock = new AtomicLong(0);
+    private final List<CompletableFuture<Void>> calls = new ArrayList<>();
+
+    @Before
+    public void setup() {
+        InvocationContextTestUtil.initInvocationContext();
+    }
+
+    @AfterClass
+    public static void teardown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void testBoundInFlightCalls() {
+        AdaptiveConcurrencyLimiter limiter = limiter(2, 1, 8);
+
+        CompletableFuture<Void> first = limiter.submit(this::call);
+        limiter.submit(this::call);
+        CompletableFuture<Void> third = limiter.submit(this::call);
+
+        // the third call is queued until an in-flight call completes
+        assertEquals(2, calls.size());
+        assertEquals(2, limiter.getInFlight());
+
+        calls.get(0).complete(null);
+        assertTrue(first.isDone());
+        assertEquals(3, calls.size());
+        assertFalse(third.isDone());
+
+        calls.get(2).complete(null);
+        assertTrue(third.isDone());
+    }
+
+    @Test
+    public void testDecreaseOnThrottling() {
+        AdaptiveConcurrencyLimiter limiter = limiter(8, 1, 8);
+
+        limiter.submit(this::call);
+        limiter.submit(this::call);
+        nanoClock.addAndGet(1);
+        calls.get(0).completeExceptionally(new ServerBusyException());
+        assertEquals(4, limiter.getLimit());
+
+        // the second call was started before the decrease and does not decrease the limit again
+        calls.get(1).completeExceptionally(new ServerBusyException());
+        assertEquals(4, limiter.getLimit());
+
+        CompletableFuture<Void> throttled = limiter.submit(this::call);
+        calls.get(2).completeExceptionally(new ServerBusyException());
+        assertEquals(2, limiter.getLimit());
+        assertTrue(throttled.isCompletedExceptionally());
+    }
+
+    @Test
+    public void testDecreaseOnLatencyGrowth() {
+        AdaptiveConcurrencyLimiter limiter = limiter(8, 1, 8);
+
+        // baseline latency of 10 ms
+        limiter.submit(this::call);
+        nanoClock.addAndGet(TimeUnit.MILLISECONDS.toNanos(10));
+        calls.get(0).complete(null);
+        assertEquals(8, limiter.getLimit());
+
+        // latency above twice the baseline
+        limiter.submit(this::call);
+        nanoClock.addAndGet(TimeUnit.MILLISECONDS.toNanos(30));
+        calls.get(1).complete(null);
+        assertEquals(4, limiter.getLimit());
+    }
+
+    @Test
+    public void testIncreaseWhileHealthy() {
+        AdaptiveConcurrencyLimiter limiter = limiter(2, 1, 3);
+
+        for (int i = 0; i < 10; i++) {
+            limiter.submit(this::call);
+            limiter.submit(this::call);
+            calls.forEach(call -> call.complete(null));
+        }
+
+        assertEquals(3, limiter.getLimit());
+    }
+
+    @Test
+    public void testMinLimit() {
+        AdaptiveConcurrencyLimiter limiter = limiter(1, 1, 8);
+
+        limiter.submit(this::call);
+        nanoClock.addAndGet(1);
+        calls.get(0).completeExceptionally(new ServerBusyException());
+
+        assertEquals(1, limiter.getLimit());
+    }
+
+    @Test
+    public void testDisabled() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("EventHub", AdaptiveConcurrencyLimiterConfig.builder()
+                .enabled(false).initialLimit(1).build(), scheduler, nanoClock::get);
+
+        limiter.submit(this::call);
+        limiter.submit(this::call);
+
+        assertEquals(2, calls.size());
+    }
+
+    @Test
+    public void testSynchronousCompletionWithoutRecursion() {
+        AdaptiveConcurrencyLimiter limiter = limiter(1, 1, 1);
+        limiter.submit(this::call);
+
+        List<CompletableFuture<Void>> queued = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            queued.add(limiter.submit(() -> CompletableFuture.completedFuture(null)));
+        }
+
+        // the queued calls complete synchronously once started, one after another without growing the stack
+        calls.get(0).complete(null);
+
+        assertTrue(queued.stream().allMatch(CompletableFuture::isDone));
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    public void testQueueTimeout() throws InterruptedException, TimeoutException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("EventHub", AdaptiveConcurrencyLimiterConfig.builder()
+                .initialLimit(1).queueTimeoutMillis(50).build(), scheduler, nanoClock::get);
+        limiter.submit(this::call);
+        CompletableFuture<Void> queued = limiter.submit(this::call);
+
+        try {
+            queued.get(10, TimeUnit.SECONDS);
+            fail("expected timeout");
+        } catch (ExecutionException ex) {
+            assertTrue(((IoTRuntimeException) ex.getCause()).isTransient());
+        }
+
+        // the expired call is not started anymore
+        calls.get(0).complete(null);
+        assertEquals(1, calls.size());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    private AdaptiveConcurrencyLimiter limiter(int initialLimit, int minLimit, int maxLimit) {
+        return new AdaptiveConcurrencyLimiter("EventHub", AdaptiveConcurrencyLimiterConfig.builder()
+                .initialLimit(initialLimit)
+                .minLimit(minLimit)
+                .maxLimit(maxLimit)
+                .build(), scheduler, nanoClock::get);
+    }
+
+    private CompletableFuture<Void> call() {
+        CompletableFuture<Void> call = new CompletableFuture<>();
+        calls.add(call);
+        return call;
+    }
+}
@@ -0,0 +1,128 @@
+package com.sap.iot.azure.ref.integration.commons.logging;
+
+import com.microsoft.azure.functions.ExecutionContext;
+import com.sap.iot.azure.ref.integration.commons.context.InvocationContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class StructuredLogTest {
+
+    private final Logger logger = Logger.getLogger(StructuredLogTest.class.getName() + "-" + UUID.randomUUID());
+    private final BlockingQueue<LogRecord> records = new LinkedBlockingQueue<>();
+    private final BlockingQueue<Thread> publishingThreads = new LinkedBlockingQueue<>();
+
+    @Before
+    public void setup() {
+        logger.setUseParentHandlers(false);
+        logger.setLevel(Level.INFO);
+        logger.addHandler(new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                records.add(record);
+                publishingThreads.add(Thread.currentThread());
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+
+        InvocationContext.setupInvocationContext(new ExecutionContext() {
+            @Override
+            public Logger getLogger() {
+                return logger;
+            }
+
+            @Override
+            public String getInvocationId() {
+                return "test-invocation";
+            }
+
+            @Override
+            public String getFunctionName() {
+                return "testFunction";
+            }
+        });
+    }
+
+    @After
+    public void teardown() {
+        InvocationContext.closeInvocationContext();
+    }
+
+    @Test
+    public void testDisabledLevel() {
+        Supplier<String> failingSupplier = () -> {
+            fail("supplier called for disabled level");
+            return null;
+        };
+
+        assertFalse(StructuredLog.isLoggable(Level.FINE));
+        StructuredLog.log(Level.FINE, failingSupplier);
+        StructuredLog.log(Level.FINE, "message", "key", failingSupplier);
+
+        assertTrue(records.isEmpty());
+    }
+
+    @Test
+    public void testKeyValues() throws InterruptedException {
+        StructuredLog.log(Level.INFO, "Sending batch", "partition", 0, "size", (Supplier<Integer>) () -> 12);
+
+        LogRecord record = records.poll(10, TimeUnit.SECONDS);
+        assertNotNull(record);
+        // the source is the caller of the facade, even though the record is published by the appender
+        assertEquals("[" + StructuredLogTest.class.getName() + " testKeyValues] Sending batch [partition=0, size=12]", record.getMessage());
+        assertTrue(publishingThreads.take().getName().startsWith("log-appender"));
+    }
+
+    @Test
+    public void testWarningPublishedByCaller() throws InterruptedException {
+        IllegalStateException failure = new IllegalStateException("failed");
+        StructuredLog.log(Level.WARNING, () -> "Failure", failure);
+
+        LogRecord record = records.poll(10, TimeUnit.SECONDS);
+        assertNotNull(record);
+        assertSame(failure, record.getThrown());
+        assertSame(Thread.currentThread(), publishingThreads.take());
+    }
+
+    @Test
+    public void testOrderWithWarnings() throws InterruptedException {
+        StructuredLog.log(Level.INFO, () -> "first");
+        StructuredLog.log(Level.WARNING, () -> "second");
+
+        // records queued before a warning are published before it
+        assertTrue(records.poll(10, TimeUnit.SECONDS).getMessage().endsWith("] first"));
+        assertTrue(records.poll(10, TimeUnit.SECONDS).getMessage().endsWith("] second"));
+    }
+
+    @Test
+    public void testPublishedBeforeInvocationCloses() {
+        StructuredLog.log(Level.INFO, () -> "queued");
+        InvocationContext.closeInvocationContext();
+
+        assertEquals(1, records.size());
+    }
+}
@@ -2,18 +2,29 @@ package com.sap.iot.azure.ref.integration.commons.mapping;
 
 import com.sap.iot.azure.ref.integration.commons.adx.ADXDataManager;
 import com.sap.iot.azure.ref.integration.commons.adx.ADXTableManager;
+import com.sap.iot.azure.ref.integration.commons.cache.CacheKeyBuilder;
+import com.sap.iot.azure.ref.integration.commons.cache.CacheKeyFamily;
+import com.sap.iot.azure.ref.integration.commons.cache.CacheNamespace;
+import com.sap.iot.azure.ref.integration.commons.cache.api.AsyncCacheRepository;
 import com.sap.iot.azure.ref.integration.commons.cache.api.CacheRepository;
+import com.sap.iot.azure.ref.integration.commons.cache.codec.PropertyMappingInfoFields;
 import com.sap.iot.azure.ref.integration.commons.context.InvocationContextTestUtil;
+import com.sap.iot.azure.ref.integration.commons.exception.CircuitBreakerOpenException;
 import com.sap.iot.azure.ref.integration.commons.exception.CommonErrorType;
 import com.sap.iot.azure.ref.integration.commons.exception.IdentifierUtil;
+import com.sap.iot.azure.ref.integration.commons.exception.MappingLookupException;
 import com.sap.iot.azure.ref.integration.commons.exception.base.IoTRuntimeException;
+import com.sap.iot.azure.ref.integration.commons.mapping.snapshot.MappingSnapshot;
+import com.sap.iot.azure.ref.integration.commons.mapping.snapshot.MappingVersionStamp;
 import com.sap.iot.azure.ref.integration.commons.model.mapping.SensorMappingInfo;
 import com.sap.iot.azure.ref.integration.commons.model.mapping.cache.SensorInfo;
+import com.sap.iot.azure.ref.integration.commons.model.mapping.cache.SensorMappingEntry;
 import com.sap.iot.azure.ref.integration.commons.model.mapping.cache.PropertyMapping;
 import com.sap.iot.azure.ref.integration.commons.model.mapping.cache.PropertyMappingInfo;
 import com.sap.iot.azure.ref.integration.commons.model.mapping.cache.SchemaWithADXStatus;
 import com.sap.iot.azure.ref.integration.commons.model.mapping.cache.SensorAssignment;
 import com.sap.iot.azure.ref.integration.commons.model.mapping.cache.Tag;
+import com.sap.iot.azure.ref.integration.commons.util.CompletableFutures;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.BeforeClass;
@@ -21,6 +32,7 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.MockitoJUnitRunner;
@@ -29,9 +41,17 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Predicate;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.AdditionalMatchers.aryEq;
 import static org.mockito.Mockito.*;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -80,7 +100,7 @@ public class MappingHelperTest {
         String separator = MappingServiceConstants.CACHE_KEY_SEPARATOR;
         String cacheKeyCreatorPrefix = MappingServiceConstants.CACHE_KEY_CREATOR_PREFIX;
         String sensorKeyPrefix = MappingServiceConstants.CACHE_SENSOR_KEY_PREFIX;
-        String mappingKeyPrefix = MappingServiceConstants.CACHE_MAPPING_KEY_PREFIX;
+        String mappingKeyPrefix = MappingServiceConstants.CACHE_MAPPING_FIELDS_KEY_PREFIX;
         String structureKeyPrefix = MappingServiceConstants.CACHE_STRUCTURE_KEY_PREFIX;
         SensorMappingInfo expected = SensorMappingInfo.builder()
                 .sourceId(SAMPLE_SOURCE_ID)
@@ -91,7 +111,7 @@ public class MappingHelperTest {
 
         //test cached info
         doReturn(Optional.of(getSampleDeviceInfo())).when(cacheRepository).get(any(byte[].class), eq(SensorInfo.class));
-        doReturn(Optional.of(getSamplePropertyMappingInfo())).when(cacheRepository).get(any(byte[].class), eq(PropertyMappingInfo.class));
+        doReturn(Optional.of(PropertyMappingInfoFields.toFields(getSamplePropertyMappingInfo()))).when(cacheRepository).getHash(any(byte[].class), eq(String.class));
         doReturn(Optional.of(new SchemaWithADXStatus(getSampleSchemaInfo(), true))).when(cacheRepository).get(any(byte[].class),
                 eq(SchemaWithADXStatus.class));
 
@@ -100,7 +120,7 @@ public class MappingHelperTest {
         // Cache info fetched with correct keys
         verify(cacheRepository, times(1)).get(eq((cacheKeyCreatorPrefix + sensorKeyPrefix + SAMPLE_SENSOR_ID + separator + SAMPLE_VIRTUAL_CAPABILITY_ID).getBytes()),
                 eq(SensorInfo.class));
-        verify(cacheRepository, times(1)).get(eq((cacheKeyCreatorPrefix + mappingKeyPrefix + SAMPLE_MAPPING_ID + separator + SAMPLE_STRUCTURE_ID + separator + SAMPLE_VIRTUAL_CAPABILITY_ID).getBytes()), eq(PropertyMappingInfo.class));
+        verify(cacheRepository, times(1)).getHash(eq((cacheKeyCreatorPrefix + mappingKeyPrefix + SAMPLE_MAPPING_ID + separator + SAMPLE_STRUCTURE_ID + separator + SAMPLE_VIRTUAL_CAPABILITY_ID).getBytes()), eq(String.class));
 
         // since the adx sync status is already true, there's only one interaction with schema
         verify(cacheRepository, times(1)).get(eq((cacheKeyCreatorPrefix + structureKeyPrefix + SAMPLE_STRUCTURE_ID).getBytes()),
@@ -113,12 +133,158 @@ public class MappingHelperTest {
         assertEquals(expected, sensorMappingInfo);
     }
 
+    @Test
+    public void testCachedSensorMapping() {
+        SensorMappingEntry sensorMappingEntry = getSampleSensorMappingEntry();
+        doReturn(Optional.of(sensorMappingEntry)).when(cacheRepository).get(any(byte[].class), eq(SensorMappingEntry.class));
+        doReturn(Optional.of(new SchemaWithADXStatus(getSampleSchemaInfo(), true))).when(cacheRepository).get(any(byte[].class),
+                eq(SchemaWithADXStatus.class));
+
+        SensorMappingInfo sensorMappingInfo = mappingHelper.getSensorMapping(SAMPLE_SENSOR_ID, SAMPLE_VIRTUAL_CAPABILITY_ID);
+
+        // a single lookup for the composite entry, in addition to the schema
+        verify(cacheRepository, times(1)).get(eq(CacheKeyBuilder.constructSensorMappingInfoKey(SAMPLE_SENSOR_ID, SAMPLE_VIRTUAL_CAPABILITY_ID)),
+                eq(SensorMappingEntry.class));
+        verify(cacheRepository, never()).get(any(byte[].class), eq(SensorInfo.class));
+        verify(cacheRepository, never()).getHash(any(byte[].class), any());
+        verifyZeroInteractions(mappingServiceLookup);
+
+        assertEquals(sensorMappingEntry.getPropertyMappings(), sensorMappingInfo.getPropertyMappings());
+        assertEquals(sensorMappingEntry.getTags(), sensorMappingInfo.getTags());
+        assertEquals(SAMPLE_STRUCTURE_ID, sensorMappingInfo.getStructureId());
+        assertEquals(getSampleSchemaInfo(), sensorMappingInfo.getSchemaInfo());
+    }
+
+    @Test
+    public void testCachedSensorMappingAsync() {
+        AsyncCacheRepository asyncCacheRepository = mock(AsyncCacheRepository.class);
+        MappingSnapshot mappingSnapshot = mock(MappingSnapshot.class);
+        MappingHelper asyncMappingHelper = new MappingHelper(mappingServiceLookup, cacheRepository, asyncCacheRepository, adxTableManager,
+                mappingSnapshot);
+        SensorMappingEntry sensorMappingEntry = getSampleSensorMappingEntry();
+        doReturn(CompletableFuture.completedFuture(Optional.of(sensorMappingEntry))).when(asyncCacheRepository).get(
+                aryEq(CacheKeyBuilder.constructSensorMappingInfoKey(SAMPLE_SENSOR_ID, SAMPLE_VIRTUAL_CAPABILITY_ID)), eq(SensorMappingEntry.class));
+        doReturn(CompletableFuture.completedFuture(Optional.of(new SchemaWithADXStatus(getSampleSchemaInfo(), true)))).when(asyncCacheRepository)
+                .get(aryEq(CacheKeyBuilder.constructSchemaInfoKey(SAMPLE_STRUCTURE_ID)), eq(SchemaWithADXStatus.class));
+
+        SensorMappingInfo sensorMappingInfo = asyncMappingHelper.getCachedSensorMappingAsync(SAMPLE_SENSOR_ID, SAMPLE_VIRTUAL_CAPABILITY_ID)
+                .join().orElseThrow(AssertionError::new);
+
+        assertEquals(sensorMappingEntry.getPropertyMappings(), sensorMappingInfo.getPropertyMappings());
+        assertEquals(getSampleSchemaInfo(), sensorMappingInfo.getSchemaInfo());
+        assertEquals(1, sensorMappingInfo.getPropertyProjection().project(0, Collections.singletonMap(SAMPLE_CAPABILITY_PROPERTY_ID, 1))
+                .get(SAMPLE_STRUCTURE_PROPERTY_ID));
+        verify(mappingSnapshot, times(1)).record(eq(SAMPLE_SENSOR_ID), eq(SAMPLE_VIRTUAL_CAPABILITY_ID), eq(sensorMappingInfo), any());
+        // looked up with the asynchronous repository only
+        verifyZeroInteractions(cacheRepository, mappingServiceLookup, adxTableManager);
+    }
+
+    @Test
+    public void testCachedSensorMappingAsyncNotAvailable() {
+        AsyncCacheRepository asyncCacheRepository = mock(AsyncCacheRepository.class);
+        MappingSnapshot mappingSnapshot = mock(MappingSnapshot.class);
+        MappingHelper asyncMappingHelper = new MappingHelper(mappingServiceLookup, cacheRepository, asyncCacheRepository, adxTableManager,
+                mappingSnapshot);
+        doReturn(CompletableFuture.completedFuture(Optional.of(getSampleSensorMappingEntry()))).when(asyncCacheRepository).get(any(byte[].class),
+                eq(SensorMappingEntry.class));
+
+        // schema not yet synced to ADX
+        doReturn(CompletableFuture.completedFuture(Optional.of(new SchemaWithADXStatus(getSampleSchemaInfo(), false)))).when(asyncCacheRepository)
+                .get(any(byte[].class), eq(SchemaWithADXStatus.class));
+        assertFalse(asyncMappingHelper.getCachedSensorMappingAsync(SAMPLE_SENSOR_ID, SAMPLE_VIRTUAL_CAPABILITY_ID).join().isPresent());
+
+        // lookup failed, e.g. on an open circuit
+        doReturn(CompletableFutures.completeExceptionally(new CircuitBreakerOpenException("Cache"))).when(asyncCacheRepository)
+                .get(any(byte[].class), eq(SchemaWithADXStatus.class));
+        assertFalse(asyncMappingHelper.getCachedSensorMappingAsync(SAMPLE_SENSOR_ID, SAMPLE_VIRTUAL_CAPABILITY_ID).join().isPresent());
+
+        // snapshot entry pending validation, served by getSensorMapping
+        doReturn(true).when(mappingSnapshot).isServable(SAMPLE_SENSOR_ID, SAMPLE_VIRTUAL_CAPABILITY_ID);
+        assertFalse(asyncMappingHelper.getCachedSensorMappingAsync(SAMPLE_SENSOR_ID, SAMPLE_VIRTUAL_CAPABILITY_ID).join().isPresent());
+
+        verify(asyncCacheRepository, times(2)).get(any(byte[].class), eq(SensorMappingEntry.class));
+        verify(mappingSnapshot, never()).record(anyString(), anyString(), any(), any());
+        verifyZeroInteractions(cacheRepository, mappingServiceLookup, adxTableManager);
+    }
+
+    @Test
+    public void testPropertyProjectionReused() {
+        SensorMappingEntry changedSensorMappingEntry = getSampleSensorMappingEntry();
+        changedSensorMappingEntry.setPropertyMappings(Collections.singletonList(PropertyMapping.builder()
+                .capabilityPropertyId(SAMPLE_CAPABILITY_PROPERTY_ID).structurePropertyId("otherStructurePropertyId").build()));
+        // every lookup reads a new instance of the composite entry from the cache
+        doReturn(Optional.of(getSampleSensorMappingEntry()), Optional.of(getSampleSensorMappingEntry()), Optional.of(changedSensorMappingEntry))
+                .when(cacheRepository).get(any(byte[].class), eq(SensorMappingEntry.class));
+        doReturn(Optional.of(new SchemaWithADXStatus(getSampleSchemaInfo(), true))).when(cacheRepository).get(any(byte[].class),
+                eq(SchemaWithADXStatus.class));
+
+        SensorMappingInfo first = mappingHelper.getSensorMapping(SAMPLE_SENSOR_ID, SAMPLE_VIRTUAL_CAPABILITY_ID);
+        SensorMappingInfo second = mappingHelper.getSensorMapping(SAMPLE_SENSOR_ID, SAMPLE_VIRTUAL_CAPABILITY_ID);
+        SensorMappingInfo changed = mappingHelper.getSensorMapping(SAMPLE_SENSOR_ID, SAMPLE_VIRTUAL_CAPABILITY_ID);
+
+        // unchanged property mappings are not compiled again
+        assertNotSame(first, second);
+        assertSame(first.getPropertyProjection(), second.getPropertyProjection());
+        assertNotSame(first.getPropertyProjection(), changed.getPropertyProjection());
+        assertEquals(1, changed.getPropertyProjection().project(0, Collections.singletonMap(SAMPLE_CAPABILITY_PROPERTY_ID, 1))
+                .get("otherStructurePropertyId"));
+    }
+
+    @Test
+    public void testSensorMappingCached() {
+        doReturn(Optional.of(getSampleDeviceInfo())).when(cacheRepository).get(any(byte[].class), eq(SensorInfo.class));
+        doReturn(Optional.of(PropertyMappingInfoFields.toFields(getSamplePropertyMappingInfo()))).when(cacheRepository).getHash(any(byte[].class), eq(String.class));
+        doReturn(Optional.of(new SchemaWithADXStatus(getSampleSchemaInfo(), true))).when(cacheRepository).get(any(byte[].class),
+                eq(SchemaWithADXStatus.class));
+
+        byte[] sensorGenerationKey = CacheKeyBuilder.constructSensorGenerationKey(SAMPLE_SENSOR_ID);
+        byte[] mappingGenerationKey = CacheKeyBuilder.constructMappingGenerationKey(SAMPLE_MAPPING_ID);
+        doReturn(Optional.of(3L)).when(cacheRepository).get(aryEq(mappingGenerationKey), eq(Long.class));
+        doReturn(true).when(cacheRepository).setIfUnchanged(any(byte[].class), any(), any(), anyList(), anyMap());
+
+        mappingHelper.getSensorMapping(SAMPLE_SENSOR_ID, SAMPLE_VIRTUAL_CAPABILITY_ID);
+
+        // the composite entry keeps the generations it was resolved with
+        SensorMappingEntry sensorMappingEntry = getSampleSensorMappingEntry();
+        sensorMappingEntry.setMappingGeneration(3L);
+
+        // composite entry is indexed by sensor and mapping for invalidation, and only written if neither was invalidated meanwhile
+        byte[] sensorIndexKey = CacheKeyBuilder.constructSensorIndexKey(SAMPLE_SENSOR_ID);
+        byte[] sensorMappingIndexKey = CacheKeyBuilder.constructSensorMappingIndexKey(SAMPLE_MAPPING_ID);
+        verify(cacheRepository, times(1)).setIfUnchanged(eq(CacheKeyBuilder.constructSensorMappingInfoKey(SAMPLE_SENSOR_ID, SAMPLE_VIRTUAL_CAPABILITY_ID)),
+                eq(sensorMappingEntry), eq(SensorMappingEntry.class), argThat((List<byte[]> indexKeys) -> indexKeys.size() == 2
+                        && Arrays.equals(sensorIndexKey, indexKeys.get(0)) && Arrays.equals(sensorMappingIndexKey, indexKeys.get(1))),
+                argThat((Map<byte[], Long> generations) -> generations.size() == 2 && hasGeneration(generations, sensorGenerationKey, 0L)
+                        && hasGeneration(generations, mappingGenerationKey, 3L)));
+    }
+
+    @Test
+    public void testSensorMappingChangedWhileResolving() {
+        doReturn(Optional.of(getSampleDeviceInfo())).when(cacheRepository).get(any(byte[].class), eq(SensorInfo.class));
+        doReturn(Optional.of(PropertyMappingInfoFields.toFields(getSamplePropertyMappingInfo()))).when(cacheRepository).getHash(any(byte[].class), eq(String.class));
+        doReturn(Optional.of(new SchemaWithADXStatus(getSampleSchemaInfo(), true))).when(cacheRepository).get(any(byte[].class),
+                eq(SchemaWithADXStatus.class));
+        // the composite entry is not written, since the mapping has been invalidated concurrently
+        doReturn(false).when(cacheRepository).setIfUnchanged(any(byte[].class), any(), any(), anyList(), anyMap());
+
+        SensorMappingInfo sensorMappingInfo = mappingHelper.getSensorMapping(SAMPLE_SENSOR_ID, SAMPLE_VIRTUAL_CAPABILITY_ID);
+
+        // the resolved mapping is still served
+        assertEquals(getSampleSensorMappingEntry().getPropertyMappings(), sensorMappingInfo.getPropertyMappings());
+        verify(cacheRepository, never()).set(eq(CacheKeyBuilder.constructSensorMappingInfoKey(SAMPLE_SENSOR_ID, SAMPLE_VIRTUAL_CAPABILITY_ID)),
+                any(), any(), anyList());
+    }
+
+    private static boolean hasGeneration(Map<byte[], Long> generations, byte[] generationKey, long generation) {
+        return generations.entrySet().stream().anyMatch(entry -> Arrays.equals(generationKey, entry.getKey()) && entry.getValue() == generation);
+    }
+
     @Test
     public void testADXResourceCreation() {
         String sampleSchemaInfo = getSampleSchemaInfo();
 
         doReturn(Optional.of(getSampleDeviceInfo())).when(cacheRepository).get(any(byte[].class), eq(SensorInfo.class));
-        doReturn(Optional.of(getSamplePropertyMappingInfo())).when(cacheRepository).get(any(byte[].class), eq(PropertyMappingInfo.class));
+        doReturn(Optional.of(PropertyMappingInfoFields.toFields(getSamplePropertyMappingInfo()))).when(cacheRepository).getHash(any(byte[].class), eq(String.class));
         doReturn(Optional.of(sampleSchemaInfo)).when(cacheRepository).get(any(byte[].class), eq(String.class));
         doReturn(Optional.of(true)).when(cacheRepository).get(any(byte[].class), eq(boolean.class));
 
@@ -147,7 +313,7 @@ public class MappingHelperTest {
                 .build();
 
         doReturn(Optional.of(sampleSensorInfo)).when(cacheRepository).get(any(byte[].class), eq(SensorInfo.class));
-        doReturn(Optional.of(getSamplePropertyMappingInfo())).when(cacheRepository).get(any(byte[].class), eq(PropertyMappingInfo.class));
+        doReturn(Optional.of(PropertyMappingInfoFields.toFields(getSamplePropertyMappingInfo()))).when(cacheRepository).getHash(any(byte[].class), eq(String.class));
         doReturn(Optional.of(new SchemaWithADXStatus(sampleSchemaInfo, false))).when(cacheRepository).get(any(byte[].class),
                 eq(SchemaWithADXStatus.class));
 
@@ -171,6 +337,12 @@ public class MappingHelperTest {
         verify(mappingServiceLookup, times(1)).getSensorInfo(SAMPLE_SENSOR_ID, SAMPLE_VIRTUAL_CAPABILITY_ID, Optional.empty());
         verify(mappingServiceLookup, times(1)).getPropertyMappingInfos(SAMPLE_MAPPING_ID);
         verify(mappingServiceLookup, times(1)).getSchemaInfo(SAMPLE_STRUCTURE_ID);
+
+        //all property mapping infos of the mapping are cached as hashes with a single bulk operation, and indexed by mapping and sensor
+        verify(cacheRepository, times(1)).multiSetHash(argThat(entries -> entries.size() == getSamplePropertyMappingInfos().size()),
+                eq(CacheKeyBuilder.constructMappingIndexKey(SAMPLE_MAPPING_ID)));
+        verify(cacheRepository, times(1)).set(eq(CacheKeyBuilder.constructSensorInfoKey(SAMPLE_SENSOR_ID, SAMPLE_VIRTUAL_CAPABILITY_ID)),
+                any(SensorInfo.class), eq(SensorInfo.class), eq(CacheKeyBuilder.constructSensorIndexKey(SAMPLE_SENSOR_ID)));
     }
 
     @Test
@@ -204,6 +376,92 @@ public class MappingHelperTest {
         mappingHelper.getSensorMapping(SAMPLE_SENSOR_ID, SAMPLE_VIRTUAL_CAPABILITY_ID);
     }
 
+    @Test
+    public void testSnapshotInfo() {
+        MappingSnapshot mappingSnapshot = mock(MappingSnapshot.class);
+        MappingHelper snapshotMappingHelper = new MappingHelper(mappingServiceLookup, cacheRepository, adxTableManager, mappingSnapshot);
+        SensorMappingInfo expected = SensorMappingInfo.builder().sourceId(SAMPLE_SOURCE_ID).structureId(SAMPLE_STRUCTURE_ID).build();
+        doReturn(Optional.of(expected)).when(mappingSnapshot).get(eq(SAMPLE_SENSOR_ID), eq(SAMPLE_VIRTUAL_CAPABILITY_ID), any());
+
+        assertEquals(expected, snapshotMappingHelper.getSensorMapping(SAMPLE_SENSOR_ID, SAMPLE_VIRTUAL_CAPABILITY_ID));
+
+        // snapshot entries are served without resolving them through the cache or the mapping APIs
+        verifyZeroInteractions(cacheRepository, mappingServiceLookup, adxTableManager);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testSnapshotInfoValidatedAgainstVersionStamp() {
+        MappingSnapshot mappingSnapshot = mock(MappingSnapshot.class);
+        MappingHelper snapshotMappingHelper = new MappingHelper(mappingServiceLookup, cacheRepository, adxTableManager, mappingSnapshot);
+        SensorMappingInfo expected = SensorMappingInfo.builder().sourceId(SAMPLE_SOURCE_ID).structureId(SAMPLE_STRUCTURE_ID).build();
+        ArgumentCaptor<Predicate<MappingVersionStamp>> isCurrent = ArgumentCaptor.forClass(Predicate.class);
+        doReturn(Optional.of(expected)).when(mappingSnapshot).get(eq(SAMPLE_SENSOR_ID), eq(SAMPLE_VIRTUAL_CAPABILITY_ID), isCurrent.capture());
+        doReturn(Arrays.asList(Optional.of(1L), Optional.empty())).when(cacheRepository).multiGet(argThat((List<byte[]> keys) -> keys.size() == 2
+                && Arrays.equals(CacheKeyBuilder.constructSensorGenerationKey(SAMPLE_SENSOR_ID), keys.get(0))
+                && Arrays.equals(CacheKeyBuilder.constructMappingGenerationKey(SAMPLE_MAPPING_ID), keys.get(1))), eq(Long.class));
+
+        snapshotMappingHelper.getSensorMapping(SAMPLE_SENSOR_ID, SAMPLE_VIRTUAL_CAPABILITY_ID);
+
+        long sensorMappingNamespaceVersion = CacheNamespace.getDefault().getVersion(CacheKeyFamily.SENSOR_MAPPING_INFO);
+        long schemaNamespaceVersion = CacheNamespace.getDefault().getVersion(CacheKeyFamily.SCHEMA_INFO);
+        assertTrue(isCurrent.getValue().test(new MappingVersionStamp(sensorMappingNamespaceVersion, schemaNamespaceVersion, SAMPLE_MAPPING_ID, 1L, 0L)));
+        // generation of the sensor or the mapping changed
+        assertFalse(isCurrent.getValue().test(new MappingVersionStamp(sensorMappingNamespaceVersion, schemaNamespaceVersion, SAMPLE_MAPPING_ID, 0L, 0L)));
+        assertFalse(isCurrent.getValue().test(new MappingVersionStamp(sensorMappingNamespaceVersion, schemaNamespaceVersion, SAMPLE_MAPPING_ID, 1L, 1L)));
+        // namespace bumped, validated without accessing the cache
+        assertFalse(isCurrent.getValue().test(new MappingVersionStamp(sensorMappingNamespaceVersion + 1, schemaNamespaceVersion, SAMPLE_MAPPING_ID, 1L, 0L)));
+        assertFalse(isCurrent.getValue().test(new MappingVersionStamp(sensorMappingNamespaceVersion, schemaNamespaceVersion - 1, SAMPLE_MAPPING_ID, 1L, 0L)));
+        verify(cacheRepository, times(3)).multiGet(anyList(), eq(Long.class));
+
+        // not validated if the cache is unavailable
+        doThrow(new CircuitBreakerOpenException("Cache")).when(cacheRepository).multiGet(anyList(), eq(Long.class));
+        assertFalse(isCurrent.getValue().test(new MappingVersionStamp(sensorMappingNamespaceVersion, schemaNamespaceVersion, SAMPLE_MAPPING_ID, 1L, 0L)));
+    }
+
+    @Test
+    public void testResolvedInfoRecordedInSnapshot() {
+        MappingSnapshot mappingSnapshot = mock(MappingSnapshot.class);
+        MappingHelper snapshotMappingHelper = new MappingHelper(mappingServiceLookup, cacheRepository, adxTableManager, mappingSnapshot);
+        doReturn(Optional.empty()).when(mappingSnapshot).get(anyString(), anyString(), any());
+        doReturn(Optional.of(getSampleDeviceInfo())).when(cacheRepository).get(any(byte[].class), eq(SensorInfo.class));
+        doReturn(Optional.of(PropertyMappingInfoFields.toFields(getSamplePropertyMappingInfo()))).when(cacheRepository).getHash(any(byte[].class), eq(String.class));
+        doReturn(Optional.of(new SchemaWithADXStatus(getSampleSchemaInfo(), true))).when(cacheRepository).get(any(byte[].class),
+                eq(SchemaWithADXStatus.class));
+
+        SensorMappingInfo sensorMappingInfo = snapshotMappingHelper.getSensorMapping(SAMPLE_SENSOR_ID, SAMPLE_VIRTUAL_CAPABILITY_ID);
+
+        // recorded with the cache namespace versions and the generations it was resolved with
+        MappingVersionStamp versionStamp = new MappingVersionStamp(CacheNamespace.getDefault().getVersion(CacheKeyFamily.SENSOR_MAPPING_INFO),
+                CacheNamespace.getDefault().getVersion(CacheKeyFamily.SCHEMA_INFO), SAMPLE_MAPPING_ID, 0L, 0L);
+        verify(mappingSnapshot, times(1)).record(SAMPLE_SENSOR_ID, SAMPLE_VIRTUAL_CAPABILITY_ID, sensorMappingInfo, versionStamp);
+    }
+
+    @Test
+    public void testLastKnownInfoOnUnavailableCache() {
+        MappingSnapshot mappingSnapshot = mock(MappingSnapshot.class);
+        MappingHelper snapshotMappingHelper = new MappingHelper(mappingServiceLookup, cacheRepository, adxTableManager, mappingSnapshot);
+        SensorMappingInfo expected = SensorMappingInfo.builder().sourceId(SAMPLE_SOURCE_ID).structureId(SAMPLE_STRUCTURE_ID).build();
+        doReturn(Optional.empty()).when(mappingSnapshot).get(anyString(), anyString(), any());
+        doReturn(Optional.of(expected)).when(mappingSnapshot).getLastKnown(SAMPLE_SENSOR_ID, SAMPLE_VIRTUAL_CAPABILITY_ID);
+        doThrow(new CircuitBreakerOpenException("Cache")).when(cacheRepository).get(any(byte[].class), eq(SensorInfo.class));
+
+        assertEquals(expected, snapshotMappingHelper.getSensorMapping(SAMPLE_SENSOR_ID, SAMPLE_VIRTUAL_CAPABILITY_ID));
+        verifyZeroInteractions(mappingServiceLookup);
+    }
+
+    @Test
+    public void testNoLastKnownInfoOnPermanentError() {
+        MappingSnapshot mappingSnapshot = mock(MappingSnapshot.class);
+        MappingHelper snapshotMappingHelper = new MappingHelper(mappingServiceLookup, cacheRepository, adxTableManager, mappingSnapshot);
+        doReturn(Optional.empty()).when(mappingSnapshot).get(anyString(), anyString(), any());
+        doReturn(Optional.empty()).when(cacheRepository).get(any(byte[].class), eq(SensorInfo.class));
+        doThrow(new MappingLookupException("error", IdentifierUtil.empty(), false)).when(mappingServiceLookup).getSensorInfo(anyString(), anyString(), any());
+
+        expectedException.expect(MappingLookupException.class);
+        snapshotMappingHelper.getSensorMapping(SAMPLE_SENSOR_ID, SAMPLE_VIRTUAL_CAPABILITY_ID);
+    }
+
     private Optional<SensorAssignment> getSensorAssignmentCacheInfo() {
         String SAMPLE_SENSOR_ID = "sampleSensorId";
         String SAMPLE_ASSIGNMENT_ID = "sampleAssignmentId";
@@ -224,6 +482,16 @@ public class MappingHelperTest {
                 .build();
     }
 
+    private SensorMappingEntry getSampleSensorMappingEntry() {
+        return SensorMappingEntry.builder()
+                .sourceId(SAMPLE_SOURCE_ID)
+                .structureId(SAMPLE_STRUCTURE_ID)
+                .tags(getSampleTags())
+                .propertyMappings(getSamplePropertyMappings())
+                .mappingId(SAMPLE_MAPPING_ID)
+                .build();
+    }
+
     private List<Tag> getSampleTags() {
         return Arrays.asList(Tag.builder()
                 .tagSemantic(SAMPLE_TAG_SEMANTIC)
@@ -0,0 +1,256 @@
+package com.sap.iot.azure.ref.integration.commons.mapping.snapshot;
+
+import com.sap.iot.azure.ref.integration.commons.context.InvocationContextTestUtil;
+import com.sap.iot.azure.ref.integration.commons.mapping.MappingServiceConstants;
+import com.sap.iot.azure.ref.integration.commons.model.mapping.SensorMappingInfo;
+import com.sap.iot.azure.ref.integration.commons.model.mapping.cache.PropertyMapping;
+import com.sap.iot.azure.ref.integration.commons.model.mapping.cache.Tag;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MappingSnapshotTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private static final String SENSOR_ID = "sensorId";
+    private static final String VIRTUAL_CAPABILITY_ID = "virtualCapabilityId";
+    private static final long MAX_AGE_MILLIS = 60_000;
+    private static final int MAX_ENTRIES = 100;
+    private static final Instant NOW = Instant.ofEpochMilli(1_600_000_000_000L);
+    private static final MappingVersionStamp VERSION_STAMP = new MappingVersionStamp(1L, 2L, "mappingId", 3L, 4L);
+    private static final Predicate<MappingVersionStamp> CURRENT = VERSION_STAMP::equals;
+
+    private Path snapshotDirectory;
+    private Path snapshotFile;
+
+    @Before
+    public void setup() throws IOException {
+        InvocationContextTestUtil.initInvocationContext();
+        snapshotDirectory = temporaryFolder.getRoot().toPath();
+        snapshotFile = snapshotDirectory.resolve(MappingServiceConstants.MAPPING_SNAPSHOT_FILE_NAME);
+    }
+
+    @Test
+    public void testRestartServesFlushedMapping() {
+        MappingSnapshot previousInstance = snapshotAt(NOW);
+        previousInstance.record(SENSOR_ID, VIRTUAL_CAPABILITY_ID, getSampleSensorMappingInfo(), VERSION_STAMP);
+        previousInstance.flush();
+
+        MappingSnapshot restartedInstance = snapshotAt(NOW.plusMillis(MAX_AGE_MILLIS));
+        restartedInstance.load();
+
+        assertEquals(Optional.of(getSampleSensorMappingInfo()), restartedInstance.get(SENSOR_ID, VIRTUAL_CAPABILITY_ID, CURRENT));
+        assertFalse(restartedInstance.get(SENSOR_ID, "otherCapabilityId", CURRENT).isPresent());
+    }
+
+    @Test
+    public void testExpiredEntryIsNotServed() {
+        MappingSnapshot previousInstance = snapshotAt(NOW);
+        previousInstance.record(SENSOR_ID, VIRTUAL_CAPABILITY_ID, getSampleSensorMappingInfo(), VERSION_STAMP);
+        previousInstance.flush();
+
+        MappingSnapshot restartedInstance = snapshotAt(NOW.plusMillis(MAX_AGE_MILLIS + 1));
+        restartedInstance.load();
+
+        assertFalse(restartedInstance.get(SENSOR_ID, VIRTUAL_CAPABILITY_ID, CURRENT).isPresent());
+    }
+
+    @Test
+    public void testMappingResolvedByInstanceIsNotServed() {
+        MappingSnapshot previousInstance = snapshotAt(NOW);
+        previousInstance.record(SENSOR_ID, VIRTUAL_CAPABILITY_ID, getSampleSensorMappingInfo(), VERSION_STAMP);
+        previousInstance.flush();
+
+        MappingSnapshot restartedInstance = snapshotAt(NOW);
+        restartedInstance.load();
+        restartedInstance.record(SENSOR_ID, VIRTUAL_CAPABILITY_ID, getSampleSensorMappingInfo(), VERSION_STAMP);
+
+        assertFalse(restartedInstance.get(SENSOR_ID, VIRTUAL_CAPABILITY_ID, CURRENT).isPresent());
+    }
+
+    @Test
+    public void testStaleVersionStampIsNotServed() {
+        MappingSnapshot previousInstance = snapshotAt(NOW);
+        previousInstance.record(SENSOR_ID, VIRTUAL_CAPABILITY_ID, getSampleSensorMappingInfo(), VERSION_STAMP);
+        previousInstance.flush();
+
+        MappingSnapshot restartedInstance = snapshotAt(NOW);
+        restartedInstance.load();
+
+        // e.g., the mapping has been changed since the snapshot was written
+        assertFalse(restartedInstance.get(SENSOR_ID, VIRTUAL_CAPABILITY_ID, versionStamp -> false).isPresent());
+        assertTrue(restartedInstance.get(SENSOR_ID, VIRTUAL_CAPABILITY_ID, CURRENT).isPresent());
+    }
+
+    @Test
+    public void testEvictedMappingResolvedByInstanceIsNotServed() {
+        MappingSnapshot previousInstance = snapshotAt(NOW);
+        previousInstance.record(SENSOR_ID, VIRTUAL_CAPABILITY_ID, getSampleSensorMappingInfo(), VERSION_STAMP);
+        previousInstance.flush();
+
+        MappingSnapshot restartedInstance = new MappingSnapshot(true, snapshotDirectory, MAX_AGE_MILLIS, 1, Clock.fixed(NOW, ZoneOffset.UTC));
+        restartedInstance.load();
+        restartedInstance.record(SENSOR_ID, VIRTUAL_CAPABILITY_ID, getSampleSensorMappingInfo(), VERSION_STAMP);
+        // evicts the mapping resolved first
+        restartedInstance.record("otherSensorId", VIRTUAL_CAPABILITY_ID, getSampleSensorMappingInfo(), VERSION_STAMP);
+
+        assertFalse(restartedInstance.get(SENSOR_ID, VIRTUAL_CAPABILITY_ID, CURRENT).isPresent());
+        assertFalse(restartedInstance.getLastKnown(SENSOR_ID, VIRTUAL_CAPABILITY_ID).isPresent());
+
+        // nor written back with the next flush
+        restartedInstance.flush();
+        MappingSnapshot nextInstance = snapshotAt(NOW);
+        nextInstance.load();
+        assertFalse(nextInstance.get(SENSOR_ID, VIRTUAL_CAPABILITY_ID, CURRENT).isPresent());
+        assertTrue(nextInstance.get("otherSensorId", VIRTUAL_CAPABILITY_ID, CURRENT).isPresent());
+    }
+
+    @Test
+    public void testSchemasOfSameStructureAreRetained() {
+        SensorMappingInfo otherSchemaMappingInfo = SensorMappingInfo.builder()
+                .sourceId("sourceId")
+                .structureId("structureId")
+                .schemaInfo("{\"type\":\"record\",\"name\":\"B\"}")
+                .build();
+        MappingSnapshot previousInstance = snapshotAt(NOW);
+        previousInstance.record(SENSOR_ID, VIRTUAL_CAPABILITY_ID, getSampleSensorMappingInfo(), VERSION_STAMP);
+        // resolved after a schema change of the structure
+        previousInstance.record("otherSensorId", VIRTUAL_CAPABILITY_ID, otherSchemaMappingInfo, VERSION_STAMP);
+        previousInstance.record("thirdSensorId", VIRTUAL_CAPABILITY_ID, getSampleSensorMappingInfo(), VERSION_STAMP);
+        previousInstance.flush();
+
+        MappingSnapshot restartedInstance = snapshotAt(NOW);
+        restartedInstance.load();
+
+        assertEquals(Optional.of(getSampleSensorMappingInfo()), restartedInstance.get(SENSOR_ID, VIRTUAL_CAPABILITY_ID, CURRENT));
+        assertEquals(Optional.of(otherSchemaMappingInfo), restartedInstance.get("otherSensorId", VIRTUAL_CAPABILITY_ID, CURRENT));
+        assertEquals(Optional.of(getSampleSensorMappingInfo()), restartedInstance.get("thirdSensorId", VIRTUAL_CAPABILITY_ID, CURRENT));
+    }
+
+    @Test
+    public void testLoadedFileReplacedByFlush() {
+        MappingSnapshot previousInstance = snapshotAt(NOW);
+        previousInstance.record(SENSOR_ID, VIRTUAL_CAPABILITY_ID, getSampleSensorMappingInfo(), VERSION_STAMP);
+        previousInstance.flush();
+
+        MappingSnapshot restartedInstance = snapshotAt(NOW);
+        restartedInstance.load();
+        restartedInstance.record("otherSensorId", VIRTUAL_CAPABILITY_ID, getSampleSensorMappingInfo(), VERSION_STAMP);
+        restartedInstance.flush();
+
+        // the loaded snapshot is not affected by replacing its file
+        assertEquals(Optional.of(getSampleSensorMappingInfo()), restartedInstance.get(SENSOR_ID, VIRTUAL_CAPABILITY_ID, CURRENT));
+
+        MappingSnapshot nextInstance = snapshotAt(NOW);
+        nextInstance.load();
+        assertTrue(nextInstance.get(SENSOR_ID, VIRTUAL_CAPABILITY_ID, CURRENT).isPresent());
+        assertTrue(nextInstance.get("otherSensorId", VIRTUAL_CAPABILITY_ID, CURRENT).isPresent());
+    }
+
+    @Test
+    public void testNullFieldsAreRetained() {
+        SensorMappingInfo sensorMappingInfo = SensorMappingInfo.builder().sourceId("sourceId").build();
+        MappingSnapshot previousInstance = snapshotAt(NOW);
+        previousInstance.record(SENSOR_ID, VIRTUAL_CAPABILITY_ID, sensorMappingInfo, VERSION_STAMP);
+        previousInstance.flush();
+
+        MappingSnapshot restartedInstance = snapshotAt(NOW);
+        restartedInstance.load();
+
+        assertEquals(Optional.of(sensorMappingInfo), restartedInstance.get(SENSOR_ID, VIRTUAL_CAPABILITY_ID, CURRENT));
+    }
+
+    @Test
+    public void testCorruptFileIsIgnored() throws IOException {
+        Files.write(snapshotFile, new byte[]{1, 2, 3});
+
+        MappingSnapshot snapshot = snapshotAt(NOW);
+        snapshot.load();
+        assertFalse(snapshot.get(SENSOR_ID, VIRTUAL_CAPABILITY_ID, CURRENT).isPresent());
+
+        // replaced with the next flush
+        snapshot.record(SENSOR_ID, VIRTUAL_CAPABILITY_ID, getSampleSensorMappingInfo(), VERSION_STAMP);
+        snapshot.flush();
+        assertTrue(MappingSnapshotFile.open(snapshotFile).isPresent());
+    }
+
+    @Test
+    public void testLastKnownMapping() {
+        MappingSnapshot previousInstance = snapshotAt(NOW);
+        previousInstance.record(SENSOR_ID, VIRTUAL_CAPABILITY_ID, getSampleSensorMappingInfo(), VERSION_STAMP);
+        previousInstance.flush();
+
+        // served regardless of the max age
+        MappingSnapshot restartedInstance = snapshotAt(NOW.plusMillis(10 * MAX_AGE_MILLIS));
+        restartedInstance.load();
+        assertEquals(Optional.of(getSampleSensorMappingInfo()), restartedInstance.getLastKnown(SENSOR_ID, VIRTUAL_CAPABILITY_ID));
+
+        // mappings resolved by the instance take precedence
+        SensorMappingInfo resolvedSensorMappingInfo = SensorMappingInfo.builder().sourceId("resolvedSourceId").build();
+        restartedInstance.record(SENSOR_ID, VIRTUAL_CAPABILITY_ID, resolvedSensorMappingInfo, VERSION_STAMP);
+        assertEquals(Optional.of(resolvedSensorMappingInfo), restartedInstance.getLastKnown(SENSOR_ID, VIRTUAL_CAPABILITY_ID));
+    }
+
+    @Test
+    public void testInMemorySnapshot() {
+        MappingSnapshot snapshot = new MappingSnapshot(true, null, MAX_AGE_MILLIS, MAX_ENTRIES, Clock.fixed(NOW, ZoneOffset.UTC));
+        snapshot.load();
+        snapshot.record(SENSOR_ID, VIRTUAL_CAPABILITY_ID, getSampleSensorMappingInfo(), VERSION_STAMP);
+        snapshot.flush();
+
+        assertFalse(snapshot.get(SENSOR_ID, VIRTUAL_CAPABILITY_ID, CURRENT).isPresent());
+        assertEquals(Optional.of(getSampleSensorMappingInfo()), snapshot.getLastKnown(SENSOR_ID, VIRTUAL_CAPABILITY_ID));
+        assertFalse(Files.exists(snapshotFile));
+    }
+
+    @Test
+    public void testLastKnownBounded() {
+        MappingSnapshot snapshot = new MappingSnapshot(true, null, MAX_AGE_MILLIS, 1, Clock.fixed(NOW, ZoneOffset.UTC));
+        snapshot.record(SENSOR_ID, VIRTUAL_CAPABILITY_ID, getSampleSensorMappingInfo(), VERSION_STAMP);
+        snapshot.record("otherSensorId", VIRTUAL_CAPABILITY_ID, getSampleSensorMappingInfo(), VERSION_STAMP);
+
+        // the least recently used mapping is evicted
+        assertFalse(snapshot.getLastKnown(SENSOR_ID, VIRTUAL_CAPABILITY_ID).isPresent());
+        assertTrue(snapshot.getLastKnown("otherSensorId", VIRTUAL_CAPABILITY_ID).isPresent());
+    }
+
+    @Test
+    public void testDisabledSnapshot() {
+        MappingSnapshot snapshot = MappingSnapshot.disabled();
+        snapshot.record(SENSOR_ID, VIRTUAL_CAPABILITY_ID, getSampleSensorMappingInfo(), VERSION_STAMP);
+
+        assertFalse(snapshot.get(SENSOR_ID, VIRTUAL_CAPABILITY_ID, CURRENT).isPresent());
+        assertFalse(snapshot.getLastKnown(SENSOR_ID, VIRTUAL_CAPABILITY_ID).isPresent());
+    }
+
+    private MappingSnapshot snapshotAt(Instant instant) {
+        return new MappingSnapshot(true, snapshotDirectory, MAX_AGE_MILLIS, MAX_ENTRIES, Clock.fixed(instant, ZoneOffset.UTC));
+    }
+
+    private SensorMappingInfo getSampleSensorMappingInfo() {
+        return SensorMappingInfo.builder()
+                .sourceId("sourceId")
+                .structureId("structureId")
+                .tags(Collections.singletonList(new Tag("tagSemantic", "tagValue")))
+                .propertyMappings(Collections.singletonList(new PropertyMapping("structurePropertyId", "capabilityPropertyId")))
+                .schemaInfo("{\"type\":\"record\",\"name\":\"Ä\"}")
+                .build();
+    }
+}
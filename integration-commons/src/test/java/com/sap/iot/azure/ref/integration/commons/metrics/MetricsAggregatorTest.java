@@ -0,0 +1,126 @@
+package com.sap.iot.azure.ref.integration.commons.metrics;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MetricsAggregatorTest {
+
+    private final Map<String, Published> published = new HashMap<>();
+    private final MetricsAggregator aggregator = new MetricsAggregator((name, dimensions, sum, count, min, max) ->
+            published.put(dimensions.isEmpty() ? name : name + dimensions, new Published(sum, count, min, max)));
+
+    @Test
+    public void testCounter() {
+        aggregator.increment("counter", 1);
+        aggregator.increment("counter", 2);
+        aggregator.flush();
+
+        assertEquals(new Published(3, 2, 1, 2), published.get("counter"));
+    }
+
+    @Test
+    public void testGauge() {
+        aggregator.gauge("gauge", 5);
+        aggregator.gauge("gauge", 2);
+        aggregator.flush();
+
+        assertEquals(new Published(2, 1, 2, 2), published.get("gauge"));
+    }
+
+    @Test
+    public void testSummary() {
+        aggregator.record("summary", 10);
+        aggregator.record("summary", -2);
+        aggregator.record("summary", 4);
+        aggregator.flush();
+
+        assertEquals(new Published(12, 3, -2, 10), published.get("summary"));
+        assertEquals(1, published.size());
+    }
+
+    @Test
+    public void testHistogram() {
+        IntStream.rangeClosed(1, 1000).forEach(value -> aggregator.recordHistogram("latency", value));
+        aggregator.flush();
+
+        assertEquals(new Published(500500, 1000, 1, 1000), published.get("latency"));
+        assertWithinError(500, published.get("latencyP50").sum);
+        assertWithinError(950, published.get("latencyP95").sum);
+        assertWithinError(990, published.get("latencyP99").sum);
+    }
+
+    @Test
+    public void testDimensions() {
+        aggregator.record("summary", Collections.singletonMap("partition", "0"), 1);
+        aggregator.record("summary", Collections.singletonMap("partition", "1"), 2);
+        aggregator.record("summary", Collections.emptyMap(), 3);
+        aggregator.flush();
+
+        assertEquals(1, published.get("summary{partition=0}").sum);
+        assertEquals(2, published.get("summary{partition=1}").sum);
+        assertEquals(3, published.get("summary").sum);
+    }
+
+    @Test
+    public void testResetAfterFlush() {
+        aggregator.increment("counter", 1);
+        aggregator.gauge("gauge", 1);
+        aggregator.record("summary", 1);
+        aggregator.recordHistogram("histogram", 1);
+        aggregator.flush();
+        published.clear();
+
+        // metrics without values in the interval are skipped
+        aggregator.flush();
+        assertTrue(published.isEmpty());
+
+        aggregator.record("summary", 7);
+        aggregator.flush();
+        assertEquals(new Published(7, 1, 7, 7), published.get("summary"));
+    }
+
+    private static void assertWithinError(long expected, long actual) {
+        // upper bound of the bucket containing the percentile
+        assertTrue(String.format("expected %d, was %d", expected, actual), actual >= expected && actual <= expected * 1.125);
+    }
+
+    private static final class Published {
+        private final long sum;
+        private final int count;
+        private final long min;
+        private final long max;
+
+        private Published(long sum, int count, long min, long max) {
+            this.sum = sum;
+            this.count = count;
+            this.min = min;
+            this.max = max;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Published)) {
+                return false;
+            }
+            Published other = (Published) o;
+            return sum == other.sum && count == other.count && min == other.min && max == other.max;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(sum);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("sum=%d, count=%d, min=%d, max=%d", sum, count, min, max);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.sap.iot.azure.ref.integration.commons.model.mapping;
+
+import com.sap.iot.azure.ref.integration.commons.constants.CommonConstants;
+import com.sap.iot.azure.ref.integration.commons.model.mapping.cache.PropertyMapping;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class PropertyProjectionTest {
+
+    private static final long TIMESTAMP = 1000L;
+
+    @Test
+    public void testProject() {
+        PropertyProjection propertyProjection = PropertyProjection.compile(Arrays.asList(
+                propertyMapping("temperature", "capTemperature"),
+                propertyMapping("pressure", "capPressure"),
+                propertyMapping("humidity", "capHumidity")));
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("capTemperature", 21.5);
+        properties.put("capPressure", null);
+        properties.put("unmapped", 1);
+
+        Map<String, Object> measure = propertyProjection.project(TIMESTAMP, properties);
+
+        Map<String, Object> expected = new HashMap<>();
+        expected.put(CommonConstants.TIMESTAMP_PROPERTY_KEY, TIMESTAMP);
+        expected.put("temperature", 21.5);
+        expected.put("pressure", null);
+        assertEquals(expected, measure);
+        assertEquals(3, measure.size());
+        assertTrue(measure.containsKey("pressure"));
+        assertFalse(measure.containsKey("humidity"));
+        assertNull(measure.get("unmapped"));
+    }
+
+    @Test
+    public void testProjectWithoutPropertyMappings() {
+        Map<String, Object> measure = PropertyProjection.compile(null).project(TIMESTAMP, Collections.singletonMap("capTemperature", 21.5));
+
+        assertEquals(Collections.singletonMap(CommonConstants.TIMESTAMP_PROPERTY_KEY, TIMESTAMP), measure);
+    }
+
+    @Test
+    public void testProjectDuplicateStructureProperty() {
+        PropertyProjection propertyProjection = PropertyProjection.compile(Arrays.asList(
+                propertyMapping("temperature", "capTemperature1"),
+                propertyMapping("temperature", "capTemperature2"),
+                propertyMapping("temperature", "capTemperature3")));
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("capTemperature1", 1);
+        properties.put("capTemperature2", 2);
+
+        // same as applying the property mappings one after another
+        Map<String, Object> measure = propertyProjection.project(TIMESTAMP, properties);
+        assertEquals(2, measure.size());
+        assertEquals(2, measure.get("temperature"));
+        assertEquals(2, measure.entrySet().size());
+    }
+
+    @Test
+    public void testProjectTimestampOverwrittenByProperty() {
+        PropertyProjection propertyProjection = PropertyProjection.compile(Collections.singletonList(
+                propertyMapping(CommonConstants.TIMESTAMP_PROPERTY_KEY, "capTime")));
+
+        assertEquals(TIMESTAMP, propertyProjection.project(TIMESTAMP, Collections.emptyMap()).get(CommonConstants.TIMESTAMP_PROPERTY_KEY));
+        assertEquals(5L, propertyProjection.project(TIMESTAMP, Collections.singletonMap("capTime", 5L))
+                .get(CommonConstants.TIMESTAMP_PROPERTY_KEY));
+    }
+
+    @Test
+    public void testIsCompiledFrom() {
+        List<PropertyMapping> propertyMappings = Arrays.asList(propertyMapping("temperature", "capTemperature"),
+                propertyMapping("pressure", "capPressure"));
+        PropertyProjection propertyProjection = PropertyProjection.compile(propertyMappings);
+
+        assertTrue(propertyProjection.isCompiledFrom(new ArrayList<>(propertyMappings)));
+        assertFalse(propertyProjection.isCompiledFrom(Arrays.asList(propertyMapping("pressure", "capPressure"),
+                propertyMapping("temperature", "capTemperature"))));
+        assertFalse(propertyProjection.isCompiledFrom(Collections.singletonList(propertyMapping("temperature", "capTemperature"))));
+        assertFalse(propertyProjection.isCompiledFrom(null));
+        assertTrue(PropertyProjection.compile(null).isCompiledFrom(Collections.emptyList()));
+    }
+
+    private static PropertyMapping propertyMapping(String structurePropertyId, String capabilityPropertyId) {
+        return PropertyMapping.builder()
+                .structurePropertyId(structurePropertyId)
+                .capabilityPropertyId(capabilityPropertyId)
+                .build();
+    }
+}
@@ -0,0 +1,44 @@
+package com.sap.iot.azure.ref.integration.commons.retry;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RetryBudgetTest {
+
+    @Test
+    public void testBurst() {
+        RetryBudget retryBudget = new RetryBudget(10, 2);
+
+        assertTrue(retryBudget.tryRetry());
+        assertTrue(retryBudget.tryRetry());
+        assertFalse(retryBudget.tryRetry());
+    }
+
+    @Test
+    public void testDeposit() {
+        RetryBudget retryBudget = new RetryBudget(25, 1);
+        assertTrue(retryBudget.tryRetry());
+
+        // a retry per four calls
+        for (int i = 0; i < 3; i++) {
+            retryBudget.onCall();
+        }
+        assertFalse(retryBudget.tryRetry());
+
+        retryBudget.onCall();
+        assertTrue(retryBudget.tryRetry());
+    }
+
+    @Test
+    public void testCapacity() {
+        RetryBudget retryBudget = new RetryBudget(50, 2);
+        for (int i = 0; i < 100; i++) {
+            retryBudget.onCall();
+        }
+
+        assertEquals(2, retryBudget.getBalance(), 0);
+    }
+}
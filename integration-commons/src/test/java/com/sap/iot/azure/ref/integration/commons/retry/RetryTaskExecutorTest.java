@@ -4,6 +4,7 @@ import com.sap.iot.azure.ref.integration.commons.context.InvocationContextTestUt
 import com.sap.iot.azure.ref.integration.commons.exception.CommonErrorType;
 import com.sap.iot.azure.ref.integration.commons.exception.IdentifierUtil;
 import com.sap.iot.azure.ref.integration.commons.exception.base.IoTRuntimeException;
+import org.junit.AfterClass;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Rule;
@@ -14,9 +15,19 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.MockitoJUnitRunner;
 
+import com.microsoft.azure.eventhubs.EventHubException;
+import com.microsoft.azure.eventhubs.ServerBusyException;
+
+import java.time.Duration;
+import java.util.Random;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.mockito.Mockito.*;
 import static org.junit.Assert.*;
@@ -28,6 +39,7 @@ public class RetryTaskExecutorTest {
     private Callable<CompletableFuture<Void>> mockCallable;
     private RetryTaskExecutor retryTaskExecutor;
     private static final int MAX_TRIES = 4;
+    private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
 
     @Rule
     public ExpectedException thrown = ExpectedException.none();
@@ -37,6 +49,11 @@ public class RetryTaskExecutorTest {
         InvocationContextTestUtil.initInvocationContext();
     }
 
+    @AfterClass
+    public static void teardown() {
+        scheduler.shutdownNow();
+    }
+
     @Before
     public void setupTest() {
         reset(mockCallable);
@@ -124,4 +141,125 @@ public class RetryTaskExecutorTest {
 
         verify(mockCallable, times(2)).call();
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testRetryAfterDeadline() throws Exception {
+        AtomicLong clock = new AtomicLong(0);
+        RetryTaskExecutor executor = createExecutor(new RetryBudget(20, 10), clock);
+        doReturn(10).when(executor).getNextDelay(anyInt());
+        when(mockCallable.call()).thenReturn(failedFuture(new Exception("Retry failed!")));
+
+        try {
+            // the first retry after 10s would start after the deadline
+            executor.executeWithRetry(mockCallable, MAX_TRIES, Duration.ofSeconds(5)).get();
+            fail("expected failure");
+        } catch (ExecutionException ex) {
+            assertTrue(ex.getMessage().contains("Retry failed!"));
+        }
+
+        verify(mockCallable, times(1)).call();
+    }
+
+    @Test
+    public void testRetryAfterInvocationDeadline() throws Exception {
+        RetryTaskExecutor executor = spy(new RetryTaskExecutor(RetryConfig.builder().jitter(RetryJitter.NONE).deadlineSeconds(1).build(),
+                new RetryBudget(20, 10), scheduler, Runnable::run, System::nanoTime));
+        doReturn(0).when(executor).getNextDelay(anyInt());
+        when(mockCallable.call()).thenReturn(failedFuture(new Exception("Retry failed!")));
+
+        InvocationContextTestUtil.initInvocationContext();
+        try {
+            // the deadline is counted from the start of the invocation, not from the first attempt
+            Thread.sleep(1100);
+            executor.executeWithRetry(mockCallable, MAX_TRIES).get();
+            fail("expected failure");
+        } catch (ExecutionException ex) {
+            assertTrue(ex.getMessage().contains("Retry failed!"));
+        }
+
+        verify(mockCallable, times(1)).call();
+    }
+
+    @Test
+    public void testRetryBudgetExhausted() throws Exception {
+        RetryBudget retryBudget = new RetryBudget(0, 1);
+        RetryTaskExecutor executor = createExecutor(retryBudget, new AtomicLong(0));
+        doReturn(0).when(executor).getNextDelay(anyInt());
+        when(mockCallable.call()).thenReturn(failedFuture(new Exception("Retry failed!")));
+
+        try {
+            executor.executeWithRetry(mockCallable, MAX_TRIES).get();
+            fail("expected failure");
+        } catch (ExecutionException ex) {
+            assertTrue(ex.getMessage().contains("Retry failed!"));
+        }
+
+        // the budget permits a single retry
+        verify(mockCallable, times(2)).call();
+    }
+
+    @Test
+    public void testCallableThrows() throws Exception {
+        RetryTaskExecutor executor = createExecutor(new RetryBudget(20, 10), new AtomicLong(0));
+        doReturn(0).when(executor).getNextDelay(anyInt());
+        when(mockCallable.call()).thenThrow(new IllegalStateException("not ready")).thenReturn(CompletableFuture.completedFuture(null));
+
+        executor.executeWithRetry(mockCallable, MAX_TRIES).get();
+
+        verify(mockCallable, times(2)).call();
+    }
+
+    @Test
+    public void testRetryRejected() throws Exception {
+        RetryTaskExecutor executor = spy(new RetryTaskExecutor(RetryConfig.builder().jitter(RetryJitter.NONE).build(), new RetryBudget(20, 10),
+                scheduler, command -> {
+                    throw new RejectedExecutionException("saturated");
+                }, new AtomicLong(0)::get));
+        doReturn(0).when(executor).getNextDelay(anyInt());
+        when(mockCallable.call()).thenReturn(failedFuture(new Exception("Retry failed!")));
+
+        try {
+            // completes instead of waiting for a retry which is never started
+            executor.executeWithRetry(mockCallable, MAX_TRIES).get(10, TimeUnit.SECONDS);
+            fail("expected failure");
+        } catch (ExecutionException ex) {
+            assertTrue(ex.getCause() instanceof RejectedExecutionException);
+            assertEquals("Retry failed!", ex.getCause().getSuppressed()[0].getMessage());
+        }
+
+        verify(mockCallable, times(1)).call();
+    }
+
+    @Test
+    public void testIsTransient() {
+        assertTrue(RetryTaskExecutor.isTransient(new Exception("unknown")));
+        assertTrue(RetryTaskExecutor.isTransient(new ExecutionException(new ServerBusyException("busy"))));
+        assertFalse(RetryTaskExecutor.isTransient(new RuntimeException(new EventHubException(false, "permanent"))));
+        assertFalse(RetryTaskExecutor.isTransient(IoTRuntimeException.wrapNonTransient(IdentifierUtil.empty(), CommonErrorType.MAPPING_LOOKUP_ERROR,
+                "permanent", new ServerBusyException("busy"))));
+    }
+
+    @Test
+    public void testJitter() {
+        Random random = new Random(42);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(4000, RetryJitter.NONE.nextDelayMillis(4000, 0, random));
+
+            long fullDelay = RetryJitter.FULL.nextDelayMillis(4000, 0, random);
+            assertTrue(fullDelay >= 0 && fullDelay <= 4000);
+
+            long decorrelatedDelay = RetryJitter.DECORRELATED.nextDelayMillis(8000, 2000, random);
+            assertTrue(decorrelatedDelay >= 1000 && decorrelatedDelay <= 6000);
+        }
+    }
+
+    private RetryTaskExecutor createExecutor(RetryBudget retryBudget, AtomicLong clock) {
+        return spy(new RetryTaskExecutor(RetryConfig.builder().jitter(RetryJitter.NONE).build(), retryBudget, scheduler, Runnable::run, clock::get));
+    }
+
+    private static CompletableFuture<Void> failedFuture(Throwable ex) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        future.completeExceptionally(ex);
+        return future;
+    }
+}
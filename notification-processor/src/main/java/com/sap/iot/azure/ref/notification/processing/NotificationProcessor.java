@@ -1,11 +1,11 @@
 package com.sap.iot.azure.ref.notification.processing;
 
 import com.sap.iot.azure.ref.integration.commons.context.InvocationContext;
+import com.sap.iot.azure.ref.integration.commons.executor.StageExecutors;
 import com.sap.iot.azure.ref.integration.commons.retry.RetryTaskExecutor;
 import com.sap.iot.azure.ref.notification.exception.NotificationProcessException;
 import com.sap.iot.azure.ref.notification.util.Constants;
 
-import java.util.concurrent.CompletableFuture;
 import java.util.logging.Level;
 
 public interface NotificationProcessor {
@@ -19,7 +19,7 @@ public interface NotificationProcessor {
      */
     default void handleCreateWithRetry(NotificationMessage notification) {
         try {
-            retryTaskExecutor.executeWithRetry(() -> CompletableFuture.runAsync(InvocationContext.withContext(() -> handleCreate(notification))), Constants.MAX_RETRIES);
+            retryTaskExecutor.executeWithRetry(() -> StageExecutors.io().runAsync(() -> handleCreate(notification)), Constants.MAX_RETRIES);
         } catch (Exception e) {
             InvocationContext.getContext().getLogger().log(Level.WARNING, String.format("%s - Processing of create notification failed after %s retries", this.getClass().getSimpleName(), Constants.MAX_RETRIES));
         }
@@ -32,7 +32,7 @@ public interface NotificationProcessor {
      */
     default void handleUpdateWithRetry(NotificationMessage notification) {
         try {
-            retryTaskExecutor.executeWithRetry(() -> CompletableFuture.runAsync(InvocationContext.withContext(() -> handleUpdate(notification))),
+            retryTaskExecutor.executeWithRetry(() -> StageExecutors.io().runAsync(() -> handleUpdate(notification)),
                     Constants.MAX_RETRIES);
         } catch (Exception e) {
             InvocationContext.getContext().getLogger().log(Level.SEVERE, String.format("%s - Processing of update notification failed after %s " +
@@ -47,7 +47,7 @@ public interface NotificationProcessor {
      */
     default void handleDeleteWithRetry(NotificationMessage notification) {
         try {
-            retryTaskExecutor.executeWithRetry(() -> CompletableFuture.runAsync(InvocationContext.withContext(() -> handleDelete(notification))), Constants.MAX_RETRIES);
+            retryTaskExecutor.executeWithRetry(() -> StageExecutors.io().runAsync(() -> handleDelete(notification)), Constants.MAX_RETRIES);
         } catch (Exception e) {
             InvocationContext.getContext().getLogger().log(Level.SEVERE, String.format("%s - Processing of delete notification failed after %s " +
                     "retries", this.getClass().getSimpleName(), Constants.MAX_RETRIES));
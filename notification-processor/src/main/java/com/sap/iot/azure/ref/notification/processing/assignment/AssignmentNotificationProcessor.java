@@ -6,13 +6,14 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.annotations.VisibleForTesting;
 import com.sap.iot.azure.ref.integration.commons.cache.api.CacheRepository;
 import com.sap.iot.azure.ref.integration.commons.cache.redis.AzureCacheRepository;
+import com.sap.iot.azure.ref.integration.commons.cache.CacheConstants;
 import com.sap.iot.azure.ref.integration.commons.cache.CacheKeyBuilder;
 import com.sap.iot.azure.ref.integration.commons.constants.CommonConstants;
 import com.sap.iot.azure.ref.integration.commons.context.InvocationContext;
 import com.sap.iot.azure.ref.integration.commons.exception.IdentifierUtil;
-import com.sap.iot.azure.ref.integration.commons.mapping.MappingServiceConstants;
 import com.sap.iot.azure.ref.integration.commons.model.base.eventhub.SystemProperties;
 import com.sap.iot.azure.ref.integration.commons.model.mapping.cache.SensorAssignment;
+import com.sap.iot.azure.ref.integration.commons.util.EnvUtils;
 import com.sap.iot.azure.ref.notification.exception.NotificationErrorType;
 import com.sap.iot.azure.ref.notification.exception.NotificationProcessException;
 import com.sap.iot.azure.ref.notification.processing.NotificationMessage;
@@ -22,22 +23,25 @@ import com.sap.iot.azure.ref.notification.processing.model.DataEntity;
 
 import java.util.List;
 import java.util.logging.Level;
+import java.util.stream.Collectors;
 
 public class AssignmentNotificationProcessor implements NotificationProcessor {
 
     private final CacheRepository cacheRepository;
+    private final boolean indexComplete;
     private final ObjectMapper mapper = new ObjectMapper();
 
     public static final String MAPPING_ID = "MappingId";
     public static final String OBJECT_ID = "ObjectId";
 
     public AssignmentNotificationProcessor() {
-        this(new AzureCacheRepository());
+        this(new AzureCacheRepository(), EnvUtils.getEnv(CacheConstants.CACHE_INDEX_COMPLETE_PROP, CacheConstants.CACHE_INDEX_COMPLETE_DEFAULT));
     }
 
     @VisibleForTesting
-    AssignmentNotificationProcessor(CacheRepository cacheRepository) {
+    AssignmentNotificationProcessor(CacheRepository cacheRepository, boolean indexComplete) {
         this.cacheRepository = cacheRepository;
+        this.indexComplete = indexComplete;
     }
 
     /**
@@ -66,8 +70,8 @@ public class AssignmentNotificationProcessor implements NotificationProcessor {
     /**
      * Creates or deletes the cache entry depending upon the operation mentioned in changeList. The ADD operation creates a new cache entry
      * with SAP_SENSOR_{SensorId} as cache key and cache value with Assignment ID (changeEntity), Mapping ID (entityDataList),
-     * Object ID (entityDataList) and Sensor ID (partitionKey). The DELETE operation scans the cache entries using Sensor ID (partitionKey)
-     * and drops all the matching cache-keys from shared cache, if found.
+     * Object ID (entityDataList) and Sensor ID (partitionKey). The DELETE operation drops all cache entries of the Sensor ID (partitionKey)
+     * from shared cache, if found.
      *
      * @param notification required for fetching information related to creation or deletion of a sensor for an assignment.
      */
@@ -88,10 +92,7 @@ public class AssignmentNotificationProcessor implements NotificationProcessor {
                     break;
                 case DELETE:
                     //delete from cache
-                    List<String> cacheKeys = cacheRepository.scanCacheKey(MappingServiceConstants.CACHE_KEY_CREATOR_PREFIX + MappingServiceConstants.CACHE_SENSOR_KEY_PREFIX + sensorId);
-                    for (String cacheKey : cacheKeys) {
-                        cacheRepository.delete(CacheKeyBuilder.getKeyAsBytes(cacheKey));
-                    }
+                    deleteSensorCacheEntries(sensorId);
                     break;
                 default:
                     InvocationContext.getContext().getLogger().log(Level.WARNING, String.format("Unsupported operation type: %s. for message with " +
@@ -101,17 +102,30 @@ public class AssignmentNotificationProcessor implements NotificationProcessor {
     }
 
     /**
-     * Deletes the entries by scanning the cache keys using Sensor ID (partitionKey) and drops all the matching records, if found.
+     * Deletes all cache entries of the Sensor ID (partitionKey), if found. The entries are looked up from the sensor index set. If no
+     * entries have been indexed for the Sensor ID, the cache keys are scanned instead.
      *
      * @param notification required for fetching information related to deletion of all the sensor/s for an assignment.
      */
     @Override
     public void handleDelete(NotificationMessage notification) throws NotificationProcessException {
         String sensorId = getSensorIdFromPartitionKey(notification);
-        List<String> cacheKeys = cacheRepository.scanCacheKey(MappingServiceConstants.CACHE_KEY_CREATOR_PREFIX + MappingServiceConstants.CACHE_SENSOR_KEY_PREFIX + sensorId);
-        for (String cacheKey : cacheKeys) {
-            cacheRepository.delete(CacheKeyBuilder.getKeyAsBytes(cacheKey));
+        deleteSensorCacheEntries(sensorId);
+    }
+
+    private void deleteSensorCacheEntries(String sensorId) {
+        byte[] indexKey = CacheKeyBuilder.constructSensorIndexKey(sensorId);
+        // an existing index set does not reference the entries cached before index sets were maintained, scan until none are left
+        if (!cacheRepository.deleteIndexed(indexKey) || !indexComplete) {
+            for (String keyPrefix : CacheKeyBuilder.constructSensorKeyPrefixes(sensorId)) {
+                List<String> cacheKeys = cacheRepository.scanCacheKey(keyPrefix);
+                cacheRepository.multiDelete(cacheKeys.stream().map(CacheKeyBuilder::getKeyAsBytes).collect(Collectors.toList()));
+            }
         }
+
+        // composite entries resolved concurrently from the deleted entries are either not written after the increment, or deleted here
+        cacheRepository.increment(CacheKeyBuilder.constructSensorGenerationKey(sensorId));
+        cacheRepository.deleteIndexed(indexKey);
     }
 
     private void setSensorAssignmentCacheEntry(String sensorId, String assignmentId, String mappingId, String objectId) {
@@ -122,7 +136,7 @@ public class AssignmentNotificationProcessor implements NotificationProcessor {
                 .objectId(objectId)
                 .build();
         byte[] sensorCacheKey = CacheKeyBuilder.constructSensorKey(sensorId);
-        cacheRepository.set(sensorCacheKey, sensorAssignment, SensorAssignment.class);
+        cacheRepository.set(sensorCacheKey, sensorAssignment, SensorAssignment.class, CacheKeyBuilder.constructSensorIndexKey(sensorId));
     }
 
     private String getMappingIdFromDataEntityList(NotificationMessage notificationMessage) throws NotificationProcessException {
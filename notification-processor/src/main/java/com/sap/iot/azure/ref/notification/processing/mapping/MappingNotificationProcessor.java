@@ -6,16 +6,18 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.sap.iot.azure.ref.integration.commons.api.Processor;
 import com.sap.iot.azure.ref.integration.commons.cache.api.CacheRepository;
 import com.sap.iot.azure.ref.integration.commons.cache.redis.AzureCacheRepository;
+import com.sap.iot.azure.ref.integration.commons.cache.CacheConstants;
 import com.sap.iot.azure.ref.integration.commons.cache.CacheKeyBuilder;
+import com.sap.iot.azure.ref.integration.commons.cache.codec.PropertyMappingInfoFields;
 import com.sap.iot.azure.ref.integration.commons.constants.CommonConstants;
 import com.sap.iot.azure.ref.integration.commons.context.InvocationContext;
 import com.sap.iot.azure.ref.integration.commons.exception.CommonErrorType;
 import com.sap.iot.azure.ref.integration.commons.exception.IdentifierUtil;
 import com.sap.iot.azure.ref.integration.commons.exception.base.IoTRuntimeException;
-import com.sap.iot.azure.ref.integration.commons.mapping.MappingServiceConstants;
 import com.sap.iot.azure.ref.integration.commons.model.base.eventhub.SystemProperties;
 import com.sap.iot.azure.ref.integration.commons.model.mapping.cache.PropertyMapping;
 import com.sap.iot.azure.ref.integration.commons.model.mapping.cache.PropertyMappingInfo;
+import com.sap.iot.azure.ref.integration.commons.util.EnvUtils;
 import com.sap.iot.azure.ref.notification.exception.NotificationErrorType;
 import com.sap.iot.azure.ref.notification.exception.NotificationProcessException;
 import com.sap.iot.azure.ref.notification.processing.NotificationMessage;
@@ -28,28 +30,35 @@ import com.sap.iot.azure.ref.notification.processing.model.NotificationPropertyM
 import com.sap.iot.azure.ref.notification.processing.model.PropertyMappingOperation;
 
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Set;
 import java.util.logging.Level;
+import java.util.stream.Collectors;
 
 public class MappingNotificationProcessor implements NotificationProcessor {
 
     private static final ObjectMapper mapper = new ObjectMapper();
     private final CacheRepository cacheRepository;
+    private final boolean indexComplete;
 
     public MappingNotificationProcessor() {
-        this(new AzureCacheRepository());
+        this(new AzureCacheRepository(), EnvUtils.getEnv(CacheConstants.CACHE_INDEX_COMPLETE_PROP, CacheConstants.CACHE_INDEX_COMPLETE_DEFAULT));
     }
 
-    MappingNotificationProcessor(CacheRepository cacheRepository) {
+    MappingNotificationProcessor(CacheRepository cacheRepository, boolean indexComplete) {
         this.cacheRepository = cacheRepository;
+        this.indexComplete = indexComplete;
     }
 
     /**
      * handleCreate creates a new cache key using the MappingId(changeEntity), virtual capability ID (entityDataList -> providerEntity),
      * structure ID (entityDataList -> entity) and updates value by adding the measure mapping available in the additionalEntity data.
+     * Composite sensor mapping info entries derived from the mapping are invalidated.
      *
      * @param notification required for fetching information related to the mapping notification parameters.
      */
@@ -64,13 +73,16 @@ public class MappingNotificationProcessor implements NotificationProcessor {
             if (changeEntity.getType().equals(EntityType.PROVIDERIOTMAPPING)) {
                 byte[] cacheKey = CacheKeyBuilder.constructPropertyMappingInfoKey(mappingId, changeEntity.getEntity(), changeEntity.getProviderEntity());
                 addMeasureMapping(cacheKey, mappingId, changeEntity, systemProperties);
+                deleteLegacyMeasureMapping(mappingId, changeEntity);
             }
         }
+
+        invalidateSensorMappings(mappingId);
     }
 
     /**
      * handleUpdate updates the Property Mapping Info for a given cache key entry depending on the type of update
-     * operation the notification was received for.
+     * operation the notification was received for. Composite sensor mapping info entries derived from the mapping are invalidated.
      *
      * @param notification required for fetching information related to the mapping notification update.
      */
@@ -81,22 +93,42 @@ public class MappingNotificationProcessor implements NotificationProcessor {
         notification.getChangeList().forEach(changeEntity -> {
             updatePropertyMappingInfo(mappingId, changeEntity, systemProperties);
         });
+
+        invalidateSensorMappings(mappingId);
     }
 
     /**
      * handleDelete deletes the cache key entry for all entries that contain the Mapping Id (changeEntity)
      * the notification was received for.
-     * notification received
+     * The entries are looked up from the mapping index set. If no entries have been indexed for the Mapping Id, the cache keys are
+     * scanned instead. Composite sensor mapping info entries derived from the mapping are invalidated.
      *
      * @param notification required for fetching information related to the mapping notification update.
      */
     @Override
     public void handleDelete(NotificationMessage notification) throws NotificationProcessException {
-        List<String> cacheKeys = cacheRepository.scanCacheKey(MappingServiceConstants.CACHE_KEY_CREATOR_PREFIX +
-                MappingServiceConstants.CACHE_MAPPING_KEY_PREFIX + notification.getChangeEntity());
-        for (String cacheKey : cacheKeys) {
-            cacheRepository.delete(cacheKey.getBytes(StandardCharsets.UTF_8));
+        String mappingId = notification.getChangeEntity();
+        // an existing index set does not reference the entries cached before index sets were maintained, scan until none are left
+        if (!cacheRepository.deleteIndexed(CacheKeyBuilder.constructMappingIndexKey(mappingId)) || !indexComplete) {
+            for (String keyPrefix : CacheKeyBuilder.constructMappingKeyPrefixes(mappingId)) {
+                List<String> cacheKeys = cacheRepository.scanCacheKey(keyPrefix);
+                cacheRepository.multiDelete(cacheKeys.stream().map(CacheKeyBuilder::getKeyAsBytes).collect(Collectors.toList()));
+            }
         }
+
+        invalidateSensorMappings(mappingId);
+    }
+
+    /**
+     * Deletes the composite sensor mapping info entries derived from the given mapping, so that they are resolved again with the
+     * updated property mapping infos. The mapping generation is incremented first, so that composite entries resolved concurrently
+     * from the previous property mapping infos are not written afterwards.
+     *
+     * @param mappingId, mapping ID of the notification
+     */
+    private void invalidateSensorMappings(String mappingId) {
+        cacheRepository.increment(CacheKeyBuilder.constructMappingGenerationKey(mappingId));
+        cacheRepository.deleteIndexed(CacheKeyBuilder.constructSensorMappingIndexKey(mappingId));
     }
 
     private void updatePropertyMappingInfo(String mappingId, ChangeEntity changeEntity, SystemProperties systemProperties) {
@@ -118,10 +150,12 @@ public class MappingNotificationProcessor implements NotificationProcessor {
                 InvocationContext.getLogger().log(Level.WARNING, String.format("Unexpected change entity operation for message with following system " +
                         "properties: %s", systemProperties));
         }
+
+        deleteLegacyMeasureMapping(mappingId, changeEntity);
     }
 
     private void addMeasureMapping(byte[] cacheKey, String mappingId, ChangeEntity changeEntity, SystemProperties systemProperties) {
-        if (cacheRepository.get(cacheKey, PropertyMappingInfo.class).isPresent()) {
+        if (cacheRepository.getHash(cacheKey, String.class).isPresent()) {
             InvocationContext.getLogger().log(Level.WARNING, String.format("Cache entry for measure mapping exists and will be overwritten. Souce message system " +
                     "properties: %s", systemProperties));
         }
@@ -132,7 +166,8 @@ public class MappingNotificationProcessor implements NotificationProcessor {
         propertyMappingInfo.setVirtualCapabilityId(changeEntity.getProviderEntity());
         addPropertyMappings(propertyMappingInfo, changeEntity.getAdditionalEntityData(), systemProperties);
 
-        cacheRepository.set(cacheKey, propertyMappingInfo, PropertyMappingInfo.class);
+        cacheRepository.multiSetHash(Collections.singletonMap(cacheKey, PropertyMappingInfoFields.toFields(propertyMappingInfo)),
+                CacheKeyBuilder.constructMappingIndexKey(mappingId));
     }
 
     private void addPropertyMappings(PropertyMappingInfo propertyMappingInfo, List<DataEntity> entityDataList, SystemProperties systemProperties) {
@@ -158,31 +193,50 @@ public class MappingNotificationProcessor implements NotificationProcessor {
         cacheRepository.delete(cacheKey);
     }
 
+    /**
+     * Deletes the serialized property mapping info entry written by instances of previous versions, which do not read the hash entries,
+     * so that these instances fetch the changed property mapping info from the mapping APIs.
+     *
+     * @param mappingId,    mapping ID of the notification
+     * @param changeEntity, changed measure mapping
+     */
+    private void deleteLegacyMeasureMapping(String mappingId, ChangeEntity changeEntity) {
+        cacheRepository.delete(CacheKeyBuilder.constructLegacyPropertyMappingInfoKey(mappingId, changeEntity.getEntity(), changeEntity.getProviderEntity()));
+    }
+
     private void updateMeasureMapping(byte[] cacheKey, List<DataEntity> entityDataList, SystemProperties systemProperties) {
         JsonNode systemPropertiesJson = mapper.convertValue(systemProperties, JsonNode.class);
-        Optional<PropertyMappingInfo> value = cacheRepository.get(cacheKey, PropertyMappingInfo.class);
-        if (value.isPresent()) {
-            PropertyMappingInfo propertyMappingInfo = value.get();
-            for (DataEntity entityData : entityDataList) {
-
-                String errorMsg = "Unable to parse property mapping info from entity data";
-                NotificationPropertyMapping notificationPropertyMapping = getEntityDataAsPOJO(entityData, systemPropertiesJson, errorMsg);
-
-                PropertyMappingOperation operation = notificationPropertyMapping.getOperation();
-                switch (operation) {
-                    case ADD:
-                        addMeasurePropertyMapping(notificationPropertyMapping, propertyMappingInfo);
-                        break;
-                    case DELETE:
-                        deleteMeasurePropertyMapping(notificationPropertyMapping, propertyMappingInfo);
-                        break;
-                    default:
-                        InvocationContext.getLogger().log(Level.WARNING, String.format("Unexpected property mapping operation type for %s",
-                                systemProperties));
-                }
+        // single property mappings are updated in place, atomically and without reading the cache entry
+        Map<String, PropertyMapping> propertyMappingsToAdd = new LinkedHashMap<>();
+        Set<String> fieldsToDelete = new LinkedHashSet<>();
+        for (DataEntity entityData : entityDataList) {
+
+            String errorMsg = "Unable to parse property mapping info from entity data";
+            NotificationPropertyMapping notificationPropertyMapping = getEntityDataAsPOJO(entityData, systemPropertiesJson, errorMsg);
+            PropertyMapping propertyMapping = PropertyMapping.builder()
+                    .capabilityPropertyId(notificationPropertyMapping.getCapabilityPropertyId())
+                    .structurePropertyId(notificationPropertyMapping.getStructurePropertyId()).build();
+            String field = PropertyMappingInfoFields.getField(propertyMapping);
+
+            PropertyMappingOperation operation = notificationPropertyMapping.getOperation();
+            switch (operation) {
+                case ADD:
+                    fieldsToDelete.remove(field);
+                    propertyMappingsToAdd.remove(field);
+                    propertyMappingsToAdd.put(field, propertyMapping);
+                    break;
+                case DELETE:
+                    propertyMappingsToAdd.remove(field);
+                    fieldsToDelete.add(field);
+                    break;
+                default:
+                    InvocationContext.getLogger().log(Level.WARNING, String.format("Unexpected property mapping operation type for %s",
+                            systemProperties));
             }
-            cacheRepository.set(cacheKey, propertyMappingInfo, PropertyMappingInfo.class);
-        } else {
+        }
+
+        Map<String, String> fieldsToSet = PropertyMappingInfoFields.toAppendedFields(new ArrayList<>(propertyMappingsToAdd.values()));
+        if (!cacheRepository.updateHash(cacheKey, fieldsToSet, fieldsToDelete)) {
             InvocationContext.getLogger().log(Level.FINER, "Could not find Measure Mapping to update in cache for message with system");
         }
     }
@@ -197,24 +251,4 @@ public class MappingNotificationProcessor implements NotificationProcessor {
             }
         }).apply(entityData.getValue());
     }
-
-    private void addMeasurePropertyMapping(NotificationPropertyMapping notificationPropertyMapping, PropertyMappingInfo propertyMappingInfo) {
-        List<PropertyMapping> propertyMappings = propertyMappingInfo.getPropertyMappings();
-        PropertyMapping propertyMapping = PropertyMapping.builder()
-                .capabilityPropertyId(notificationPropertyMapping.getCapabilityPropertyId())
-                .structurePropertyId(notificationPropertyMapping.getStructurePropertyId()).build();
-        propertyMappings.add(propertyMapping);
-        propertyMappingInfo.setPropertyMappings(propertyMappings);
-    }
-
-    private void deleteMeasurePropertyMapping(NotificationPropertyMapping notificationPropertyMapping, PropertyMappingInfo propertyMappingInfo) {
-        List<PropertyMapping> propertyMappings = propertyMappingInfo.getPropertyMappings();
-        for (int i = propertyMappings.size() - 1; i >= 0; i--) {
-            if (propertyMappings.get(i).getCapabilityPropertyId().equals(notificationPropertyMapping.getCapabilityPropertyId())
-                    && propertyMappings.get(i).getStructurePropertyId().equals(notificationPropertyMapping.getStructurePropertyId())) {
-                propertyMappings.remove(i);
-            }
-        }
-        propertyMappingInfo.setPropertyMappings(propertyMappings);
-    }
 }
\ No newline at end of file
@@ -8,6 +8,7 @@ import com.sap.iot.azure.ref.integration.commons.cache.CacheKeyBuilder;
 import com.sap.iot.azure.ref.integration.commons.cache.api.CacheRepository;
 import com.sap.iot.azure.ref.integration.commons.cache.redis.AzureCacheRepository;
 import com.sap.iot.azure.ref.integration.commons.context.InvocationContext;
+import com.sap.iot.azure.ref.integration.commons.executor.StageExecutors;
 import com.sap.iot.azure.ref.integration.commons.mapping.MappingHelper;
 import com.sap.iot.azure.ref.integration.commons.mapping.MappingServiceLookup;
 import com.sap.iot.azure.ref.integration.commons.model.base.eventhub.SystemProperties;
@@ -21,7 +22,6 @@ import com.sap.iot.azure.ref.notification.util.ModelAbstractionToADXDataTypeMapp
 
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
-import java.util.function.Supplier;
 import java.util.logging.Level;
 
 
@@ -95,7 +95,7 @@ public class StructureNotificationProcessor implements NotificationProcessor {
         try {
             //fetch schema with retry
             String schema =
-                    retryTaskExecutor.executeWithRetry(() -> CompletableFuture.supplyAsync(InvocationContext.withContext((Supplier<String>) () -> mappingServiceLookup.getSchemaInfo(structureId))),
+                    retryTaskExecutor.executeWithRetry(() -> StageExecutors.io().supplyAsync(() -> mappingServiceLookup.getSchemaInfo(structureId)),
                             Constants.MAX_RETRIES).join();
 
             //update cache and ADX with retry
@@ -123,7 +123,7 @@ public class StructureNotificationProcessor implements NotificationProcessor {
         try {
             //1. fetch schema with retry
             String schema =
-                    retryTaskExecutor.executeWithRetry(() -> CompletableFuture.supplyAsync(InvocationContext.withContext((Supplier<String>) () -> mappingServiceLookup.getSchemaInfo(structureId))),
+                    retryTaskExecutor.executeWithRetry(() -> StageExecutors.io().supplyAsync(() -> mappingServiceLookup.getSchemaInfo(structureId)),
                             Constants.MAX_RETRIES).join();
 
             //update ADX
@@ -156,17 +156,17 @@ public class StructureNotificationProcessor implements NotificationProcessor {
     }
 
     private CompletableFuture<Void> createCacheAndTable(String structureId, String schema) {
-        return CompletableFuture.runAsync(InvocationContext.withContext(() -> {
+        return StageExecutors.io().runAsync(() -> {
             SchemaWithADXStatus schemaWithADXStatus = new SchemaWithADXStatus(schema);
 
             mappingHelper.saveSchemaInCache(structureId, schemaWithADXStatus);
             adxTableManager.checkIfExists(schema, structureId);
             mappingHelper.saveSchemaInCache(structureId, schemaWithADXStatus.withADXSyncStatus(true));
-        }));
+        });
     }
 
     private CompletableFuture<Void> updateCacheAndTable(String structureId, String schema, List<ChangeEntity> changeList, SystemProperties systemProperties) {
-        return CompletableFuture.runAsync(InvocationContext.withContext(() -> {
+        return StageExecutors.io().runAsync(() -> {
             //we always want to update the cache
             SchemaWithADXStatus schemaWithADXStatus = new SchemaWithADXStatus(schema);
             mappingHelper.saveSchemaInCache(structureId, schemaWithADXStatus);
@@ -194,7 +194,7 @@ public class StructureNotificationProcessor implements NotificationProcessor {
             adxTableManager.clearADXTableSchemaCache(structureId);
 
             mappingHelper.saveSchemaInCache(structureId, schemaWithADXStatus.withADXSyncStatus(true));
-        }));
+        });
     }
 
     private void handlePropertyAdd(String structureId, String schema) {
@@ -228,7 +228,7 @@ public class StructureNotificationProcessor implements NotificationProcessor {
     }
 
     private CompletableFuture<Void> deleteCacheAndTable(String structureId) {
-        return CompletableFuture.runAsync(InvocationContext.withContext(() -> {
+        return StageExecutors.io().runAsync(() -> {
             //remove cache entry
             cacheRepository.delete(CacheKeyBuilder.constructSchemaInfoKey(structureId));
 
@@ -240,7 +240,7 @@ public class StructureNotificationProcessor implements NotificationProcessor {
             } else {
                 adxTableManager.dropTable(structureId);
             }
-        }));
+        });
     }
 
 
@@ -16,6 +16,7 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.junit.runner.RunWith;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.MockitoJUnitRunner;
@@ -23,9 +24,13 @@ import org.mockito.junit.MockitoJUnitRunner;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -51,7 +56,7 @@ public class AssignmentNotificationProcessorTest {
 
     @Before
     public void setup() {
-        assignmentNotificationProcessor = new AssignmentNotificationProcessor(cacheRepository);
+        assignmentNotificationProcessor = new AssignmentNotificationProcessor(cacheRepository, false);
         List<String> keys = new ArrayList<>();
         keys.add(SENSOR_ID);
         Mockito.when(cacheRepository.scanCacheKey(MappingServiceConstants.CACHE_KEY_CREATOR_PREFIX + MappingServiceConstants.CACHE_SENSOR_KEY_PREFIX + SENSOR_ID)).thenReturn(keys);
@@ -64,7 +69,8 @@ public class AssignmentNotificationProcessorTest {
         notificationMessage.setSource(systemPropertiesGenerator.generateSystemProperties());
         notificationMessage.setPartitionKey(PARTITION_KEY);
         assignmentNotificationProcessor.handleCreate(notificationMessage);
-        verify(cacheRepository, times(1)).set(CacheKeyBuilder.constructSensorKey(SENSOR_ID), createSensorAssignment(), SensorAssignment.class);
+        verify(cacheRepository, times(1)).set(CacheKeyBuilder.constructSensorKey(SENSOR_ID), createSensorAssignment(), SensorAssignment.class,
+                CacheKeyBuilder.constructSensorIndexKey(SENSOR_ID));
     }
 
     @Test
@@ -74,7 +80,8 @@ public class AssignmentNotificationProcessorTest {
         notificationMessage.setSource(systemPropertiesGenerator.generateSystemProperties());
         notificationMessage.setPartitionKey(PARTITION_KEY);
         assignmentNotificationProcessor.handleUpdate(notificationMessage);
-        verify(cacheRepository, times(1)).set(CacheKeyBuilder.constructSensorKey(SENSOR_ID), createSensorAssignment(), SensorAssignment.class);
+        verify(cacheRepository, times(1)).set(CacheKeyBuilder.constructSensorKey(SENSOR_ID), createSensorAssignment(), SensorAssignment.class,
+                CacheKeyBuilder.constructSensorIndexKey(SENSOR_ID));
     }
 
     @Test
@@ -95,6 +102,40 @@ public class AssignmentNotificationProcessorTest {
         notificationMessage.setPartitionKey(PARTITION_KEY);
         assignmentNotificationProcessor.handleDelete(notificationMessage);
         verify(cacheRepository, times(1)).scanCacheKey(MappingServiceConstants.CACHE_KEY_CREATOR_PREFIX + MappingServiceConstants.CACHE_SENSOR_KEY_PREFIX + SENSOR_ID);
+        verify(cacheRepository, times(1)).multiDelete(argThat(keys -> keys.size() == 1
+                && Arrays.equals(CacheKeyBuilder.getKeyAsBytes(SENSOR_ID), keys.get(0))));
+    }
+
+    @Test
+    public void testHandleDeleteIndexed() throws IOException {
+        String message = IOUtils.toString(this.getClass().getResourceAsStream("/AssignmentNotificationDeleteMessage.json"), StandardCharsets.UTF_8);
+        notificationMessage = mapper.readValue(message, NotificationMessage.class);
+        notificationMessage.setSource(systemPropertiesGenerator.generateSystemProperties());
+        notificationMessage.setPartitionKey(PARTITION_KEY);
+        Mockito.when(cacheRepository.deleteIndexed(CacheKeyBuilder.constructSensorIndexKey(SENSOR_ID))).thenReturn(true);
+
+        new AssignmentNotificationProcessor(cacheRepository, true).handleDelete(notificationMessage);
+        // composite entries written concurrently are deleted after the sensor generation has been incremented
+        InOrder inOrder = Mockito.inOrder(cacheRepository);
+        inOrder.verify(cacheRepository).deleteIndexed(CacheKeyBuilder.constructSensorIndexKey(SENSOR_ID));
+        inOrder.verify(cacheRepository).increment(CacheKeyBuilder.constructSensorGenerationKey(SENSOR_ID));
+        inOrder.verify(cacheRepository).deleteIndexed(CacheKeyBuilder.constructSensorIndexKey(SENSOR_ID));
+        // no keyspace scan, if all entries are indexed
+        verify(cacheRepository, never()).scanCacheKey(any());
+    }
+
+    @Test
+    public void testHandleDeleteIndexedBeforeIndexComplete() throws IOException {
+        String message = IOUtils.toString(this.getClass().getResourceAsStream("/AssignmentNotificationDeleteMessage.json"), StandardCharsets.UTF_8);
+        notificationMessage = mapper.readValue(message, NotificationMessage.class);
+        notificationMessage.setSource(systemPropertiesGenerator.generateSystemProperties());
+        notificationMessage.setPartitionKey(PARTITION_KEY);
+        Mockito.when(cacheRepository.deleteIndexed(CacheKeyBuilder.constructSensorIndexKey(SENSOR_ID))).thenReturn(true);
+
+        assignmentNotificationProcessor.handleDelete(notificationMessage);
+        verify(cacheRepository, times(2)).deleteIndexed(CacheKeyBuilder.constructSensorIndexKey(SENSOR_ID));
+        // entries cached before the index sets were maintained are only found by the keyspace scan
+        verify(cacheRepository, times(1)).scanCacheKey(MappingServiceConstants.CACHE_KEY_CREATOR_PREFIX + MappingServiceConstants.CACHE_SENSOR_KEY_PREFIX + SENSOR_ID);
     }
 
     @Test
@@ -2,6 +2,7 @@ package com.sap.iot.azure.ref.notification.processing.mapping;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.sap.iot.azure.ref.integration.commons.cache.CacheKeyBuilder;
+import com.sap.iot.azure.ref.integration.commons.cache.codec.PropertyMappingInfoFields;
 import com.sap.iot.azure.ref.integration.commons.cache.api.CacheRepository;
 import com.sap.iot.azure.ref.integration.commons.mapping.MappingServiceConstants;
 import com.sap.iot.azure.ref.integration.commons.model.mapping.cache.PropertyMapping;
@@ -11,17 +12,24 @@ import org.apache.commons.io.IOUtils;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.MockitoJUnitRunner;
-import sun.nio.ch.IOUtil;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -41,7 +49,7 @@ public class MappingNotificationProcessorTest {
 
     @Before
     public void setup() throws IOException {
-        mappingNotificationProcessor = new MappingNotificationProcessor(cacheRepository);
+        mappingNotificationProcessor = new MappingNotificationProcessor(cacheRepository, false);
         propertyMappings.clear();
     }
 
@@ -54,7 +62,7 @@ public class MappingNotificationProcessorTest {
         String capabilityPropertyId = "Bearing_Temperature_M110";
         propertyMappings.add(addPropertyMapping(structurePropertyId, capabilityPropertyId));
         PropertyMappingInfo propertyMappingInfo = PropertyMappingInfo.builder().mappingId(sampleMappingId).structureId(sampleStructureId).virtualCapabilityId(sampleVirtualCapId).propertyMappings(propertyMappings).build();
-        verify(cacheRepository, times(1)).set(CacheKeyBuilder.constructPropertyMappingInfoKey(sampleMappingId, sampleStructureId, sampleVirtualCapId), propertyMappingInfo, PropertyMappingInfo.class);
+        verifyPropertyMappingInfoSet(CacheKeyBuilder.constructPropertyMappingInfoKey(sampleMappingId, sampleStructureId, sampleVirtualCapId), propertyMappingInfo);
     }
 
     @Test
@@ -70,7 +78,42 @@ public class MappingNotificationProcessorTest {
                 .thenReturn(cacheKeys);
         mappingNotificationProcessor.handleDelete(notificationMessage);
         verify(cacheRepository, times(1)).scanCacheKey(cacheKey);
-        verify(cacheRepository, times(1)).delete(cacheKey.getBytes(StandardCharsets.UTF_8));
+        // hash entries are stored under a separate key prefix
+        verify(cacheRepository, times(1)).scanCacheKey(MappingServiceConstants.CACHE_KEY_CREATOR_PREFIX
+                + MappingServiceConstants.CACHE_MAPPING_FIELDS_KEY_PREFIX + notificationMessage.getChangeEntity());
+        verify(cacheRepository, times(1)).multiDelete(argThat(keys -> keys.size() == 1
+                && Arrays.equals(cacheKey.getBytes(StandardCharsets.UTF_8), keys.get(0))));
+    }
+
+    @Test
+    public void testDeleteIndexed() throws IOException {
+        String message = IOUtils.toString(this.getClass().getResourceAsStream("/MappingNotificationDeleteMessage.json"), "UTF-8");
+        notificationMessage = mapper.readValue(message, NotificationMessage.class);
+        byte[] indexKey = CacheKeyBuilder.constructMappingIndexKey(notificationMessage.getChangeEntity());
+        Mockito.when(cacheRepository.deleteIndexed(indexKey)).thenReturn(true);
+
+        new MappingNotificationProcessor(cacheRepository, true).handleDelete(notificationMessage);
+        verify(cacheRepository, times(1)).deleteIndexed(indexKey);
+        // no keyspace scan, if all entries are indexed
+        verify(cacheRepository, never()).scanCacheKey(any());
+        // composite sensor mapping entries are invalidated as well, after the mapping generation has been incremented
+        InOrder inOrder = Mockito.inOrder(cacheRepository);
+        inOrder.verify(cacheRepository).increment(CacheKeyBuilder.constructMappingGenerationKey(notificationMessage.getChangeEntity()));
+        inOrder.verify(cacheRepository).deleteIndexed(CacheKeyBuilder.constructSensorMappingIndexKey(notificationMessage.getChangeEntity()));
+    }
+
+    @Test
+    public void testDeleteIndexedBeforeIndexComplete() throws IOException {
+        String message = IOUtils.toString(this.getClass().getResourceAsStream("/MappingNotificationDeleteMessage.json"), "UTF-8");
+        notificationMessage = mapper.readValue(message, NotificationMessage.class);
+        byte[] indexKey = CacheKeyBuilder.constructMappingIndexKey(notificationMessage.getChangeEntity());
+        Mockito.when(cacheRepository.deleteIndexed(indexKey)).thenReturn(true);
+
+        mappingNotificationProcessor.handleDelete(notificationMessage);
+        verify(cacheRepository, times(1)).deleteIndexed(indexKey);
+        // entries cached before the index sets were maintained are only found by the keyspace scan
+        verify(cacheRepository, times(1)).scanCacheKey(MappingServiceConstants.CACHE_KEY_CREATOR_PREFIX
+                + MappingServiceConstants.CACHE_MAPPING_KEY_PREFIX + notificationMessage.getChangeEntity());
     }
 
     @Test
@@ -88,44 +131,33 @@ public class MappingNotificationProcessorTest {
         notificationMessage = mapper.readValue(message, NotificationMessage.class);
         mappingNotificationProcessor.handleUpdate(notificationMessage);
 
-        verify(cacheRepository, times(1)).get(CacheKeyBuilder.constructPropertyMappingInfoKey(sampleMappingId, structureId, virtualCapId),
-                PropertyMappingInfo.class);
-        verify(cacheRepository, times(1)).set(CacheKeyBuilder.constructPropertyMappingInfoKey(sampleMappingId, structureId, virtualCapId),
-                propertyMappingInfo, PropertyMappingInfo.class);
+        verify(cacheRepository, times(1)).getHash(CacheKeyBuilder.constructPropertyMappingInfoKey(sampleMappingId, structureId, virtualCapId), String.class);
+        verifyPropertyMappingInfoSet(CacheKeyBuilder.constructPropertyMappingInfoKey(sampleMappingId, structureId, virtualCapId), propertyMappingInfo);
     }
 
     @Test
     public void testUpdateAddMeasureProperty() throws IOException {
-
-        //create mapping
-        String structurePropertyId = "Bearing_Temperature_M110";
-        String capabilityPropertyId = "Bearing_Temperature_M110";
-        propertyMappings.add(addPropertyMapping(structurePropertyId, capabilityPropertyId));
-        PropertyMappingInfo propertyMappingInfo = PropertyMappingInfo.builder().mappingId(sampleMappingId).structureId(sampleStructureId).virtualCapabilityId(sampleVirtualCapId).propertyMappings(propertyMappings).build();
+        String structurePropertyId_new = "Bearing_Temperature_M110_new";
+        String capabilityPropertyId_new = "Bearing_Temperature_M110_new";
+        String structurePropertyId_new2 = "Bearing_Temperature_M110_new2";
+        String capabilityPropertyId_new2 = "Bearing_Temperature_M110_new2";
+        List<PropertyMapping> addedPropertyMappings = Arrays.asList(addPropertyMapping(structurePropertyId_new, capabilityPropertyId_new),
+                addPropertyMapping(structurePropertyId_new2, capabilityPropertyId_new2));
 
         //update mapping with notification message
         String message = IOUtils.toString(this.getClass().getResourceAsStream("/MappingNotificationUpdateAddMeasurePropertyMessage.json"), "UTF-8");
         notificationMessage = mapper.readValue(message, NotificationMessage.class);
-        Mockito.when(cacheRepository.get(CacheKeyBuilder.constructPropertyMappingInfoKey(sampleMappingId, sampleStructureId, sampleVirtualCapId),
-                PropertyMappingInfo.class))
-                .thenReturn(java.util.Optional.ofNullable(propertyMappingInfo));
-
         mappingNotificationProcessor.handleUpdate(notificationMessage);
-        verify(cacheRepository, times(1)).get(CacheKeyBuilder.constructPropertyMappingInfoKey(sampleMappingId, sampleStructureId, sampleVirtualCapId),
-                PropertyMappingInfo.class);
-        verify(cacheRepository, times(1)).set(CacheKeyBuilder.constructPropertyMappingInfoKey(sampleMappingId, sampleStructureId, sampleVirtualCapId),
-                propertyMappingInfo, PropertyMappingInfo.class);
-
-        List<PropertyMapping> propertyMappingsUpdated = new ArrayList<>();
-        propertyMappingsUpdated.add(addPropertyMapping(structurePropertyId, capabilityPropertyId));
-        String structurePropertyId_new = "Bearing_Temperature_M110_new";
-        String capabilityPropertyId_new = "Bearing_Temperature_M110_new";
-        String structurePropertyId_new2 = "Bearing_Temperature_M110_new2";
-        String capabilityPropertyId_new2 = "Bearing_Temperature_M110_new2";
-        propertyMappingsUpdated.add(addPropertyMapping(structurePropertyId_new, capabilityPropertyId_new));
-        propertyMappingsUpdated.add(addPropertyMapping(structurePropertyId_new2, capabilityPropertyId_new2));
 
-        assertEquals(propertyMappingInfo.getPropertyMappings(),propertyMappingsUpdated);
+        //property mappings are added in place, without reading the cache entry
+        //added property mappings are positioned after the existing ones, in the order of the notification
+        verify(cacheRepository, times(1)).updateHash(eq(CacheKeyBuilder.constructPropertyMappingInfoKey(sampleMappingId, sampleStructureId, sampleVirtualCapId)),
+                argThat((Map<String, String> fieldsToSet) -> fieldsToSet.size() == 2 && addedPropertyMappings.equals(getPropertyMappings(fieldsToSet))),
+                eq(Collections.emptySet()));
+        verify(cacheRepository, never()).getHash(any(), any());
+        verify(cacheRepository, times(1)).deleteIndexed(CacheKeyBuilder.constructSensorMappingIndexKey(sampleMappingId));
+        //entries of previous versions are deleted, since these versions do not read the hash entries
+        verify(cacheRepository, times(1)).delete(CacheKeyBuilder.constructLegacyPropertyMappingInfoKey(sampleMappingId, sampleStructureId, sampleVirtualCapId));
     }
 
     @Test
@@ -142,32 +174,37 @@ public class MappingNotificationProcessorTest {
         notificationMessage = mapper.readValue(message, NotificationMessage.class);
         mappingNotificationProcessor.handleUpdate(notificationMessage);
         verify(cacheRepository, times(1)).delete(CacheKeyBuilder.constructPropertyMappingInfoKey(sampleMappingId,structureId,virtualCapId));
+        verify(cacheRepository, times(1)).delete(CacheKeyBuilder.constructLegacyPropertyMappingInfoKey(sampleMappingId,structureId,virtualCapId));
     }
 
     @Test
     public void testUpdateDeleteMeasureProperty() throws IOException {
-        //create mapping
         String structurePropertyId = "Bearing_Temperature_M110_new";
         String capabilityPropertyId = "Bearing_Temperature_M110_new";
-        propertyMappings.add(addPropertyMapping(structurePropertyId, capabilityPropertyId));
-        PropertyMappingInfo propertyMappingInfo = PropertyMappingInfo.builder().mappingId(sampleMappingId).structureId(sampleStructureId).virtualCapabilityId(sampleVirtualCapId).propertyMappings(propertyMappings).build();
 
         //update mapping with notification message
         String message = IOUtils.toString(this.getClass().getResourceAsStream("/MappingNotificationUpdateDeleteMeasurePropertyMessage.json"), "UTF-8");
         notificationMessage = mapper.readValue(message, NotificationMessage.class);
-        Mockito.when(cacheRepository.get(CacheKeyBuilder.constructPropertyMappingInfoKey(sampleMappingId, sampleStructureId, sampleVirtualCapId),
-                PropertyMappingInfo.class))
-                .thenReturn(java.util.Optional.ofNullable(propertyMappingInfo));
         mappingNotificationProcessor.handleUpdate(notificationMessage);
-        verify(cacheRepository, times(1)).get(CacheKeyBuilder.constructPropertyMappingInfoKey(sampleMappingId, sampleStructureId, sampleVirtualCapId),
-                PropertyMappingInfo.class);
-        verify(cacheRepository, times(1)).set(CacheKeyBuilder.constructPropertyMappingInfoKey(sampleMappingId, sampleStructureId, sampleVirtualCapId),
-                propertyMappingInfo, PropertyMappingInfo.class);
-
-        List<PropertyMapping> propertyMappingsUpdated = new ArrayList<>();
-        propertyMappingsUpdated.add(addPropertyMapping(structurePropertyId, capabilityPropertyId));
-        propertyMappingsUpdated.remove(addPropertyMapping(structurePropertyId, capabilityPropertyId));
-        assertEquals(propertyMappingInfo.getPropertyMappings(),propertyMappingsUpdated);
+
+        //property mappings are removed in place, without reading the cache entry
+        verify(cacheRepository, times(1)).updateHash(CacheKeyBuilder.constructPropertyMappingInfoKey(sampleMappingId, sampleStructureId, sampleVirtualCapId),
+                Collections.emptyMap(), Collections.singleton(PropertyMappingInfoFields.getField(addPropertyMapping(structurePropertyId, capabilityPropertyId))));
+        verify(cacheRepository, never()).getHash(any(), any());
+    }
+
+    private void verifyPropertyMappingInfoSet(byte[] cacheKey, PropertyMappingInfo propertyMappingInfo) {
+        verify(cacheRepository, times(1)).multiSetHash(argThat(entries -> entries.size() == 1
+                        && Arrays.equals(cacheKey, entries.keySet().iterator().next())
+                        && PropertyMappingInfoFields.toFields(propertyMappingInfo).equals(entries.values().iterator().next())),
+                eq(CacheKeyBuilder.constructMappingIndexKey(sampleMappingId)));
+    }
+
+    private List<PropertyMapping> getPropertyMappings(Map<String, String> propertyMappingFields) {
+        Map<String, String> fields = PropertyMappingInfoFields.toFields(PropertyMappingInfo.builder().mappingId(sampleMappingId)
+                .structureId(sampleStructureId).virtualCapabilityId(sampleVirtualCapId).build());
+        fields.putAll(propertyMappingFields);
+        return PropertyMappingInfoFields.fromFields(fields).getPropertyMappings();
     }
 
     private PropertyMapping addPropertyMapping(String structurePropertyId, String capabilityPropertyId) {
@@ -54,15 +54,19 @@ public class BatchPurgeTimeSeriesFunction {
 
 
         InvocationContext.setupInvocationContext(context);
-        do {
-            List<CloudQueueMessage> purgeMessages = fetchPurgeMessages();
-            purgeMessageCount = purgeMessages.size();
-            purgeTimeSeriesHandler.processMessages(purgeMessages);
-            totalMessageCount += purgeMessageCount;
-            InvocationContext.getLogger().log(Level.INFO, String.format("%s purge messages processed", purgeMessageCount));
-        } while (purgeMessageCount > 0);
+        try {
+            do {
+                List<CloudQueueMessage> purgeMessages = fetchPurgeMessages();
+                purgeMessageCount = purgeMessages.size();
+                purgeTimeSeriesHandler.processMessages(purgeMessages);
+                totalMessageCount += purgeMessageCount;
+                InvocationContext.getLogger().log(Level.INFO, String.format("%s purge messages processed", purgeMessageCount));
+            } while (purgeMessageCount > 0);
 
-        InvocationContext.getLogger().log(Level.INFO, String.format("A total of %s purge messages processed", totalMessageCount));
+            InvocationContext.getLogger().log(Level.INFO, String.format("A total of %s purge messages processed", totalMessageCount));
+        } finally {
+            InvocationContext.closeInvocationContext();
+        }
     }
 
     private List<CloudQueueMessage> fetchPurgeMessages() throws DeleteTimeSeriesException {
@@ -11,11 +11,11 @@ import com.sap.iot.azure.ref.delete.logic.DeleteTimeSeriesHandler;
 import com.sap.iot.azure.ref.delete.util.Constants;
 import com.sap.iot.azure.ref.integration.commons.constants.CommonConstants;
 import com.sap.iot.azure.ref.integration.commons.context.InvocationContext;
+import com.sap.iot.azure.ref.integration.commons.executor.StageExecutors;
 import com.sap.iot.azure.ref.integration.commons.model.base.eventhub.SystemProperties;
 import com.sap.iot.azure.ref.integration.commons.retry.RetryTaskExecutor;
 
 import java.util.Map;
-import java.util.concurrent.CompletableFuture;
 import java.util.logging.Level;
 
 import static com.sap.iot.azure.ref.integration.commons.constants.CommonConstants.OFFSET;
@@ -60,8 +60,8 @@ public class DeleteTimeSeriesFunction {
         Map<String, Object> systemPropertiesMap = SystemProperties.selectRelevantKeys(systemProperties);
         try {
             InvocationContext.setupInvocationContext(context);
-            retryTaskExecutor.executeWithRetry(() -> CompletableFuture.runAsync(InvocationContext.withContext(() ->
-                    deleteTimeSeriesHandler.processMessage(message, systemPropertiesMap))), Constants.MAX_RETRIES).join();
+            retryTaskExecutor.executeWithRetry(() -> StageExecutors.io().runAsync(() ->
+                    deleteTimeSeriesHandler.processMessage(message, systemPropertiesMap)), Constants.MAX_RETRIES).join();
             InvocationContext.getLogger().log(Level.INFO, " Notification processed");
         } catch (Exception e) {
             JsonNode messageInfo = InvocationContext.getInvocationMessageInfo(partitionContext, systemProperties);
@@ -13,6 +13,7 @@ import com.sap.iot.azure.ref.delete.util.HostConfig;
 import com.sap.iot.azure.ref.integration.commons.context.InvocationContext;
 import com.sap.iot.azure.ref.integration.commons.exception.IdentifierUtil;
 import com.sap.iot.azure.ref.integration.commons.exception.base.IoTRuntimeException;
+import com.sap.iot.azure.ref.integration.commons.logging.StructuredLog;
 import com.sap.iot.azure.ref.integration.commons.metrics.MetricsClient;
 
 import java.util.Date;
@@ -58,8 +59,8 @@ public class DeleteTimeSeriesMonitor {
                     .nextVisibleTime(nextVisibleTime.getTime()).build();
 
             InvocationContext.setupInvocationContext(context);
-            InvocationContext.getLogger().log(Level.FINE, String.format("QUEUE_MESSAGE_MONITOR: %s with message id: %s and" +
-                    "dequeue count: %s and next visible time: %s", message, messageId, dequeueCount, nextVisibleTime));
+            StructuredLog.log(Level.FINE, () -> String.format("QUEUE_MESSAGE_MONITOR: %s with message id: %s and dequeue count: %s and next " +
+                    "visible time: %s", message, messageId, dequeueCount, nextVisibleTime));
             deleteMonitoringProcessor.apply(deleteMonitoringCloudQueueMessage);
         } catch (IoTRuntimeException e) {
             if (e.isTransient()) {
@@ -81,7 +82,7 @@ public class DeleteTimeSeriesMonitor {
         Integer maxDequeueCount = hostConfig.getMaxDequeueCount();
         Integer visibilityTimeout = hostConfig.getVisibilityTimeout();
         if (dequeueCount.equals(maxDequeueCount)) {
-            MetricsClient.trackMetric(MetricsClient.getMetricName("PoisonQueueAlert"), 1);
+            MetricsClient.incrementCounter(MetricsClient.getMetricName("PoisonQueueAlert"), 1);
             throw IoTRuntimeException.wrapTransient(IdentifierUtil.getIdentifier("Message Id", messageId),
                     DeleteTimeSeriesErrorType.RUNTIME_ERROR, "Error in processing message in delete monitoring function. The message is" +
                             "now in poison queue since the maximum retries for this message is complete", e);
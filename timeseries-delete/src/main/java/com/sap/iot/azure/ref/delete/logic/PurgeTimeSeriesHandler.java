@@ -20,6 +20,7 @@ import com.sap.iot.azure.ref.integration.commons.constants.CommonConstants;
 import com.sap.iot.azure.ref.integration.commons.context.InvocationContext;
 import com.sap.iot.azure.ref.integration.commons.exception.ADXClientException;
 import com.sap.iot.azure.ref.integration.commons.exception.IdentifierUtil;
+import com.sap.iot.azure.ref.integration.commons.executor.StageExecutors;
 import com.sap.iot.azure.ref.integration.commons.model.timeseries.delete.DeleteInfo;
 import com.sap.iot.azure.ref.integration.commons.retry.RetryTaskExecutor;
 import io.cloudevents.Attributes;
@@ -32,8 +33,6 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.CompletableFuture;
-import java.util.function.Supplier;
 import java.util.logging.Level;
 
 public class PurgeTimeSeriesHandler {
@@ -129,8 +128,8 @@ public class PurgeTimeSeriesHandler {
             PurgeInfo purgeInfo = purgeEntry.getValue();
             try {
                 String operationId = retryTaskExecutor.executeWithRetry(() ->
-                                CompletableFuture.supplyAsync(InvocationContext.withContext((Supplier<String>) () ->
-                                        executePurgeQuery(purgeEntry.getKey(), purgeInfo))),
+                                StageExecutors.io().supplyAsync(() ->
+                                        executePurgeQuery(purgeEntry.getKey(), purgeInfo)),
                         Constants.MAX_RETRIES).join();
                 purgeInfo.getDeleteInfos().forEach(deleteInfo -> {
                     CloudQueueMessage storageQueueMessage = operationStorageQueueProcessor.getOperationInfoMessage(operationId,
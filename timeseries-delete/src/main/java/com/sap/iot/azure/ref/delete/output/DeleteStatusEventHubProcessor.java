@@ -11,7 +11,10 @@ import com.sap.iot.azure.ref.delete.model.cloudEvents.SapIoTAbstractionExtension
 import com.sap.iot.azure.ref.delete.util.Constants;
 import com.sap.iot.azure.ref.integration.commons.api.Processor;
 import com.sap.iot.azure.ref.integration.commons.connection.EventHubClientFactory;
+import com.sap.iot.azure.ref.integration.commons.connection.EventHubClientPool;
 import com.sap.iot.azure.ref.integration.commons.eventhub.BaseEventHubProcessor;
+import com.sap.iot.azure.ref.integration.commons.eventhub.sink.EventSink;
+import com.sap.iot.azure.ref.integration.commons.eventhub.sink.EventSinkFactory;
 import com.sap.iot.azure.ref.integration.commons.exception.IdentifierUtil;
 import com.sap.iot.azure.ref.integration.commons.exception.base.IoTRuntimeException;
 import io.cloudevents.v1.CloudEventBuilder;
@@ -31,13 +34,18 @@ import java.util.concurrent.CompletableFuture;
 public class DeleteStatusEventHubProcessor extends BaseEventHubProcessor<DeleteStatusMessage> implements Processor<DeleteStatusMessage,
         CompletableFuture<Void>> {
     private static final String CONNECTION_STRING = System.getenv(Constants.DELETE_STATUS_EVENT_HUB_CONNECTION_STRING_PROP);
+    private static final String SINK_NAME = "delete-status";
 
     protected DeleteStatusEventHubProcessor(CompletableFuture<EventHubClient> eventHubCreationFuture) {
         super(eventHubCreationFuture);
     }
 
+    private DeleteStatusEventHubProcessor(EventSink eventSink) {
+        super(eventSink);
+    }
+
     public DeleteStatusEventHubProcessor() {
-        this(new EventHubClientFactory().getEhClient(CONNECTION_STRING));
+        this(new EventSinkFactory().getSink(SINK_NAME, () -> EventHubClientPool.of(new EventHubClientFactory().getEhClient(CONNECTION_STRING))));
     }
 
     @Override